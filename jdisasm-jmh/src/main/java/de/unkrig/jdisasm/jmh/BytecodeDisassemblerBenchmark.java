@@ -0,0 +1,113 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.unkrig.commons.nullanalysis.NotNullByDefault;
+import de.unkrig.jdisasm.BytecodeDisassembler;
+import de.unkrig.jdisasm.ClassFile;
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.Disassembler;
+import de.unkrig.jdisasm.SignatureParser;
+import de.unkrig.jdisasm.SignatureParser.SignatureException;
+import de.unkrig.jdisasm.SignatureParser.TypeSignature;
+
+/**
+ * Measures {@link BytecodeDisassembler#disassembleBytecode(PrintWriter)} for all methods of a class file, i.e. the
+ * rendering of the {@code Code} attributes (without the rest of the class file).
+ */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+@State(Scope.Thread)
+public
+class BytecodeDisassemblerBenchmark {
+
+    @NotNullByDefault(false) @Param public Corpus corpus;
+
+    @NotNullByDefault(false) @Param({ "false", "true" }) public boolean symbolicLabels;
+
+    private final Disassembler          disassembler   = new Disassembler();
+    private final PrintWriter           pw             = new PrintWriter(new NullWriter());
+    private final List<Method>          methods        = new ArrayList<Method>();
+    private final List<TypeSignature[]> parameterTypes = new ArrayList<TypeSignature[]>();
+
+    @Setup public void
+    setUp() throws IOException, SignatureException {
+
+        this.disassembler.setSymbolicLabels(this.symbolicLabels);
+
+        ClassFile       cf = new ClassFile(new DataInputStream(new ByteArrayInputStream(this.corpus.getBytes())));
+        SignatureParser sp = new SignatureParser();
+        for (Method m : cf.methods) {
+            if (m.codeAttribute == null) continue;
+            this.methods.add(m);
+            this.parameterTypes.add(
+                sp.decodeMethodDescriptor(m.descriptor).parameterTypes.toArray(new TypeSignature[0])
+            );
+        }
+    }
+
+    @Benchmark public void
+    disassembleBytecode() throws IOException {
+        for (int i = 0; i < this.methods.size(); i++) {
+            Method        m  = this.methods.get(i);
+            CodeAttribute ca = m.codeAttribute;
+            assert ca != null;
+
+            new BytecodeDisassembler(
+                new ByteArrayInputStream(ca.code),
+                ca.exceptionTable,
+                ca.lineNumberTableAttribute,
+                ca.stackMapTableAttribute,
+                null,                      // sourceLines
+                m,
+                this.parameterTypes.get(i),
+                this.disassembler
+            ).disassembleBytecode(this.pw);
+        }
+    }
+}
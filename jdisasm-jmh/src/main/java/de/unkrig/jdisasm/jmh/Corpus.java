@@ -0,0 +1,93 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * The fixed set of class files that the benchmarks operate on.
+ */
+public
+enum Corpus {
+
+    /** A tiny class with two short methods. */
+    SMALL("de/unkrig/jdisasm/jmh/subject/Small.class"),
+
+    /** A class with a method that has several hundred local variables (and thus WIDE instructions). */
+    WIDE_LOCALS("subject/WideLocals.class"),
+
+    /** A class with a very long method, including TABLESWITCH, LOOKUPSWITCH and exception handlers. */
+    LARGE_METHOD("de/unkrig/jdisasm/jmh/subject/LargeMethod.class"),
+
+    /** A class with lots of generic type signatures. */
+    GENERICS_HEAVY("de/unkrig/jdisasm/jmh/subject/GenericsHeavy.class"),
+
+    /** A class with lots of lambdas and method references (INVOKEDYNAMIC and BootstrapMethods). */
+    LAMBDA_HEAVY("de/unkrig/jdisasm/jmh/subject/LambdaHeavy.class"),
+
+    // Some "real-world" classes from the runtime image.
+    JDK_STRING("java/lang/String.class"),
+    JDK_HASH_MAP("java/util/HashMap.class"),
+    JDK_CONCURRENT_HASH_MAP("java/util/concurrent/ConcurrentHashMap.class"),
+    JDK_COLLECTORS("java/util/stream/Collectors.class"),
+    ;
+
+    private final String     resourceName;
+    @Nullable private byte[] bytes;
+
+    Corpus(String resourceName) { this.resourceName = resourceName; }
+
+    /**
+     * @return The bytes of the class file, which are loaded through the system class loader on first access (and
+     *         thus also work for classes of the JRT image)
+     */
+    public synchronized byte[]
+    getBytes() throws IOException {
+
+        byte[] result = this.bytes;
+        if (result != null) return result;
+
+        InputStream is = ClassLoader.getSystemResourceAsStream(this.resourceName);
+        if (is == null) throw new IOException("Resource \"" + this.resourceName + "\" not found");
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[]                buffer = new byte[8192];
+            for (;;) {
+                int n = is.read(buffer);
+                if (n == -1) break;
+                baos.write(buffer, 0, n);
+            }
+            return (this.bytes = baos.toByteArray());
+        } finally {
+            try { is.close(); } catch (Exception e) {}
+        }
+    }
+}
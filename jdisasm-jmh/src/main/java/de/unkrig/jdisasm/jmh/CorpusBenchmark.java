@@ -0,0 +1,375 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile;
+import de.unkrig.jdisasm.Disassembler;
+
+/**
+ * Disassembles a whole corpus of class files (a directory tree, a JAR file, or the running JDK's {@code jrt:/}
+ * image) into a null sink, and reports throughput, allocation and per-class latency. Other than the JMH benchmarks,
+ * this measures a realistic mix of classes, and its numbers can be tracked over releases.
+ * <p>
+ *   The class files are read into memory before the first iteration, so the numbers do not include any I/O.
+ * </p>
+ */
+public final
+class CorpusBenchmark {
+
+    private CorpusBenchmark() {}
+
+    /**
+     * A class file that was loaded into memory.
+     */
+    private static
+    class Entry {
+
+        final String name;
+        final byte[] bytes;
+
+        Entry(String name, byte[] bytes) {
+            this.name  = name;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Discards all output, but counts the characters.
+     */
+    private static
+    class CountingNullWriter extends Writer {
+
+        long count;
+
+        // SUPPRESS CHECKSTYLE LineLength:7
+        @Override public void   write(int c)                                 { this.count++; }
+        @Override public void   write(char[] cbuf, int off, int len)         { this.count += len; }
+        @Override public void   write(String str, int off, int len)          { this.count += len; }
+        @Override public Writer append(CharSequence csq)                     { this.count += csq.length(); return this; }
+        @Override public Writer append(CharSequence csq, int start, int end) { this.count += end - start; return this; }
+        @Override public void   flush()                                      {}
+        @Override public void   close()                                      {}
+    }
+
+    /**
+     * Usage:
+     * <dl>
+     *   <dt>{@code java de.unkrig.jdisasm.jmh.CorpusBenchmark} [ <var>option</var> ] ... <var>corpus</var></dt>
+     * </dl>
+     * <p>
+     *   The <var>corpus</var> is a directory (which is searched recursively for {@code .class} files), a JAR or ZIP
+     *   file, or {@code jrt:/} (the running JDK's runtime image; requires Java 9+). A suffix like in {@code
+     *   jrt:/java.base} restricts the corpus to one module.
+     * </p>
+     * <p>
+     *   Valid options are:
+     * </p>
+     * <dl>
+     *   <dt>{@code -warmup} <var>n</var></dt>
+     *   <dd>The number of warmup iterations (default 3).</dd>
+     *   <dt>{@code -iterations} <var>n</var></dt>
+     *   <dd>The number of measured iterations (default 5).</dd>
+     *   <dt>{@code -verbose}</dt>
+     *   <dd>Disassemble with {@link Disassembler#setVerbose(boolean)}.</dd>
+     *   <dt>{@code -symbolic-labels}</dt>
+     *   <dd>Disassemble with {@link Disassembler#setSymbolicLabels(boolean)}.</dd>
+     * </dl>
+     */
+    public static void
+    main(String[] args) throws IOException {
+
+        Disassembler d          = new Disassembler();
+        int          warmup     = 3;
+        int          iterations = 5;
+        int          i;
+
+        for (i = 0; i < args.length; ++i) {
+
+            String arg = args[i];
+            if (arg.charAt(0) != '-' || arg.length() == 1) break;
+            if ("--".equals(arg)) { i++; break; }
+
+            if ("-warmup".equals(arg)) {
+                warmup = Integer.parseInt(args[++i]);
+            } else
+            if ("-iterations".equals(arg)) {
+                iterations = Integer.parseInt(args[++i]);
+            } else
+            if ("-verbose".equals(arg)) {
+                d.setVerbose(true);
+            } else
+            if ("-symbolic-labels".equals(arg)) {
+                d.setSymbolicLabels(true);
+            } else
+            if ("-help".equals(arg)) {
+                System.out.printf((
+                    ""
+                    + "Disassembles a corpus of class files to a null sink, and reports throughput,%n"
+                    + "allocation and per-class latency.%n"
+                    + "Usage:%n"
+                    + "  java %1$s [ <option> ] ... <dir> | <jar-file> | jrt:/[<module>]%n"
+                    + "Valid options are:%n"
+                    + "  -warmup <n>        Number of warmup iterations (default 3).%n"
+                    + "  -iterations <n>    Number of measured iterations (default 5).%n"
+                    + "  -verbose           Disassemble verbosely.%n"
+                    + "  -symbolic-labels   Use symbolic labels instead of offsets.%n"
+                ), CorpusBenchmark.class.getName());
+                return;
+            } else
+            {
+                System.err.println("Unrecognized command line option \"" + arg + "\"; try \"-help\".");
+                System.exit(1);
+            }
+        }
+        if (i != args.length - 1) {
+            System.err.println("Exactly one corpus must be specified; try \"-help\".");
+            System.exit(1);
+        }
+        String corpusName = args[i];
+
+        // Load the corpus into memory, and drop the classes that don't disassemble.
+        List<Entry> corpus = new ArrayList<Entry>();
+        long        size   = 0;
+        for (Entry e : CorpusBenchmark.load(corpusName)) {
+            try {
+                CorpusBenchmark.disasm(d, e.bytes, new CountingNullWriter());
+            } catch (Exception ex) {
+                System.err.println("Skipping \"" + e.name + "\": " + ex);
+                continue;
+            }
+            corpus.add(e);
+            size += e.bytes.length;
+        }
+        if (corpus.isEmpty()) {
+            System.err.println("Corpus \"" + corpusName + "\" contains no class files");
+            System.exit(1);
+        }
+        System.out.printf("Corpus %s: %,d classes, %,.1f MB%n", corpusName, corpus.size(), size / 1E6);
+
+        for (int j = 1; j <= warmup; j++) {
+            long[] latencies = new long[corpus.size()];
+            System.out.printf(
+                "Warmup %d/%d:     %s%n",
+                j,
+                warmup,
+                CorpusBenchmark.iteration(d, corpus, latencies).report(latencies)
+            );
+        }
+
+        long[] allLatencies = new long[corpus.size() * iterations];
+        Result total        = new Result();
+        for (int j = 0; j < iterations; j++) {
+            long[] latencies = new long[corpus.size()];
+            Result r         = CorpusBenchmark.iteration(d, corpus, latencies);
+            System.out.printf("Iteration %d/%d:  %s%n", j + 1, iterations, r.report(latencies));
+
+            total.add(r);
+            System.arraycopy(latencies, 0, allLatencies, j * latencies.length, latencies.length);
+        }
+        if (iterations > 0) System.out.printf("Total:           %s%n", total.report(allLatencies));
+    }
+
+    /**
+     * The aggregated measurements of one or more iterations.
+     */
+    private static
+    class Result {
+
+        int  classes;
+        long inputBytes, outputChars, nanos;
+
+        /**
+         * -1 means "allocation measurement not supported by this JVM".
+         */
+        long allocatedBytes;
+
+        void
+        add(Result that) {
+            this.classes     += that.classes;
+            this.inputBytes  += that.inputBytes;
+            this.outputChars += that.outputChars;
+            this.nanos       += that.nanos;
+            this.allocatedBytes = (
+                this.allocatedBytes == -1 || that.allocatedBytes == -1
+                ? -1
+                : this.allocatedBytes + that.allocatedBytes
+            );
+        }
+
+        /**
+         * @param latencies The per-class latencies in nanoseconds; will be sorted
+         */
+        String
+        report(long[] latencies) {
+            Arrays.sort(latencies);
+            double seconds = this.nanos / 1E9;
+            return String.format(
+                "%,9.0f classes/s, %,7.1f MB/s in, %,7.1f MB/s out, %s/class, p50 %,7.1f us, p99 %,9.1f us",
+                this.classes / seconds,
+                this.inputBytes / seconds / 1E6,
+                this.outputChars / seconds / 1E6, // One byte per char; listings are (almost) pure ASCII.
+                this.allocatedBytes == -1 ? "n/a" : String.format("%,9d B", this.allocatedBytes / this.classes),
+                CorpusBenchmark.percentile(latencies, 50) / 1E3,
+                CorpusBenchmark.percentile(latencies, 99) / 1E3
+            );
+        }
+    }
+
+    private static Result
+    iteration(Disassembler d, List<Entry> corpus, long[] latencies) throws IOException {
+
+        Result             result = new Result();
+        CountingNullWriter out    = new CountingNullWriter();
+
+        long allocatedBefore = CorpusBenchmark.allocatedBytes();
+        long start           = System.nanoTime();
+        for (int i = 0; i < latencies.length; i++) {
+            Entry e  = corpus.get(i);
+            long  t0 = System.nanoTime();
+            CorpusBenchmark.disasm(d, e.bytes, out);
+            latencies[i] = System.nanoTime() - t0;
+
+            result.inputBytes += e.bytes.length;
+        }
+        result.nanos = System.nanoTime() - start;
+        long allocatedAfter = CorpusBenchmark.allocatedBytes();
+
+        result.classes        = latencies.length;
+        result.outputChars    = out.count;
+        result.allocatedBytes = allocatedBefore == -1 ? -1 : allocatedAfter - allocatedBefore;
+        return result;
+    }
+
+    private static void
+    disasm(Disassembler d, byte[] bytes, Writer out) throws IOException {
+        d.disasm(new ClassFile(new DataInputStream(new ByteArrayInputStream(bytes))), out);
+    }
+
+    private static long
+    percentile(long[] sortedValues, int percent) {
+        return sortedValues[Math.min(sortedValues.length - 1, sortedValues.length * percent / 100)];
+    }
+
+    /**
+     * @return The number of bytes allocated by the current thread so far, or -1 iff the JVM cannot measure it
+     */
+    private static long
+    allocatedBytes() {
+        ThreadMXBean tmxb = ManagementFactory.getThreadMXBean();
+        if (!(tmxb instanceof com.sun.management.ThreadMXBean)) return -1;
+        try {
+            return ((com.sun.management.ThreadMXBean) tmxb).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } catch (UnsupportedOperationException uoe) {
+            return -1;
+        }
+    }
+
+    private static List<Entry>
+    load(String corpusName) throws IOException {
+
+        final List<Entry> result = new ArrayList<Entry>();
+
+        if (corpusName.startsWith("jrt:/")) {
+            Path root = FileSystems.getFileSystem(URI.create("jrt:/")).getPath("/modules", corpusName.substring(5));
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+                @Override public FileVisitResult
+                visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (file.toString().endsWith(".class")) {
+                        result.add(new Entry(file.toString(), Files.readAllBytes(file)));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } else
+        if (new File(corpusName).isDirectory()) {
+            CorpusBenchmark.loadDirectory(new File(corpusName), result);
+        } else
+        {
+            try (ZipFile zf = new ZipFile(corpusName)) {
+                for (Enumeration<? extends ZipEntry> en = zf.entries(); en.hasMoreElements();) {
+                    ZipEntry ze = en.nextElement();
+                    if (!ze.getName().endsWith(".class")) continue;
+                    try (InputStream is = zf.getInputStream(ze)) {
+                        result.add(new Entry(ze.getName(), CorpusBenchmark.readAll(is)));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static void
+    loadDirectory(File directory, List<Entry> result) throws IOException {
+
+        File[] members = directory.listFiles();
+        if (members == null) throw new IOException("Cannot list directory \"" + directory + "\"");
+        Arrays.sort(members);
+
+        for (File member : members) {
+            if (member.isDirectory()) {
+                CorpusBenchmark.loadDirectory(member, result);
+            } else
+            if (member.getName().endsWith(".class")) {
+                result.add(new Entry(member.getPath(), Files.readAllBytes(member.toPath())));
+            }
+        }
+    }
+
+    private static byte[]
+    readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream baos   = new ByteArrayOutputStream();
+        byte[]                buffer = new byte[8192];
+        for (int n; (n = is.read(buffer)) != -1;) baos.write(buffer, 0, n);
+        return baos.toByteArray();
+    }
+}
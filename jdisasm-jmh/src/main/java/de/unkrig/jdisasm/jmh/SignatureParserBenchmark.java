@@ -0,0 +1,113 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.unkrig.commons.nullanalysis.NotNullByDefault;
+import de.unkrig.jdisasm.ClassFile;
+import de.unkrig.jdisasm.ClassFile.Field;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ClassFile.SignatureAttribute;
+import de.unkrig.jdisasm.SignatureParser;
+import de.unkrig.jdisasm.SignatureParser.SignatureException;
+
+/**
+ * Measures the {@code SignatureParser.decode*()} methods, by decoding all descriptors and signatures of the fields
+ * and methods of a class file.
+ */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+@State(Scope.Thread)
+public
+class SignatureParserBenchmark {
+
+    @NotNullByDefault(false) @Param public Corpus corpus;
+
+    private final SignatureParser signatureParser      = new SignatureParser();
+    private final List<String>    fieldDescriptors     = new ArrayList<String>();
+    private final List<String>    methodDescriptors    = new ArrayList<String>();
+    private final List<String>    fieldTypeSignatures  = new ArrayList<String>();
+    private final List<String>    methodTypeSignatures = new ArrayList<String>();
+    private final List<String>    classSignatures      = new ArrayList<String>();
+
+    @Setup public void
+    setUp() throws IOException {
+
+        ClassFile cf = new ClassFile(new DataInputStream(new ByteArrayInputStream(this.corpus.getBytes())));
+
+        SignatureAttribute csa = cf.signatureAttribute;
+        if (csa != null) this.classSignatures.add(csa.signature);
+
+        for (Field f : cf.fields) {
+            this.fieldDescriptors.add(f.descriptor);
+            SignatureAttribute sa = f.signatureAttribute;
+            if (sa != null) this.fieldTypeSignatures.add(sa.signature);
+        }
+
+        for (Method m : cf.methods) {
+            this.methodDescriptors.add(m.descriptor);
+            SignatureAttribute sa = m.signatureAttribute;
+            if (sa != null) this.methodTypeSignatures.add(sa.signature);
+        }
+    }
+
+    @Benchmark public void
+    decodeFieldDescriptors(Blackhole bh) throws SignatureException {
+        for (String s : this.fieldDescriptors) bh.consume(this.signatureParser.decodeFieldDescriptor(s));
+    }
+
+    @Benchmark public void
+    decodeMethodDescriptors(Blackhole bh) throws SignatureException {
+        for (String s : this.methodDescriptors) bh.consume(this.signatureParser.decodeMethodDescriptor(s));
+    }
+
+    @Benchmark public void
+    decodeSignatures(Blackhole bh) throws SignatureException {
+        for (String s : this.classSignatures)      bh.consume(this.signatureParser.decodeClassSignature(s));
+        for (String s : this.fieldTypeSignatures)  bh.consume(this.signatureParser.decodeFieldTypeSignature(s));
+        for (String s : this.methodTypeSignatures) bh.consume(this.signatureParser.decodeMethodTypeSignature(s));
+    }
+}
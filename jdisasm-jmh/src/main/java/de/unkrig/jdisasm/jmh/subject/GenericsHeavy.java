@@ -0,0 +1,122 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm.jmh.subject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A benchmark subject for the disassembler with lots of type parameters, wildcards and bounds, i.e. lots of
+ * {@code Signature} attributes.
+ */
+public
+class GenericsHeavy<K extends Comparable<? super K>, V extends Collection<? extends Number>>
+implements Iterable<Entry<K, V>> {
+
+    private final Map<K, V>                     map       = new HashMap<>();
+    private final List<? super Entry<K, V>>     history   = new ArrayList<>();
+    private Comparator<? super K>               keyOrder  = Comparator.naturalOrder();
+    private Map<K, Map<String, List<int[][]>>>  auxiliary = new HashMap<>();
+
+    public <T extends V> T
+    put(K key, T value) {
+        this.map.put(key, value);
+        return value;
+    }
+
+    public <R, E extends Exception> R
+    compute(K key, BiFunction<? super K, ? super V, ? extends R> function, Class<E> exceptionType) throws E {
+        return function.apply(key, this.map.get(key));
+    }
+
+    public <A extends Comparable<A>, B extends A> Map<A, List<? extends B>>
+    group(Collection<? extends B> elements, Function<? super B, ? extends A> classifier) {
+        Map<A, List<? extends B>> result = new HashMap<>();
+        for (B element : elements) {
+            @SuppressWarnings("unchecked") List<B> list = (List<B>) result.get(classifier.apply(element));
+            if (list == null) result.put(classifier.apply(element), (list = new ArrayList<>()));
+            list.add(element);
+        }
+        return result;
+    }
+
+    public static <T extends Comparable<? super T>> T
+    max(Iterable<? extends T> elements) {
+        T result = null;
+        for (T element : elements) {
+            if (result == null || element.compareTo(result) > 0) result = element;
+        }
+        return result;
+    }
+
+    public <N extends Number & Comparable<N>> double
+    sum(Map<? extends K, ? extends Collection<? extends N>> values) {
+        double result = 0;
+        for (Collection<? extends N> c : values.values()) {
+            for (N n : c) result += n.doubleValue();
+        }
+        return result;
+    }
+
+    public Comparator<? super K>
+    getKeyOrder() { return this.keyOrder; }
+
+    public void
+    setKeyOrder(Comparator<? super K> keyOrder) { this.keyOrder = keyOrder; }
+
+    public Map<K, Map<String, List<int[][]>>>
+    getAuxiliary() { return this.auxiliary; }
+
+    public List<? super Entry<K, V>>
+    getHistory() { return this.history; }
+
+    @Override public Iterator<Entry<K, V>>
+    iterator() { return this.map.entrySet().iterator(); }
+
+    /**
+     * A nested generic class, which yields an {@code InnerClasses} attribute and an enclosing type signature.
+     */
+    public
+    class Cursor<C extends Iterator<? extends Entry<K, V>>> {
+
+        private final C delegate;
+
+        public
+        Cursor(C delegate) { this.delegate = delegate; }
+
+        public <X extends K> X
+        next(Function<? super Entry<K, V>, X> mapper) { return mapper.apply(this.delegate.next()); }
+    }
+}
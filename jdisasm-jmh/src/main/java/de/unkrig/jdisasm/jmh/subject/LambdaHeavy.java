@@ -0,0 +1,107 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm.jmh.subject;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A benchmark subject for the disassembler with lots of lambdas and method references, i.e. lots of {@code
+ * INVOKEDYNAMIC} instructions, {@code BootstrapMethods} and synthetic methods.
+ */
+public
+class LambdaHeavy {
+
+    private final List<String> words = Arrays.asList("alpha", "beta", "gamma", "delta", "epsilon");
+
+    public Map<Integer, List<String>>
+    groupByLength() {
+        return this.words.stream().collect(Collectors.groupingBy(String::length));
+    }
+
+    public String
+    joinUpperCase(Predicate<String> filter) {
+        return this.words.stream().filter(filter).map(String::toUpperCase).sorted().collect(Collectors.joining(", "));
+    }
+
+    public Optional<String>
+    longest() {
+        return this.words.stream().max(Comparator.comparingInt(String::length).thenComparing(Function.identity()));
+    }
+
+    public int
+    sumOfSquares(int n) {
+        IntUnaryOperator square = x -> x * x;
+        return IntStream.rangeClosed(1, n).map(square).filter(x -> x % 2 == 0).sum();
+    }
+
+    public List<Supplier<String>>
+    suppliers(String prefix) {
+        return this.words.stream().map(w -> (Supplier<String>) () -> prefix + w).collect(Collectors.toList());
+    }
+
+    public <T> BinaryOperator<T>
+    chooser(Comparator<? super T> comparator, boolean first) {
+        return (
+            first
+            ? (a, b) -> comparator.compare(a, b) <= 0 ? a : b
+            : (a, b) -> comparator.compare(a, b) >= 0 ? a : b
+        );
+    }
+
+    public Stream<Runnable>
+    runnables(StringBuilder sb) {
+        return Stream.of(
+            () -> sb.append('a'),
+            () -> sb.append("bc"),
+            () -> sb.append(1),
+            () -> sb.append(2L),
+            () -> sb.append(3.0),
+            sb::reverse,
+            () -> sb.setLength(0)
+        );
+    }
+
+    public Function<Integer, Function<Integer, Function<Integer, Integer>>>
+    curried() { return a -> b -> c -> a * b + c; }
+
+    public String
+    concat(int i, long l, double d, Object o) {
+        return "i=" + i + ", l=" + l + ", d=" + d + ", o=" + o;
+    }
+}
@@ -0,0 +1,127 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm.jmh.subject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+
+/**
+ * A benchmark subject for the disassembler with one very long method, which has loops, {@code TABLESWITCH}, {@code
+ * LOOKUPSWITCH} and nested exception handlers, i.e. lots of branch targets and stack map frames.
+ */
+public
+class LargeMethod {
+
+    /**
+     * A toy stack machine.
+     */
+    public long
+    interpret(int[] code, long[] locals) {
+
+        Deque<Long> stack = new ArrayDeque<>();
+        int         pc    = 0;
+        long        steps = 0;
+
+        try {
+            while (pc < code.length) {
+                steps++;
+                int opcode = code[pc++];
+                try {
+                    switch (opcode) {
+
+                    case 0:  /* NOP */                                                                      break;
+                    case 1:  stack.push((long) code[pc++]);                                                 break;
+                    case 2:  stack.push(locals[code[pc++]]);                                                break;
+                    case 3:  locals[code[pc++]] = stack.pop();                                              break;
+                    case 4:  stack.push(stack.pop() + stack.pop());                                         break;
+                    case 5:  { long b = stack.pop(), a = stack.pop(); stack.push(a - b); }                  break;
+                    case 6:  stack.push(stack.pop() * stack.pop());                                         break;
+                    case 7:  { long b = stack.pop(), a = stack.pop(); stack.push(a / b); }                  break;
+                    case 8:  { long b = stack.pop(), a = stack.pop(); stack.push(a % b); }                  break;
+                    case 9:  stack.push(-stack.pop());                                                      break;
+                    case 10: stack.push(stack.pop() & stack.pop());                                         break;
+                    case 11: stack.push(stack.pop() | stack.pop());                                         break;
+                    case 12: stack.push(stack.pop() ^ stack.pop());                                         break;
+                    case 13: { long b = stack.pop(), a = stack.pop(); stack.push(a << b); }                 break;
+                    case 14: { long b = stack.pop(), a = stack.pop(); stack.push(a >> b); }                 break;
+                    case 15: { long b = stack.pop(), a = stack.pop(); stack.push(a >>> b); }                break;
+                    case 16: stack.push(stack.peek());                                                      break;
+                    case 17: stack.pop();                                                                   break;
+                    case 18: { long b = stack.pop(), a = stack.pop(); stack.push(b); stack.push(a); }       break;
+                    case 19: pc = code[pc];                                                                 break;
+                    case 20: if (stack.pop() == 0) pc = code[pc]; else pc++;                                break;
+                    case 21: if (stack.pop() != 0) pc = code[pc]; else pc++;                                break;
+                    case 22: if (stack.pop() < 0) pc = code[pc]; else pc++;                                 break;
+                    case 23: if (stack.pop() >= 0) pc = code[pc]; else pc++;                                break;
+                    case 24: { long b = stack.pop(), a = stack.pop(); stack.push(a < b ? 1L : 0L); }        break;
+                    case 25: { long b = stack.pop(), a = stack.pop(); stack.push(a == b ? 1L : 0L); }       break;
+                    case 26: stack.push((long) Long.bitCount(stack.pop()));                                 break;
+                    case 27: stack.push((long) Long.numberOfLeadingZeros(stack.pop()));                     break;
+                    case 28: stack.push(Long.reverse(stack.pop()));                                         break;
+                    case 29: stack.push((long) Math.sqrt(stack.pop()));                                     break;
+                    case 30: stack.push(Math.abs(stack.pop()));                                             break;
+                    case 31: stack.push(Math.max(stack.pop(), stack.pop()));                                break;
+                    case 32: stack.push(Math.min(stack.pop(), stack.pop()));                                break;
+                    case 33: locals[code[pc++]]++;                                                          break;
+                    case 34: locals[code[pc++]]--;                                                          break;
+                    case 35: locals[code[pc]] += code[pc + 1]; pc += 2;                                     break;
+                    case 36: stack.push((long) (int) (long) stack.pop());                                   break;
+                    case 37: stack.push((long) (short) (long) stack.pop());                                 break;
+                    case 38: stack.push((long) (byte) (long) stack.pop());                                  break;
+                    case 39: stack.push((long) (char) (long) stack.pop());                                  break;
+                    case 40: stack.push((long) (float) (long) stack.pop());                                 break;
+                    case 41: stack.push((long) (double) (long) stack.pop());                                break;
+
+                    case 0x100: System.out.println(stack.peek());                                           break;
+                    case 0x200: if (System.in.read() == -1) return steps;                                   break;
+                    case 0x400: stack.clear();                                                              break;
+                    case 0x800: return stack.isEmpty() ? steps : stack.pop();
+                    case 0x1000: throw new IllegalStateException("Trap at " + (pc - 1));
+
+                    default:
+                        throw new IllegalArgumentException("Invalid opcode " + opcode + " at " + (pc - 1));
+                    }
+                } catch (ArithmeticException ae) {
+                    stack.push(Long.MIN_VALUE);
+                } catch (NoSuchElementException nsee) {
+                    throw new IllegalStateException("Stack underflow at " + (pc - 1), nsee);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } catch (ArrayIndexOutOfBoundsException aioobe) {
+            throw new IllegalStateException("Invalid operand at " + pc, aioobe);
+        } finally {
+            locals[0] = steps;
+        }
+
+        return steps;
+    }
+}
@@ -0,0 +1,57 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.util.List;
+
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+import de.unkrig.jdisasm.ClassFile.Field;
+import de.unkrig.jdisasm.ClassFile.Method;
+
+/**
+ * A {@link DisassemblySink} that ignores all events, and requests the decoding of all instructions. Subclasses
+ * override only the events that they are interested in.
+ */
+public abstract
+class AbstractDisassemblySink implements DisassemblySink {
+
+    // SUPPRESS CHECKSTYLE LineLength:12
+    @Override public void    beginClass(ClassFile cf) throws IOException                                                  {}
+    @Override public void    field(Field field) throws IOException                                                        {}
+    @Override public void    beginMethod(Method method) throws IOException                                                {}
+    @Override public boolean beginCode(Method method, CodeAttribute codeAttribute) throws IOException                     { return true; }
+    @Override public void    tryEnd(List<ExceptionTableEntry> entries, int pc) throws IOException                         {}
+    @Override public void    tryStart(int startPc, int endPc, int pc) throws IOException                                  {}
+    @Override public void    lineNumber(int lineNumber, int pc) throws IOException                                        {}
+    @Override public void    instruction(Instruction instruction) throws IOException                                      {}
+    @Override public void    codeFailed(Method method, CodeAttribute codeAttribute, String message) throws IOException    {}
+    @Override public void    endCode(Method method, CodeAttribute codeAttribute) throws IOException                       {}
+    @Override public void    endMethod(Method method) throws IOException                                                  {}
+    @Override public void    endClass(ClassFile cf) throws IOException                                                    {}
+}
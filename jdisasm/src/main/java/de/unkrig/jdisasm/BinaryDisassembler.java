@@ -0,0 +1,427 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.Field;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ConstantPool.ConstantClassInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDoubleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFieldrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFloatInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantIntegerInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefOrMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInvokeDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantLongInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodHandleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodTypeInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantPoolEntry;
+import de.unkrig.jdisasm.ConstantPool.ConstantStringInfo;
+
+/**
+ * Writes class files in a compact binary format, for bulk processing of large numbers of class files; use a {@link
+ * BinaryDisassemblyReader} to read it.
+ * <p>
+ *   Each class file becomes one record; all numbers are big-endian, and all strings are in the "modified UTF-8"
+ *   encoding of {@link DataOutputStream#writeUTF(String)}:
+ * </p>
+ * <pre>
+ * u4 length                                       // of the rest of the record
+ * u2 major_version, minor_version
+ * u2 constant_pool_count                          // as in the class file
+ * u2 string_count
+ * { u2 length, u1[length] bytes }[string_count]   // referenced as 1...string_count; 0 means "none"
+ * u2 constant_count                               // only those that the instructions reference
+ * { u2 cp_index, u1 tag, ... }[constant_count]    // see BinaryDisassemblyReader.CONSTANT_*
+ * u2 access_flags, this_class, super_class        // class names are string indexes
+ * u2 interfaces_count, u2[interfaces_count]
+ * u2 fields_count
+ * { u2 access_flags, name, descriptor }[fields_count]
+ * u2 methods_count
+ * {
+ *   u2 access_flags, name, descriptor, max_stack, max_locals
+ *   u4 instruction_count
+ *   u4 length                                     // of the following instructions
+ *   {
+ *     u2 pc
+ *     u2 opcode                                   // 0xc4xx for "wide" instructions
+ *     u2 operand_count
+ *     s4[operand_count] operands
+ *   }[instruction_count]
+ * }[methods_count]
+ * </pre>
+ * <p>
+ *   Each operand is a constant pool index, a local variable index, an absolute branch target or an immediate value.
+ *   A {@code tableswitch}'s operands are <var>default</var>, <var>low</var>, <var>high</var> and the targets; a
+ *   {@code lookupswitch}'s operands are <var>default</var>, <var>npairs</var> and the match/target pairs. Implicit
+ *   operands (e.g. of {@code aload_0}) and padding are omitted.
+ * </p>
+ * <p>
+ *   The buffers that assemble the records are reused, so one instance should be used for many class files. Instances
+ *   are not thread-safe.
+ * </p>
+ */
+public
+class BinaryDisassembler extends AbstractDisassemblySink {
+
+    private final OutputStream    out;
+    private final ClassFileWalker walker = new ClassFileWalker(this);
+
+    // The parts of the record currently being assembled.
+    private final ByteArrayOutputStream stringsBuffer   = new ByteArrayOutputStream();
+    private final DataOutputStream      strings         = new DataOutputStream(this.stringsBuffer);
+    private final ByteArrayOutputStream constantsBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream      constants       = new DataOutputStream(this.constantsBuffer);
+    private final ByteArrayOutputStream bodyBuffer      = new ByteArrayOutputStream();
+    private final DataOutputStream      body            = new DataOutputStream(this.bodyBuffer);
+    private final ByteArrayOutputStream codeBuffer      = new ByteArrayOutputStream();
+    private final DataOutputStream      code            = new DataOutputStream(this.codeBuffer);
+    private final ByteArrayOutputStream recordBuffer    = new ByteArrayOutputStream();
+    private final DataOutputStream      record          = new DataOutputStream(this.recordBuffer);
+
+    private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+    private boolean[]                  constantWritten = new boolean[256];
+    private int                        constantCount;
+
+    // Valid while one class file is being written.
+    @Nullable private ConstantPool constantPool;
+    private boolean                inFields;
+
+    // Valid while the code of one method is being written.
+    private int[] operands = new int[0];
+    private int   operandIndex;
+    private int   codeInstructionCount;
+
+    private int instructionCount;
+
+    public
+    BinaryDisassembler(OutputStream out) { this.out = out; }
+
+    /**
+     * Writes one record for the given class file.
+     */
+    public void
+    disasm(ClassFile cf) throws IOException { this.walker.walk(cf); }
+
+    @Override public void
+    beginClass(ClassFile cf) throws IOException {
+
+        this.stringsBuffer.reset();
+        this.constantsBuffer.reset();
+        this.bodyBuffer.reset();
+        this.stringIndexes.clear();
+        this.constantCount    = 0;
+        this.instructionCount = 0;
+
+        int cpSize = cf.constantPool.getSize();
+        if (this.constantWritten.length < cpSize) {
+            this.constantWritten = new boolean[cpSize];
+        } else {
+            Arrays.fill(this.constantWritten, false);
+        }
+
+        this.constantPool = cf.constantPool;
+
+        DataOutputStream body = this.body;
+
+        body.writeShort(cf.accessFlags.intValue());
+        body.writeShort(this.string(cf.thisClass.name));
+        body.writeShort(cf.superClass == null ? 0 : this.string(cf.superClass.name));
+        body.writeShort(cf.interfaces.size());
+        for (ConstantClassInfo cci : cf.interfaces) body.writeShort(this.string(cci.name));
+
+        body.writeShort(cf.fields.size());
+        this.inFields = true;
+    }
+
+    @Override public void
+    field(Field f) throws IOException {
+        this.body.writeShort(f.accessFlags.intValue());
+        this.body.writeShort(this.string(f.name));
+        this.body.writeShort(this.string(f.descriptor));
+    }
+
+    @Override public void
+    beginMethod(Method m) throws IOException {
+
+        DataOutputStream body = this.body;
+
+        this.endFields(m.getClassFile());
+
+        body.writeShort(m.accessFlags.intValue());
+        body.writeShort(this.string(m.name));
+        body.writeShort(this.string(m.descriptor));
+
+        if (m.codeAttribute == null) {
+            body.writeShort(0);
+            body.writeShort(0);
+            body.writeInt(0);
+            body.writeInt(0);
+        }
+    }
+
+    @Override public boolean
+    beginCode(Method m, CodeAttribute ca) throws IOException {
+        this.body.writeShort(ca.maxStack);
+        this.body.writeShort(ca.maxLocals);
+        this.codeBuffer.reset();
+        this.codeInstructionCount = 0;
+        return true;
+    }
+
+    @Override public void
+    instruction(Instruction insn) throws IOException {
+
+        DataOutputStream code = this.code;
+
+        this.operands     = insn.operands;
+        this.operandIndex = 0;
+        for (OperandKind ok : insn.operandKinds) ok.accept(this.writeConstant);
+
+        code.writeShort(insn.pc);
+        code.writeShort(insn.opcode);
+        code.writeShort(insn.operandCount);
+        for (int i = 0; i < insn.operandCount; i++) code.writeInt(insn.operands[i]);
+
+        this.codeInstructionCount++;
+    }
+
+    @Override public void
+    codeFailed(Method m, CodeAttribute ca, String message) throws IOException {
+
+        // Discard the instructions before the failure.
+        this.body.writeInt(0);
+        this.body.writeInt(0);
+    }
+
+    @Override public void
+    endCode(Method m, CodeAttribute ca) throws IOException {
+        this.body.writeInt(this.codeInstructionCount);
+        this.body.writeInt(this.codeBuffer.size());
+        this.codeBuffer.writeTo(this.body);
+        this.instructionCount += this.codeInstructionCount;
+    }
+
+    @Override public void
+    endClass(ClassFile cf) throws IOException {
+
+        this.endFields(cf);
+        this.constantPool = null;
+
+        // Now that all strings and constants are known, assemble the record.
+        DataOutputStream record = this.record;
+        this.recordBuffer.reset();
+        record.writeInt(
+            8
+            + this.stringsBuffer.size()
+            + 2
+            + this.constantsBuffer.size()
+            + this.bodyBuffer.size()
+        );
+        record.writeShort(cf.majorVersion);
+        record.writeShort(cf.minorVersion);
+        record.writeShort(cf.constantPool.getSize());
+        record.writeShort(this.stringIndexes.size());
+        this.stringsBuffer.writeTo(record);
+        record.writeShort(this.constantCount);
+        this.constantsBuffer.writeTo(record);
+        this.bodyBuffer.writeTo(record);
+
+        this.recordBuffer.writeTo(this.out);
+    }
+
+    /**
+     * @return The number of instructions that the preceding {@link #disasm(ClassFile)} wrote
+     */
+    public int
+    getInstructionCount() { return this.instructionCount; }
+
+    /**
+     * Writes the "methods_count", unless that was already done.
+     */
+    private void
+    endFields(ClassFile cf) throws IOException {
+        if (!this.inFields) return;
+        this.body.writeShort(cf.methods.size());
+        this.inFields = false;
+    }
+
+    /**
+     * Takes an instruction operand from the {@link #operands}, and, iff it is a constant pool index, writes the
+     * constant.
+     */
+    private final OperandKind.Visitor<Void, IOException>
+    writeConstant = new OperandKind.Visitor<Void, IOException>() {
+
+        // SUPPRESS CHECKSTYLE LineLength:18
+        @Override @Nullable public Void visitClassFloatIntStringMethodHandleMethodTypeDynamic(OperandKind operandType)  throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitClassFloatIntStringMethodHandleMethodTypeDynamicW(OperandKind operandType) throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitDoubleLongDynamicW(OperandKind operandType)                                throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitFieldref2(OperandKind operandType)                                         throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitMethodref2(OperandKind operandType)                                        throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitInterfaceMethodref2(OperandKind operandType)                               throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitInterfaceMethodrefOrMethodref2(OperandKind operandType)                    throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitClass2(OperandKind operandType)                                            throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitDynamicCallsite(OperandKind operandType)                                   throws IOException { return this.constant(); }
+        @Override @Nullable public Void visitLocalVariableIndex1(OperandKind operandType)                                                  { return this.skip();     }
+        @Override @Nullable public Void visitLocalVariableIndex2(OperandKind operandType)                                                  { return this.skip();     }
+        @Override @Nullable public Void visitImplicitLocalVariableIndex(OperandKind operandType, int index)                                { return null;            }
+        @Override @Nullable public Void visitBranchOffset2(OperandKind operandType)                                                        { return this.skip();     }
+        @Override @Nullable public Void visitBranchOffset4(OperandKind operandType)                                                        { return this.skip();     }
+        @Override @Nullable public Void visitSignedByte(OperandKind operandType)                                                           { return this.skip();     }
+        @Override @Nullable public Void visitUnsignedByte(OperandKind operandType)                                                         { return this.skip();     }
+        @Override @Nullable public Void visitSignedShort(OperandKind operandType)                                                          { return this.skip();     }
+        @Override @Nullable public Void visitAtype(OperandKind operandType)                                                                { return this.skip();     }
+
+        // The switch instructions have no other operands.
+        @Override @Nullable public Void visitTableswitch(OperandKind operandType)  { return null; }
+        @Override @Nullable public Void visitLookupswitch(OperandKind operandType) { return null; }
+
+        @Nullable private Void
+        constant() throws IOException {
+            BinaryDisassembler.this.constant(BinaryDisassembler.this.operands[BinaryDisassembler.this.operandIndex++]);
+            return null;
+        }
+
+        @Nullable private Void
+        skip() {
+            BinaryDisassembler.this.operandIndex++;
+            return null;
+        }
+    };
+
+    /**
+     * Writes the constant pool entry with the given <var>index</var> to the {@link #constants}, unless that was
+     * already done.
+     */
+    private void
+    constant(int index) throws IOException {
+
+        if (this.constantWritten[index]) return;
+        this.constantWritten[index] = true;
+        this.constantCount++;
+
+        ConstantPool cp = this.constantPool;
+        assert cp != null;
+        ConstantPoolEntry cpe = cp.get((short) index, ConstantPoolEntry.class);
+
+        DataOutputStream constants = this.constants;
+        constants.writeShort(index);
+        if (cpe instanceof ConstantClassInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_CLASS);
+            constants.writeShort(this.string(((ConstantClassInfo) cpe).name));
+        } else
+        if (cpe instanceof ConstantFieldrefInfo) {
+            ConstantFieldrefInfo fr = (ConstantFieldrefInfo) cpe;
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_FIELDREF);
+            constants.writeShort(this.string(fr.clasS.name));
+            constants.writeShort(this.string(fr.nameAndType.name.bytes));
+            constants.writeShort(this.string(fr.nameAndType.descriptor.bytes));
+        } else
+        if (cpe instanceof ConstantInterfaceMethodrefOrMethodrefInfo) {
+            ConstantInterfaceMethodrefOrMethodrefInfo imromr = (ConstantInterfaceMethodrefOrMethodrefInfo) cpe;
+            constants.writeByte(
+                cpe instanceof ConstantInterfaceMethodrefInfo
+                ? BinaryDisassemblyReader.CONSTANT_INTERFACEMETHODREF
+                : BinaryDisassemblyReader.CONSTANT_METHODREF
+            );
+            constants.writeShort(this.string(imromr.clasS.name));
+            constants.writeShort(this.string(imromr.nameAndType.name.bytes));
+            constants.writeShort(this.string(imromr.nameAndType.descriptor.bytes));
+        } else
+        if (cpe instanceof ConstantStringInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_STRING);
+            constants.writeShort(this.string(((ConstantStringInfo) cpe).string));
+        } else
+        if (cpe instanceof ConstantIntegerInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_INTEGER);
+            constants.writeInt(((ConstantIntegerInfo) cpe).bytes);
+        } else
+        if (cpe instanceof ConstantFloatInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_FLOAT);
+            constants.writeFloat(((ConstantFloatInfo) cpe).bytes);
+        } else
+        if (cpe instanceof ConstantLongInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_LONG);
+            constants.writeLong(((ConstantLongInfo) cpe).bytes);
+        } else
+        if (cpe instanceof ConstantDoubleInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_DOUBLE);
+            constants.writeDouble(((ConstantDoubleInfo) cpe).bytes);
+        } else
+        if (cpe instanceof ConstantMethodTypeInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_METHODTYPE);
+            constants.writeShort(this.string(((ConstantMethodTypeInfo) cpe).descriptor.bytes));
+        } else
+        if (cpe instanceof ConstantDynamicInfo) {
+            ConstantDynamicInfo cdi = (ConstantDynamicInfo) cpe;
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_DYNAMIC);
+            constants.writeShort(this.string(cdi.nameAndType.name.bytes));
+            constants.writeShort(this.string(cdi.nameAndType.descriptor.bytes));
+        } else
+        if (cpe instanceof ConstantInvokeDynamicInfo) {
+            ConstantInvokeDynamicInfo cidi = (ConstantInvokeDynamicInfo) cpe;
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_INVOKEDYNAMIC);
+            constants.writeShort(this.string(cidi.nameAndType.name.bytes));
+            constants.writeShort(this.string(cidi.nameAndType.descriptor.bytes));
+        } else
+        if (cpe instanceof ConstantMethodHandleInfo) {
+            constants.writeByte(BinaryDisassemblyReader.CONSTANT_METHODHANDLE);
+            constants.writeShort(this.string(cpe.toString()));
+        } else
+        {
+            throw new ClassFileFormatException("Unexpected constant pool entry " + cpe + " at index " + index);
+        }
+    }
+
+    /**
+     * @return The index of the given string in the string table, which is extended as necessary
+     */
+    private int
+    string(String s) throws IOException {
+
+        Integer index = this.stringIndexes.get(s);
+        if (index != null) return index;
+
+        index = this.stringIndexes.size() + 1;
+        if (index > 0xffff) throw new ClassFileFormatException("Too many strings");
+        this.stringIndexes.put(s, index);
+        this.strings.writeUTF(s);
+        return index;
+    }
+}
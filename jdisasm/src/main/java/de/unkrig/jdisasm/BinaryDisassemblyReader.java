@@ -0,0 +1,384 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+/**
+ * Iterates over the records that a {@link BinaryDisassembler} wrote, without creating any objects (except for the
+ * strings that are explicitly requested through {@link #getString(int)}). The reader works like a cursor; the
+ * typical usage pattern is:
+ * <pre>
+ * BinaryDisassemblyReader r = new BinaryDisassemblyReader(bytes);
+ * while (r.nextClass()) {
+ *     while (r.nextField()) { ... r.getFieldName() ... }
+ *     while (r.nextMethod()) {
+ *         while (r.nextInstruction()) {
+ *             if (r.getOpcode() == 0xb6 &amp;&amp; r.getConstantTag(r.getOperand(0)) == CONSTANT_METHODREF) {
+ *                 ... r.getString(r.getConstantClassName(r.getOperand(0))) ...
+ *             }
+ *         }
+ *     }
+ * }
+ * </pre>
+ * <p>
+ *   Fields, methods and instructions that are not iterated are skipped efficiently. All "string" values are indexes
+ *   into the current class's string table, where 0 means "none".
+ * </p>
+ */
+public
+class BinaryDisassemblyReader {
+
+    // SUPPRESS CHECKSTYLE Javadoc:13
+    public static final int CONSTANT_CLASS              = 7;
+    public static final int CONSTANT_FIELDREF           = 9;
+    public static final int CONSTANT_METHODREF          = 10;
+    public static final int CONSTANT_INTERFACEMETHODREF = 11;
+    public static final int CONSTANT_STRING             = 8;
+    public static final int CONSTANT_INTEGER            = 3;
+    public static final int CONSTANT_FLOAT              = 4;
+    public static final int CONSTANT_LONG               = 5;
+    public static final int CONSTANT_DOUBLE             = 6;
+    public static final int CONSTANT_METHODHANDLE       = 15;
+    public static final int CONSTANT_METHODTYPE         = 16;
+    public static final int CONSTANT_DYNAMIC            = 17;
+    public static final int CONSTANT_INVOKEDYNAMIC      = 18;
+
+    private final byte[] buffer;
+    private final int    end;
+    private int          position;
+
+    // The current class.
+    private int   classEnd;
+    private int   majorVersion, minorVersion;
+    private int[] stringOffsets   = new int[64];
+    private int[] constantOffsets = new int[256]; // Indexed by constant pool index; 0 means "not present".
+    private int   accessFlags, thisClass, superClass;
+    private int   interfacesOffset, interfaceCount;
+    private int   fieldsRemaining;
+    private int   methodsRemaining = -1;          // -1 means "fields not yet skipped".
+
+    // The current field, method and instruction.
+    private int fieldOffset;
+    private int methodOffset, methodEnd = -1;
+    private int instructionsRemaining;
+    private int instructionOffset;
+
+    public
+    BinaryDisassemblyReader(byte[] buffer) { this(buffer, 0, buffer.length); }
+
+    public
+    BinaryDisassemblyReader(byte[] buffer, int offset, int length) {
+        this.buffer   = buffer;
+        this.position = offset;
+        this.end      = offset + length;
+        this.classEnd = offset;
+    }
+
+    /**
+     * Advances to the next class record, skipping what remains of the current record.
+     *
+     * @return Whether there was another class record
+     */
+    public boolean
+    nextClass() {
+
+        this.position = this.classEnd;
+        if (this.position >= this.end) return false;
+
+        this.classEnd     = this.position + 4 + this.s4(this.position);
+        this.position    += 4;
+        this.majorVersion = this.u2();
+        this.minorVersion = this.u2();
+
+        int constantPoolCount = this.u2();
+        if (this.constantOffsets.length < constantPoolCount) {
+            this.constantOffsets = new int[constantPoolCount];
+        } else {
+            for (int i = 0; i < constantPoolCount; i++) this.constantOffsets[i] = 0;
+        }
+
+        // Index the string table.
+        int stringCount = this.u2();
+        if (this.stringOffsets.length <= stringCount) this.stringOffsets = new int[stringCount + 1];
+        for (int i = 1; i <= stringCount; i++) {
+            this.stringOffsets[i] = this.position;
+            this.position        += 2 + this.u2();
+        }
+
+        // Index the constants.
+        for (int i = this.u2(); i > 0; i--) {
+            int cpIndex = this.u2();
+            this.constantOffsets[cpIndex] = this.position;
+            switch (0xff & this.buffer[this.position++]) {
+            case CONSTANT_CLASS:              this.position += 2; break;
+            case CONSTANT_FIELDREF:           this.position += 6; break;
+            case CONSTANT_METHODREF:          this.position += 6; break;
+            case CONSTANT_INTERFACEMETHODREF: this.position += 6; break;
+            case CONSTANT_STRING:             this.position += 2; break;
+            case CONSTANT_INTEGER:            this.position += 4; break;
+            case CONSTANT_FLOAT:              this.position += 4; break;
+            case CONSTANT_LONG:               this.position += 8; break;
+            case CONSTANT_DOUBLE:             this.position += 8; break;
+            case CONSTANT_METHODHANDLE:       this.position += 2; break;
+            case CONSTANT_METHODTYPE:         this.position += 2; break;
+            case CONSTANT_DYNAMIC:            this.position += 4; break;
+            case CONSTANT_INVOKEDYNAMIC:      this.position += 4; break;
+            default:
+                throw new IllegalStateException("Invalid constant tag " + this.buffer[this.position - 1]);
+            }
+        }
+
+        this.accessFlags      = this.u2();
+        this.thisClass        = this.u2();
+        this.superClass       = this.u2();
+        this.interfaceCount   = this.u2();
+        this.interfacesOffset = this.position;
+        this.position        += 2 * this.interfaceCount;
+        this.fieldsRemaining  = this.u2();
+        this.methodsRemaining = -1;
+        this.methodEnd        = -1;
+
+        this.instructionsRemaining = 0;
+
+        return true;
+    }
+
+    // SUPPRESS CHECKSTYLE Javadoc:6
+    public int getMajorVersion()   { return this.majorVersion;   }
+    public int getMinorVersion()   { return this.minorVersion;   }
+    public int getAccessFlags()    { return this.accessFlags;    }
+    public int getThisClass()      { return this.thisClass;      }
+    public int getSuperClass()     { return this.superClass;     }
+    public int getInterfaceCount() { return this.interfaceCount; }
+
+    /**
+     * @return The string index of the name of the <var>index</var>th interface of the current class
+     */
+    public int
+    getInterface(int index) { return this.u2(this.interfacesOffset + 2 * index); }
+
+    /**
+     * Advances to the next field of the current class.
+     *
+     * @return Whether there was another field
+     */
+    public boolean
+    nextField() {
+        if (this.fieldsRemaining == 0) return false;
+        this.fieldsRemaining--;
+        this.fieldOffset = this.position;
+        this.position   += 6;
+        return true;
+    }
+
+    // SUPPRESS CHECKSTYLE Javadoc:3
+    public int getFieldAccessFlags() { return this.u2(this.fieldOffset);     }
+    public int getFieldName()        { return this.u2(this.fieldOffset + 2); }
+    public int getFieldDescriptor()  { return this.u2(this.fieldOffset + 4); }
+
+    /**
+     * Advances to the next method of the current class, skipping the remaining fields and the remaining instructions
+     * of the current method.
+     *
+     * @return Whether there was another method
+     */
+    public boolean
+    nextMethod() {
+
+        if (this.methodsRemaining == -1) {
+            this.position         += 6 * this.fieldsRemaining;
+            this.fieldsRemaining   = 0;
+            this.methodsRemaining  = this.u2();
+        } else
+        if (this.methodEnd != -1) {
+            this.position = this.methodEnd;
+        }
+
+        if (this.methodsRemaining == 0) return false;
+        this.methodsRemaining--;
+
+        this.methodOffset          = this.position;
+        this.instructionsRemaining = this.s4(this.position + 10);
+        this.methodEnd             = this.position + 18 + this.s4(this.position + 14);
+        this.position             += 18;
+        return true;
+    }
+
+    // SUPPRESS CHECKSTYLE Javadoc:6
+    public int getMethodAccessFlags() { return this.u2(this.methodOffset);      }
+    public int getMethodName()        { return this.u2(this.methodOffset + 2);  }
+    public int getMethodDescriptor()  { return this.u2(this.methodOffset + 4);  }
+    public int getMaxStack()          { return this.u2(this.methodOffset + 6);  }
+    public int getMaxLocals()         { return this.u2(this.methodOffset + 8);  }
+    public int getInstructionCount()  { return this.s4(this.methodOffset + 10); }
+
+    /**
+     * Advances to the next instruction of the current method.
+     *
+     * @return Whether there was another instruction
+     */
+    public boolean
+    nextInstruction() {
+        if (this.instructionsRemaining == 0) return false;
+        this.instructionsRemaining--;
+        this.instructionOffset = this.position;
+        this.position         += 6 + 4 * this.u2(this.position + 4);
+        return true;
+    }
+
+    /**
+     * @return The code offset of the current instruction
+     */
+    public int
+    getPc() { return this.u2(this.instructionOffset); }
+
+    /**
+     * @return The opcode of the current instruction; for "wide" instructions {@code 0xc400} plus the modified opcode
+     */
+    public int
+    getOpcode() { return this.u2(this.instructionOffset + 2); }
+
+    /**
+     * @return The number of operands of the current instruction
+     */
+    public int
+    getOperandCount() { return this.u2(this.instructionOffset + 4); }
+
+    /**
+     * @return The <var>index</var>th operand of the current instruction: A constant pool index, local variable index,
+     *         absolute branch target or immediate value
+     */
+    public int
+    getOperand(int index) { return this.s4(this.instructionOffset + 6 + 4 * index); }
+
+    /**
+     * @return The tag ({@code CONSTANT_*}) of the constant with the given constant pool index, or 0 iff the current
+     *         class's instructions do not reference that constant
+     */
+    public int
+    getConstantTag(int cpIndex) {
+        int offset = cpIndex < this.constantOffsets.length ? this.constantOffsets[cpIndex] : 0;
+        return offset == 0 ? 0 : 0xff & this.buffer[offset];
+    }
+
+    /**
+     * @return The string index of the class name of a {@link #CONSTANT_CLASS}, {@link #CONSTANT_FIELDREF}, {@link
+     *         #CONSTANT_METHODREF} or {@link #CONSTANT_INTERFACEMETHODREF}
+     */
+    public int
+    getConstantClassName(int cpIndex) { return this.u2(this.constant(cpIndex)); }
+
+    /**
+     * @return The string index of the name of a {@link #CONSTANT_FIELDREF}, {@link #CONSTANT_METHODREF}, {@link
+     *         #CONSTANT_INTERFACEMETHODREF}, {@link #CONSTANT_DYNAMIC} or {@link #CONSTANT_INVOKEDYNAMIC}
+     */
+    public int
+    getConstantName(int cpIndex) {
+        int offset = this.constant(cpIndex);
+        return this.u2(this.buffer[offset - 1] >= CONSTANT_DYNAMIC ? offset : offset + 2);
+    }
+
+    /**
+     * @return The string index of the descriptor of a {@link #CONSTANT_FIELDREF}, {@link #CONSTANT_METHODREF}, {@link
+     *         #CONSTANT_INTERFACEMETHODREF}, {@link #CONSTANT_DYNAMIC}, {@link #CONSTANT_INVOKEDYNAMIC} or {@link
+     *         #CONSTANT_METHODTYPE}
+     */
+    public int
+    getConstantDescriptor(int cpIndex) {
+        int offset = this.constant(cpIndex);
+        int tag    = this.buffer[offset - 1];
+        return this.u2(tag == CONSTANT_METHODTYPE ? offset : tag >= CONSTANT_DYNAMIC ? offset + 2 : offset + 4);
+    }
+
+    /**
+     * @return The string index of the value of a {@link #CONSTANT_STRING}, or of the textual representation of a
+     *         {@link #CONSTANT_METHODHANDLE}
+     */
+    public int
+    getConstantString(int cpIndex) { return this.u2(this.constant(cpIndex)); }
+
+    // SUPPRESS CHECKSTYLE Javadoc:4
+    public int    getConstantInteger(int cpIndex) { return this.s4(this.constant(cpIndex));                         }
+    public float  getConstantFloat(int cpIndex)   { return Float.intBitsToFloat(this.s4(this.constant(cpIndex)));   }
+    public long   getConstantLong(int cpIndex)    { return this.s8(this.constant(cpIndex));                         }
+    public double getConstantDouble(int cpIndex)  { return Double.longBitsToDouble(this.s8(this.constant(cpIndex))); }
+
+    /**
+     * Decodes one string of the current class's string table.
+     *
+     * @param index 1 or greater
+     */
+    public String
+    getString(int index) {
+
+        byte[] b      = this.buffer;
+        int    offset = this.stringOffsets[index];
+        int    length = this.u2(offset);
+
+        // Decode the "modified UTF-8" format of "DataOutput.writeUTF()".
+        char[] chars = new char[length];
+        int    n     = 0;
+        for (int i = offset + 2, end = i + length; i < end;) {
+            int c = 0xff & b[i++];
+            if (c < 0x80) {
+                chars[n++] = (char) c;
+            } else
+            if (c < 0xe0) {
+                chars[n++] = (char) ((c & 0x1f) << 6 | (b[i++] & 0x3f));
+            } else
+            {
+                chars[n++] = (char) ((c & 0x0f) << 12 | (b[i++] & 0x3f) << 6 | (b[i++] & 0x3f));
+            }
+        }
+        return new String(chars, 0, n);
+    }
+
+    /**
+     * @return The offset of the data of the given constant, which follows the tag
+     */
+    private int
+    constant(int cpIndex) {
+        int offset = cpIndex < this.constantOffsets.length ? this.constantOffsets[cpIndex] : 0;
+        if (offset == 0) throw new IllegalArgumentException("Constant #" + cpIndex + " is not referenced");
+        return offset + 1;
+    }
+
+    private int
+    u2() {
+        int result = this.u2(this.position);
+        this.position += 2;
+        return result;
+    }
+
+    private int
+    u2(int offset) { return (0xff & this.buffer[offset]) << 8 | (0xff & this.buffer[offset + 1]); }
+
+    private int
+    s4(int offset) { return this.u2(offset) << 16 | this.u2(offset + 2); }
+
+    private long
+    s8(int offset) { return (long) this.s4(offset) << 32 | (0xffffffffL & this.s4(offset + 4)); }
+}
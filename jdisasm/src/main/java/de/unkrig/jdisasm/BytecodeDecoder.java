@@ -222,6 +222,7 @@ class BytecodeDecoder<R, EX extends Throwable> {
         case 18:   return this.decoded("ldc",             OperandKind.CLASSFLOATINTSTRINGMETHODHANDLEMETHODTYPEDYNAMIC);
         case 19:   return this.decoded("ldc_w",           OperandKind.CLASSFLOATINTSTRINGMETHODHANDLEMETHODTYPEDYNAMIC_W); // SUPPRESS CHECKSTYLE LineLength
         case 20:   return this.decoded("ldc2_w",          OperandKind.DOUBLELONGDYNAMIC_W);
+        case 109:  return this.decoded("ldiv");
         case 22:   return this.decoded("lload",           OperandKind.LOCALVARIABLEINDEX1);
         case 30:   return this.decoded("lload_0",         OperandKind.IMPLICITLOCALVARIABLEINDEX_0);
         case 31:   return this.decoded("lload_1",         OperandKind.IMPLICITLOCALVARIABLEINDEX_1);
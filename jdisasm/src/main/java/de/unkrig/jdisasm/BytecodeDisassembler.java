@@ -26,8 +26,9 @@
 
 package de.unkrig.jdisasm;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
-import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
@@ -36,16 +37,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
-import de.unkrig.commons.nullanalysis.NotNullByDefault;
 import de.unkrig.commons.nullanalysis.Nullable;
 import de.unkrig.jdisasm.ClassFile.AccessFlags.FlagType;
 import de.unkrig.jdisasm.ClassFile.AppendFrame;
@@ -54,7 +49,6 @@ import de.unkrig.jdisasm.ClassFile.ChopFrame;
 import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
 import de.unkrig.jdisasm.ClassFile.FullFrame;
 import de.unkrig.jdisasm.ClassFile.LineNumberTableAttribute;
-import de.unkrig.jdisasm.ClassFile.LineNumberTableEntry;
 import de.unkrig.jdisasm.ClassFile.Method;
 import de.unkrig.jdisasm.ClassFile.SameFrame;
 import de.unkrig.jdisasm.ClassFile.SameFrameExtended;
@@ -63,6 +57,7 @@ import de.unkrig.jdisasm.ClassFile.SameLocals1StackItemFrameExtended;
 import de.unkrig.jdisasm.ClassFile.StackMapFrame;
 import de.unkrig.jdisasm.ClassFile.StackMapFrameVisitor;
 import de.unkrig.jdisasm.ClassFile.StackMapTableAttribute;
+import de.unkrig.jdisasm.ClassFile.VerificationTypeInfo;
 import de.unkrig.jdisasm.ConstantPool.ConstantClassInfo;
 import de.unkrig.jdisasm.ConstantPool.ConstantClassOrFloatOrIntegerOrStringOrMethodHandleOrMethodTypeOrDynamicInfo;
 import de.unkrig.jdisasm.ConstantPool.ConstantDoubleOrLongOrDynamicInfo;
@@ -75,12 +70,20 @@ import de.unkrig.jdisasm.SignatureParser.TypeSignature;
 
 /**
  * Disassembles the bytecode of a class file method.
+ * <p>
+ *   The disassembly lines are printed as the instructions are decoded, so the memory consumption does not depend on
+ *   the size of the method. To be able to print branch target labels before the first branch that refers to them,
+ *   the bytecode is read twice: A lightweight first pass only collects the branch targets.
+ * </p>
+ * <p>
+ *   The second pass is driven by a {@link ClassFileWalker}, which reports the decoded instructions to this object's
+ *   {@link DisassemblySink} methods.
+ * </p>
  */
 public
-class BytecodeDisassembler {
+class BytecodeDisassembler extends AbstractDisassemblySink {
 
-    private final CountingInputStream                cis;
-    private final DataInputStream                    dis;
+    private final InputStream                        is;
     private final List<ExceptionTableEntry>          exceptionTable;
     @Nullable private final LineNumberTableAttribute lineNumberTableAttribute;
     @Nullable private final StackMapTableAttribute   stackMapTableAttribute;
@@ -89,14 +92,22 @@ class BytecodeDisassembler {
     private final TypeSignature[]                    parameterTypes;
     private final Disassembler                       d;
 
+    // Valid while the first pass over the bytecode is executing.
+    private CountingInputStream cis = new CountingInputStream(new ByteArrayInputStream(new byte[0]));
+    private DataInputStream     dis = new DataInputStream(this.cis);
+
+    // Valid while the instructions are being printed.
+    @Nullable private PrintWriter         pw;
+    private Map<Integer, String>          stackMap    = Collections.<Integer, String>emptyMap();
+    @Nullable private StackMapInterpreter stackTypes;
+    private String                        indentation = "        ";
+    private int[]                         operands    = new int[0];
+    private int                           operandIndex;
+
     private int                                             instructionOffset;
+    private int                                             instructionCount;
     private final Map<Integer /*offset*/, String /*label*/> branchTargets = new HashMap<Integer, String>();
 
-    /**
-     * Maps instruction offsets to disassembly lines.
-     */
-    private final SortedMap<Integer, String> lines = new TreeMap<Integer, String>();
-
     public
     BytecodeDisassembler(
         InputStream                        is,
@@ -108,8 +119,7 @@ class BytecodeDisassembler {
         SignatureParser.TypeSignature[]    parameterTypes,
         Disassembler                       d
     ) {
-        this.cis                      = new CountingInputStream(is);
-        this.dis                      = new DataInputStream(this.cis);
+        this.is                       = is;
         this.exceptionTable           = exceptionTable;
         this.lineNumberTableAttribute = lineNumberTableAttribute;
         this.stackMapTableAttribute   = stackMapTableAttribute;
@@ -125,46 +135,35 @@ class BytecodeDisassembler {
     public void
     disassembleBytecode(PrintWriter pw) throws IOException {
 
-        // Analyze the TRY bodies.
-
-        SortedMap<Integer /*startPC*/, Set<Integer /*endPC*/>>
-        tryStarts = new TreeMap<Integer, Set<Integer>>();
+        byte[] code;
+        {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[]                buffer = new byte[4096];
+            for (;;) {
+                int n = this.is.read(buffer);
+                if (n == -1) break;
+                baos.write(buffer, 0, n);
+            }
+            code = baos.toByteArray();
+        }
 
-        SortedMap<Integer /*endPC*/, SortedMap<Integer /*startPC*/, List<ExceptionTableEntry>>>
-        tryEnds = new TreeMap<Integer, SortedMap<Integer, List<ExceptionTableEntry>>>();
+        this.begin(pw, code);
+        new ClassFileWalker(this, this.d.metrics).walkCode(code, this.exceptionTable, this.lineNumberTableAttribute);
+    }
 
-        for (ExceptionTableEntry e : this.exceptionTable) {
+    /**
+     * Prepares the disassembly of the given <var>code</var>, which the subsequent {@link #tryEnd(List, int)}, {@link
+     * #tryStart(int, int, int)}, {@link #lineNumber(int, int)} and {@link #instruction(Instruction)} events describe.
+     */
+    void
+    begin(PrintWriter pw, byte[] code) throws IOException {
 
-            // Register the entry in "tryStarts".
-            {
-                Set<Integer> s = tryStarts.get(e.startPc);
-                if (s == null) {
-                    s = new HashSet<Integer>();
-                    tryStarts.put(e.startPc, s);
-                }
-                s.add(e.endPc);
-            }
-
-            // Register the entry in "tryEnds".
-            {
-                SortedMap<Integer, List<ExceptionTableEntry>> m = tryEnds.get(e.endPc);
-                if (m == null) {
-                    m = new TreeMap<Integer, List<ExceptionTableEntry>>(Collections.reverseOrder());
-                    tryEnds.put(e.endPc, m);
-                }
-                List<ExceptionTableEntry> l = m.get(e.startPc);
-                if (l == null) {
-                    l = new ArrayList<ExceptionTableEntry>();
-                    m.put(e.startPc, l);
-                }
-                l.add(e);
-            }
-        }
+        this.pw = pw;
 
         // Decode the StackMapTable attribute.
         Map<Integer, String> stackMap;
         STACK_MAP_TABLE: {
-            stackMap = new HashMap<Integer, String>();
+            this.stackMap = (stackMap = new HashMap<Integer, String>());
 
             StackMapTableAttribute smta = this.stackMapTableAttribute;
             if (!this.d.printStackMap || smta == null) break STACK_MAP_TABLE;
@@ -208,183 +207,241 @@ class BytecodeDisassembler {
                 }
 
                 stack = smf.accept(new StackMapFrameVisitor<String[]>() { // SUPPRESS CHECKSTYLE LineLength:7
-                    @Override public String[] visitSameFrame(SameFrame sf)                                                      { return none;                                              }
-                    @Override public String[] visitSameLocals1StackItemFrame(SameLocals1StackItemFrame sl1sif)                  { return new String[] { String.valueOf(sl1sif.stack) };     }
-                    @Override public String[] visitSameLocals1StackItemFrameExtended(SameLocals1StackItemFrameExtended sl1sife) { return new String[] { String.valueOf(sl1sife.stack) };    }
-                    @Override public String[] visitChopFrame(ChopFrame cf)                                                      { return none;                                              }
-                    @Override public String[] visitSameFrameExtended(SameFrameExtended sfe)                                     { return none;                                              }
-                    @Override public String[] visitAppendFrame(AppendFrame af)                                                  { return none;                                              }
-                    @Override public String[] visitFullFrame(FullFrame ff)                                                      { return BytecodeDisassembler.this.toStringArray(ff.stack); }
+                    @Override public String[] visitSameFrame(SameFrame sf)                                                      { return none;                                                               }
+                    @Override public String[] visitSameLocals1StackItemFrame(SameLocals1StackItemFrame sl1sif)                  { return new String[] { BytecodeDisassembler.this.toString(sl1sif.stack) };  }
+                    @Override public String[] visitSameLocals1StackItemFrameExtended(SameLocals1StackItemFrameExtended sl1sife) { return new String[] { BytecodeDisassembler.this.toString(sl1sife.stack) }; }
+                    @Override public String[] visitChopFrame(ChopFrame cf)                                                      { return none;                                                               }
+                    @Override public String[] visitSameFrameExtended(SameFrameExtended sfe)                                     { return none;                                                               }
+                    @Override public String[] visitAppendFrame(AppendFrame af)                                                  { return none;                                                               }
+                    @Override public String[] visitFullFrame(FullFrame ff)                                                      { return BytecodeDisassembler.this.toStringArray(ff.stack);                  }
                 });
 
                 stackMap.put(bytecodeOffset, "Locals=" + Arrays.toString(locals) + " Stack=" + Arrays.toString(stack));
             }
         }
 
-        // Decodes one instruction and returns one line of disassembly. Requires "this.instructionOffset" to be set
-        // correctly. Produces "null" on end-of-input.
-        BytecodeDecoder<String, IOException> bytecodeDecoder = new BytecodeDecoder<String, IOException>() {
+        // Compute the operand stack types.
+        this.stackTypes = null;
+        if (this.d.printStackTypes) {
+            StackMapInterpreter smi = new StackMapInterpreter();
+            try {
+                smi.interpret(this.method);
+                this.stackTypes = smi;
+            } catch (IOException ioe) {
+                pw.println(this.indentation + "*** Error: Computing the operand stack types: " + ioe.getMessage());
+            }
+        }
 
-            @Override @Nullable public String
-            decoded(String mnemonic, OperandKind... operandKinds) throws IOException {
+        // First pass: Determine the branch targets, in the same order as the instruction events will encounter them.
+        this.dis = new DataInputStream(this.cis = new CountingInputStream(new ByteArrayInputStream(code)));
+        {
+            BytecodeDecoder<Boolean, IOException> branchTargetFinder = new BytecodeDecoder<Boolean, IOException>() {
 
-                if ("end".equals(mnemonic)) return null;
+                @Override public Boolean
+                decoded(String mnemonic, OperandKind... operandKinds) throws IOException {
 
-                if (operandKinds.length == 0) return mnemonic;
+                    if ("end".equals(mnemonic)) return false;
 
-                Formatter f = new Formatter();
-                f.format("%-15s", mnemonic);
+                    for (OperandKind operandKind : operandKinds) {
+                        operandKind.accept(BytecodeDisassembler.this.skipOperand);
+                    }
 
-                for (int i = 0; i < operandKinds.length; ++i) {
-                    f.format(" %s", operandKinds[i].accept(BytecodeDisassembler.this.readOperand));
+                    return true;
                 }
-
-                return f.toString();
+            };
+
+            // Code that cannot be decoded ends the first pass; the ClassFileWalker reports the failure when it gets
+            // there.
+            try {
+                do {
+                    this.instructionOffset = (int) this.cis.getCount();
+                } while (branchTargetFinder.decode(this.dis));
+            } catch (IOException ioe) {
+                ;
+            } catch (RuntimeException re) {
+                ;
             }
-        };
-
-        // Now decode the bytecode and fill the "this.lines" map.
-        for (;;) {
-
-            // "this.readOperands" needs this:
-            this.instructionOffset = (int) this.cis.getCount();
-
-            // Decode one instruction into one line of assembly.
-            String line = bytecodeDecoder.decode(this.dis);
-            if (line == null) break;
-
-            BytecodeDisassembler.this.lines.put(BytecodeDisassembler.this.instructionOffset, line);
         }
+    }
 
-        // Format and print the disassembly lines.
-        String indentation = "        ";
-        for (Entry<Integer, String> e : this.lines.entrySet()) {
-            final int    instructionOffset = e.getKey();
-            final String text              = e.getValue();
+    /**
+     * Prints the end of a TRY body.
+     */
+    @Override public void
+    tryEnd(List<ExceptionTableEntry> entries, int pc) {
+
+        PrintWriter pw    = this.getPrintWriter();
+        int         endPc = entries.get(0).endPc;
+
+        if (endPc < pc) {
+            pw.println(
+                "*** Error: "
+                + "Exception table entry ends at invalid code array index "
+                + endPc
+                + " (current instruction offset is "
+                + pc
+                + ")"
+            );
+        }
+        this.indentation = this.indentation.substring(4);
+        pw.print(this.indentation + "} catch (");
+        for (Iterator<ExceptionTableEntry> it = entries.iterator();;) {
+            ExceptionTableEntry ete = it.next();
+            ConstantClassInfo   ct  = ete.catchType;
+            pw.print(
+                (ct == null ? "[all exceptions] => " : ct.toString(this.d.signatureParser) + " => ")
+                + this.branchTarget(ete.handlerPc)
+            );
+            if (!it.hasNext()) break;
+            pw.print(", ");
+        }
+        pw.println(")");
+    }
 
-            // Print ends of TRY bodies.
-            for (Iterator<Entry<Integer, SortedMap<Integer, List<ExceptionTableEntry>>>> it = (
-                tryEnds.entrySet().iterator()
-            ); it.hasNext();) {
-                Entry<Integer, SortedMap<Integer, List<ExceptionTableEntry>>> e2 = it.next();
+    /**
+     * Prints the beginning of a TRY body.
+     */
+    @Override public void
+    tryStart(int startPc, int endPc, int pc) {
+
+        PrintWriter pw = this.getPrintWriter();
+
+        if (startPc < pc) {
+            pw.println(
+                "*** Error: "
+                + "Exception table entry starts at invalid code array index "
+                + startPc
+                + " (current instruction offset is "
+                + pc
+                + ")"
+            );
+        }
+        pw.println(this.indentation + "try {");
+        this.indentation += "    ";
+    }
 
-                int endPc = e2.getKey();
-                if (endPc > instructionOffset) break;
+    /**
+     * Prints the source line and/or line number.
+     */
+    @Override public void
+    lineNumber(int lineNumber, int pc) {
 
-                SortedMap<Integer, List<ExceptionTableEntry>> startPc2Ete = e2.getValue();
-                for (List<ExceptionTableEntry> etes : startPc2Ete.values()) {
+        PrintWriter pw         = this.getPrintWriter();
+        String      sourceLine = this.sourceLines != null ? this.sourceLines.get(lineNumber) : null;
 
-                    if (endPc < instructionOffset) {
-                        pw.println(
-                            "*** Error: "
-                            + "Exception table entry ends at invalid code array index "
-                            + endPc
-                            + " (current instruction offset is "
-                            + instructionOffset
-                            + ")"
-                        );
-                    }
-                    indentation = indentation.substring(4);
-                    pw.print(indentation + "} catch (");
-                    for (Iterator<ExceptionTableEntry> it2 = etes.iterator();;) {
-                        ExceptionTableEntry ete = it2.next();
-                        ConstantClassInfo   ct  = ete.catchType;
-                        pw.print(
-                            (ct == null ? "[all exceptions] => " : ct + " => ")
-                            + this.branchTarget(ete.handlerPc)
-                        );
-                        if (!it2.hasNext()) break;
-                        pw.print(", ");
-                    }
-                    pw.println(")");
-                }
-                it.remove();
+        if (sourceLine == null) {
+            if (this.d.showLineNumbers) {
+                pw.println(this.indentation + "// Line " + lineNumber);
+            } else {
+                ;
+            }
+        } else {
+            if (this.d.showLineNumbers) {
+                pw.println(this.indentation + "//                                      Line " + lineNumber + ": " + sourceLine); // SUPPRESS CHECKSTYLE LineLength
+            } else {
+                pw.println(this.indentation + "//                                      " + sourceLine);
             }
+        }
+    }
 
-            // Print beginnings of TRY bodies.
-            for (Iterator<Entry<Integer, Set<Integer>>> it = tryStarts.entrySet().iterator(); it.hasNext();) {
-                Entry<Integer, Set<Integer>> sc      = it.next();
-                Integer                      startPc = sc.getKey();
-                if (startPc > instructionOffset) break;
-
-                for (int i = sc.getValue().size(); i > 0; i--) {
-                    if (startPc < instructionOffset) {
-                        pw.println(
-                            "*** Error: "
-                            + "Exception table entry starts at invalid code array index "
-                            + startPc
-                            + " (current instruction offset is "
-                            + instructionOffset
-                            + ")"
-                        );
-                    }
-                    pw.println(indentation + "try {");
-                    indentation += "    ";
-                }
-                it.remove();
+    /**
+     * Prints the stack map frame (if any), the label (if any) and the disassembly line of one instruction.
+     */
+    @Override public void
+    instruction(Instruction instruction) throws IOException {
+
+        PrintWriter pw = this.getPrintWriter();
+
+        // "this.readOperand" needs this:
+        int instructionOffset = this.instructionOffset = instruction.pc;
+        this.operands         = instruction.operands;
+        this.operandIndex     = 0;
+
+        // Format one line of assembly.
+        String        text;
+        OperandKind[] operandKinds = instruction.operandKinds;
+        if (operandKinds.length == 0) {
+            text = instruction.mnemonic;
+        } else {
+            Formatter f = new Formatter();
+            f.format("%-15s", instruction.mnemonic);
+
+            for (int i = 0; i < operandKinds.length; ++i) {
+                f.format(" %s", operandKinds[i].accept(this.readOperand));
             }
 
-            // Print source line and/or line number.
-            PRINT_SOURCE_LINE: {
-                if (this.lineNumberTableAttribute == null) break PRINT_SOURCE_LINE;
+            text = f.toString();
+        }
 
-                int lineNumber = this.findLineNumber(instructionOffset);
-                if (lineNumber == -1) break PRINT_SOURCE_LINE;
+        // Print stack map.
+        PRINT_STACK_FRAME: {
+            String smf = this.stackMap.get(instructionOffset);
+            if (smf == null) break PRINT_STACK_FRAME;
 
-                String sourceLine = this.sourceLines != null ? this.sourceLines.get(lineNumber) : null;
+            pw.println(this.indentation + "// " + smf);
+        }
 
-                if (sourceLine == null) {
-                    if (this.d.showLineNumbers) {
-                        pw.println(indentation + "// Line " + lineNumber);
-                    } else {
-                        ;
-                    }
-                } else {
-                    if (this.d.showLineNumbers) {
-                        pw.println(indentation + "//                                      Line " + lineNumber + ": " + sourceLine); // SUPPRESS CHECKSTYLE LineLength
-                    } else {
-                        pw.println(indentation + "//                                      " + sourceLine);
-                    }
-                }
-            }
+        // Print operand stack types.
+        PRINT_STACK_TYPES: {
+            StackMapInterpreter smi = this.stackTypes;
+            if (smi == null) break PRINT_STACK_TYPES;
 
-            // Print stack map.
-            PRINT_STACK_FRAME: {
-                String smf = stackMap.get(instructionOffset);
-                if (smf == null) break PRINT_STACK_FRAME;
+            int insn = smi.getInstructionIndex(instructionOffset);
+            if (insn == -1) break PRINT_STACK_TYPES;
 
-                pw.println(indentation + "// " + smf);
-            }
+            pw.println(this.indentation + "// " + (
+                smi.getStackSize(insn) == -1
+                ? "Unreachable"
+                : "Stack=" + smi.stackToString(insn, this.d.signatureParser)
+            ));
+        }
 
-            // Print instruction offset.
-            String indentation2 = indentation;
-            {
-                String label = this.branchTargets.get(instructionOffset);
-                if (label == null && this.d.printAllOffsets) {
-                    label = "#" + instructionOffset;
-                }
+        // Print instruction offset.
+        String indentation2 = this.indentation;
+        {
+            String label = this.branchTargets.get(instructionOffset);
+            if (label == null && this.d.printAllOffsets) {
+                label = "#" + instructionOffset;
+            }
 
-                if (label != null) {
-                    if (label.length() >= indentation.length()) {
-                        pw.println(label);
-                    } else {
-                        indentation2 = label + indentation.substring(label.length());
-                    }
+            if (label != null) {
+                if (label.length() >= this.indentation.length()) {
+                    pw.println(label);
+                } else {
+                    indentation2 = label + this.indentation.substring(label.length());
                 }
             }
-
-            // Print disassembly line.
-            pw.println(indentation2 + text);
         }
+
+        // Print disassembly line.
+        pw.println(indentation2 + text);
+
+        this.instructionCount++;
+    }
+
+    /**
+     * @return The number of instructions that {@link #disassembleBytecode(PrintWriter)} disassembled
+     */
+    public int
+    getInstructionCount() { return this.instructionCount; }
+
+    private PrintWriter
+    getPrintWriter() {
+        PrintWriter pw = this.pw;
+        assert pw != null;
+        return pw;
     }
 
     protected String[]
-    toStringArray(Object[] objects) {
-        String[] result = new String[objects.length];
-        for (int i = 0; i < result.length; i++) result[i] = String.valueOf(objects[i]);
+    toStringArray(VerificationTypeInfo[] vtis) {
+        String[] result = new String[vtis.length];
+        for (int i = 0; i < result.length; i++) result[i] = this.toString(vtis[i]);
         return result;
     }
 
+    private String
+    toString(VerificationTypeInfo vti) { return ClassFile.toString(vti, this.d.signatureParser); }
+
     private static <T> T[]
     concat(T[] lhs, T[] rhs) {
         T[] result = Arrays.copyOf(lhs, lhs.length + rhs.length);
@@ -393,8 +450,8 @@ class BytecodeDisassembler {
     }
 
     /**
-     * A visitor that reads an instruction operand from the {@link #dis} and transforms it into a human-readable form,
-     * suitable for a disassembly listing.
+     * A visitor that takes an instruction operand from the {@link #operands} and transforms it into a human-readable
+     * form, suitable for a disassembly listing.
      */
     private final OperandKind.Visitor<String, IOException>
     readOperand = new OperandKind.Visitor<String, IOException>() {
@@ -402,11 +459,14 @@ class BytecodeDisassembler {
         @Override public String
         visitClassFloatIntStringMethodHandleMethodTypeDynamic(OperandKind operandType) throws IOException {
 
-            short  index = (short) (0xff & BytecodeDisassembler.this.dis.readByte());
-            String t     = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
-                index,
-                ConstantClassOrFloatOrIntegerOrStringOrMethodHandleOrMethodTypeOrDynamicInfo.class
-            ).toString();
+            short  index = (short) BytecodeDisassembler.this.nextOperand();
+            String t     = ConstantPool.toString(
+                BytecodeDisassembler.this.method.getClassFile().constantPool.get(
+                    index,
+                    ConstantClassOrFloatOrIntegerOrStringOrMethodHandleOrMethodTypeOrDynamicInfo.class
+                ),
+                BytecodeDisassembler.this.d.signatureParser
+            );
 
             if (BytecodeDisassembler.this.d.showClassPoolIndexes) t += " (" + (0xffff & index) + ")";
 
@@ -416,11 +476,14 @@ class BytecodeDisassembler {
         @Override public String
         visitClassFloatIntStringMethodHandleMethodTypeDynamicW(OperandKind operandType) throws IOException {
 
-            short  index = BytecodeDisassembler.this.dis.readShort();
-            String t     = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
-                index,
-                ConstantClassOrFloatOrIntegerOrStringOrMethodHandleOrMethodTypeOrDynamicInfo.class
-            ).toString();
+            short  index = (short) BytecodeDisassembler.this.nextOperand();
+            String t     = ConstantPool.toString(
+                BytecodeDisassembler.this.method.getClassFile().constantPool.get(
+                    index,
+                    ConstantClassOrFloatOrIntegerOrStringOrMethodHandleOrMethodTypeOrDynamicInfo.class
+                ),
+                BytecodeDisassembler.this.d.signatureParser
+            );
 
             if (BytecodeDisassembler.this.d.showClassPoolIndexes) t += " (" + (0xffff & index) + ")";
 
@@ -430,11 +493,14 @@ class BytecodeDisassembler {
         @Override public String
         visitDoubleLongDynamicW(OperandKind operandType) throws IOException {
 
-            short  index = BytecodeDisassembler.this.dis.readShort();
-            String t     = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
-                index,
-                ConstantDoubleOrLongOrDynamicInfo.class
-            ).toString();
+            short  index = (short) BytecodeDisassembler.this.nextOperand();
+            String t     = ConstantPool.toString(
+                BytecodeDisassembler.this.method.getClassFile().constantPool.get(
+                    index,
+                    ConstantDoubleOrLongOrDynamicInfo.class
+                ),
+                BytecodeDisassembler.this.d.signatureParser
+            );
 
             if (BytecodeDisassembler.this.d.showClassPoolIndexes) t += " (" + (0xffff & index) + ")";
 
@@ -444,7 +510,7 @@ class BytecodeDisassembler {
         @Override public String
         visitFieldref2(OperandKind operandType) throws IOException {
 
-            short                index = BytecodeDisassembler.this.dis.readShort();
+            short                index = (short) BytecodeDisassembler.this.nextOperand();
             ConstantFieldrefInfo fr    = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
                 index,
                 ConstantFieldrefInfo.class
@@ -453,7 +519,7 @@ class BytecodeDisassembler {
             String t = (
                 BytecodeDisassembler.this.d.decodeFieldDescriptor(fr.nameAndType.descriptor.bytes)
                 + " "
-                + fr.clasS
+                + fr.clasS.toString(BytecodeDisassembler.this.d.signatureParser)
                 + '.'
                 + fr.nameAndType.name.bytes
             );
@@ -466,14 +532,14 @@ class BytecodeDisassembler {
         @Override public String
         visitMethodref2(OperandKind operandType) throws IOException {
 
-            short                 index = BytecodeDisassembler.this.dis.readShort();
+            short                 index = (short) BytecodeDisassembler.this.nextOperand();
             ConstantMethodrefInfo mr    = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
                 index,
                 ConstantMethodrefInfo.class
             );
 
             String t = BytecodeDisassembler.this.d.decodeMethodDescriptor(mr.nameAndType.descriptor.bytes).toString(
-                mr.clasS.toString(),
+                mr.clasS.toString(BytecodeDisassembler.this.d.signatureParser),
                 mr.nameAndType.name.bytes
             );
 
@@ -485,9 +551,8 @@ class BytecodeDisassembler {
         @Override public String
         visitInterfaceMethodref2(OperandKind operandType) throws IOException {
 
-            short index = BytecodeDisassembler.this.dis.readShort();
-            BytecodeDisassembler.this.dis.readByte();
-            BytecodeDisassembler.this.dis.readByte();
+            short index = (short) BytecodeDisassembler.this.nextOperand();
+            BytecodeDisassembler.this.nextOperand(); // count
 
             ConstantInterfaceMethodrefInfo imr = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
                 index,
@@ -495,7 +560,7 @@ class BytecodeDisassembler {
             );
 
             String t = BytecodeDisassembler.this.d.decodeMethodDescriptor(imr.nameAndType.descriptor.bytes).toString(
-                imr.clasS.toString(),
+                imr.clasS.toString(BytecodeDisassembler.this.d.signatureParser),
                 imr.nameAndType.name.bytes
             );
 
@@ -507,7 +572,7 @@ class BytecodeDisassembler {
         @Override public String
         visitInterfaceMethodrefOrMethodref2(OperandKind operandType) throws IOException {
 
-            short index = BytecodeDisassembler.this.dis.readShort();
+            short index = (short) BytecodeDisassembler.this.nextOperand();
 
             ConstantInterfaceMethodrefOrMethodrefInfo
             imromr = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
@@ -516,7 +581,7 @@ class BytecodeDisassembler {
             );
 
             String t = BytecodeDisassembler.this.d.decodeMethodDescriptor(imromr.nameAndType.descriptor.bytes).toString(
-                imromr.clasS.toString(),
+                imromr.clasS.toString(BytecodeDisassembler.this.d.signatureParser),
                 imromr.nameAndType.name.bytes
             );
 
@@ -528,12 +593,12 @@ class BytecodeDisassembler {
         @Override public String
         visitClass2(OperandKind operandType) throws IOException {
 
-            short index = BytecodeDisassembler.this.dis.readShort();
+            short index = (short) BytecodeDisassembler.this.nextOperand();
 
             String t = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
                 index,
                 ConstantClassInfo.class
-            ).toString();
+            ).toString(BytecodeDisassembler.this.d.signatureParser);
 
             if (BytecodeDisassembler.this.d.showClassPoolIndexes) t += " (" + (0xffff & index) + ")";
 
@@ -543,7 +608,7 @@ class BytecodeDisassembler {
         @Override public String
         visitLocalVariableIndex1(OperandKind operandType) throws IOException {
 
-            short index = (short) (0xff & BytecodeDisassembler.this.dis.readByte());
+            short index = (short) BytecodeDisassembler.this.nextOperand();
 
             // For an initial assignment (e.g. 'istore 7'), the local variable is only visible AFTER this instruction.
             return BytecodeDisassembler.this.d.getLocalVariable(
@@ -556,7 +621,7 @@ class BytecodeDisassembler {
         @Override public String
         visitLocalVariableIndex2(OperandKind operandType) throws IOException {
 
-            short index = BytecodeDisassembler.this.dis.readShort();
+            short index = (short) BytecodeDisassembler.this.nextOperand();
 
             // For an initial assignment (e.g. 'wide istore 300'), the local variable is only visible AFTER this
             // instruction.
@@ -581,7 +646,7 @@ class BytecodeDisassembler {
         visitBranchOffset2(OperandKind operandType) throws IOException {
 
             return BytecodeDisassembler.this.branchTarget(
-                BytecodeDisassembler.this.instructionOffset + BytecodeDisassembler.this.dis.readShort()
+                BytecodeDisassembler.this.nextOperand()
             );
         }
 
@@ -589,29 +654,29 @@ class BytecodeDisassembler {
         visitBranchOffset4(OperandKind operandType) throws IOException {
 
             return BytecodeDisassembler.this.branchTarget(
-                BytecodeDisassembler.this.instructionOffset + BytecodeDisassembler.this.dis.readInt()
+                BytecodeDisassembler.this.nextOperand()
             );
         }
 
         @Override public String
         visitSignedByte(OperandKind operandType) throws IOException {
-            return Integer.toString(BytecodeDisassembler.this.dis.readByte());
+            return Integer.toString(BytecodeDisassembler.this.nextOperand());
         }
 
         @Override public String
         visitUnsignedByte(OperandKind operandType) throws IOException {
-            return Integer.toString(0xff & BytecodeDisassembler.this.dis.readByte());
+            return Integer.toString(BytecodeDisassembler.this.nextOperand());
         }
 
         @Override public String
         visitSignedShort(OperandKind operandType) throws IOException {
-            return Integer.toString(BytecodeDisassembler.this.dis.readShort());
+            return Integer.toString(BytecodeDisassembler.this.nextOperand());
         }
 
         @Override public String
         visitAtype(OperandKind operandType) throws IOException {
 
-            byte b = BytecodeDisassembler.this.dis.readByte();
+            int b = BytecodeDisassembler.this.nextOperand();
 
             return (
                 b ==  4 ? "BOOLEAN" :
@@ -622,39 +687,27 @@ class BytecodeDisassembler {
                 b ==  9 ? "SHORT"   :
                 b == 10 ? "INT"     :
                 b == 11 ? "LONG"    :
-                Integer.toString(0xff & b)
+                Integer.toString(b)
             );
         }
 
         @Override public String
-        visitTableswitch(OperandKind operandType) throws IOException {
-            int npads = 3 - (BytecodeDisassembler.this.instructionOffset % 4);
-            for (int i = 0; i < npads; ++i) {
-                byte padByte = BytecodeDisassembler.this.dis.readByte();
-                if (padByte != 0) {
-                    throw new RuntimeException(
-                        "'tableswitch' pad byte #"
-                        + i
-                        + " is not zero, but "
-                        + (0xff & padByte)
-                    );
-                }
-            }
+        visitTableswitch(OperandKind operandType) {
 
             StringBuilder sb = new StringBuilder("default => ");
             sb.append(
                 BytecodeDisassembler.this.branchTarget(
-                    BytecodeDisassembler.this.instructionOffset + BytecodeDisassembler.this.dis.readInt()
+                    BytecodeDisassembler.this.nextOperand()
                 )
             );
 
-            int low  = BytecodeDisassembler.this.dis.readInt();
-            int high = BytecodeDisassembler.this.dis.readInt();
+            int low  = BytecodeDisassembler.this.nextOperand();
+            int high = BytecodeDisassembler.this.nextOperand();
             for (int i = low; i <= high; ++i) {
                 sb.append(", ").append(i).append(" => ");
                 sb.append(
                     BytecodeDisassembler.this.branchTarget(
-                        BytecodeDisassembler.this.instructionOffset + BytecodeDisassembler.this.dis.readInt()
+                        BytecodeDisassembler.this.nextOperand()
                     )
                 );
             }
@@ -662,33 +715,20 @@ class BytecodeDisassembler {
         }
 
         @Override public String
-        visitLookupswitch(OperandKind operandType) throws IOException {
-
-            int npads = 3 - (BytecodeDisassembler.this.instructionOffset % 4);
-            for (int i = 0; i < npads; ++i) {
-                byte padByte = BytecodeDisassembler.this.dis.readByte();
-                if (padByte != (byte) 0) {
-                    throw new RuntimeException(
-                        "'lookupswitch' pad byte #"
-                        + i
-                        + " is not zero, but "
-                        + (0xff & padByte)
-                    );
-                }
-            }
+        visitLookupswitch(OperandKind operandType) {
 
             StringBuilder sb = new StringBuilder("default => ");
             sb.append(
                 BytecodeDisassembler.this.branchTarget(
-                    BytecodeDisassembler.this.instructionOffset + BytecodeDisassembler.this.dis.readInt()
+                    BytecodeDisassembler.this.nextOperand()
                 )
             );
 
-            int npairs = BytecodeDisassembler.this.dis.readInt();
+            int npairs = BytecodeDisassembler.this.nextOperand();
             for (int i = 0; i < npairs; ++i) {
 
-                int match  = BytecodeDisassembler.this.dis.readInt();
-                int offset = BytecodeDisassembler.this.instructionOffset + BytecodeDisassembler.this.dis.readInt();
+                int match  = BytecodeDisassembler.this.nextOperand();
+                int offset = BytecodeDisassembler.this.nextOperand();
 
                 sb.append(", ").append(match).append(" => ").append(BytecodeDisassembler.this.branchTarget(offset));
             }
@@ -717,11 +757,7 @@ class BytecodeDisassembler {
         @Override public String
         visitDynamicCallsite(OperandKind operandType) throws IOException {
 
-            short index = BytecodeDisassembler.this.dis.readShort();
-
-            if (BytecodeDisassembler.this.dis.readByte() != 0 || BytecodeDisassembler.this.dis.readByte() != 0) {
-                throw new RuntimeException("'invokevirtual' pad byte is not zero");
-            }
+            short index = (short) BytecodeDisassembler.this.nextOperand();
 
             ConstantInvokeDynamicInfo
             cidy = BytecodeDisassembler.this.method.getClassFile().constantPool.get(
@@ -733,24 +769,81 @@ class BytecodeDisassembler {
                 cidy.bootstrapMethodAttrIndex
             );
 
-            return bm + "." + cidy.nameAndType;
+            SignatureParser sp = BytecodeDisassembler.this.d.signatureParser;
+            return bm.toString(sp) + "." + cidy.nameAndType.toString(sp);
         }
     };
 
+    private int
+    nextOperand() { return this.operands[this.operandIndex++]; }
+
     /**
-     * @return -1 iff the offset is not associated with a line number
+     * Reads one operand without formatting it; only registers branch targets.
      */
-    private int
-    findLineNumber(int offset) {
+    private final OperandKind.Visitor<Void, IOException>
+    skipOperand = new OperandKind.Visitor<Void, IOException>() {
+
+        // SUPPRESS CHECKSTYLE LineLength:16
+        @Override @Nullable public Void visitClassFloatIntStringMethodHandleMethodTypeDynamic(OperandKind operandType)  throws IOException { return this.skip(1); }
+        @Override @Nullable public Void visitClassFloatIntStringMethodHandleMethodTypeDynamicW(OperandKind operandType) throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitDoubleLongDynamicW(OperandKind operandType)                                throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitFieldref2(OperandKind operandType)                                         throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitMethodref2(OperandKind operandType)                                        throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitInterfaceMethodref2(OperandKind operandType)                               throws IOException { return this.skip(4); }
+        @Override @Nullable public Void visitInterfaceMethodrefOrMethodref2(OperandKind operandType)                    throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitClass2(OperandKind operandType)                                            throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitLocalVariableIndex1(OperandKind operandType)                               throws IOException { return this.skip(1); }
+        @Override @Nullable public Void visitLocalVariableIndex2(OperandKind operandType)                               throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitImplicitLocalVariableIndex(OperandKind operandType, int index)                                { return null;         }
+        @Override @Nullable public Void visitSignedByte(OperandKind operandType)                                        throws IOException { return this.skip(1); }
+        @Override @Nullable public Void visitUnsignedByte(OperandKind operandType)                                      throws IOException { return this.skip(1); }
+        @Override @Nullable public Void visitSignedShort(OperandKind operandType)                                       throws IOException { return this.skip(2); }
+        @Override @Nullable public Void visitAtype(OperandKind operandType)                                             throws IOException { return this.skip(1); }
+        @Override @Nullable public Void visitDynamicCallsite(OperandKind operandType)                                   throws IOException { return this.skip(4); }
+
+        @Override @Nullable public Void
+        visitBranchOffset2(OperandKind operandType) throws IOException {
+            return this.branchTarget(BytecodeDisassembler.this.dis.readShort());
+        }
+
+        @Override @Nullable public Void
+        visitBranchOffset4(OperandKind operandType) throws IOException {
+            return this.branchTarget(BytecodeDisassembler.this.dis.readInt());
+        }
 
-        LineNumberTableAttribute lnta = this.lineNumberTableAttribute;
-        if (lnta == null) return -1;
+        @Override @Nullable public Void
+        visitTableswitch(OperandKind operandType) throws IOException {
+            this.skip(3 - (BytecodeDisassembler.this.instructionOffset % 4));
+            this.branchTarget(BytecodeDisassembler.this.dis.readInt());
+            int low  = BytecodeDisassembler.this.dis.readInt();
+            int high = BytecodeDisassembler.this.dis.readInt();
+            for (int i = low; i <= high; ++i) this.branchTarget(BytecodeDisassembler.this.dis.readInt());
+            return null;
+        }
 
-        for (LineNumberTableEntry lnte : lnta.entries) {
-            if (lnte.startPc == offset) return lnte.lineNumber;
+        @Override @Nullable public Void
+        visitLookupswitch(OperandKind operandType) throws IOException {
+            this.skip(3 - (BytecodeDisassembler.this.instructionOffset % 4));
+            this.branchTarget(BytecodeDisassembler.this.dis.readInt());
+            for (int i = BytecodeDisassembler.this.dis.readInt(); i > 0; --i) {
+                BytecodeDisassembler.this.dis.readInt();
+                this.branchTarget(BytecodeDisassembler.this.dis.readInt());
+            }
+            return null;
         }
-        return -1;
-    }
+
+        @Nullable private Void
+        skip(int n) throws IOException {
+            for (; n > 0; n--) BytecodeDisassembler.this.dis.readByte();
+            return null;
+        }
+
+        @Nullable private Void
+        branchTarget(int relativeOffset) {
+            BytecodeDisassembler.this.branchTarget(BytecodeDisassembler.this.instructionOffset + relativeOffset);
+            return null;
+        }
+    };
 
     private String
     branchTarget(int offset) {
@@ -764,33 +857,4 @@ class BytecodeDisassembler {
 
         return label;
     }
-
-    /**
-     * An {@link InputStream} that counts how many bytes have been read so far.
-     */
-    @NotNullByDefault(false) private static
-    class CountingInputStream extends FilterInputStream {
-
-        CountingInputStream(InputStream is) {
-            super(is);
-        }
-
-        @Override public int
-        read() throws IOException {
-            int res = super.read();
-            if (res != -1) ++this.count;
-            return res;
-        }
-
-        @Override public int
-        read(byte[] b, int off, int len) throws IOException {
-            int res = super.read(b, off, len);
-            if (res != -1) this.count += res;
-            return res;
-        }
-
-        public long getCount() { return this.count; }
-
-        private long count;
-    }
 }
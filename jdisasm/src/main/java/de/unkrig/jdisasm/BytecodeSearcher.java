@@ -0,0 +1,642 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.BootstrapMethodsAttribute;
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ConstantPool.ConstantFieldrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefOrMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInvokeDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantNameAndTypeInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantPoolEntry;
+
+/**
+ * Finds instructions by opcode and by referenced field or method, and prints only the hits, one line each, e.g.
+ * <pre>
+ * com.acme.Foo bar(I)V #12 line 34: invokevirtual java.io.PrintStream.println(Ljava/lang/String;)V
+ * </pre>
+ * <p>
+ *   (class, method, code offset, source line number if known, and the instruction).
+ * </p>
+ * <p>
+ *   Each pattern has the form "[ <var>mnemonic</var> ] [ <var>class</var>{@code .}<var>member</var> [
+ *   <var>descriptor</var> ] ]", where all parts may contain the wildcards "{@code *}" and "{@code ?}":
+ * </p>
+ * <dl>
+ *   <dt>{@code monitorenter}, {@code invoke*}</dt>
+ *   <dd>All instructions with that mnemonic; "wide" instructions also match without the "{@code wide }" prefix</dd>
+ *   <dt>{@code com.acme.Foo.bar}, {@code Foo.bar(I)V}, {@code *.counter:J}</dt>
+ *   <dd>
+ *     All instructions that reference a matching method ({@code invoke*}) or field ({@code get*}, {@code put*});
+ *     for {@code invokedynamic}, the <em>bootstrap</em> method is matched. A class pattern without a dot also
+ *     matches the simple class name. A method descriptor starts with "{@code (}", a field descriptor is preceded by
+ *     "{@code :}".
+ *   </dd>
+ *   <dt>{@code getfield Foo.x}, {@code invokedynamic java.lang.invoke.LambdaMetafactory.*}</dt>
+ *   <dd>Both must match</dd>
+ * </dl>
+ * <p>
+ *   Unless there are pure mnemonic patterns, class files are first checked with a {@link ConstantPoolFilter}: A class
+ *   file that lacks the literal parts of the member patterns is skipped without being parsed. Then, before any
+ *   bytecode is decoded, the constant pool of each class is checked; if it has no entry that any of the member
+ *   patterns could match, then the class is skipped, too.
+ * </p>
+ * <p>
+ *   Instances are not thread-safe.
+ * </p>
+ */
+public
+class BytecodeSearcher extends AbstractDisassemblySink {
+
+    private static final Pattern IS_ARCHIVE = Pattern.compile(".*\\.(?:jar|zip|war|ear)", Pattern.CASE_INSENSITIVE);
+
+    private final PrintWriter pw;
+    private final List<Query> queries = new ArrayList<Query>();
+    private Metrics           metrics = Metrics.NOP;
+
+    @Nullable private ErrorSummary errorSummary;
+
+    // Valid while one class file is being searched.
+    @Nullable private ClassFile cf;
+    private boolean[][]         cpMatches = new boolean[0][];
+    private boolean             skipClass;
+    @Nullable private Method    method;
+    private int                 lineNumber;
+
+    private long hitCount, classCount, skippedClassCount;
+
+    private byte[] buffer = new byte[8192];
+
+    /**
+     * The hits are printed to the given <var>out</var>.
+     */
+    public
+    BytecodeSearcher(Writer out) {
+        this.pw = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out);
+    }
+
+    /**
+     * Adds a pattern; an instruction is a hit iff it matches at least one of the patterns. See the class
+     * documentation for the pattern syntax.
+     *
+     * @throws IllegalArgumentException The <var>pattern</var> is empty
+     */
+    public void
+    addPattern(String pattern) { this.queries.add(new Query(pattern)); }
+
+    /**
+     * The time spent and the work done are reported to the given <var>metrics</var>.
+     */
+    public void
+    setMetrics(Metrics metrics) { this.metrics = metrics; }
+
+    /**
+     * If not {@code null}, then class files that cannot be searched are recorded in the <var>value</var> and skipped
+     * (the hits that were already printed for such a class file remain), and methods whose code cannot be decoded are
+     * recorded there and searched only up to the failure. Otherwise the first such failure is thrown. Defaults to
+     * {@code null}.
+     */
+    public void
+    setErrorSummary(@Nullable ErrorSummary value) { this.errorSummary = value; }
+
+    /**
+     * Searches the given <var>file</var>, which is either a class file, a directory (searched recursively for
+     * "{@code .class}" files), or a "{@code .jar}", "{@code .zip}", "{@code .war}" or "{@code .ear}" archive.
+     */
+    public void
+    search(File file) throws IOException {
+
+        if (file.isDirectory()) {
+            File[] members = file.listFiles();
+            if (members == null) throw new IOException("Cannot list directory '" + file + "'");
+            Arrays.sort(members);
+            for (File member : members) {
+                if (member.isDirectory() || member.getName().endsWith(".class")) this.search(member);
+            }
+            return;
+        }
+
+        if (BytecodeSearcher.IS_ARCHIVE.matcher(file.getName()).matches()) {
+            ZipFile zf = new ZipFile(file);
+            try {
+                for (Enumeration<? extends ZipEntry> en = zf.entries(); en.hasMoreElements();) {
+                    ZipEntry ze = en.nextElement();
+                    if (ze.isDirectory() || !ze.getName().endsWith(".class")) continue;
+
+                    InputStream is = zf.getInputStream(ze);
+                    try {
+                        this.search(is);
+                    } catch (IOException ioe) {
+                        if (this.skip(file + "!" + ze.getName(), ioe)) continue;
+                        IOException ioe2 = new IOException(
+                            "Searching '" + file + "!" + ze.getName() + "': " + ioe.getMessage()
+                        );
+                        ioe2.initCause(ioe);
+                        throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
+                    } catch (RuntimeException re) {
+                        if (this.skip(file + "!" + ze.getName(), re)) continue;
+                        throw new RuntimeException(
+                            "Searching '" + file + "!" + ze.getName() + "': " + re.getMessage(),
+                            re
+                        );
+                    } finally {
+                        try { is.close(); } catch (IOException ex) {}
+                    }
+                }
+            } finally {
+                try { zf.close(); } catch (IOException ex) {}
+            }
+            return;
+        }
+
+        InputStream is = new FileInputStream(file);
+        try {
+            this.search(is);
+        } catch (IOException ioe) {
+            if (this.skip(file.getPath(), ioe)) return;
+            IOException ioe2 = new IOException("Searching '" + file + "': " + ioe.getMessage());
+            ioe2.initCause(ioe);
+            throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
+        } catch (RuntimeException re) {
+            if (this.skip(file.getPath(), re)) return;
+            throw new RuntimeException("Searching '" + file + "': " + re.getMessage(), re);
+        } finally {
+            try { is.close(); } catch (IOException ex) {}
+        }
+    }
+
+    /**
+     * Reads a class file from the given <var>location</var> and searches it.
+     */
+    public void
+    search(URL location) throws IOException {
+        InputStream is = location.openConnection().getInputStream();
+        try {
+            this.search(is);
+        } catch (IOException ioe) {
+            if (this.skip(location.toString(), ioe)) return;
+            IOException ioe2 = new IOException("Searching '" + location + "': " + ioe.getMessage());
+            ioe2.initCause(ioe);
+            throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
+        } catch (RuntimeException re) {
+            if (this.skip(location.toString(), re)) return;
+            throw new RuntimeException("Searching '" + location + "': " + re.getMessage(), re);
+        } finally {
+            try { is.close(); } catch (IOException ex) {}
+        }
+    }
+
+    /**
+     * @return Whether the failure was recorded in the {@link #errorSummary}, and the class file is to be skipped
+     */
+    private boolean
+    skip(String location, Exception e) {
+        ErrorSummary es = this.errorSummary;
+        if (es == null) return false;
+        es.add(location, null, e);
+        return true;
+    }
+
+    /**
+     * Reads a class file from the given <var>stream</var> and searches it.
+     */
+    public void
+    search(InputStream stream) throws IOException {
+
+        // Read the class file into the buffer.
+        byte[] buffer = this.buffer;
+        int    size   = 0;
+        for (;;) {
+            if (size == buffer.length) this.buffer = (buffer = Arrays.copyOf(buffer, 2 * size));
+            int n = stream.read(buffer, size, buffer.length - size);
+            if (n == -1) break;
+            size += n;
+        }
+
+        if (!this.prefilter(buffer, size)) {
+            this.classCount++;
+            this.skippedClassCount++;
+            return;
+        }
+
+        this.search(new ClassFile(new DataInputStream(new ByteArrayInputStream(buffer, 0, size)), this.metrics));
+    }
+
+    /**
+     * @return Whether the class file could contain a hit, judging from the raw bytes of its constant pool
+     */
+    private boolean
+    prefilter(byte[] classFile, int size) {
+        for (Query q : this.queries) {
+            ConstantPoolFilter filter = q.filter;
+            if (filter == null || filter.accept(classFile, 0, size)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Searches the given class file.
+     */
+    public void
+    search(ClassFile cf) throws IOException {
+        long start = this.metrics.now();
+        try {
+            ClassFileWalker walker = new ClassFileWalker(this, this.metrics);
+            walker.setErrorSummary(this.errorSummary);
+            walker.walk(cf);
+        } finally {
+            this.metrics.time(Metrics.Timer.RENDER, start);
+        }
+        this.pw.flush();
+    }
+
+    /**
+     * @return The number of hits printed so far
+     */
+    public long
+    getHitCount() { return this.hitCount; }
+
+    /**
+     * @return A one-line summary of the search so far
+     */
+    @Override public String
+    toString() {
+        return (
+            this.hitCount
+            + " hits in "
+            + this.classCount
+            + " classes ("
+            + this.skippedClassCount
+            + " skipped after the constant pool check)"
+        );
+    }
+
+    @Override public void
+    beginClass(ClassFile cf) {
+
+        this.cf = cf;
+        this.classCount++;
+
+        // Find the constant pool entries that each query's member pattern matches; the instructions then only
+        // need to check their constant pool index.
+        ConstantPoolEntry[] entries  = cf.constantPool.entries;
+        boolean             canMatch = false;
+        if (this.cpMatches.length < this.queries.size()) this.cpMatches = new boolean[this.queries.size()][];
+        for (int qi = 0; qi < this.queries.size(); qi++) {
+            Query q = this.queries.get(qi);
+
+            if (q.owner == null) {
+                canMatch = true;
+                continue;
+            }
+
+            boolean[] matches = this.cpMatches[qi];
+            if (matches == null || matches.length < entries.length) {
+                this.cpMatches[qi] = (matches = new boolean[entries.length]);
+            } else {
+                Arrays.fill(matches, 0, entries.length, false);
+            }
+
+            for (int i = 1; i < entries.length; i++) {
+                if (q.matches(entries[i], cf)) canMatch = (matches[i] = true);
+            }
+        }
+
+        this.skipClass = !canMatch;
+        if (this.skipClass) this.skippedClassCount++;
+    }
+
+    @Override public void
+    beginMethod(Method method) { this.method = method; }
+
+    @Override public boolean
+    beginCode(Method method, CodeAttribute codeAttribute) {
+        this.lineNumber = -1;
+        return !this.skipClass;
+    }
+
+    @Override public void
+    lineNumber(int lineNumber, int pc) { this.lineNumber = lineNumber; }
+
+    @Override public void
+    instruction(Instruction instruction) {
+
+        int cpIndex = (
+            instruction.operandCount > 0 && BytecodeSearcher.isMemberRef(instruction.operandKinds[0])
+            ? instruction.operands[0]
+            : 0
+        );
+
+        for (int qi = 0; qi < this.queries.size(); qi++) {
+            Query q = this.queries.get(qi);
+
+            if (q.mnemonic != null && !q.matchesOpcode(instruction)) continue;
+            if (q.owner != null && (cpIndex == 0 || !this.cpMatches[qi][cpIndex])) continue;
+
+            this.hit(instruction, cpIndex);
+            return;
+        }
+    }
+
+    private void
+    hit(Instruction instruction, int cpIndex) {
+
+        ClassFile cf     = this.cf;
+        Method    method = this.method;
+        assert cf != null;
+        assert method != null;
+
+        this.pw.print(cf.thisClass.name);
+        this.pw.print(' ');
+        this.pw.print(method.name);
+        this.pw.print(method.descriptor);
+        this.pw.print(" #");
+        this.pw.print(instruction.pc);
+        if (this.lineNumber != -1) {
+            this.pw.print(" line ");
+            this.pw.print(this.lineNumber);
+        }
+        this.pw.print(": ");
+        this.pw.print(instruction.mnemonic);
+        if (cpIndex != 0) {
+            ConstantPoolEntry e = cf.constantPool.entries[cpIndex];
+            if (e instanceof ConstantInvokeDynamicInfo) {
+                ConstantInvokeDynamicInfo cidi = (ConstantInvokeDynamicInfo) e;
+                this.pw.print(' ');
+                this.pw.print(cidi.nameAndType.name.bytes);
+                this.pw.print(cidi.nameAndType.descriptor.bytes);
+                e = BytecodeSearcher.bootstrapMethod(cidi, cf);
+                if (e != null) this.pw.print(" bootstrap");
+            }
+            if (e instanceof ConstantFieldrefInfo) {
+                ConstantFieldrefInfo cfi = (ConstantFieldrefInfo) e;
+                this.printMember(cfi.clasS.name, cfi.nameAndType);
+            } else
+            if (e instanceof ConstantInterfaceMethodrefOrMethodrefInfo) {
+                ConstantInterfaceMethodrefOrMethodrefInfo cimi = (ConstantInterfaceMethodrefOrMethodrefInfo) e;
+                this.printMember(cimi.clasS.name, cimi.nameAndType);
+            }
+        }
+        this.pw.println();
+
+        this.hitCount++;
+    }
+
+    private void
+    printMember(String owner, ConstantNameAndTypeInfo nameAndType) {
+        this.pw.print(' ');
+        this.pw.print(owner);
+        this.pw.print('.');
+        this.pw.print(nameAndType.name.bytes);
+        if (nameAndType.descriptor.bytes.charAt(0) != '(') this.pw.print(':');
+        this.pw.print(nameAndType.descriptor.bytes);
+    }
+
+    private static boolean
+    isMemberRef(OperandKind operandKind) {
+        return (
+            operandKind == OperandKind.FIELDREF2
+            || operandKind == OperandKind.METHODREF2
+            || operandKind == OperandKind.INTERFACEMETHODREF2
+            || operandKind == OperandKind.INTERFACEMETHODREFORMETHODREF2
+            || operandKind == OperandKind.DYNAMICCALLSITE
+        );
+    }
+
+    /**
+     * @return The field or method that the bootstrap method handle of the <var>cidi</var> references, or {@code
+     *         null} iff the class file is malformed
+     */
+    @Nullable static ConstantPoolEntry
+    bootstrapMethod(ConstantInvokeDynamicInfo cidi, ClassFile cf) {
+        BootstrapMethodsAttribute bma = cf.bootstrapMethodsAttribute;
+        int                       idx = 0xffff & cidi.bootstrapMethodAttrIndex;
+        if (bma == null || idx >= bma.bootstrapMethods.size()) return null;
+        return bma.bootstrapMethods.get(idx).bootstrapMethod.reference;
+    }
+
+    /**
+     * One parsed search pattern.
+     */
+    private static
+    class Query {
+
+        private static final Pattern WILDCARDS = Pattern.compile("[*?]+");
+
+        @Nullable final Pattern mnemonic;
+        @Nullable final Pattern owner;
+        @Nullable final Pattern name;
+        @Nullable final Pattern descriptor;
+
+        /**
+         * Rejects the class files that lack the literal parts of the member pattern; {@code null} for pure mnemonic
+         * patterns.
+         */
+        @Nullable final ConstantPoolFilter filter;
+
+        // Per opcode (wide opcodes at 256 + modified opcode): 0 = not yet known, 1 = matches, 2 = does not match.
+        private final byte[] opcodeMatches = new byte[512];
+
+        Query(String pattern) {
+
+            pattern = pattern.trim();
+            if (pattern.length() == 0) throw new IllegalArgumentException("Empty search pattern");
+
+            String mnemonic, member;
+            {
+                int idx = pattern.lastIndexOf(' ');
+                if (idx != -1 && pattern.indexOf('.', idx) != -1) {
+                    mnemonic = pattern.substring(0, idx).trim();
+                    member   = pattern.substring(idx + 1);
+                } else
+                if (pattern.indexOf('.') == -1) {
+                    mnemonic = pattern;
+                    member   = null;
+                } else
+                {
+                    mnemonic = null;
+                    member   = pattern;
+                }
+            }
+            this.mnemonic = mnemonic == null ? null : Query.glob(mnemonic);
+
+            if (member == null) {
+                this.owner  = this.name = this.descriptor = null;
+                this.filter = null;
+                return;
+            }
+
+            // "owner.name", "owner.name(...)...", "owner.name:descriptor"
+            String descriptor = null;
+            {
+                int idx = member.indexOf('(');
+                if (idx == -1) {
+                    idx = member.indexOf(':');
+                    if (idx != -1) {
+                        descriptor = member.substring(idx + 1);
+                        member     = member.substring(0, idx);
+                    }
+                } else {
+                    descriptor = member.substring(idx);
+                    member     = member.substring(0, idx);
+                }
+            }
+
+            int    idx   = member.lastIndexOf('.');
+            String owner = idx == -1 ? "*" : member.substring(0, idx);
+
+            // A class pattern without a dot also matches the simple class name.
+            this.owner = Pattern.compile(
+                (owner.indexOf('.') == -1 ? "(?:.*\\.)?" : "")
+                + Query.glob(owner).pattern()
+            );
+            this.name       = Query.glob(member.substring(idx + 1));
+            this.descriptor = descriptor == null ? null : Query.glob(descriptor);
+
+            // Every literal part of the patterns must appear in some CONSTANT_Utf8_info entry; a fully qualified
+            // class name must even be referenced by a CONSTANT_Class_info entry.
+            ConstantPoolFilter filter = new ConstantPoolFilter();
+            if (owner.indexOf('.') != -1 && owner.indexOf('*') == -1 && owner.indexOf('?') == -1) {
+                filter.requireClass(owner);
+            } else {
+                for (String literal : Query.literals(owner)) filter.requireUtf8(literal.replace('.', '/'));
+            }
+            for (String literal : Query.literals(member.substring(idx + 1))) filter.requireUtf8(literal);
+            if (descriptor != null) {
+                for (String literal : Query.literals(descriptor)) filter.requireUtf8(literal);
+            }
+            this.filter = filter;
+        }
+
+        /**
+         * @return The non-empty parts of the <var>glob</var> between the wildcards
+         */
+        private static List<String>
+        literals(String glob) {
+            List<String> result = new ArrayList<String>();
+            for (String literal : Query.WILDCARDS.split(glob)) {
+                if (literal.length() > 0) result.add(literal);
+            }
+            return result;
+        }
+
+        /**
+         * @return Whether the given constant pool <var>entry</var> is a field, method or (the bootstrap method of an)
+         *         invokedynamic reference that matches this query's member pattern
+         */
+        boolean
+        matches(@Nullable ConstantPoolEntry entry, ClassFile cf) {
+
+            if (entry instanceof ConstantInvokeDynamicInfo) {
+                entry = BytecodeSearcher.bootstrapMethod((ConstantInvokeDynamicInfo) entry, cf);
+            }
+
+            if (entry instanceof ConstantFieldrefInfo) {
+                ConstantFieldrefInfo cfi = (ConstantFieldrefInfo) entry;
+                return this.matches(cfi.clasS.name, cfi.nameAndType);
+            }
+
+            if (entry instanceof ConstantInterfaceMethodrefOrMethodrefInfo) {
+                ConstantInterfaceMethodrefOrMethodrefInfo cimi = (ConstantInterfaceMethodrefOrMethodrefInfo) entry;
+                return this.matches(cimi.clasS.name, cimi.nameAndType);
+            }
+
+            return false;
+        }
+
+        private boolean
+        matches(String owner, ConstantNameAndTypeInfo nameAndType) {
+            Pattern ownerPattern = this.owner, namePattern = this.name, descriptorPattern = this.descriptor;
+            assert ownerPattern != null && namePattern != null;
+            return (
+                namePattern.matcher(nameAndType.name.bytes).matches()
+                && ownerPattern.matcher(owner).matches()
+                && (descriptorPattern == null || descriptorPattern.matcher(nameAndType.descriptor.bytes).matches())
+            );
+        }
+
+        boolean
+        matchesOpcode(Instruction instruction) {
+
+            int idx = instruction.opcode <= 0xff ? instruction.opcode : 0x100 | (instruction.opcode & 0xff);
+
+            byte m = this.opcodeMatches[idx];
+            if (m == 0) {
+                Pattern mnemonicPattern = this.mnemonic;
+                assert mnemonicPattern != null;
+
+                String  mnemonic = instruction.mnemonic;
+                boolean matches  = (
+                    mnemonicPattern.matcher(mnemonic).matches()
+                    || (mnemonic.startsWith("wide ") && mnemonicPattern.matcher(mnemonic.substring(5)).matches())
+                );
+                this.opcodeMatches[idx] = (m = (byte) (matches ? 1 : 2));
+            }
+            return m == 1;
+        }
+
+        /**
+         * Translates a pattern with wildcards "{@code *}" and "{@code ?}" into a regular expression.
+         */
+        private static Pattern
+        glob(String glob) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '*') {
+                    sb.append(".*");
+                } else
+                if (c == '?') {
+                    sb.append('.');
+                } else
+                {
+                    sb.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return Pattern.compile(sb.toString());
+        }
+    }
+}
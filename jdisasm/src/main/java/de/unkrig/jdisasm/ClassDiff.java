@@ -0,0 +1,508 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.ConstantValueAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionsAttribute;
+import de.unkrig.jdisasm.ClassFile.Field;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ClassFile.SignatureAttribute;
+
+/**
+ * Compares the class files of two versions of a directory or archive, and reports which classes, fields and
+ * methods were added, removed or changed, one line each:
+ * <pre>
+ * + com.acme.Added
+ * - com.acme.Removed
+ * ~ com.acme.Changed: access, superclass
+ * + com.acme.Changed.newField:I
+ * - com.acme.Changed.oldMethod()V
+ * ~ com.acme.Changed.method(Ljava/lang/String;)V: code
+ * </pre>
+ * <p>
+ *   Classes are matched by their path within the directory or archive. Classes whose size and CRC are equal (for
+ *   archive entries, as recorded in the archive's directory, so that they need not even be read) are assumed to be
+ *   identical, and byte-identical classes are not parsed. The other classes are parsed and compared member by member,
+ *   concurrently. Code is compared by its {@link MethodFingerprinter fingerprint}, which does not depend on the
+ *   layout of the constant pool. Thus recompiling a class, which typically re-orders its constant pool, does not
+ *   produce a difference. Debug information (line numbers, local variable names) is ignored.
+ * </p>
+ */
+public
+class ClassDiff {
+
+    private final PrintWriter pw;
+    private int               threadCount = Runtime.getRuntime().availableProcessors();
+
+    private int added, removed, changed, equivalent, identical;
+
+    public
+    ClassDiff(Writer out) {
+        this.pw = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out);
+    }
+
+    /**
+     * The number of class pairs to parse and compare concurrently; defaults to the number of processors.
+     */
+    public void
+    setThreadCount(int threadCount) { this.threadCount = threadCount; }
+
+    /**
+     * Compares the class files under <var>oldInput</var> and <var>newInput</var>, which are directories (searched
+     * recursively), "{@code .jar}", "{@code .zip}", "{@code .war}" or "{@code .ear}" archives, or single class
+     * files, and prints the differences in class name order.
+     */
+    public void
+    diff(File oldInput, File newInput) throws IOException {
+
+        List<ZipFile> zipFiles = new ArrayList<ZipFile>();
+        try {
+            Map<String, Entry> oldEntries = ClassDiff.entries(oldInput, zipFiles);
+            Map<String, Entry> newEntries = ClassDiff.entries(newInput, zipFiles);
+            if (
+                oldInput.isFile()
+                && newInput.isFile()
+                && !ClassFileScanner.isArchive(oldInput)
+                && !ClassFileScanner.isArchive(newInput)
+            ) {
+
+                // Two single class files are compared even if their names differ.
+                oldEntries = ClassDiff.rename(oldEntries, newEntries);
+            }
+
+            TreeSet<String> names = new TreeSet<String>(oldEntries.keySet());
+            names.addAll(newEntries.keySet());
+
+            ExecutorService executorService = Executors.newFixedThreadPool(this.threadCount);
+            try {
+                Queue<Pending> pending = new ArrayDeque<Pending>();
+                for (final String name : names) {
+                    final String className = name.substring(0, name.length() - 6).replace('/', '.');
+                    final Entry  oldEntry  = oldEntries.get(name);
+                    final Entry  newEntry  = newEntries.get(name);
+
+                    Pending p;
+                    if (oldEntry == null) {
+                        p = new Pending(className, '+');
+                    } else
+                    if (newEntry == null) {
+                        p = new Pending(className, '-');
+                    } else
+                    if (oldEntry.crc != -1 && oldEntry.crc == newEntry.crc && oldEntry.size == newEntry.size) {
+                        p = new Pending(className, '=');
+                    } else
+                    {
+                        p = new Pending(className, executorService.submit(new Callable<List<String>>() {
+
+                            @Override @Nullable public List<String>
+                            call() throws IOException { return ClassDiff.compare(className, oldEntry, newEntry); }
+                        }));
+                    }
+
+                    this.drain(pending, 16 * this.threadCount);
+                    pending.add(p);
+                }
+                this.drain(pending, 0);
+            } finally {
+                executorService.shutdownNow();
+            }
+        } finally {
+            for (ZipFile zf : zipFiles) {
+                try { zf.close(); } catch (IOException ex) {}
+            }
+        }
+        this.pw.flush();
+    }
+
+    /**
+     * E.g. "{@code 1 added, 2 removed, 3 changed, 4 equivalent, 5 identical classes}", where "equivalent" classes
+     * differ only in their constant pool layout, debug information or other attributes.
+     */
+    @Override public String
+    toString() {
+        return (
+            this.added
+            + " added, "
+            + this.removed
+            + " removed, "
+            + this.changed
+            + " changed, "
+            + this.equivalent
+            + " equivalent, "
+            + this.identical
+            + " identical classes"
+        );
+    }
+
+    /**
+     * Prints the results of the oldest pending comparisons, until no more than <var>max</var> are pending.
+     */
+    private void
+    drain(Queue<Pending> pending, int max) throws IOException {
+        while (pending.size() > max) {
+            Pending p = pending.remove();
+            switch (p.kind) {
+
+            case '+':
+                this.pw.println("+ " + p.className);
+                this.added++;
+                break;
+
+            case '-':
+                this.pw.println("- " + p.className);
+                this.removed++;
+                break;
+
+            case '=':
+                this.identical++;
+                break;
+
+            default:
+                Future<List<String>> future = p.future;
+                assert future != null;
+
+                List<String> lines;
+                try {
+                    lines = future.get();
+                } catch (InterruptedException ie) {
+                    throw new IOException(ie.getMessage()); // SUPPRESS CHECKSTYLE AvoidHidingCause
+                } catch (ExecutionException ee) {
+                    throw ClassFileScanner.rethrow(ee);
+                }
+
+                if (lines == null) {
+                    this.identical++;
+                } else
+                if (lines.isEmpty()) {
+                    this.equivalent++;
+                } else
+                {
+                    for (String line : lines) this.pw.println(line);
+                    this.changed++;
+                }
+                break;
+            }
+        }
+    }
+
+    private static final
+    class Pending {
+
+        final String                         className;
+        final char                           kind; // '+', '-', '=', or '~' (compare)
+        @Nullable final Future<List<String>> future;
+
+        Pending(String className, char kind) {
+            this.className = className;
+            this.kind      = kind;
+            this.future    = null;
+        }
+
+        Pending(String className, Future<List<String>> future) {
+            this.className = className;
+            this.kind      = '~';
+            this.future    = future;
+        }
+    }
+
+    /**
+     * A class file in a directory or archive.
+     */
+    private abstract static
+    class Entry {
+
+        final long size;
+        final long crc; // -1 == unknown
+
+        Entry(long size, long crc) {
+            this.size = size;
+            this.crc  = crc;
+        }
+
+        abstract InputStream
+        open() throws IOException;
+
+        byte[]
+        read() throws IOException {
+            InputStream is = this.open();
+            try {
+                byte[] result = new byte[(int) this.size];
+                new DataInputStream(is).readFully(result);
+                return result;
+            } finally {
+                try { is.close(); } catch (IOException ex) {}
+            }
+        }
+    }
+
+    /**
+     * @return The class files under the <var>input</var>, keyed by their path relative to the <var>input</var>
+     */
+    private static Map<String, Entry>
+    entries(File input, List<ZipFile> zipFiles) throws IOException {
+
+        Map<String, Entry> result = new HashMap<String, Entry>();
+
+        if (!input.exists()) throw new FileNotFoundException("'" + input + "' does not exist");
+
+        if (input.isDirectory()) {
+            List<File> files = new ArrayList<File>();
+            ClassFileScanner.findUnits(input, files);
+            int prefixLength = input.getPath().length() + 1;
+            for (final File file : files) {
+                if (!file.getName().endsWith(".class")) continue;
+                result.put(file.getPath().substring(prefixLength).replace(File.separatorChar, '/'), new Entry(
+                    file.length(),
+                    -1
+                ) {
+                    @Override InputStream open() throws IOException { return new FileInputStream(file); }
+                });
+            }
+        } else
+        if (ClassFileScanner.isArchive(input)) {
+            final ZipFile zf = new ZipFile(input);
+            zipFiles.add(zf);
+            for (Enumeration<? extends ZipEntry> en = zf.entries(); en.hasMoreElements();) {
+                final ZipEntry ze = en.nextElement();
+                if (ze.isDirectory() || !ze.getName().endsWith(".class") || ze.getSize() == -1) continue;
+                result.put(ze.getName(), new Entry(ze.getSize(), ze.getCrc()) {
+                    @Override InputStream open() throws IOException { return zf.getInputStream(ze); }
+                });
+            }
+        } else
+        {
+            final File file = input;
+            result.put(file.getName(), new Entry(file.length(), -1) {
+                @Override InputStream open() throws IOException { return new FileInputStream(file); }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The single entry of <var>oldEntries</var>, under the name of the single entry of <var>newEntries</var>
+     */
+    private static Map<String, Entry>
+    rename(Map<String, Entry> oldEntries, Map<String, Entry> newEntries) {
+        Map<String, Entry> result = new HashMap<String, Entry>();
+        result.put(newEntries.keySet().iterator().next(), oldEntries.values().iterator().next());
+        return result;
+    }
+
+    /**
+     * @return {@code null} iff the two class files are byte-identical, otherwise the report lines (empty iff the
+     *         classes are equivalent)
+     */
+    @Nullable private static List<String>
+    compare(String className, Entry oldEntry, Entry newEntry) throws IOException {
+
+        ClassFile oldCf, newCf;
+        try {
+            byte[] oldBytes = oldEntry.read(), newBytes = newEntry.read();
+            if (Arrays.equals(oldBytes, newBytes)) return null;
+
+            oldCf = new ClassFile(new DataInputStream(new ByteArrayInputStream(oldBytes)));
+            newCf = new ClassFile(new DataInputStream(new ByteArrayInputStream(newBytes)));
+        } catch (IOException ioe) {
+            IOException ioe2 = new IOException("Comparing '" + className + "': " + ioe.getMessage());
+            ioe2.initCause(ioe);
+            throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
+        } catch (RuntimeException re) {
+            throw new RuntimeException("Comparing '" + className + "': " + re.getMessage(), re);
+        }
+
+        return new Comparison(className, oldCf, newCf).run();
+    }
+
+    /**
+     * Compares two versions of one class file.
+     */
+    private static final
+    class Comparison {
+
+        private final String       className;
+        private final ClassFile    oldCf, newCf;
+        private final List<String> result = new ArrayList<String>();
+
+        private final MethodFingerprinter fingerprinter = new MethodFingerprinter();
+
+        Comparison(String className, ClassFile oldCf, ClassFile newCf) {
+            this.className = className;
+            this.oldCf     = oldCf;
+            this.newCf     = newCf;
+        }
+
+        List<String>
+        run() throws IOException {
+            ClassFile o = this.oldCf, n = this.newCf;
+
+            StringBuilder changes = new StringBuilder();
+            if (o.majorVersion != n.majorVersion || o.minorVersion != n.minorVersion) changes.append(", version");
+            if (o.accessFlags.intValue() != n.accessFlags.intValue()) changes.append(", access");
+            if (!ClassDiff.equal(o.superClassName, n.superClassName)) changes.append(", superclass");
+            if (!o.interfaceNames.equals(n.interfaceNames)) changes.append(", interfaces");
+            if (!ClassDiff.equal(o.signatureAttribute, n.signatureAttribute)) changes.append(", signature");
+            if (changes.length() > 0) this.result.add("~ " + this.className + ": " + changes.substring(2));
+
+            // Compare the fields.
+            Map<String, Field> oldFields = new TreeMap<String, Field>(), newFields = new TreeMap<String, Field>();
+            for (Field f : o.fields) oldFields.put(f.name + ":" + f.descriptor, f);
+            for (Field f : n.fields) newFields.put(f.name + ":" + f.descriptor, f);
+            for (String key : ClassDiff.union(oldFields.keySet(), newFields.keySet())) {
+                Field of = oldFields.get(key), nf = newFields.get(key);
+                if (!this.added(of, nf, key)) this.changed(key, this.compare(of, nf));
+            }
+
+            // Compare the methods.
+            Map<String, Method> oldMethods = new TreeMap<String, Method>(), newMethods = new TreeMap<String, Method>();
+            for (Method m : o.methods) oldMethods.put(m.name + m.descriptor, m);
+            for (Method m : n.methods) newMethods.put(m.name + m.descriptor, m);
+            for (String key : ClassDiff.union(oldMethods.keySet(), newMethods.keySet())) {
+                Method om = oldMethods.get(key), nm = newMethods.get(key);
+                if (!this.added(om, nm, key)) this.changed(key, this.compare(om, nm));
+            }
+
+            return this.result;
+        }
+
+        /**
+         * Reports an added or removed member.
+         *
+         * @return Whether the member was added or removed
+         */
+        private boolean
+        added(@Nullable Object oldMember, @Nullable Object newMember, String key) {
+            if (oldMember == null) {
+                this.result.add("+ " + this.className + "." + key);
+                return true;
+            }
+            if (newMember == null) {
+                this.result.add("- " + this.className + "." + key);
+                return true;
+            }
+            return false;
+        }
+
+        private void
+        changed(String key, StringBuilder changes) {
+            if (changes.length() > 0) this.result.add("~ " + this.className + "." + key + ": " + changes.substring(2));
+        }
+
+        private StringBuilder
+        compare(@Nullable Field oldField, @Nullable Field newField) {
+            assert oldField != null && newField != null;
+
+            StringBuilder changes = new StringBuilder();
+            if (oldField.accessFlags.intValue() != newField.accessFlags.intValue()) changes.append(", access");
+            if (!ClassDiff.equal(oldField.constantValueAttribute, newField.constantValueAttribute)) {
+                changes.append(", constant value");
+            }
+            if (!ClassDiff.equal(oldField.signatureAttribute, newField.signatureAttribute)) {
+                changes.append(", signature");
+            }
+            return changes;
+        }
+
+        private StringBuilder
+        compare(@Nullable Method oldMethod, @Nullable Method newMethod) throws IOException {
+            assert oldMethod != null && newMethod != null;
+
+            StringBuilder changes = new StringBuilder();
+            if (oldMethod.accessFlags.intValue() != newMethod.accessFlags.intValue()) changes.append(", access");
+            if (this.fingerprinter.fingerprint(oldMethod) != this.fingerprinter.fingerprint(newMethod)) {
+                changes.append(", code");
+            }
+            if (!ClassDiff.equal(oldMethod.exceptionsAttribute, newMethod.exceptionsAttribute)) {
+                changes.append(", exceptions");
+            }
+            if (!ClassDiff.equal(oldMethod.signatureAttribute, newMethod.signatureAttribute)) {
+                changes.append(", signature");
+            }
+            return changes;
+        }
+    }
+
+    private static List<String>
+    union(Set<String> s1, Set<String> s2) {
+        TreeSet<String> result = new TreeSet<String>(s1);
+        result.addAll(s2);
+        return new ArrayList<String>(result);
+    }
+
+    private static boolean
+    equal(@Nullable Object o1, @Nullable Object o2) { return o1 == null ? o2 == null : o2 != null && o1.equals(o2); }
+
+    private static boolean
+    equal(@Nullable SignatureAttribute sa1, @Nullable SignatureAttribute sa2) {
+        return sa1 == null ? sa2 == null : sa2 != null && sa1.signature.equals(sa2.signature);
+    }
+
+    private static boolean
+    equal(@Nullable ConstantValueAttribute cva1, @Nullable ConstantValueAttribute cva2) {
+        return cva1 == null ? cva2 == null : cva2 != null && cva1.constantValue.equals(cva2.constantValue);
+    }
+
+    private static boolean
+    equal(@Nullable ExceptionsAttribute ea1, @Nullable ExceptionsAttribute ea2) {
+        if (ea1 == null || ea2 == null) return ea1 == ea2;
+        if (ea1.exceptionNames.size() != ea2.exceptionNames.size()) return false;
+        for (int i = 0; i < ea1.exceptionNames.size(); i++) {
+            if (!ea1.exceptionNames.get(i).name.equals(ea2.exceptionNames.get(i).name)) return false;
+        }
+        return true;
+    }
+}
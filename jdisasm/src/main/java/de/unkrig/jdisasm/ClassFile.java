@@ -47,6 +47,7 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -63,6 +64,13 @@ import de.unkrig.jdisasm.SignatureParser.SignatureException;
 
 /**
  * Representation of a Java class file.
+ * <p>
+ *   A {@link ClassFile} is completely built by its constructor: All its fields, and those of its components, are
+ *   final, and all its lists are unmodifiable. (The arrays, e.g. {@link CodeAttribute#code}, must not be modified
+ *   either.) Thus, it can be shared between threads and rendered concurrently. The only exception is the deprecated
+ *   {@link #setSignatureParser(SignatureParser)}. Rendering options are not stored in the model, but
+ *   passed to the {@code toString(SignatureParser)} methods of its components.
+ * </p>
  */
 public
 class ClassFile {
@@ -71,13 +79,13 @@ class ClassFile {
      * The <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1-200-B">minor and major
      * version numbers of this class file</a>.
      */
-    public short minorVersion, majorVersion;
+    public final short minorVersion, majorVersion;
 
     /**
      * The <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1-200-C">number of entries in
      * the constant pool table plus one</a>.
      */
-    public ConstantPool constantPool;
+    public final ConstantPool constantPool;
 
     public String
     getJavaVersion() {
@@ -106,33 +114,42 @@ class ClassFile {
      * A <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1-200-E">mask of flags used to
      * denote access permissions to and properties of this class or interface</a>.
      */
-    public AccessFlags accessFlags;
+    public final AccessFlags accessFlags;
 
     /**
      * The fully qualified (dot-separated) name of this type.
      */
-    public String thisClassName;
+    public final String thisClassName;
 
     /**
      * The fully qualified name of the package that declares this type, including a trailing ".".
      */
-    public String thisClassPackageNamePrefix;
+    public final String thisClassPackageNamePrefix;
 
     /**
      * The simple (unqualified) name of this type.
      */
-    public String simpleThisClassName;
+    public final String simpleThisClassName;
 
     /**
      * The fully qualified (dot-separated) name of the superclass of this type; "java.lang.Object" iff this type is an
      * interface; {@code null} iff this type is {@link Object}.
      */
-    @Nullable public String superClassName;
+    @Nullable public final String superClassName;
 
     /**
      * Fully qualified (dot-separated) names of the interfaces that this type implements.
      */
-    public final List<String> interfaceNames = new ArrayList<String>();
+    public final List<String> interfaceNames;
+
+    /**
+     * The constant pool entries that {@link #thisClassName}, {@link #superClassName} and {@link #interfaceNames} were
+     * derived from. Unlike those, the {@link ConstantClassInfo#name}s of these are never abbreviated, e.g. {@code
+     * "java.lang.Object"} instead of {@code "Object"}.
+     */
+    public final ConstantClassInfo           thisClass;
+    @Nullable public final ConstantClassInfo superClass;
+    public final List<ConstantClassInfo>     interfaces;
 
     /**
      * The <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1-200-K">complete description
@@ -140,7 +157,7 @@ class ClassFile {
      * class or interface. It does not include items representing fields that are inherited from superclasses or
      * superinterfaces.
      */
-    public final List<Field> fields = new ArrayList<Field>();
+    public final List<Field> fields;
 
     /**
      * The <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1-200-M">complete description
@@ -153,69 +170,72 @@ class ClassFile {
      *   superinterfaces.
      * </p>
      */
-    public final List<Method> methods = new ArrayList<Method>();
+    public final List<Method> methods;
 
     /**
      * The optional {@code BootstrapMethodsAttribute} of this class or interface.
      */
-    @Nullable public BootstrapMethodsAttribute bootstrapMethodsAttribute;
+    @Nullable public final BootstrapMethodsAttribute bootstrapMethodsAttribute;
 
     /**
      * The optional {@code DeprecatedAttribute} of this class or interface.
      */
-    @Nullable public DeprecatedAttribute deprecatedAttribute;
+    @Nullable public final DeprecatedAttribute deprecatedAttribute;
 
     /**
      * The optional {@code EnclosingMethodAttribute} of this class or interface.
      */
-    @Nullable public EnclosingMethodAttribute enclosingMethodAttribute;
+    @Nullable public final EnclosingMethodAttribute enclosingMethodAttribute;
 
     /**
      * The optional {@code InnerClassesAttribute} of this class or interface.
      */
-    @Nullable public InnerClassesAttribute innerClassesAttribute;
+    @Nullable public final InnerClassesAttribute innerClassesAttribute;
 
     /**
      * The optional {@code ModulePackagesAttribute} of this class or interface.
      */
-    @Nullable public ModulePackagesAttribute modulePackagesAttribute;
+    @Nullable public final ModulePackagesAttribute modulePackagesAttribute;
 
     /**
      * The optional {@code RuntimeInvisibleAnnotations} attribute of this class or interface.
      */
-    @Nullable public RuntimeInvisibleAnnotationsAttribute runtimeInvisibleAnnotationsAttribute;
+    @Nullable public final RuntimeInvisibleAnnotationsAttribute runtimeInvisibleAnnotationsAttribute;
 
     /**
      * The optional {@code RuntimeVisibleAnnotations} attribute of this class or interface.
      */
-    @Nullable public RuntimeVisibleAnnotationsAttribute runtimeVisibleAnnotationsAttribute;
+    @Nullable public final RuntimeVisibleAnnotationsAttribute runtimeVisibleAnnotationsAttribute;
 
     /**
      * The optional {@code SignatureAttribute} of this class or interface.
      */
-    @Nullable public SignatureAttribute signatureAttribute;
+    @Nullable public final SignatureAttribute signatureAttribute;
 
     /**
      * The optional {@code SourceFileAttribute} of this class or interface.
      */
-    @Nullable public SourceFileAttribute sourceFileAttribute;
+    @Nullable public final SourceFileAttribute sourceFileAttribute;
 
     /**
      * The optional {@code SyntheticAttribute} of this class or interface.
      */
-    @Nullable public SyntheticAttribute syntheticAttribute;
+    @Nullable public final SyntheticAttribute syntheticAttribute;
 
     /**
      * All attributes of this class.
      */
-    public final List<Attribute> allAttributes = new ArrayList<Attribute>();
+    public final List<Attribute> allAttributes;
 
     /**
      * All unprocessed attributes of this class.
      */
-    public final List<Attribute> unprocessedAttributes = new ArrayList<Attribute>();
+    public final List<Attribute> unprocessedAttributes;
 
-    private SignatureParser signatureParser = new SignatureParser();
+    /**
+     * Used while parsing, e.g. to decode the types of annotations.
+     */
+    private SignatureParser signatureParser;
 
     /**
      * Abstraction for a set of "access flags".
@@ -255,6 +275,12 @@ class ClassFile {
         public boolean
         is(FlagType ft) { return (this.value & ft.value) != 0; }
 
+        /**
+         * @return The flags as they are stored in the class file, e.g. {@code 0x0009} for "public static"
+         */
+        public int
+        intValue() { return this.value; }
+
         /**
          * @return Whether one or more of the <var>flagTypes</var> is set
          */
@@ -303,7 +329,21 @@ class ClassFile {
     }
 
     public
-    ClassFile(DataInputStream dis) throws IOException {
+    ClassFile(DataInputStream dis) throws IOException { this(dis, Metrics.NOP); }
+
+    /**
+     * Parses a class file, and reports timings and counts to the given <var>metrics</var>.
+     */
+    public
+    ClassFile(DataInputStream dis, Metrics metrics) throws IOException {
+
+        long start = metrics.now();
+
+        // Count the input bytes only if someone is interested.
+        CountingInputStream cis = null;
+        if (metrics != Metrics.NOP) dis = new DataInputStream((cis = new CountingInputStream(dis)));
+
+        this.signatureParser = new SignatureParser(SignatureParser.DEFAULT_OPTIONS, metrics);
 
         // Magic number.
         {
@@ -318,39 +358,52 @@ class ClassFile {
         this.majorVersion = dis.readShort();
 
         // Load constant pool.
-        this.constantPool = new ConstantPool(dis, this.signatureParser);
+        this.constantPool = new ConstantPool(dis, this.signatureParser, metrics);
+
+        long attributesStart = metrics.now();
 
         // Access flags.
         this.accessFlags = new AccessFlags(dis.readShort());
 
-        try {
+        // Class name.
+        this.thisClass     = this.constantPool.get(dis.readShort(), ConstantClassInfo.class);
+        this.thisClassName = this.thisClass.toString();
+        {
+            int idx = this.thisClassName.lastIndexOf('.') + 1;
+            this.thisClassPackageNamePrefix = this.thisClassName.substring(0, idx);
+            this.simpleThisClassName        = this.thisClassName.substring(idx);
+        }
 
-            // Class name.
-            this.thisClassName = this.constantPool.get(dis.readShort(), ConstantClassInfo.class).toString();
-            {
-                int idx = this.thisClassName.lastIndexOf('.') + 1;
-                this.thisClassPackageNamePrefix = this.thisClassName.substring(0, idx);
-                this.simpleThisClassName        = this.thisClassName.substring(idx);
-            }
+        try {
 
             // Superclass.
             {
                 ConstantClassInfo
                 superclassCci = this.constantPool.getOptional(dis.readShort(), ConstantClassInfo.class);
+                this.superClass     = superclassCci;
                 this.superClassName = superclassCci == null ? null : superclassCci.toString();
             }
 
             // Implemented interfaces.
-            for (short i = dis.readShort(); i > 0; --i) {
-                this.interfaceNames.add(this.constantPool.get(dis.readShort(), ConstantClassInfo.class).toString());
+            {
+                List<ConstantClassInfo> interfaces     = new ArrayList<ConstantClassInfo>();
+                List<String>            interfaceNames = new ArrayList<String>();
+                for (short i = dis.readShort(); i > 0; --i) {
+                    ConstantClassInfo cci = this.constantPool.get(dis.readShort(), ConstantClassInfo.class);
+                    interfaces.add(cci);
+                    interfaceNames.add(cci.toString());
+                }
+                this.interfaces     = Collections.unmodifiableList(interfaces);
+                this.interfaceNames = Collections.unmodifiableList(interfaceNames);
             }
 
             // Fields.
             {
-                short n = dis.readShort();
+                List<Field> fields = new ArrayList<Field>();
+                short       n      = dis.readShort();
                 for (short i = 0; i < n; i++) {
                     try {
-                        this.fields.add(new Field(dis));
+                        fields.add(new Field(dis));
                     } catch (IOException ioe) {
                         IOException ioe2 = new IOException(
                             "Reading field #" + i + " of " + n + ": " + ioe.getMessage()
@@ -361,14 +414,16 @@ class ClassFile {
                         throw new RuntimeException("Reading field #" + i + " of " + n + ": " + re.getMessage(), re);
                     }
                 }
+                this.fields = Collections.unmodifiableList(fields);
             }
 
             // Methods.
             {
-                short n = dis.readShort();
+                List<Method> methods = new ArrayList<Method>();
+                short        n       = dis.readShort();
                 for (short i = 0; i < n; i++) {
                     try {
-                        this.methods.add(new Method(dis));
+                        methods.add(new Method(dis));
                     } catch (IOException ioe) {
                         IOException ioe2 = new IOException(
                             "Reading method #" + i + " of " + n + ": " + ioe.getMessage()
@@ -388,87 +443,60 @@ class ClassFile {
                         ), re);
                     }
                 }
+                this.methods = Collections.unmodifiableList(methods);
             }
 
             // Class attributes.
-            this.readAttributes(dis, new AbstractAttributeVisitor() {
-
-                @Override public void
-                visit(BootstrapMethodsAttribute bma) {
-                    ClassFile.this.bootstrapMethodsAttribute = bma;
-                    ClassFile.this.allAttributes.add(bma);
-                }
-
-                @Override public void
-                visit(DeprecatedAttribute da) {
-                    ClassFile.this.deprecatedAttribute = da;
-                    ClassFile.this.allAttributes.add(da);
-                }
-
-                @Override public void
-                visit(EnclosingMethodAttribute ema) {
-                    ClassFile.this.enclosingMethodAttribute = ema;
-                    ClassFile.this.allAttributes.add(ema);
-                }
-
-                @Override public void
-                visit(InnerClassesAttribute ica) {
-                    ClassFile.this.innerClassesAttribute = ica;
-                    ClassFile.this.allAttributes.add(ica);
-                }
-
-                @Override public void
-                visit(ModulePackagesAttribute mpa) {
-                    ClassFile.this.modulePackagesAttribute = mpa;
-                    ClassFile.this.allAttributes.add(mpa);
-                }
-
-                @Override public void
-                visit(RuntimeInvisibleAnnotationsAttribute riaa) {
-                    ClassFile.this.runtimeInvisibleAnnotationsAttribute = riaa;
-                    ClassFile.this.allAttributes.add(riaa);
-                }
-
-                @Override public void
-                visit(RuntimeVisibleAnnotationsAttribute rvaa) {
-                    ClassFile.this.runtimeVisibleAnnotationsAttribute = rvaa;
-                    ClassFile.this.allAttributes.add(rvaa);
-                }
-
-                @Override public void
-                visit(SignatureAttribute sa) {
-                    ClassFile.this.signatureAttribute = sa;
-                    ClassFile.this.allAttributes.add(sa);
-                }
-
-                @Override public void
-                visit(SourceFileAttribute sfa) {
-                    ClassFile.this.sourceFileAttribute = sfa;
-                    ClassFile.this.allAttributes.add(sfa);
-                }
-
-                @Override public void
-                visit(SyntheticAttribute sa) {
-                    ClassFile.this.syntheticAttribute = sa;
-                    ClassFile.this.allAttributes.add(sa);
-                }
-
-                @Override public void
-                visitOther(Attribute a) {
-                    ClassFile.this.allAttributes.add(a);
-                    ClassFile.this.unprocessedAttributes.add(a);
-                }
-            });
+            List<Attribute> attributes = this.readAttributes(dis);
+            this.bootstrapMethodsAttribute = ClassFile.attribute(attributes, BootstrapMethodsAttribute.class);
+            this.deprecatedAttribute       = ClassFile.attribute(attributes, DeprecatedAttribute.class);
+            this.enclosingMethodAttribute  = ClassFile.attribute(attributes, EnclosingMethodAttribute.class);
+            this.innerClassesAttribute     = ClassFile.attribute(attributes, InnerClassesAttribute.class);
+            this.modulePackagesAttribute   = ClassFile.attribute(attributes, ModulePackagesAttribute.class);
+            this.runtimeInvisibleAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeInvisibleAnnotationsAttribute.class
+            );
+            this.runtimeVisibleAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeVisibleAnnotationsAttribute.class
+            );
+            this.signatureAttribute    = ClassFile.attribute(attributes, SignatureAttribute.class);
+            this.sourceFileAttribute   = ClassFile.attribute(attributes, SourceFileAttribute.class);
+            this.syntheticAttribute    = ClassFile.attribute(attributes, SyntheticAttribute.class);
+            this.allAttributes         = attributes;
+            this.unprocessedAttributes = ClassFile.unprocessedAttributes(
+                attributes,
+                BootstrapMethodsAttribute.class,
+                DeprecatedAttribute.class,
+                EnclosingMethodAttribute.class,
+                InnerClassesAttribute.class,
+                ModulePackagesAttribute.class,
+                RuntimeInvisibleAnnotationsAttribute.class,
+                RuntimeVisibleAnnotationsAttribute.class,
+                SignatureAttribute.class,
+                SourceFileAttribute.class,
+                SyntheticAttribute.class
+            );
         } catch (RuntimeException re) {
             throw new RuntimeException("Class \"" + this.thisClassName + "\": " + re.getMessage(), re);
         }
+
+        metrics.time(Metrics.Timer.ATTRIBUTES, attributesStart);
+        metrics.count(Metrics.Counter.CLASSES, 1);
+        metrics.count(Metrics.Counter.METHODS, this.methods.size());
+        if (cis != null) metrics.count(Metrics.Counter.INPUT_BYTES, cis.getCount());
+        metrics.time(Metrics.Timer.READ, start);
     }
 
     /**
      * Sets a custom {@link SignatureParser}; that influences how the various descriptors and signatures in the class
      * file are parsed and converted to human-readable strings by {@link Object#toString()}.
+     *
+     * @deprecated This method modifies the {@link ClassFile}, which makes it unsafe to share between threads; pass
+     *             the {@link SignatureParser} to the {@code toString(SignatureParser)} methods instead
      */
-    public void
+    @Deprecated public void
     setSignatureParser(SignatureParser signatureParser) {
         this.signatureParser = signatureParser;
         this.constantPool.setSignatureParser(signatureParser);
@@ -506,19 +534,19 @@ class ClassFile {
     class Field {
 
         // SUPPRESS CHECKSTYLE JavadocVariable:3
-        public AccessFlags accessFlags;
-        public String      name;
-        public String      descriptor;
+        public final AccessFlags accessFlags;
+        public final String      name;
+        public final String      descriptor;
 
         // SUPPRESS CHECKSTYLE JavadocVariable:8
-        public final List<Attribute>                          allAttributes         = new ArrayList<Attribute>();
-        public final List<Attribute>                          unprocessedAttributes = new ArrayList<Attribute>();
-        @Nullable public ConstantValueAttribute               constantValueAttribute;
-        @Nullable public DeprecatedAttribute                  deprecatedAttribute;
-        @Nullable public RuntimeInvisibleAnnotationsAttribute runtimeInvisibleAnnotationsAttribute;
-        @Nullable public RuntimeVisibleAnnotationsAttribute   runtimeVisibleAnnotationsAttribute;
-        @Nullable public SignatureAttribute                   signatureAttribute;
-        @Nullable public SyntheticAttribute                   syntheticAttribute;
+        public final List<Attribute>                                allAttributes;
+        public final List<Attribute>                                unprocessedAttributes;
+        @Nullable public final ConstantValueAttribute               constantValueAttribute;
+        @Nullable public final DeprecatedAttribute                  deprecatedAttribute;
+        @Nullable public final RuntimeInvisibleAnnotationsAttribute runtimeInvisibleAnnotationsAttribute;
+        @Nullable public final RuntimeVisibleAnnotationsAttribute   runtimeVisibleAnnotationsAttribute;
+        @Nullable public final SignatureAttribute                   signatureAttribute;
+        @Nullable public final SyntheticAttribute                   syntheticAttribute;
 
         public
         Field(DataInputStream dis) throws IOException {
@@ -527,50 +555,29 @@ class ClassFile {
             this.descriptor  = ClassFile.this.constantPool.get(dis.readShort(), ConstantUtf8Info.class).bytes;
 
             // Read field attributes.
-            ClassFile.this.readAttributes(dis, new AbstractAttributeVisitor() {
-
-                @Override public void
-                visit(ConstantValueAttribute cva) {
-                    Field.this.constantValueAttribute = cva;
-                    Field.this.allAttributes.add(cva);
-                }
-
-                @Override public void
-                visit(DeprecatedAttribute da) {
-                    Field.this.deprecatedAttribute = da;
-                    Field.this.allAttributes.add(da);
-                }
-
-                @Override public void
-                visit(RuntimeInvisibleAnnotationsAttribute riaa) {
-                    Field.this.runtimeInvisibleAnnotationsAttribute = riaa;
-                    Field.this.allAttributes.add(riaa);
-                }
-
-                @Override public void
-                visit(RuntimeVisibleAnnotationsAttribute rvaa) {
-                    Field.this.runtimeVisibleAnnotationsAttribute = rvaa;
-                    Field.this.allAttributes.add(rvaa);
-                }
-
-                @Override public void
-                visit(SignatureAttribute sa) {
-                    Field.this.signatureAttribute = sa;
-                    Field.this.allAttributes.add(sa);
-                }
-
-                @Override public void
-                visit(SyntheticAttribute sa) {
-                    Field.this.syntheticAttribute = sa;
-                    Field.this.allAttributes.add(sa);
-                }
-
-                @Override public void
-                visitOther(Attribute ai) {
-                    Field.this.allAttributes.add(ai);
-                    Field.this.unprocessedAttributes.add(ai);
-                }
-            });
+            List<Attribute> attributes = ClassFile.this.readAttributes(dis);
+            this.constantValueAttribute = ClassFile.attribute(attributes, ConstantValueAttribute.class);
+            this.deprecatedAttribute    = ClassFile.attribute(attributes, DeprecatedAttribute.class);
+            this.runtimeInvisibleAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeInvisibleAnnotationsAttribute.class
+            );
+            this.runtimeVisibleAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeVisibleAnnotationsAttribute.class
+            );
+            this.signatureAttribute    = ClassFile.attribute(attributes, SignatureAttribute.class);
+            this.syntheticAttribute    = ClassFile.attribute(attributes, SyntheticAttribute.class);
+            this.allAttributes         = attributes;
+            this.unprocessedAttributes = ClassFile.unprocessedAttributes(
+                attributes,
+                ConstantValueAttribute.class,
+                DeprecatedAttribute.class,
+                RuntimeInvisibleAnnotationsAttribute.class,
+                RuntimeVisibleAnnotationsAttribute.class,
+                SignatureAttribute.class,
+                SyntheticAttribute.class
+            );
         }
     }
 
@@ -581,24 +588,28 @@ class ClassFile {
     class Method {
 
         // SUPPRESS CHECKSTYLE JavadocVariableCheck:3
-        public AccessFlags accessFlags;
-        public String      name;
-        public String      descriptor;
+        public final AccessFlags accessFlags;
+        public final String      name;
+        public final String      descriptor;
+
+        // SUPPRESS CHECKSTYLE JavadocVariableCheck:2
+        public final List<Attribute> allAttributes;
+        public final List<Attribute> unprocessedAttributes;
 
         // SUPPRESS CHECKSTYLE JavadocVariableCheck:13
-        final List<Attribute>                                   allAttributes         = new ArrayList<Attribute>();
-        final List<Attribute>                                   unprocessedAttributes = new ArrayList<Attribute>();
-        @Nullable AnnotationDefaultAttribute                    annotationDefaultAttribute;
-        @Nullable CodeAttribute                                 codeAttribute;
-        @Nullable DeprecatedAttribute                           deprecatedAttribute;
-        @Nullable ExceptionsAttribute                           exceptionsAttribute;
-        @Nullable MethodParametersAttribute                     methodParametersAttribute;
-        @Nullable RuntimeInvisibleAnnotationsAttribute          runtimeInvisibleAnnotationsAttribute;
-        @Nullable RuntimeInvisibleParameterAnnotationsAttribute runtimeInvisibleParameterAnnotationsAttribute;
-        @Nullable RuntimeVisibleAnnotationsAttribute            runtimeVisibleAnnotationsAttribute;
-        @Nullable RuntimeVisibleParameterAnnotationsAttribute   runtimeVisibleParameterAnnotationsAttribute;
-        @Nullable SignatureAttribute                            signatureAttribute;
-        @Nullable SyntheticAttribute                            syntheticAttribute;
+        @Nullable public final AnnotationDefaultAttribute           annotationDefaultAttribute;
+        @Nullable public final CodeAttribute                        codeAttribute;
+        @Nullable public final DeprecatedAttribute                  deprecatedAttribute;
+        @Nullable public final ExceptionsAttribute                  exceptionsAttribute;
+        @Nullable public final MethodParametersAttribute            methodParametersAttribute;
+        @Nullable public final RuntimeInvisibleAnnotationsAttribute runtimeInvisibleAnnotationsAttribute;
+        @Nullable public final RuntimeInvisibleParameterAnnotationsAttribute
+        runtimeInvisibleParameterAnnotationsAttribute;
+        @Nullable public final RuntimeVisibleAnnotationsAttribute runtimeVisibleAnnotationsAttribute;
+        @Nullable public final RuntimeVisibleParameterAnnotationsAttribute
+        runtimeVisibleParameterAnnotationsAttribute;
+        @Nullable public final SignatureAttribute                   signatureAttribute;
+        @Nullable public final SyntheticAttribute                   syntheticAttribute;
 
         public
         Method(DataInputStream dis) throws IOException {
@@ -606,91 +617,11 @@ class ClassFile {
             this.name        = ClassFile.this.constantPool.get(dis.readShort(), ConstantUtf8Info.class).bytes;
             this.descriptor  = ClassFile.this.constantPool.get(dis.readShort(), ConstantUtf8Info.class).bytes;
 
+            List<Attribute> attributes;
             try {
 
                 // Read method attributes.
-                ClassFile.this.readAttributes(dis, new AbstractAttributeVisitor() {
-
-                    @Override public void
-                    visit(AnnotationDefaultAttribute ada) {
-                        Method.this.annotationDefaultAttribute = ada;
-                        Method.this.allAttributes.add(ada);
-                    }
-
-                    @Override public void
-                    visit(CodeAttribute ca) {
-                        Method.this.codeAttribute = ca;
-                        Method.this.allAttributes.add(ca);
-                    }
-
-                    @Override public void
-                    visit(DeprecatedAttribute da) {
-                        Method.this.deprecatedAttribute = da;
-                        Method.this.allAttributes.add(da);
-                    }
-
-                    @Override public void
-                    visit(ExceptionsAttribute ea) {
-                        Method.this.exceptionsAttribute = ea;
-                        Method.this.allAttributes.add(ea);
-                    }
-
-                    @Override public void
-                    visit(MethodParametersAttribute mpa) {
-                        Method.this.methodParametersAttribute = mpa;
-                        Method.this.allAttributes.add(mpa);
-                    }
-
-                    @Override public void
-                    visit(RuntimeInvisibleAnnotationsAttribute riaa) {
-                        Method.this.runtimeInvisibleAnnotationsAttribute = riaa;
-                        Method.this.allAttributes.add(riaa);
-                    }
-
-                    @Override public void
-                    visit(RuntimeInvisibleParameterAnnotationsAttribute ripaa) {
-                        Method.this.runtimeInvisibleParameterAnnotationsAttribute = ripaa;
-                        Method.this.allAttributes.add(ripaa);
-                    }
-
-                    @Override public void
-                    visit(RuntimeVisibleAnnotationsAttribute rvaa) {
-                        Method.this.runtimeVisibleAnnotationsAttribute = rvaa;
-                        Method.this.allAttributes.add(rvaa);
-                    }
-
-                    @Override public void
-                    visit(RuntimeVisibleParameterAnnotationsAttribute rvpaa) {
-                        Method.this.runtimeVisibleParameterAnnotationsAttribute = rvpaa;
-                        Method.this.allAttributes.add(rvpaa);
-                    }
-
-                    @Override public void
-                    visit(SignatureAttribute sa) {
-                        Method.this.signatureAttribute = sa;
-                        Method.this.allAttributes.add(sa);
-                    }
-
-                    @Override public void
-                    visit(StackMapTableAttribute smta) {
-
-                        // Treat a "StackMapTable" attribute as an "unprocessed attribute", because we don't
-                        // disassemble it in-line.
-                        super.visit(smta);
-                    }
-
-                    @Override public void
-                    visit(SyntheticAttribute sa) {
-                        Method.this.syntheticAttribute = sa;
-                        Method.this.allAttributes.add(sa);
-                    }
-
-                    @Override public void
-                    visitOther(Attribute ai) {
-                        Method.this.allAttributes.add(ai);
-                        Method.this.unprocessedAttributes.add(ai);
-                    }
-                });
+                attributes = ClassFile.this.readAttributes(dis);
             } catch (IOException ioe) {
                 IOException ioe2 = new IOException(
                     "Parsing method '" + this.name + "' [" + this.descriptor + "]: " + ioe.getMessage()
@@ -703,6 +634,47 @@ class ClassFile {
                     re
                 );
             }
+            this.annotationDefaultAttribute = ClassFile.attribute(attributes, AnnotationDefaultAttribute.class);
+            this.codeAttribute              = ClassFile.attribute(attributes, CodeAttribute.class);
+            this.deprecatedAttribute        = ClassFile.attribute(attributes, DeprecatedAttribute.class);
+            this.exceptionsAttribute        = ClassFile.attribute(attributes, ExceptionsAttribute.class);
+            this.methodParametersAttribute  = ClassFile.attribute(attributes, MethodParametersAttribute.class);
+            this.runtimeInvisibleAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeInvisibleAnnotationsAttribute.class
+            );
+            this.runtimeInvisibleParameterAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeInvisibleParameterAnnotationsAttribute.class
+            );
+            this.runtimeVisibleAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeVisibleAnnotationsAttribute.class
+            );
+            this.runtimeVisibleParameterAnnotationsAttribute = ClassFile.attribute(
+                attributes,
+                RuntimeVisibleParameterAnnotationsAttribute.class
+            );
+            this.signatureAttribute = ClassFile.attribute(attributes, SignatureAttribute.class);
+            this.syntheticAttribute = ClassFile.attribute(attributes, SyntheticAttribute.class);
+            this.allAttributes      = attributes;
+
+            // A "StackMapTable" attribute is treated as an "unprocessed attribute", because we don't disassemble it
+            // in-line.
+            this.unprocessedAttributes = ClassFile.unprocessedAttributes(
+                attributes,
+                AnnotationDefaultAttribute.class,
+                CodeAttribute.class,
+                DeprecatedAttribute.class,
+                ExceptionsAttribute.class,
+                MethodParametersAttribute.class,
+                RuntimeInvisibleAnnotationsAttribute.class,
+                RuntimeInvisibleParameterAnnotationsAttribute.class,
+                RuntimeVisibleAnnotationsAttribute.class,
+                RuntimeVisibleParameterAnnotationsAttribute.class,
+                SignatureAttribute.class,
+                SyntheticAttribute.class
+            );
         }
 
         public ClassFile
@@ -791,13 +763,13 @@ class ClassFile {
             /**
              * The parameter's name as represented by the {@code name_index} field.
              */
-            String name;
+            final String name;
 
             /**
              * The parameter's access flags as represented by the {@code access_flags} field (FINAL, SYNTHETIC and/or
              * MANDATED).
              */
-            AccessFlags accessFlags;
+            final AccessFlags accessFlags;
 
             public
             Parameter(String name, AccessFlags accessFlags) {
@@ -812,15 +784,17 @@ class ClassFile {
         /**
          * The parameters' properties as represented by the {@code parameters} field.
          */
-        final List<Parameter> parameters = new ArrayList<Parameter>();
+        final List<Parameter> parameters;
 
         MethodParametersAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<Parameter> parameters = new ArrayList<Parameter>();
             for (int i = dis.readByte(); i > 0; i--) {
-                this.parameters.add(new Parameter(
+                parameters.add(new Parameter(
                     cf.constantPool.get(dis.readShort(), ConstantUtf8Info.class).bytes,
                     new AccessFlags(dis.readShort())
                 ));
             }
+            this.parameters = Collections.unmodifiableList(parameters);
         }
 
         @Override public void
@@ -854,12 +828,14 @@ class ClassFile {
         /**
          * The packages of this module.
          */
-        public final List<String> packages = new ArrayList<String>();
+        public final List<String> packages;
 
         ModulePackagesAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<String> packages = new ArrayList<String>();
             for (int i = dis.readShort(); i > 0; --i) {
-                this.packages.add(cf.constantPool.get(dis.readShort(), ConstantPackageInfo.class).name.bytes);
+                packages.add(cf.constantPool.get(dis.readShort(), ConstantPackageInfo.class).name.bytes);
             }
+            this.packages = Collections.unmodifiableList(packages);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);     }
@@ -879,6 +855,45 @@ class ClassFile {
         }
     }
 
+    /**
+     * Reads a set of attributes.
+     *
+     * @return An unmodifiable list of the attributes, in the order in which they appear in the class file
+     */
+    final List<Attribute>
+    readAttributes(DataInputStream dis) throws IOException {
+        final List<Attribute> result = new ArrayList<Attribute>();
+        this.readAttributes(dis, new AbstractAttributeVisitor() {
+            @Override public void visitOther(Attribute a) { result.add(a); }
+        });
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return The last of the <var>attributes</var> that has exactly the given <var>type</var> (not a subtype), or
+     *         {@code null}
+     */
+    @Nullable private static <A extends Attribute> A
+    attribute(List<Attribute> attributes, Class<A> type) {
+        A result = null;
+        for (Attribute a : attributes) {
+            if (a.getClass() == type) result = type.cast(a);
+        }
+        return result;
+    }
+
+    /**
+     * @return An unmodifiable list of those <var>attributes</var> that have none of the <var>processedTypes</var>
+     */
+    private static List<Attribute>
+    unprocessedAttributes(List<Attribute> attributes, Class<?>... processedTypes) {
+        List<Attribute> result = new ArrayList<Attribute>();
+        for (Attribute a : attributes) {
+            if (!Arrays.asList(processedTypes).contains(a.getClass())) result.add(a);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
     /**
      * Reads a set of attributs and has them accept the <var>visitor</var>.
      */
@@ -1109,7 +1124,7 @@ class ClassFile {
         /**
          * The (unstructured) attribute information.
          */
-        public byte[] info;
+        public final byte[] info;
 
         UnknownAttribute(String name, DataInputStream dis, ClassFile cf) throws IOException {
             this.name = name;
@@ -1194,12 +1209,14 @@ class ClassFile {
         /**
          * The inner/outer class relationship relevant for this class.
          */
-        public final List<ClasS> classes = new ArrayList<ClasS>();
+        public final List<ClasS> classes;
 
         InnerClassesAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<ClasS> classes = new ArrayList<ClasS>();
             for (int i = dis.readShort(); i > 0; --i) {
-                this.classes.add(new ClasS(dis, cf));
+                classes.add(new ClasS(dis, cf));
             }
+            this.classes = Collections.unmodifiableList(classes);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);   }
@@ -1217,15 +1234,17 @@ class ClassFile {
          * The <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.16-300-D">annotations
          * table</a>.
          */
-        public final List<Annotation> annotations = new ArrayList<Annotation>();
+        public final List<Annotation> annotations;
 
         /**
          * Reads and populates this object from the given {@link DataInputStream}.
          */
         RuntimeVisibleAnnotationsAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<Annotation> annotations = new ArrayList<Annotation>();
             for (int i = 0xffff & dis.readShort(); i > 0; --i) {
-                this.annotations.add(new Annotation(dis, cf));
+                annotations.add(new Annotation(dis, cf));
             }
+            this.annotations = Collections.unmodifiableList(annotations);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);                }
@@ -1256,13 +1275,15 @@ class ClassFile {
          * Each value represents a single run-time-visible annotation on the parameter corresponding to the sequence
          * number of this {@link ParameterAnnotation}.
          */
-        public final List<Annotation> annotations = new ArrayList<Annotation>();
+        public final List<Annotation> annotations;
 
         public
         ParameterAnnotation(DataInputStream dis, ClassFile cf) throws IOException {
+            List<Annotation> annotations = new ArrayList<Annotation>();
             for (int i = dis.readShort(); i > 0; --i) {
-                this.annotations.add(new Annotation(dis, cf));
+                annotations.add(new Annotation(dis, cf));
             }
+            this.annotations = Collections.unmodifiableList(annotations);
         }
     }
 
@@ -1278,12 +1299,14 @@ class ClassFile {
          *  href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.18-300-D">run-time-visible
          *  annotations on all parameters</a>.
          */
-        public final List<ParameterAnnotation> parameterAnnotations = new ArrayList<ParameterAnnotation>();
+        public final List<ParameterAnnotation> parameterAnnotations;
 
         RuntimeVisibleParameterAnnotationsAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<ParameterAnnotation> parameterAnnotations = new ArrayList<ParameterAnnotation>();
             for (int i = dis.readByte(); i > 0; --i) {
-                this.parameterAnnotations.add(new ParameterAnnotation(dis, cf));
+                parameterAnnotations.add(new ParameterAnnotation(dis, cf));
             }
+            this.parameterAnnotations = Collections.unmodifiableList(parameterAnnotations);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);                         }
@@ -1316,7 +1339,7 @@ class ClassFile {
          * of the annotation type element</a> whose default value is represented by this {@link
          * AnnotationDefaultAttribute}.
          */
-        public ElementValue defaultValue;
+        public final ElementValue defaultValue;
 
         AnnotationDefaultAttribute(DataInputStream dis, ClassFile cf) throws IOException {
             this.defaultValue = ClassFile.this.newElementValue(dis, cf);
@@ -1337,12 +1360,14 @@ class ClassFile {
          * of the annotation type element</a> whose default value is represented by this {@link
          * BootstrapMethodsAttribute}.
          */
-        public List<BootstrapMethod> bootstrapMethods = new ArrayList<BootstrapMethod>();
+        public final List<BootstrapMethod> bootstrapMethods;
 
         BootstrapMethodsAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<BootstrapMethod> bootstrapMethods = new ArrayList<BootstrapMethod>();
             for (int i = dis.readShort(); i > 0; --i) {
-                this.bootstrapMethods.add(new BootstrapMethod(dis, cf));
+                bootstrapMethods.add(new BootstrapMethod(dis, cf));
             }
+            this.bootstrapMethods = Collections.unmodifiableList(bootstrapMethods);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);       }
@@ -1354,15 +1379,24 @@ class ClassFile {
         public static
         class BootstrapMethod {
 
-            private final ConstantMethodHandleInfo bootstrapMethod;
-            private final List<ConstantPoolEntry>  bootstrapArguments = new ArrayList<ConstantPoolEntry>();
+            /**
+             * The {@code bootstrap_method_ref} of the entry.
+             */
+            public final ConstantMethodHandleInfo bootstrapMethod;
+
+            /**
+             * The {@code bootstrap_arguments} of the entry.
+             */
+            public final List<ConstantPoolEntry> bootstrapArguments;
 
             public
             BootstrapMethod(DataInputStream dis, ClassFile cf) throws IOException {
+                List<ConstantPoolEntry> bootstrapArguments = new ArrayList<ConstantPoolEntry>();
                 this.bootstrapMethod = cf.constantPool.get(dis.readShort(), ConstantMethodHandleInfo.class);
                 for (int i = dis.readShort(); i > 0; --i) {
-                    this.bootstrapArguments.add(cf.constantPool.get(dis.readShort(), ConstantPoolEntry.class));
+                    bootstrapArguments.add(cf.constantPool.get(dis.readShort(), ConstantPoolEntry.class));
                 }
+                this.bootstrapArguments = Collections.unmodifiableList(bootstrapArguments);
             }
 
             @Override public String
@@ -1375,6 +1409,20 @@ class ClassFile {
                 }
                 return sb.append(')').toString();
             }
+
+            /**
+             * Like {@link #toString()}, but converts descriptors with the given <var>signatureParser</var>.
+             */
+            public String
+            toString(SignatureParser signatureParser) {
+                StringBuilder sb = new StringBuilder(this.bootstrapMethod.toString(signatureParser)).append('(');
+                Iterator<ConstantPoolEntry> it = this.bootstrapArguments.iterator();
+                if (it.hasNext()) {
+                    sb.append(ConstantPool.toString(it.next(), signatureParser));
+                    while (it.hasNext()) sb.append(", ").append(ConstantPool.toString(it.next(), signatureParser));
+                }
+                return sb.append(')').toString();
+            }
         }
     }
 
@@ -1442,12 +1490,12 @@ class ClassFile {
          * A <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.16-300-D.2-1">field
          * descriptor representing the annotation type</a> corresponding to this {@link Annotation}.
          */
-        public String typeName;
+        public final String typeName;
 
         /**
          * Each value of this list represents a single element-value pair in the {@link Annotation}.
          */
-        public final List<ElementValuePair> elementValuePairs = new ArrayList<ElementValuePair>();
+        public final List<ElementValuePair> elementValuePairs;
 
         public
         Annotation(DataInputStream dis, ClassFile cf) throws IOException {
@@ -1459,9 +1507,11 @@ class ClassFile {
             } catch (SignatureException e) {
                 throw new ClassFileFormatException("Decoding annotation type: " + e.getMessage(), e);
             }
+            List<ElementValuePair> elementValuePairs = new ArrayList<ElementValuePair>();
             for (int i = dis.readUnsignedShort(); i > 0; --i) {
-                this.elementValuePairs.add(new ElementValuePair(dis, cf));
+                elementValuePairs.add(new ElementValuePair(dis, cf));
             }
+            this.elementValuePairs = Collections.unmodifiableList(elementValuePairs);
         }
 
         @Override public String
@@ -1590,12 +1640,12 @@ class ClassFile {
          * The <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.7-300-C">innermost class
          * that encloses the declaration of the current class</a>.
          */
-        public ConstantClassInfo clasS;
+        public final ConstantClassInfo clasS;
 
         /**
          * null == not enclosed by a constructor or a method, i.e. a field initializer
          */
-        @Nullable public ConstantNameAndTypeInfo method;
+        @Nullable public final ConstantNameAndTypeInfo method;
 
         EnclosingMethodAttribute(DataInputStream dis, ClassFile cf) throws IOException {
             this.clasS  = cf.constantPool.get(dis.readShort(), ConstantClassInfo.class);
@@ -1618,12 +1668,14 @@ class ClassFile {
          * href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.5-300-D">class type that this
          * method is declared to throw</a>.
          */
-        public final List<ConstantClassInfo> exceptionNames = new ArrayList<ConstantClassInfo>();
+        public final List<ConstantClassInfo> exceptionNames;
 
         ExceptionsAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<ConstantClassInfo> exceptionNames = new ArrayList<ConstantClassInfo>();
             for (int i = dis.readUnsignedShort(); i > 0; --i) {
-                this.exceptionNames.add(cf.constantPool.get(dis.readShort(), ConstantClassInfo.class));
+                exceptionNames.add(cf.constantPool.get(dis.readShort(), ConstantClassInfo.class));
             }
+            this.exceptionNames = Collections.unmodifiableList(exceptionNames);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this); }
@@ -1661,37 +1713,37 @@ class ClassFile {
          * href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.3-300-H">one exception handler
          * in the code array</a>. The order of the handlers in the exception_table array is significant.
          */
-        public final List<ExceptionTableEntry> exceptionTable = new ArrayList<ExceptionTableEntry>();
+        public final List<ExceptionTableEntry> exceptionTable;
 
         /**
          * The <var>Code</var> attribute's optional <var>LocalVariableTable</var> attribute.
          */
-        @Nullable public LocalVariableTableAttribute localVariableTableAttribute;
+        @Nullable public final LocalVariableTableAttribute localVariableTableAttribute;
 
         /**
          * The <var>Code</var> attribute's optional <var>LocalVariableTypeTable</var> attribute.
          */
-        @Nullable public LocalVariableTypeTableAttribute localVariableTypeTableAttribute;
+        @Nullable public final LocalVariableTypeTableAttribute localVariableTypeTableAttribute;
 
         /**
          * The <var>Code</var> attribute's optional <var>LineNumberTable</var> attribute.
          */
-        @Nullable public LineNumberTableAttribute lineNumberTableAttribute;
+        @Nullable public final LineNumberTableAttribute lineNumberTableAttribute;
 
         /**
          * The <var>Code</var> attribute's optional <var>StackMapTable</var> attribute.
          */
-        @Nullable public StackMapTableAttribute stackMapTableAttribute;
+        @Nullable public final StackMapTableAttribute stackMapTableAttribute;
 
         /**
          * All attributes of this {@link CodeAttribute}.
          */
-        public final List<Attribute> allAttributes = new ArrayList<Attribute>();
+        public final List<Attribute> allAttributes;
 
         /**
          * All unprocessed attributes of this {@link CodeAttribute}.
          */
-        public final List<Attribute> unprocessedAttributes = new ArrayList<Attribute>();
+        public final List<Attribute> unprocessedAttributes;
 
         CodeAttribute(DataInputStream dis, ClassFile cf) throws IOException {
             this.maxStack  = dis.readShort();
@@ -1701,42 +1753,31 @@ class ClassFile {
             this.code = ClassFile.readByteArray(dis, dis.readInt());
 
             // Exception table.
-            for (int i = dis.readUnsignedShort(); i > 0; --i) {
-                this.exceptionTable.add(new ExceptionTableEntry(dis, cf));
+            {
+                List<ExceptionTableEntry> exceptionTable = new ArrayList<ExceptionTableEntry>();
+                for (int i = dis.readUnsignedShort(); i > 0; --i) {
+                    exceptionTable.add(new ExceptionTableEntry(dis, cf));
+                }
+                this.exceptionTable = Collections.unmodifiableList(exceptionTable);
             }
 
             // Code attributes.
-            cf.readAttributes(dis, new AbstractAttributeVisitor() {
-
-                @Override public void
-                visit(LineNumberTableAttribute lnta) {
-                    CodeAttribute.this.lineNumberTableAttribute = lnta;
-                    CodeAttribute.this.allAttributes.add(lnta);
-                }
-
-                @Override public void
-                visit(LocalVariableTableAttribute lvta) {
-                    CodeAttribute.this.localVariableTableAttribute = lvta;
-                    CodeAttribute.this.allAttributes.add(lvta);
-                }
-                @Override public void
-                visit(LocalVariableTypeTableAttribute lvtta) {
-                    CodeAttribute.this.localVariableTypeTableAttribute = lvtta;
-                    CodeAttribute.this.allAttributes.add(lvtta);
-                }
-
-                @Override public void
-                visit(StackMapTableAttribute smta) {
-                    CodeAttribute.this.stackMapTableAttribute = smta;
-                    CodeAttribute.this.allAttributes.add(smta);
-                }
-
-                @Override public void
-                visitOther(Attribute a) {
-                    CodeAttribute.this.allAttributes.add(a);
-                    CodeAttribute.this.unprocessedAttributes.add(a);
-                }
-            });
+            List<Attribute> attributes = cf.readAttributes(dis);
+            this.lineNumberTableAttribute        = ClassFile.attribute(attributes, LineNumberTableAttribute.class);
+            this.localVariableTableAttribute     = ClassFile.attribute(attributes, LocalVariableTableAttribute.class);
+            this.localVariableTypeTableAttribute = ClassFile.attribute(
+                attributes,
+                LocalVariableTypeTableAttribute.class
+            );
+            this.stackMapTableAttribute = ClassFile.attribute(attributes, StackMapTableAttribute.class);
+            this.allAttributes          = attributes;
+            this.unprocessedAttributes  = ClassFile.unprocessedAttributes(
+                attributes,
+                LineNumberTableAttribute.class,
+                LocalVariableTableAttribute.class,
+                LocalVariableTypeTableAttribute.class,
+                StackMapTableAttribute.class
+            );
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this); }
@@ -1764,7 +1805,7 @@ class ClassFile {
          *   active while the program counter is within the interval [{@link #startPc}, {@link #endPc}).
          * </p>
          */
-        public int startPc, endPc;
+        public final int startPc, endPc;
 
         /**
          * The value <a
@@ -1772,7 +1813,7 @@ class ClassFile {
          * start of the exception handler</a>. The value of the item must be a valid index into the code array and must
          * be the index of the opcode of an instruction.
          */
-        public int handlerPc;
+        public final int handlerPc;
 
         /**
          * A <a href="http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.3-300-H.1-3">class of
@@ -1783,7 +1824,7 @@ class ClassFile {
          *   implement {@code finally}.
          * </p>
          */
-        @Nullable public ConstantClassInfo catchType;
+        @Nullable public final ConstantClassInfo catchType;
 
         ExceptionTableEntry(DataInputStream dis, ClassFile cf) throws IOException {
             this.startPc   = dis.readUnsignedShort();
@@ -1821,7 +1862,7 @@ class ClassFile {
          * information must be supplied by the run-time interpreter or development tool at the time the file name is
          * actually used.
          */
-        public String sourceFile;
+        public final String sourceFile;
 
         SourceFileAttribute(DataInputStream dis, ClassFile cf) throws IOException {
             this.sourceFile = cf.constantPool.get(dis.readShort(), ConstantUtf8Info.class).bytes;
@@ -1841,10 +1882,11 @@ class ClassFile {
         /**
          * The {@code entries} array in the {@code StackMapTable} attribute. See JVMS8 4.7.4.
          */
-        final List<StackMapFrame> entries = new ArrayList<StackMapFrame>();
+        final List<StackMapFrame> entries;
 
         StackMapTableAttribute(DataInputStream dis, ClassFile cf) throws IOException {
-            final int n = dis.readUnsignedShort();
+            List<StackMapFrame> entries = new ArrayList<StackMapFrame>();
+            final int           n       = dis.readUnsignedShort();
             for (int i = 0; i < n; i++) {
                 StackMapFrame smf;
                 try {
@@ -1856,8 +1898,9 @@ class ClassFile {
                 } catch (RuntimeException re) {
                     throw new RuntimeException("Reading frame #" + i + " of " + n + ": " + re.getMessage(), re);
                 }
-                this.entries.add(smf);
+                entries.add(smf);
             }
+            this.entries = Collections.unmodifiableList(entries);
         }
 
         private StackMapFrame
@@ -1958,6 +2001,14 @@ class ClassFile {
          * Invokes the "right" {@code visit...()} method of the {@link StackMapFrameVisitor}.
          */
         public abstract <T> T accept(StackMapFrameVisitor<T> smfv);
+
+        /**
+         * @return A human-readable representation of this frame, where class names are converted with the given
+         *         <var>signatureParser</var>; this default implementation ignores the <var>signatureParser</var> and
+         *         returns {@link #toString()}
+         */
+        public String
+        toString(SignatureParser signatureParser) { return this.toString(); }
     }
 
     /**
@@ -1986,7 +2037,10 @@ class ClassFile {
         accept(StackMapFrameVisitor<T> smfv) { return smfv.visitSameFrame(this); }
 
         @Override public String
-        toString() { return "same_frame(offsetDelta=" + this.offsetDelta + ")"; }
+        toString() { return this.toString(new SignatureParser()); }
+
+        @Override public String
+        toString(SignatureParser signatureParser) { return "same_frame(offsetDelta=" + this.offsetDelta + ")"; }
     }
 
     /**
@@ -2006,8 +2060,17 @@ class ClassFile {
         accept(StackMapFrameVisitor<T> smfv) { return smfv.visitSameLocals1StackItemFrame(this); }
 
         @Override public String
-        toString() {
-            return "same_locals_1_stack_item_frame(offsetDelta=" + this.offsetDelta + ", stack=[" + this.stack + "])";
+        toString() { return this.toString(new SignatureParser()); }
+
+        @Override public String
+        toString(SignatureParser signatureParser) {
+            return (
+                "same_locals_1_stack_item_frame(offsetDelta="
+                + this.offsetDelta
+                + ", stack=["
+                + ClassFile.toString(this.stack, signatureParser)
+                + "])"
+            );
         }
     }
 
@@ -2028,12 +2091,15 @@ class ClassFile {
         accept(StackMapFrameVisitor<T> smfv) { return smfv.visitSameLocals1StackItemFrameExtended(this); }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(new SignatureParser()); }
+
+        @Override public String
+        toString(SignatureParser signatureParser) {
             return (
                 "same_locals_1_stack_item_frame_extended(offsetDelta="
                 + this.offsetDelta
                 + ", stack=["
-                + this.stack
+                + ClassFile.toString(this.stack, signatureParser)
                 + "])"
             );
         }
@@ -2053,7 +2119,12 @@ class ClassFile {
         accept(StackMapFrameVisitor<T> smfv) { return smfv.visitChopFrame(this); }
 
         @Override public String
-        toString() { return "chop_frame(offsetDelta=" + this.offsetDelta + ", locals-=" + this.k + ", stack=[])"; }
+        toString() { return this.toString(new SignatureParser()); }
+
+        @Override public String
+        toString(SignatureParser signatureParser) {
+            return "chop_frame(offsetDelta=" + this.offsetDelta + ", locals-=" + this.k + ", stack=[])";
+        }
     }
 
     /**
@@ -2069,7 +2140,12 @@ class ClassFile {
         accept(StackMapFrameVisitor<T> smfv) { return smfv.visitSameFrameExtended(this); }
 
         @Override public String
-        toString() { return "same_frame_extended(offsetDelta=" + this.offsetDelta + ", stack=[])"; }
+        toString() { return this.toString(new SignatureParser()); }
+
+        @Override public String
+        toString(SignatureParser signatureParser) {
+            return "same_frame_extended(offsetDelta=" + this.offsetDelta + ", stack=[])";
+        }
     }
 
     /**
@@ -2089,12 +2165,15 @@ class ClassFile {
         accept(StackMapFrameVisitor<T> smfv) { return smfv.visitAppendFrame(this); }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(new SignatureParser()); }
+
+        @Override public String
+        toString(SignatureParser signatureParser) {
             return (
                 "append_frame(offsetDelta="
                 + this.offsetDelta
                 + ", locals+="
-                + Arrays.toString(this.locals)
+                + ClassFile.toString(this.locals, signatureParser)
                 + ", stack=[])"
             );
         }
@@ -2119,14 +2198,17 @@ class ClassFile {
         accept(StackMapFrameVisitor<T> smfv) { return smfv.visitFullFrame(this); }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(new SignatureParser()); }
+
+        @Override public String
+        toString(SignatureParser signatureParser) {
             return (
                 "full_frame(offsetDelta="
                 + this.offsetDelta
                 + ", locals="
-                + Arrays.toString(this.locals)
+                + ClassFile.toString(this.locals, signatureParser)
                 + ", stack="
-                + Arrays.toString(this.stack)
+                + ClassFile.toString(this.stack, signatureParser)
                 + ")"
             );
         }
@@ -2137,6 +2219,33 @@ class ClassFile {
      */
     public interface VerificationTypeInfo {}
 
+    /**
+     * @return A human-readable representation of the <var>vti</var>, where class names are converted with the given
+     *         <var>signatureParser</var>
+     */
+    public static String
+    toString(VerificationTypeInfo vti, SignatureParser signatureParser) {
+        return (
+            vti instanceof ObjectVariableInfo
+            ? ((ObjectVariableInfo) vti).toString(signatureParser)
+            : vti.toString()
+        );
+    }
+
+    /**
+     * Equivalent with {@link Arrays#toString(Object[])}, but converts class names with the given
+     * <var>signatureParser</var>.
+     */
+    static String
+    toString(VerificationTypeInfo[] vtis, SignatureParser signatureParser) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < vtis.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(ClassFile.toString(vtis[i], signatureParser));
+        }
+        return sb.append(']').toString();
+    }
+
     /**
      * Representation of the {@code top_variable_info} structure; see JVMS8 4.7.4.
      */
@@ -2199,11 +2308,21 @@ class ClassFile {
     public static
     class ObjectVariableInfo implements VerificationTypeInfo {
 
-        private final ConstantClassInfo constantClassInfo;
+        /**
+         * The class of the variable.
+         */
+        public final ConstantClassInfo constantClassInfo;
 
         public ObjectVariableInfo(ConstantClassInfo constantClassInfo) { this.constantClassInfo = constantClassInfo; }
 
-        @Override public String toString() { return this.constantClassInfo.toString(); }
+        @Override public String
+        toString() { return this.constantClassInfo.toString(); }
+
+        /**
+         * Like {@link #toString()}, but converts the class name with the given <var>signatureParser</var>.
+         */
+        public String
+        toString(SignatureParser signatureParser) { return this.constantClassInfo.toString(signatureParser); }
     }
 
     /**
@@ -2212,11 +2331,15 @@ class ClassFile {
     public static
     class UninitializedVariableInfo implements VerificationTypeInfo {
 
-        private final short offset;
+        /**
+         * The offset of the {@code new} instruction that created the object.
+         */
+        public final short offset;
 
         public UninitializedVariableInfo(short offset) { this.offset = offset; }
 
-        @Override public String toString() { return "uninitialized(offset=" + this.offset + ")"; }
+        @Override public String
+        toString() { return "uninitialized(offset=" + this.offset + ")"; }
     }
 
     /**
@@ -2230,12 +2353,14 @@ class ClassFile {
          * Each entry in the list indicates that the line number in the original source file changes at a given point
          * in the code array.
          */
-        public final List<LineNumberTableEntry> entries = new ArrayList<LineNumberTableEntry>();
+        public final List<LineNumberTableEntry> entries;
 
         LineNumberTableAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<LineNumberTableEntry> entries = new ArrayList<LineNumberTableEntry>();
             for (int i = dis.readUnsignedShort(); i > 0; --i) {
-                this.entries.add(new LineNumberTableEntry(dis));
+                entries.add(new LineNumberTableEntry(dis));
             }
+            this.entries = Collections.unmodifiableList(entries);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);      }
@@ -2252,12 +2377,12 @@ class ClassFile {
          * The value must indicate the index into the code array at which the code for a new line in the original
          * source file begins. The value must be less than {@link CodeAttribute#code CodeAttribute.code.length}.
          */
-        public int startPc;
+        public final int startPc;
 
         /**
          * The value must give the corresponding line number in the original source file.
          */
-        public int lineNumber;
+        public final int lineNumber;
 
         LineNumberTableEntry(DataInputStream dis) throws IOException {
             this.startPc    = dis.readUnsignedShort();
@@ -2330,12 +2455,14 @@ class ClassFile {
          * It also indicates the index into the local variable array of the current frame at which that local variable
          * can be found.
          */
-        public final List<Entry> entries = new ArrayList<Entry>();
+        public final List<Entry> entries;
 
         LocalVariableTableAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<Entry> entries = new ArrayList<Entry>();
             for (int i = dis.readUnsignedShort(); i > 0; --i) {
-                this.entries.add(new Entry(dis, cf));
+                entries.add(new Entry(dis, cf));
             }
+            this.entries = Collections.unmodifiableList(entries);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);         }
@@ -2403,12 +2530,14 @@ class ClassFile {
          * It also indicates the index into the local variable array of the current frame at which that local variable
          * can be found.
          */
-        public final List<Entry> entries = new ArrayList<Entry>();
+        public final List<Entry> entries;
 
         LocalVariableTypeTableAttribute(DataInputStream dis, ClassFile cf) throws IOException {
+            List<Entry> entries = new ArrayList<Entry>();
             for (int i = dis.readUnsignedShort(); i > 0; --i) {
-                this.entries.add(new Entry(dis, cf));
+                entries.add(new Entry(dis, cf));
             }
+            this.entries = Collections.unmodifiableList(entries);
         }
 
         @Override public void   accept(AttributeVisitor visitor) { visitor.visit(this);             }
@@ -0,0 +1,322 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * Reads all class files under a set of inputs (class files, directories and archives) and {@link #process(byte[],
+ * String) processes} them concurrently; the results are then {@link #consume(Object, String) consumed} one by one,
+ * in input order, by the thread that invoked {@link #scan(File...)}. Thus the consumer needs no synchronization, and
+ * the output is deterministic.
+ * <p>
+ *   Only a bounded number of class files is in flight at any time, so the heap usage does not grow with the size of
+ *   the inputs.
+ * </p>
+ * <p>
+ *   If an {@link #setErrorSummary(ErrorSummary) error summary} is configured, then class files and archives that
+ *   cannot be read or processed are recorded there and skipped, instead of aborting the scan.
+ * </p>
+ *
+ * @param <R> The result of processing one class file
+ */
+public abstract
+class ClassFileScanner<R> {
+
+    private static final String[] ARCHIVE_SUFFIXES = { ".jar", ".zip", ".war", ".ear" };
+
+    private final int              threadCount;
+    @Nullable private ErrorSummary errorSummary;
+
+    /**
+     * Processes as many class files concurrently as there are processors.
+     */
+    public
+    ClassFileScanner() { this(Runtime.getRuntime().availableProcessors()); }
+
+    public
+    ClassFileScanner(int threadCount) { this.threadCount = threadCount; }
+
+    /**
+     * If not {@code null}, then class files and archives that cannot be read or {@link #process(byte[], String)
+     * processed} are recorded in the <var>value</var> and skipped; otherwise the scan is aborted by the first such
+     * failure. Defaults to {@code null}.
+     */
+    public void
+    setErrorSummary(@Nullable ErrorSummary value) { this.errorSummary = value; }
+
+    /**
+     * Is invoked concurrently by the worker threads, once for each class file.
+     *
+     * @param classFile The complete class file
+     * @param location  The path of the class file, or "<var>archive</var>{@code !}<var>entry</var>"
+     */
+    protected abstract R
+    process(byte[] classFile, String location) throws IOException;
+
+    /**
+     * Is invoked by the thread that invoked {@link #scan(File...)}, once for each class file, in input order.
+     */
+    protected abstract void
+    consume(R result, String location) throws IOException;
+
+    /**
+     * Processes all class files under the given <var>inputs</var>, which are class files, directories (searched
+     * recursively for class files and archives) and "{@code .jar}", "{@code .zip}", "{@code .war}" or "{@code .ear}"
+     * archives.
+     */
+    public void
+    scan(File... inputs) throws IOException {
+
+        List<File> units = new ArrayList<File>();
+        for (File input : inputs) {
+            if (!input.exists()) throw new FileNotFoundException("'" + input + "' does not exist");
+            ClassFileScanner.findUnits(input, units);
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(this.threadCount);
+        try {
+            Queue<Pending> pending = new ArrayDeque<Pending>();
+            for (File unit : units) {
+
+                if (!ClassFileScanner.isArchive(unit)) {
+                    final File file = unit;
+                    this.submit(executorService, pending, new Task(unit.getPath()) {
+                        @Override InputStream open() throws IOException { return new FileInputStream(file); }
+                    });
+                    continue;
+                }
+
+                final ZipFile zf;
+                try {
+                    zf = new ZipFile(unit);
+                } catch (IOException ioe) {
+                    ErrorSummary es = this.errorSummary;
+                    if (es == null) throw ioe;
+                    es.add(unit.getPath(), null, ioe);
+                    continue;
+                }
+                try {
+                    for (Enumeration<? extends ZipEntry> en = zf.entries(); en.hasMoreElements();) {
+                        final ZipEntry ze = en.nextElement();
+                        if (ze.isDirectory() || !ze.getName().endsWith(".class")) continue;
+
+                        this.submit(executorService, pending, new Task(unit + "!" + ze.getName()) {
+                            @Override InputStream open() throws IOException { return zf.getInputStream(ze); }
+                        });
+                    }
+
+                    // The archive must remain open until all its entries are read.
+                    this.drain(pending, 0);
+                } finally {
+                    try { zf.close(); } catch (IOException ex) {}
+                }
+            }
+            this.drain(pending, 0);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void
+    submit(ExecutorService executorService, Queue<Pending> pending, Task task) throws IOException {
+        this.drain(pending, 16 * this.threadCount);
+        pending.add(new Pending(task.location, executorService.submit(task)));
+    }
+
+    /**
+     * Consumes the results of the oldest pending tasks, until no more than <var>max</var> are pending.
+     */
+    private void
+    drain(Queue<Pending> pending, int max) throws IOException {
+        while (pending.size() > max) {
+            Pending p = pending.remove();
+
+            R            result;
+            ErrorSummary es = this.errorSummary;
+            if (es == null) {
+                result = this.get(p.future);
+            } else {
+                try {
+                    result = this.get(p.future);
+                } catch (IOException ioe) {
+                    es.add(p.location, null, ClassFileScanner.unwrap(ioe));
+                    continue;
+                } catch (RuntimeException re) {
+                    es.add(p.location, null, ClassFileScanner.unwrap(re));
+                    continue;
+                }
+            }
+            this.consume(result, p.location);
+        }
+    }
+
+    private static final
+    class Pending {
+
+        final String    location;
+        final Future<?> future;
+
+        Pending(String location, Future<?> future) {
+            this.location = location;
+            this.future   = future;
+        }
+    }
+
+    /**
+     * Reads one class file and processes it. The class file is opened only when the task executes, so that not more
+     * files are open than there are threads.
+     */
+    private abstract
+    class Task implements Callable<R> {
+
+        final String location;
+
+        Task(String location) { this.location = location; }
+
+        abstract InputStream
+        open() throws IOException;
+
+        @Override public R
+        call() throws IOException {
+            try {
+                byte[] bytes;
+                InputStream is = this.open();
+                try {
+                    bytes = ClassFileScanner.readFully(is);
+                } finally {
+                    try { is.close(); } catch (IOException ex) {}
+                }
+                return ClassFileScanner.this.process(bytes, this.location);
+            } catch (IOException ioe) {
+                IOException ioe2 = new IOException("Processing '" + this.location + "': " + ioe.getMessage());
+                ioe2.initCause(ioe);
+                throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
+            } catch (RuntimeException re) {
+                throw new RuntimeException("Processing '" + this.location + "': " + re.getMessage(), re);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked") private R
+    get(Future<?> future) throws IOException {
+        try {
+            return (R) future.get();
+        } catch (InterruptedException ie) {
+            throw new IOException(ie.getMessage()); // SUPPRESS CHECKSTYLE AvoidHidingCause
+        } catch (ExecutionException ee) {
+            throw ClassFileScanner.rethrow(ee);
+        }
+    }
+
+    /**
+     * @return The exception that a {@link Task} wrapped, so that the location is not reported twice
+     */
+    private static Throwable
+    unwrap(Exception e) {
+        Throwable cause = e.getCause();
+        return cause != null && e.getMessage() != null && e.getMessage().startsWith("Processing '") ? cause : e;
+    }
+
+    /**
+     * Throws the cause of the <var>ee</var> if it is unchecked.
+     *
+     * @return The cause of the <var>ee</var>, which is an {@link IOException}
+     */
+    static IOException
+    rethrow(ExecutionException ee) {
+        Throwable cause = ee.getCause();
+        if (cause instanceof IOException)      return (IOException) cause;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error)            throw (Error) cause;
+        throw new IllegalStateException(cause);
+    }
+
+    /**
+     * Adds the <var>file</var>, or, if it is a directory, the class files and archives under it, to the
+     * <var>result</var>, in a deterministic order.
+     */
+    static void
+    findUnits(File file, List<File> result) throws IOException {
+
+        if (!file.isDirectory()) {
+            result.add(file);
+            return;
+        }
+
+        File[] members = file.listFiles();
+        if (members == null) throw new IOException("Cannot list directory '" + file + "'");
+        Arrays.sort(members);
+        for (File member : members) {
+            if (
+                member.isDirectory()
+                || member.getName().endsWith(".class")
+                || ClassFileScanner.isArchive(member)
+            ) ClassFileScanner.findUnits(member, result);
+        }
+    }
+
+    static boolean
+    isArchive(File file) {
+        String name = file.getName().toLowerCase();
+        for (String suffix : ClassFileScanner.ARCHIVE_SUFFIXES) {
+            if (name.endsWith(suffix)) return true;
+        }
+        return false;
+    }
+
+    private static byte[]
+    readFully(InputStream is) throws IOException {
+        byte[] buffer = new byte[4096];
+        int    size   = 0;
+        for (;;) {
+            if (size == buffer.length) buffer = Arrays.copyOf(buffer, 2 * size);
+            int n = is.read(buffer, size, buffer.length - size);
+            if (n == -1) return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+            size += n;
+        }
+    }
+}
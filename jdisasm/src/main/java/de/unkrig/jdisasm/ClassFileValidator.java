@@ -0,0 +1,1031 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * Checks class files for structural problems, without "cooking" the constant pool and without disassembling, and
+ * reports the findings as JSON lines, one per finding, e.g.
+ * <pre>
+ * {"location":"lib/foo.jar!com/acme/Foo.class","severity":"ERROR","kind":"BRANCH_TARGET","class":"com.acme.Foo",
+ *  "member":"bar(I)V","pc":17,"message":"Branch target 42 is not the start of an instruction"}
+ * </pre>
+ * <p>
+ *   The checks are:
+ * </p>
+ * <ul>
+ *   <li>The magic number, the version, and that the class file is neither truncated nor followed by extra bytes</li>
+ *   <li>
+ *     That each constant pool index (in the constant pool itself, in the class, field and method headers, in the
+ *     attributes and in the bytecode) is in range and refers to an entry of the right type
+ *   </li>
+ *   <li>That the length of each well-known attribute matches its content</li>
+ *   <li>
+ *     That the code consists of valid instructions, that all branch targets, exception table entries, line numbers
+ *     and local variable ranges are on instruction boundaries, and that local variable indexes are below {@code
+ *     max_locals}
+ *   </li>
+ *   <li>That the padding bytes of {@code tableswitch} and {@code lookupswitch} are zero (a warning only)</li>
+ * </ul>
+ * <p>
+ *   Unlike {@link ClassFile}, which throws an exception on the first problem, the checks continue after most
+ *   problems; only where the rest of the class file (or of the code) cannot be located, the checks of the class file
+ *   (or the code) stop. The class files are checked concurrently, and the findings are printed in input order.
+ * </p>
+ */
+public
+class ClassFileValidator {
+
+    /**
+     * How severe a {@link Finding} is.
+     */
+    public
+    enum Severity {
+
+        /** The class file would be rejected by the JVM. */
+        ERROR,
+
+        /** The class file is acceptable, but unusual. */
+        WARNING,
+    }
+
+    /**
+     * The kinds of {@link Finding}s.
+     */
+    public
+    enum Kind {
+
+        /** Wrong magic number or version, invalid constant pool tag, truncated class file, or extra bytes. */
+        FORMAT,
+
+        /** A constant pool index is out of range or refers to an entry of the wrong type. */
+        CP_INDEX,
+
+        /** The length of an attribute does not match its content. */
+        ATTRIBUTE_LENGTH,
+
+        /** Invalid opcode or operand, or an instruction that exceeds the code. */
+        INSTRUCTION,
+
+        /** A branch or switch target is outside the code or not the start of an instruction. */
+        BRANCH_TARGET,
+
+        /** The range or the handler of an exception table entry is invalid. */
+        EXCEPTION_TABLE,
+
+        /** A local variable index is not below {@code max_locals}, or a local variable range is invalid. */
+        LOCAL_VARIABLE,
+
+        /** A line number entry does not point to the start of an instruction. */
+        LINE_NUMBER,
+
+        /** The padding of a {@code tableswitch} or {@code lookupswitch} instruction is not zero. */
+        SWITCH_PADDING,
+    }
+
+    /**
+     * A problem that was found in a class file.
+     */
+    public static final
+    class Finding {
+
+        // SUPPRESS CHECKSTYLE JavadocVariableCheck:2
+        public final Severity severity;
+        public final Kind     kind;
+
+        /**
+         * The fully qualified name of the class, or {@code null} iff it could not be determined.
+         */
+        @Nullable public final String className;
+
+        /**
+         * The name and descriptor of the field or method, e.g. "{@code bar(I)V}", or {@code null}.
+         */
+        @Nullable public final String member;
+
+        /**
+         * The code offset of the instruction, or -1.
+         */
+        public final int pc;
+
+        // SUPPRESS CHECKSTYLE JavadocVariableCheck
+        public final String message;
+
+        Finding(
+            Severity         severity,
+            Kind             kind,
+            @Nullable String className,
+            @Nullable String member,
+            int              pc,
+            String           message
+        ) {
+            this.severity  = severity;
+            this.kind      = kind;
+            this.className = className;
+            this.member    = member;
+            this.pc        = pc;
+            this.message   = message;
+        }
+
+        /**
+         * E.g. "{@code ERROR BRANCH_TARGET com.acme.Foo.bar(I)V #17: Branch target 42 is not the start of an
+         * instruction}".
+         */
+        @Override public String
+        toString() {
+            StringBuilder sb = new StringBuilder().append(this.severity).append(' ').append(this.kind);
+            if (this.className != null) sb.append(' ').append(this.className);
+            if (this.member != null) sb.append('.').append(this.member);
+            if (this.pc != -1) sb.append(" #").append(this.pc);
+            return sb.append(": ").append(this.message).toString();
+        }
+    }
+
+    private final PrintWriter      pw;
+    private final JsonWriter       jw;
+    private int                    threadCount = Runtime.getRuntime().availableProcessors();
+    @Nullable private ErrorSummary errorSummary;
+
+    private long classCount, invalidClassCount, errorCount, warningCount;
+
+    /**
+     * The findings are printed to the given <var>out</var>.
+     */
+    public
+    ClassFileValidator(Writer out) {
+        this.pw = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out);
+        this.jw = new JsonWriter(this.pw);
+    }
+
+    /**
+     * The number of class files to check concurrently; defaults to the number of processors.
+     */
+    public void
+    setThreadCount(int value) { this.threadCount = value; }
+
+    /**
+     * If not {@code null}, then class files that cannot be read are recorded in the <var>value</var> and skipped;
+     * otherwise the first such class file aborts the run. (Class files that can be read, but not parsed, are always
+     * reported as findings.) Defaults to {@code null}.
+     */
+    public void
+    setErrorSummary(@Nullable ErrorSummary value) { this.errorSummary = value; }
+
+    /**
+     * Checks all class files under the given <var>inputs</var> (class files, directories and archives), and prints
+     * the findings.
+     */
+    public void
+    validate(File... inputs) throws IOException {
+
+        ClassFileScanner<List<Finding>> scanner = new ClassFileScanner<List<Finding>>(this.threadCount) {
+
+            @Override protected List<Finding>
+            process(byte[] classFile, String location) { return ClassFileValidator.check(classFile); }
+
+            @Override protected void
+            consume(List<Finding> result, String location) throws IOException {
+                ClassFileValidator.this.report(result, location);
+            }
+        };
+        scanner.setErrorSummary(this.errorSummary);
+        scanner.scan(inputs);
+
+        this.pw.flush();
+    }
+
+    /**
+     * @return The number of class files with at least one {@link Severity#ERROR}
+     */
+    public long
+    getInvalidClassCount() { return this.invalidClassCount; }
+
+    /**
+     * E.g. "{@code 3 errors and 1 warnings in 2 of 1000 classes}".
+     */
+    @Override public String
+    toString() {
+        return (
+            this.errorCount
+            + " errors and "
+            + this.warningCount
+            + " warnings in "
+            + this.invalidClassCount
+            + " of "
+            + this.classCount
+            + " classes"
+        );
+    }
+
+    private void
+    report(List<Finding> findings, String location) throws IOException {
+
+        this.classCount++;
+
+        boolean invalid = false;
+        for (Finding f : findings) {
+            if (f.severity == Severity.ERROR) {
+                this.errorCount++;
+                invalid = true;
+            } else {
+                this.warningCount++;
+            }
+
+            JsonWriter jw = this.jw;
+            jw.beginObject();
+            jw.name("location").value(location);
+            jw.name("severity").value(f.severity.name());
+            jw.name("kind").value(f.kind.name());
+            if (f.className != null) jw.name("class").value(f.className);
+            if (f.member != null) jw.name("member").value(f.member);
+            if (f.pc != -1) jw.name("pc").value(f.pc);
+            jw.name("message").value(f.message);
+            jw.endObject();
+            this.pw.println();
+        }
+        if (invalid) this.invalidClassCount++;
+    }
+
+    /**
+     * Checks one class file.
+     *
+     * @return The findings, in class file order
+     */
+    public static List<Finding>
+    check(byte[] classFile) {
+        Checker c = new Checker(classFile);
+        try {
+            c.checkClassFile();
+        } catch (ClassFileFormatException cffe) {
+            c.error(Kind.FORMAT, -1, cffe.getMessage());
+        } catch (ArrayIndexOutOfBoundsException aioobe) {
+            c.error(Kind.FORMAT, -1, "Class file truncated");
+        }
+        return c.findings;
+    }
+
+    // Constant pool tags.
+    private static final int UTF8                 = 1;
+    private static final int INTEGER              = 3;
+    private static final int FLOAT                = 4;
+    private static final int LONG                 = 5;
+    private static final int DOUBLE               = 6;
+    private static final int CLASS                = 7;
+    private static final int STRING               = 8;
+    private static final int FIELDREF             = 9;
+    private static final int METHODREF            = 10;
+    private static final int INTERFACE_METHODREF  = 11;
+    private static final int NAME_AND_TYPE        = 12;
+    private static final int METHOD_HANDLE        = 15;
+    private static final int METHOD_TYPE          = 16;
+    private static final int DYNAMIC              = 17;
+    private static final int INVOKE_DYNAMIC       = 18;
+    private static final int MODULE               = 19;
+    private static final int PACKAGE              = 20;
+
+    /**
+     * The tags of the constants that {@code ldc} and {@code ldc_w} may load.
+     */
+    private static final int LDC_TAGS = (
+        1 << ClassFileValidator.INTEGER
+        | 1 << ClassFileValidator.FLOAT
+        | 1 << ClassFileValidator.CLASS
+        | 1 << ClassFileValidator.STRING
+        | 1 << ClassFileValidator.METHOD_HANDLE
+        | 1 << ClassFileValidator.METHOD_TYPE
+        | 1 << ClassFileValidator.DYNAMIC
+    );
+
+    private static final int LDC2_TAGS = (
+        1 << ClassFileValidator.LONG
+        | 1 << ClassFileValidator.DOUBLE
+        | 1 << ClassFileValidator.DYNAMIC
+    );
+
+    private static final int CONSTANT_VALUE_TAGS = (
+        1 << ClassFileValidator.INTEGER
+        | 1 << ClassFileValidator.FLOAT
+        | 1 << ClassFileValidator.LONG
+        | 1 << ClassFileValidator.DOUBLE
+        | 1 << ClassFileValidator.STRING
+    );
+
+    private static final String[] TAG_NAMES = {
+        null, "Utf8", null, "Integer", "Float", "Long", "Double", "Class", "String", "Fieldref", "Methodref",
+        "InterfaceMethodref", "NameAndType", null, null, "MethodHandle", "MethodType", "Dynamic", "InvokeDynamic",
+        "Module", "Package",
+    };
+
+    /**
+     * The state of checking one class file.
+     */
+    private static
+    class Checker {
+
+        final byte[]        b;
+        final List<Finding> findings = new ArrayList<Finding>();
+        int[]               offsets  = new int[0];
+
+        @Nullable String className, member;
+
+        /**
+         * The number of bootstrap methods, or -1 iff there is no {@code BootstrapMethods} attribute.
+         */
+        int bootstrapMethodCount = -1;
+
+        // The code being checked.
+        int       codeStart, codeLength, maxLocals;
+        boolean[] instructionStarts = new boolean[0];
+
+        Checker(byte[] b) { this.b = b; }
+
+        void
+        checkClassFile() throws ClassFileFormatException {
+
+            byte[] b       = this.b;
+            int[]  offsets = (this.offsets = RawClassFile.constantPoolOffsets(b));
+
+            int major = this.u2(6);
+            if (major < 45) this.error(Kind.FORMAT, -1, "Invalid major version " + major);
+
+            // Check the references within the constant pool.
+            boolean needsBootstrapMethods = false;
+            for (int i = 1; i < offsets.length; i++) {
+                int p = offsets[i];
+                if (p == 0) continue;
+                switch (b[p]) {
+
+                case CLASS:
+                case STRING:
+                case METHOD_TYPE:
+                case MODULE:
+                case PACKAGE:
+                    this.checkCpIndex(this.u2(p + 1), 1 << ClassFileValidator.UTF8, "Entry #" + i);
+                    break;
+
+                case FIELDREF:
+                case METHODREF:
+                case INTERFACE_METHODREF:
+                    this.checkCpIndex(this.u2(p + 1), 1 << ClassFileValidator.CLASS, "Entry #" + i);
+                    this.checkCpIndex(this.u2(p + 3), 1 << ClassFileValidator.NAME_AND_TYPE, "Entry #" + i);
+                    break;
+
+                case NAME_AND_TYPE:
+                    this.checkCpIndex(this.u2(p + 1), 1 << ClassFileValidator.UTF8, "Entry #" + i);
+                    this.checkCpIndex(this.u2(p + 3), 1 << ClassFileValidator.UTF8, "Entry #" + i);
+                    break;
+
+                case METHOD_HANDLE:
+                    {
+                        int kind = 0xff & b[p + 1], tags;
+                        if (kind >= 1 && kind <= 4) {       // getfield, getstatic, putfield, putstatic
+                            tags = 1 << ClassFileValidator.FIELDREF;
+                        } else
+                        if (kind == 5 || kind == 8) {       // invokevirtual, newinvokespecial
+                            tags = 1 << ClassFileValidator.METHODREF;
+                        } else
+                        if (kind == 6 || kind == 7) {       // invokestatic, invokespecial
+                            tags = 1 << ClassFileValidator.METHODREF | 1 << ClassFileValidator.INTERFACE_METHODREF;
+                        } else
+                        if (kind == 9) {                    // invokeinterface
+                            tags = 1 << ClassFileValidator.INTERFACE_METHODREF;
+                        } else
+                        {
+                            this.error(Kind.CP_INDEX, -1, "Entry #" + i + ": Invalid reference kind " + kind);
+                            break;
+                        }
+                        this.checkCpIndex(this.u2(p + 2), tags, "Entry #" + i);
+                    }
+                    break;
+
+                case DYNAMIC:
+                case INVOKE_DYNAMIC:
+                    this.checkCpIndex(this.u2(p + 3), 1 << ClassFileValidator.NAME_AND_TYPE, "Entry #" + i);
+                    needsBootstrapMethods = true;
+                    break;
+                }
+            }
+
+            int p         = offsets[0];
+            int thisClass = this.u2(p + 2);
+            this.checkCpIndex(thisClass, 1 << ClassFileValidator.CLASS, "this_class");
+            if (
+                this.isCpIndex(thisClass, 1 << ClassFileValidator.CLASS)
+                && this.isCpIndex(this.u2(offsets[thisClass] + 1), 1 << ClassFileValidator.UTF8)
+            ) {
+                this.className = RawClassFile.className(b, offsets, thisClass);
+            }
+
+            // Only "java.lang.Object" and "module-info" have no superclass.
+            if (this.u2(p + 4) != 0 || !(
+                "java.lang.Object".equals(this.className)
+                || (this.u2(p) & 0x8000) != 0 // ACC_MODULE
+            )) {
+                this.checkCpIndex(this.u2(p + 4), 1 << ClassFileValidator.CLASS, "super_class");
+            }
+            int interfaceCount = this.u2(p + 6);
+            p += 8;
+            for (int i = 0; i < interfaceCount; i++, p += 2) {
+                this.checkCpIndex(this.u2(p), 1 << ClassFileValidator.CLASS, "Interface #" + i);
+            }
+
+            // Fields and methods.
+            for (int kind = 0; kind < 2; kind++) {
+                int count = this.u2(p);
+                p += 2;
+                for (int i = 0; i < count; i++) {
+                    this.member = null;
+                    int nameIndex = this.u2(p + 2), descriptorIndex = this.u2(p + 4);
+                    this.checkCpIndex(nameIndex, 1 << ClassFileValidator.UTF8, "name_index");
+                    this.checkCpIndex(descriptorIndex, 1 << ClassFileValidator.UTF8, "descriptor_index");
+                    if (
+                        this.isCpIndex(nameIndex, 1 << ClassFileValidator.UTF8)
+                        && this.isCpIndex(descriptorIndex, 1 << ClassFileValidator.UTF8)
+                    ) {
+                        this.member = (
+                            RawClassFile.utf8(b, offsets, nameIndex)
+                            + (kind == 0 ? ":" : "")
+                            + RawClassFile.utf8(b, offsets, descriptorIndex)
+                        );
+                    }
+                    p = this.checkAttributes(p + 6);
+                }
+            }
+            this.member = null;
+
+            p = this.checkAttributes(p);
+            if (p < b.length) {
+                this.error(Kind.FORMAT, -1, (b.length - p) + " extraneous bytes after the end of the class file");
+            }
+
+            if (needsBootstrapMethods) {
+                for (int i = 1; i < offsets.length; i++) {
+                    int q = offsets[i];
+                    if (q == 0 || (b[q] != ClassFileValidator.DYNAMIC && b[q] != ClassFileValidator.INVOKE_DYNAMIC)) {
+                        continue;
+                    }
+                    int bsmIndex = this.u2(q + 1);
+                    if (bsmIndex >= this.bootstrapMethodCount) {
+                        this.error(Kind.CP_INDEX, -1, (
+                            "Entry #"
+                            + i
+                            + ": Bootstrap method index "
+                            + bsmIndex
+                            + (
+                                this.bootstrapMethodCount == -1
+                                ? ", but there is no \"BootstrapMethods\" attribute"
+                                : " out of range"
+                            )
+                        ));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Checks the attributes that start at <var>p</var>, in the context of the {@link #member} and, within a
+         * {@code Code} attribute, of the {@link #instructionStarts code}.
+         *
+         * @return The offset after the attributes
+         */
+        int
+        checkAttributes(int p) throws ClassFileFormatException {
+
+            int count = this.u2(p);
+            p += 2;
+            for (int i = 0; i < count; i++) {
+                int nameIndex = this.u2(p);
+                int length    = this.s4(p + 2);
+                int start     = p + 6;
+                if (length < 0 || length > this.b.length - start) {
+                    throw new ClassFileFormatException("Class file truncated");
+                }
+                this.checkCpIndex(nameIndex, 1 << ClassFileValidator.UTF8, "Attribute #" + i);
+                if (this.isCpIndex(nameIndex, 1 << ClassFileValidator.UTF8)) {
+                    String name = RawClassFile.utf8(this.b, this.offsets, nameIndex);
+                    int    end  = this.checkAttribute(name, start, length);
+                    if (end != -1 && end != start + length) {
+                        this.error(Kind.ATTRIBUTE_LENGTH, -1, (
+                            "Attribute \""
+                            + name
+                            + "\" has length "
+                            + length
+                            + ", but its content is "
+                            + (end - start)
+                            + " bytes long"
+                        ));
+                    }
+                }
+                p = start + length;
+            }
+
+            return p;
+        }
+
+        /**
+         * Checks the body of one attribute.
+         *
+         * @return The offset after the content of the attribute, or -1 iff the attribute is not checked
+         */
+        int
+        checkAttribute(String name, int p, int length) throws ClassFileFormatException {
+
+            if ("ConstantValue".equals(name)) {
+                if (length != 2) return p + 2;
+                this.checkCpIndex(this.u2(p), ClassFileValidator.CONSTANT_VALUE_TAGS, name);
+                return p + 2;
+            }
+
+            if ("Signature".equals(name) || "SourceFile".equals(name)) {
+                if (length != 2) return p + 2;
+                this.checkCpIndex(this.u2(p), 1 << ClassFileValidator.UTF8, name);
+                return p + 2;
+            }
+
+            if ("ModuleMainClass".equals(name) || "NestHost".equals(name)) {
+                if (length != 2) return p + 2;
+                this.checkCpIndex(this.u2(p), 1 << ClassFileValidator.CLASS, name);
+                return p + 2;
+            }
+
+            if ("Deprecated".equals(name) || "Synthetic".equals(name)) return p;
+
+            if ("EnclosingMethod".equals(name)) {
+                if (length != 4) return p + 4;
+                this.checkCpIndex(this.u2(p), 1 << ClassFileValidator.CLASS, name);
+                if (this.u2(p + 2) != 0) {
+                    this.checkCpIndex(this.u2(p + 2), 1 << ClassFileValidator.NAME_AND_TYPE, name);
+                }
+                return p + 4;
+            }
+
+            if (
+                "Exceptions".equals(name)
+                || "NestMembers".equals(name)
+                || "PermittedSubclasses".equals(name)
+                || "ModulePackages".equals(name)
+            ) {
+                if (length < 2) return p + 2;
+                int n    = this.u2(p);
+                int tags = 1 << ("ModulePackages".equals(name) ? ClassFileValidator.PACKAGE : ClassFileValidator.CLASS);
+                if (2 + 2 * n != length) return p + 2 + 2 * n;
+                for (int i = 0; i < n; i++) this.checkCpIndex(this.u2(p + 2 + 2 * i), tags, name);
+                return p + 2 + 2 * n;
+            }
+
+            if ("InnerClasses".equals(name)) {
+                if (length < 2) return p + 2;
+                int n = this.u2(p);
+                if (2 + 8 * n != length) return p + 2 + 8 * n;
+                for (int i = 0, q = p + 2; i < n; i++, q += 8) {
+                    this.checkCpIndex(this.u2(q), 1 << ClassFileValidator.CLASS, name);
+                    if (this.u2(q + 2) != 0) this.checkCpIndex(this.u2(q + 2), 1 << ClassFileValidator.CLASS, name);
+                    if (this.u2(q + 4) != 0) this.checkCpIndex(this.u2(q + 4), 1 << ClassFileValidator.UTF8, name);
+                }
+                return p + 2 + 8 * n;
+            }
+
+            if ("MethodParameters".equals(name)) {
+                if (length < 1) return p + 1;
+                int n = 0xff & this.b[p];
+                if (1 + 4 * n != length) return p + 1 + 4 * n;
+                for (int i = 0, q = p + 1; i < n; i++, q += 4) {
+                    if (this.u2(q) != 0) this.checkCpIndex(this.u2(q), 1 << ClassFileValidator.UTF8, name);
+                }
+                return p + 1 + 4 * n;
+            }
+
+            if ("BootstrapMethods".equals(name)) {
+                if (length < 2) return p + 2;
+                int n = this.u2(p), q = p + 2;
+                this.bootstrapMethodCount = n;
+                for (int i = 0; i < n && q + 4 <= p + length; i++) {
+                    this.checkCpIndex(this.u2(q), 1 << ClassFileValidator.METHOD_HANDLE, name);
+                    int argumentCount = this.u2(q + 2);
+                    q += 4;
+                    for (int j = 0; j < argumentCount && q + 2 <= p + length; j++, q += 2) {
+                        this.checkCpIndex(this.u2(q), ClassFileValidator.LDC_TAGS | ClassFileValidator.LDC2_TAGS, name);
+                    }
+                }
+                return q;
+            }
+
+            if ("Code".equals(name)) return this.checkCode(p, length);
+
+            if ("LineNumberTable".equals(name)) {
+                if (length < 2) return p + 2;
+                int n = this.u2(p);
+                if (2 + 4 * n != length) return p + 2 + 4 * n;
+                for (int i = 0, q = p + 2; i < n; i++, q += 4) {
+                    int startPc = this.u2(q);
+                    if (!this.isInstruction(startPc)) {
+                        this.error(Kind.LINE_NUMBER, startPc, "Line number entry is not on an instruction boundary");
+                    }
+                }
+                return p + 2 + 4 * n;
+            }
+
+            if ("LocalVariableTable".equals(name) || "LocalVariableTypeTable".equals(name)) {
+                if (length < 2) return p + 2;
+                int n = this.u2(p);
+                if (2 + 10 * n != length) return p + 2 + 10 * n;
+                for (int i = 0, q = p + 2; i < n; i++, q += 10) {
+                    int startPc = this.u2(q), endPc = startPc + this.u2(q + 2), index = this.u2(q + 8);
+                    this.checkCpIndex(this.u2(q + 4), 1 << ClassFileValidator.UTF8, name);
+                    this.checkCpIndex(this.u2(q + 6), 1 << ClassFileValidator.UTF8, name);
+                    if (!this.isInstruction(startPc) || (endPc != this.codeLength && !this.isInstruction(endPc))) {
+                        this.error(
+                            Kind.LOCAL_VARIABLE,
+                            startPc,
+                            name + ": Range " + startPc + "..." + endPc + " is not on instruction boundaries"
+                        );
+                    }
+                    if (index >= this.maxLocals) {
+                        this.error(Kind.LOCAL_VARIABLE, startPc, (
+                            name
+                            + ": Local variable index "
+                            + index
+                            + " is not below max_locals "
+                            + this.maxLocals
+                        ));
+                    }
+                }
+                return p + 2 + 10 * n;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Checks the body of a {@code Code} attribute.
+         *
+         * @return The offset after the content of the attribute
+         */
+        int
+        checkCode(int p, int length) throws ClassFileFormatException {
+
+            if (length < 12) return p + 12;
+
+            int attributeEnd = p + length;
+            int maxLocals    = this.u2(p + 2);
+            int codeLength   = this.s4(p + 4);
+            int codeStart    = p + 8;
+            if (codeLength <= 0 || codeLength >= 65536) {
+                this.error(Kind.INSTRUCTION, -1, "Invalid code length " + (0xffffffffL & codeLength));
+                return -1;
+            }
+            if (codeLength > attributeEnd - codeStart) return codeStart + codeLength;
+
+            this.codeStart         = codeStart;
+            this.codeLength        = codeLength;
+            this.maxLocals         = maxLocals;
+            this.instructionStarts = new boolean[codeLength];
+            try {
+
+                // Find the instruction boundaries; an invalid instruction makes the rest of the code unreadable.
+                boolean valid = true;
+                for (int pc = 0; pc < codeLength;) {
+                    int instructionLength;
+                    try {
+                        instructionLength = RawClassFile.instructionLength(this.b, codeStart, codeLength, pc);
+                    } catch (ClassFileFormatException cffe) {
+                        String message = cffe.getMessage(), prefix = "#" + pc + ": ";
+                        if (message.startsWith(prefix)) message = message.substring(prefix.length());
+                        this.error(Kind.INSTRUCTION, pc, message);
+                        valid = false;
+                        break;
+                    }
+                    this.instructionStarts[pc] = true;
+                    pc                         += instructionLength;
+                }
+                if (valid) {
+                    for (int pc = 0; pc < codeLength; pc++) {
+                        if (this.instructionStarts[pc]) this.checkInstruction(pc);
+                    }
+                } else {
+
+                    // The boundary checks of the exception table etc. are pointless.
+                    this.instructionStarts = new boolean[0];
+                }
+
+                // Exception table.
+                int q = codeStart + codeLength, n = this.u2(q);
+                q += 2;
+                if (q + 8 * n > attributeEnd) return q + 8 * n;
+                for (int i = 0; i < n; i++, q += 8) {
+                    int startPc = this.u2(q), endPc = this.u2(q + 2), handlerPc = this.u2(q + 4);
+                    if (
+                        startPc >= endPc
+                        || !this.isInstruction(startPc)
+                        || (endPc != codeLength && !this.isInstruction(endPc))
+                    ) {
+                        this.error(Kind.EXCEPTION_TABLE, startPc, (
+                            "Exception table entry #"
+                            + i
+                            + ": Range "
+                            + startPc
+                            + "..."
+                            + endPc
+                            + " is empty or not on instruction boundaries"
+                        ));
+                    }
+                    if (!this.isInstruction(handlerPc)) {
+                        this.error(Kind.EXCEPTION_TABLE, startPc, (
+                            "Exception table entry #"
+                            + i
+                            + ": Handler "
+                            + handlerPc
+                            + " is not the start of an instruction"
+                        ));
+                    }
+                    if (this.u2(q + 6) != 0) {
+                        this.checkCpIndex(
+                            this.u2(q + 6),
+                            1 << ClassFileValidator.CLASS,
+                            "Exception table entry #" + i + ": catch_type"
+                        );
+                    }
+                }
+
+                // The attributes of the code attribute, e.g. "LineNumberTable".
+                return this.checkAttributes(q);
+            } finally {
+                this.instructionStarts = new boolean[0];
+                this.codeLength        = 0;
+            }
+        }
+
+        /**
+         * Checks the operands of the instruction at <var>pc</var>, which is known to be complete.
+         */
+        void
+        checkInstruction(int pc) throws ClassFileFormatException {
+
+            byte[] b      = this.b;
+            int    p      = this.codeStart + pc;
+            int    opcode = 0xff & b[p];
+            switch (opcode) {
+
+            case 18: // ldc
+                this.checkCpIndex(pc, 0xff & b[p + 1], ClassFileValidator.LDC_TAGS);
+                break;
+
+            case 19: // ldc_w
+                this.checkCpIndex(pc, this.u2(p + 1), ClassFileValidator.LDC_TAGS);
+                break;
+
+            case 20: // ldc2_w
+                this.checkCpIndex(pc, this.u2(p + 1), ClassFileValidator.LDC2_TAGS);
+                break;
+
+            case 21: case 23: case 25: case 54: case 56: case 58: case 169: // [ifa]load, [ifa]store, ret
+                this.checkLocal(pc, 0xff & b[p + 1], 1);
+                break;
+
+            case 22: case 24: case 55: case 57: // [ld]load, [ld]store
+                this.checkLocal(pc, 0xff & b[p + 1], 2);
+                break;
+
+            case 132: // iinc
+                this.checkLocal(pc, 0xff & b[p + 1], 1);
+                break;
+
+            case 170: // tableswitch
+                {
+                    int q = this.checkPadding(pc, "tableswitch");
+                    this.checkBranchTarget(pc, pc + this.s4(q));
+                    int low = this.s4(q + 4), high = this.s4(q + 8);
+                    for (long i = low, r = q + 12; i <= high; i++, r += 4) {
+                        this.checkBranchTarget(pc, pc + this.s4((int) r));
+                    }
+                }
+                break;
+
+            case 171: // lookupswitch
+                {
+                    int q = this.checkPadding(pc, "lookupswitch");
+                    this.checkBranchTarget(pc, pc + this.s4(q));
+                    int npairs = this.s4(q + 4);
+                    for (int i = 0, r = q + 8; i < npairs; i++, r += 8) {
+                        if (i > 0 && this.s4(r) <= this.s4(r - 8)) {
+                            this.error(Kind.INSTRUCTION, pc, "lookupswitch keys are not sorted");
+                        }
+                        this.checkBranchTarget(pc, pc + this.s4(r + 4));
+                    }
+                }
+                break;
+
+            case 178: case 179: case 180: case 181: // get/put field/static
+                this.checkCpIndex(pc, this.u2(p + 1), 1 << ClassFileValidator.FIELDREF);
+                break;
+
+            case 182: // invokevirtual
+                this.checkCpIndex(pc, this.u2(p + 1), 1 << ClassFileValidator.METHODREF);
+                break;
+
+            case 183: case 184: // invokespecial, invokestatic
+                this.checkCpIndex(
+                    pc,
+                    this.u2(p + 1),
+                    1 << ClassFileValidator.METHODREF | 1 << ClassFileValidator.INTERFACE_METHODREF
+                );
+                break;
+
+            case 185: // invokeinterface
+                this.checkCpIndex(pc, this.u2(p + 1), 1 << ClassFileValidator.INTERFACE_METHODREF);
+                if (b[p + 3] == 0 || b[p + 4] != 0) {
+                    this.error(Kind.INSTRUCTION, pc, "Invalid invokeinterface count or filler byte");
+                }
+                break;
+
+            case 186: // invokedynamic
+                this.checkCpIndex(pc, this.u2(p + 1), 1 << ClassFileValidator.INVOKE_DYNAMIC);
+                if (b[p + 3] != 0 || b[p + 4] != 0) this.error(Kind.INSTRUCTION, pc, "Non-zero invokedynamic filler");
+                break;
+
+            case 187: case 189: case 192: case 193: // new, anewarray, checkcast, instanceof
+                this.checkCpIndex(pc, this.u2(p + 1), 1 << ClassFileValidator.CLASS);
+                break;
+
+            case 188: // newarray
+                if (b[p + 1] < 4 || b[p + 1] > 11) this.error(Kind.INSTRUCTION, pc, "Invalid atype " + b[p + 1]);
+                break;
+
+            case 196: // wide
+                {
+                    int opcode2 = 0xff & b[p + 1];
+                    boolean twoSlots = opcode2 == 22 || opcode2 == 24 || opcode2 == 55 || opcode2 == 57;
+                    this.checkLocal(pc, this.u2(p + 2), twoSlots ? 2 : 1);
+                }
+                break;
+
+            case 197: // multianewarray
+                this.checkCpIndex(pc, this.u2(p + 1), 1 << ClassFileValidator.CLASS);
+                if (b[p + 3] == 0) this.error(Kind.INSTRUCTION, pc, "multianewarray with zero dimensions");
+                break;
+
+            case 200: case 201: // goto_w, jsr_w
+                this.checkBranchTarget(pc, pc + this.s4(p + 1));
+                break;
+
+            default:
+                if (opcode >= 26 && opcode <= 45) {              // [ilfda]load_[0123]
+                    int type = (opcode - 26) / 4;
+                    this.checkLocal(pc, (opcode - 26) % 4, type == 1 || type == 3 ? 2 : 1);
+                } else
+                if (opcode >= 59 && opcode <= 78) {              // [ilfda]store_[0123]
+                    int type = (opcode - 59) / 4;
+                    this.checkLocal(pc, (opcode - 59) % 4, type == 1 || type == 3 ? 2 : 1);
+                } else
+                if (RawClassFile.isBranch(opcode)) {      // if*, goto, jsr, ifnull, ifnonnull
+                    this.checkBranchTarget(pc, pc + (short) this.u2(p + 1));
+                }
+                break;
+            }
+        }
+
+        /**
+         * Checks that the padding after the {@code tableswitch} or {@code lookupswitch} at <var>pc</var> is zero.
+         *
+         * @return The offset after the padding
+         */
+        int
+        checkPadding(int pc, String mnemonic) {
+            int q = this.codeStart + ((pc + 4) & ~3);
+            for (int r = this.codeStart + pc + 1; r < q; r++) {
+                if (this.b[r] != 0) {
+                    this.warning(Kind.SWITCH_PADDING, pc, mnemonic + " padding is not zero");
+                    break;
+                }
+            }
+            return q;
+        }
+
+        void
+        checkBranchTarget(int pc, int target) {
+            if (target < 0 || target >= this.codeLength) {
+                this.error(Kind.BRANCH_TARGET, pc, "Branch target " + target + " is outside the code");
+            } else
+            if (!this.instructionStarts[target]) {
+                this.error(Kind.BRANCH_TARGET, pc, "Branch target " + target + " is not the start of an instruction");
+            }
+        }
+
+        void
+        checkLocal(int pc, int index, int size) {
+            if (index + size > this.maxLocals) {
+                this.error(Kind.LOCAL_VARIABLE, pc, (
+                    "Local variable index "
+                    + index
+                    + (size == 2 ? " (two slots)" : "")
+                    + " is not below max_locals "
+                    + this.maxLocals
+                ));
+            }
+        }
+
+        /**
+         * Checks a constant pool index of the instruction at <var>pc</var>.
+         */
+        void
+        checkCpIndex(int pc, int index, int tags) {
+            if (!this.isCpIndex(index, tags)) {
+                this.error(Kind.CP_INDEX, pc, this.describeCpIndex("Operand", index, tags));
+            }
+        }
+
+        /**
+         * Checks a constant pool index that is not part of an instruction.
+         */
+        void
+        checkCpIndex(int index, int tags, String what) {
+            if (!this.isCpIndex(index, tags)) this.error(Kind.CP_INDEX, -1, this.describeCpIndex(what, index, tags));
+        }
+
+        /**
+         * @return Whether the <var>index</var> refers to an entry with one of the <var>tags</var>
+         */
+        boolean
+        isCpIndex(int index, int tags) {
+            if (index <= 0 || index >= this.offsets.length || this.offsets[index] == 0) return false;
+            return (tags & (1 << this.b[this.offsets[index]])) != 0;
+        }
+
+        private String
+        describeCpIndex(String what, int index, int tags) {
+
+            StringBuilder sb = new StringBuilder(what).append(": ");
+            if (index <= 0 || index >= this.offsets.length || this.offsets[index] == 0) {
+                sb.append("Invalid constant pool index ").append(index);
+            } else {
+                sb.append("Constant pool entry #").append(index).append(" is a ");
+                sb.append(ClassFileValidator.TAG_NAMES[this.b[this.offsets[index]]]);
+            }
+            sb.append(", expected ");
+            for (int tag = 0, n = 0; tag < ClassFileValidator.TAG_NAMES.length; tag++) {
+                if ((tags & (1 << tag)) == 0) continue;
+                if (n++ > 0) sb.append('|');
+                sb.append(ClassFileValidator.TAG_NAMES[tag]);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * @return Whether <var>pc</var> is the start of an instruction; {@code true} if the code is invalid or not
+         *         being checked
+         */
+        boolean
+        isInstruction(int pc) {
+            if (this.instructionStarts.length == 0) return true;
+            return pc >= 0 && pc < this.codeLength && this.instructionStarts[pc];
+        }
+
+        void
+        error(Kind kind, int pc, String message) {
+            this.findings.add(new Finding(Severity.ERROR, kind, this.className, this.member, pc, message));
+        }
+
+        void
+        warning(Kind kind, int pc, String message) {
+            this.findings.add(new Finding(Severity.WARNING, kind, this.className, this.member, pc, message));
+        }
+
+        int
+        u2(int p) { return RawClassFile.u2(this.b, p); }
+
+        int
+        s4(int p) { return (this.u2(p) << 16) | this.u2(p + 2); }
+    }
+}
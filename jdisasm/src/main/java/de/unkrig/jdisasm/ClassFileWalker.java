@@ -0,0 +1,518 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+import de.unkrig.jdisasm.ClassFile.Field;
+import de.unkrig.jdisasm.ClassFile.LineNumberTableAttribute;
+import de.unkrig.jdisasm.ClassFile.LineNumberTableEntry;
+import de.unkrig.jdisasm.ClassFile.Method;
+
+/**
+ * Traverses a {@link ClassFile} and emits {@link DisassemblySink} events. The bytecode is decoded exactly once, into
+ * an {@link Instruction} object that is reused for all instructions; all rendering is left to the sink.
+ * <p>
+ *   Instances are not thread-safe, but should be reused for many class files, because they keep their buffers.
+ * </p>
+ * <p>
+ *   If an {@link #setErrorSummary(ErrorSummary) error summary} is configured, and the code of a method cannot be
+ *   decoded, then the failure is recorded in the error summary, a {@link DisassemblySink#codeFailed(Method,
+ *   CodeAttribute, String) codeFailed} event is emitted instead of the {@link DisassemblySink#endCode(Method,
+ *   CodeAttribute) endCode} event, and the walk continues with the next method. The code is still decoded only once,
+ *   so the events for the instructions before the failure have already been emitted.
+ * </p>
+ */
+public
+class ClassFileWalker {
+
+    private final DisassemblySink sink;
+    private final Metrics         metrics;
+
+    private final Instruction     instruction = new Instruction();
+    private final CodeInputStream cis         = new CodeInputStream();
+    private final DataInputStream dis         = new DataInputStream(this.cis);
+
+    // Valid while the code of one method is being walked.
+    private byte[] code = new byte[0];
+    private int    position;
+    private int[]  lineNumbers = new int[0];
+
+    private long instructionCount;
+
+    @Nullable private ErrorSummary errorSummary;
+
+    // Why the preceding "walkCode2()" stopped before the end of the code; only set iff there is an error summary.
+    @Nullable private Exception failure;
+
+    public
+    ClassFileWalker(DisassemblySink sink) { this(sink, Metrics.NOP); }
+
+    public
+    ClassFileWalker(DisassemblySink sink, Metrics metrics) {
+        this.sink    = sink;
+        this.metrics = metrics;
+    }
+
+    /**
+     * If not {@code null}, then methods whose code cannot be decoded are recorded in the <var>value</var> and skipped;
+     * otherwise the first such method aborts the walk. Defaults to {@code null}.
+     */
+    public void
+    setErrorSummary(@Nullable ErrorSummary value) { this.errorSummary = value; }
+
+    /**
+     * Emits the events for the given class file.
+     */
+    public void
+    walk(ClassFile cf) throws IOException {
+
+        this.instructionCount = 0;
+
+        this.sink.beginClass(cf);
+
+        for (Field f : cf.fields) this.sink.field(f);
+
+        for (Method m : cf.methods) {
+            try {
+                this.walk(m);
+            } catch (RuntimeException rte) {
+                throw new RuntimeException("Method '" + m.name + "' " + m.descriptor, rte);
+            }
+        }
+
+        this.sink.endClass(cf);
+    }
+
+    /**
+     * @return The number of instructions that the preceding {@link #walk(ClassFile)} decoded
+     */
+    public long
+    getInstructionCount() { return this.instructionCount; }
+
+    private void
+    walk(Method m) throws IOException {
+
+        this.sink.beginMethod(m);
+
+        CodeAttribute ca = m.codeAttribute;
+        if (ca != null) {
+            Object    event = FlightRecorder.INSTANCE.beginMethodRendered();
+            Exception failure;
+            if (this.sink.beginCode(m, ca)) {
+                int n = this.walkCode(ca.code, ca.exceptionTable, ca.lineNumberTableAttribute);
+                this.instructionCount += n;
+                FlightRecorder.INSTANCE.endMethodRendered(
+                    event,
+                    m.getClassFile().thisClassName,
+                    m.name,
+                    m.descriptor,
+                    ca.code.length,
+                    n
+                );
+                failure = this.failure;
+            } else
+            {
+                failure = this.errorSummary == null ? null : this.check(ca.code);
+            }
+
+            ErrorSummary es = this.errorSummary;
+            if (es != null && failure != null) {
+                es.add(m.getClassFile().thisClass.name, m.name + m.descriptor, failure);
+                this.sink.codeFailed(m, ca, ErrorSummary.message(failure));
+            } else
+            {
+                this.sink.endCode(m, ca);
+            }
+        }
+
+        this.sink.endMethod(m);
+    }
+
+    /**
+     * Decodes the <var>code</var> without emitting any events.
+     *
+     * @return {@code null} iff the <var>code</var> could be decoded, otherwise what went wrong
+     */
+    @Nullable private Exception
+    check(byte[] code) {
+
+        this.code = code;
+        this.cis.setCode(code);
+        try {
+            while (this.decode()) {}
+            return null;
+        } catch (IOException ioe) {
+            return ioe;
+        } catch (RuntimeException re) {
+            return re;
+        }
+    }
+
+    /**
+     * Decodes the next instruction of the {@link #code} into the {@link #instruction}.
+     *
+     * @return {@code false} on end-of-code
+     */
+    private boolean
+    decode() throws IOException {
+        int pc = this.instruction.pc = this.cis.getPosition();
+        try {
+            return this.decoder.decode(this.dis);
+        } catch (ArrayIndexOutOfBoundsException aioobe) {
+            EOFException eofe = new EOFException("Instruction at offset " + pc + " exceeds the code");
+            eofe.initCause(aioobe);
+            throw eofe;
+        }
+    }
+
+    /**
+     * Emits the {@link DisassemblySink#tryEnd(List, int) tryEnd}, {@link DisassemblySink#tryStart(int, int, int)
+     * tryStart}, {@link DisassemblySink#lineNumber(int, int) lineNumber} and {@link
+     * DisassemblySink#instruction(Instruction) instruction} events for the given bytecode. If the walker has an
+     * {@link #setErrorSummary(ErrorSummary) error summary}, then code that cannot be decoded ends the events early, and
+     * the reason is stored in {@link #failure}.
+     *
+     * @return The number of instructions
+     */
+    int
+    walkCode(
+        byte[]                             code,
+        List<ExceptionTableEntry>          exceptionTable,
+        @Nullable LineNumberTableAttribute lineNumberTableAttribute
+    ) throws IOException {
+
+        long start = this.metrics.now();
+        try {
+            return this.walkCode2(code, exceptionTable, lineNumberTableAttribute);
+        } finally {
+            this.metrics.time(Metrics.Timer.BYTECODE, start);
+        }
+    }
+
+    private int
+    walkCode2(
+        byte[]                             code,
+        List<ExceptionTableEntry>          exceptionTable,
+        @Nullable LineNumberTableAttribute lineNumberTableAttribute
+    ) throws IOException {
+
+        // Analyze the TRY bodies.
+
+        SortedMap<Integer /*startPC*/, Set<Integer /*endPC*/>>
+        tryStarts = new TreeMap<Integer, Set<Integer>>();
+
+        SortedMap<Integer /*endPC*/, SortedMap<Integer /*startPC*/, List<ExceptionTableEntry>>>
+        tryEnds = new TreeMap<Integer, SortedMap<Integer, List<ExceptionTableEntry>>>();
+
+        for (ExceptionTableEntry e : exceptionTable) {
+
+            // Register the entry in "tryStarts"; the outermost TRY body (with the greatest end PC) first.
+            {
+                Set<Integer> s = tryStarts.get(e.startPc);
+                if (s == null) {
+                    s = new TreeSet<Integer>(Collections.reverseOrder());
+                    tryStarts.put(e.startPc, s);
+                }
+                s.add(e.endPc);
+            }
+
+            // Register the entry in "tryEnds".
+            {
+                SortedMap<Integer, List<ExceptionTableEntry>> m = tryEnds.get(e.endPc);
+                if (m == null) {
+                    m = new TreeMap<Integer, List<ExceptionTableEntry>>(Collections.reverseOrder());
+                    tryEnds.put(e.endPc, m);
+                }
+                List<ExceptionTableEntry> l = m.get(e.startPc);
+                if (l == null) {
+                    l = new ArrayList<ExceptionTableEntry>();
+                    m.put(e.startPc, l);
+                }
+                l.add(e);
+            }
+        }
+
+        // Map each code offset to its line number, or -1. (Where the line number table has more than one entry for
+        // an offset, the first one wins.)
+        int[] lineNumbers = null;
+        if (lineNumberTableAttribute != null) {
+            lineNumbers = this.lineNumbers;
+            if (lineNumbers.length < code.length) {
+                this.lineNumbers = (lineNumbers = new int[code.length]);
+            }
+            Arrays.fill(lineNumbers, 0, code.length, -1);
+            List<LineNumberTableEntry> entries = lineNumberTableAttribute.entries;
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                LineNumberTableEntry lnte = entries.get(i);
+                if (lnte.startPc < code.length) lineNumbers[lnte.startPc] = lnte.lineNumber;
+            }
+        }
+
+        DisassemblySink sink        = this.sink;
+        Instruction     instruction = this.instruction;
+
+        this.code = code;
+        this.cis.setCode(code);
+        this.failure = null;
+
+        int n = 0;
+        for (;; n++) {
+
+            // Decode one instruction.
+            try {
+                if (!this.decode()) break;
+            } catch (IOException ioe) {
+                if (this.errorSummary == null) throw ioe;
+                this.failure = ioe;
+                break;
+            } catch (RuntimeException re) {
+                if (this.errorSummary == null) throw re;
+                this.failure = re;
+                break;
+            }
+            int pc = instruction.pc;
+
+            // Report ends of TRY bodies.
+            for (Iterator<Entry<Integer, SortedMap<Integer, List<ExceptionTableEntry>>>> it = (
+                tryEnds.entrySet().iterator()
+            ); it.hasNext();) {
+                Entry<Integer, SortedMap<Integer, List<ExceptionTableEntry>>> e = it.next();
+                if (e.getKey() > pc) break;
+
+                for (List<ExceptionTableEntry> etes : e.getValue().values()) sink.tryEnd(etes, pc);
+                it.remove();
+            }
+
+            // Report beginnings of TRY bodies.
+            for (Iterator<Entry<Integer, Set<Integer>>> it = tryStarts.entrySet().iterator(); it.hasNext();) {
+                Entry<Integer, Set<Integer>> e       = it.next();
+                int                          startPc = e.getKey();
+                if (startPc > pc) break;
+
+                for (int endPc : e.getValue()) sink.tryStart(startPc, endPc, pc);
+                it.remove();
+            }
+
+            // Report the line number.
+            if (lineNumbers != null) {
+                int lineNumber = lineNumbers[pc];
+                if (lineNumber != -1) sink.lineNumber(lineNumber, pc);
+            }
+
+            sink.instruction(instruction);
+        }
+
+        this.metrics.count(Metrics.Counter.INSTRUCTIONS, n);
+
+        return n;
+    }
+
+    /**
+     * Fills in the {@link #instruction}, and reads its operands from the {@link #code}. Produces {@code false} on
+     * end-of-input.
+     */
+    private final BytecodeDecoder<Boolean, IOException>
+    decoder = new BytecodeDecoder<Boolean, IOException>() {
+
+        @Override public Boolean
+        decoded(String mnemonic, OperandKind... operandKinds) throws IOException {
+
+            if ("end".equals(mnemonic)) return false;
+
+            ClassFileWalker w    = ClassFileWalker.this;
+            Instruction     insn = w.instruction;
+            byte[]          code = w.code;
+
+            int pc     = insn.pc;
+            int opcode = 0xff & code[pc];
+            if (opcode == 196) opcode = 0xc400 | (0xff & code[pc + 1]);
+
+            insn.opcode       = opcode;
+            insn.mnemonic     = mnemonic;
+            insn.operandKinds = operandKinds;
+            insn.operandCount = 0;
+
+            w.position = w.cis.getPosition();
+            for (OperandKind ok : operandKinds) ok.accept(w.readOperand);
+            w.cis.setPosition(w.position);
+
+            insn.length = w.position - pc;
+
+            return true;
+        }
+    };
+
+    /**
+     * Reads one operand from the {@link #code} at the {@link #position}, and appends its value(s) to the {@link
+     * #instruction}.
+     */
+    private final OperandKind.Visitor<Void, IOException>
+    readOperand = new OperandKind.Visitor<Void, IOException>() {
+
+        // SUPPRESS CHECKSTYLE LineLength:16
+        @Override @Nullable public Void visitClassFloatIntStringMethodHandleMethodTypeDynamic(OperandKind operandType)  { return this.add(this.u1()); }
+        @Override @Nullable public Void visitClassFloatIntStringMethodHandleMethodTypeDynamicW(OperandKind operandType) { return this.add(this.u2()); }
+        @Override @Nullable public Void visitDoubleLongDynamicW(OperandKind operandType)                                { return this.add(this.u2()); }
+        @Override @Nullable public Void visitFieldref2(OperandKind operandType)                                         { return this.add(this.u2()); }
+        @Override @Nullable public Void visitMethodref2(OperandKind operandType)                                        { return this.add(this.u2()); }
+        @Override @Nullable public Void visitInterfaceMethodrefOrMethodref2(OperandKind operandType)                    { return this.add(this.u2()); }
+        @Override @Nullable public Void visitClass2(OperandKind operandType)                                            { return this.add(this.u2()); }
+        @Override @Nullable public Void visitLocalVariableIndex1(OperandKind operandType)                               { return this.add(this.u1()); }
+        @Override @Nullable public Void visitLocalVariableIndex2(OperandKind operandType)                               { return this.add(this.u2()); }
+        @Override @Nullable public Void visitImplicitLocalVariableIndex(OperandKind operandType, int index)             { return null;                }
+        @Override @Nullable public Void visitBranchOffset2(OperandKind operandType)                                     { return this.branchTarget(this.s2()); }
+        @Override @Nullable public Void visitBranchOffset4(OperandKind operandType)                                     { return this.branchTarget(this.s4()); }
+        @Override @Nullable public Void visitSignedByte(OperandKind operandType)                                        { return this.add(this.s1()); }
+        @Override @Nullable public Void visitUnsignedByte(OperandKind operandType)                                      { return this.add(this.u1()); }
+        @Override @Nullable public Void visitSignedShort(OperandKind operandType)                                       { return this.add(this.s2()); }
+        @Override @Nullable public Void visitAtype(OperandKind operandType)                                              { return this.add(this.u1()); }
+
+        @Override @Nullable public Void
+        visitInterfaceMethodref2(OperandKind operandType) {
+            this.add(this.u2());
+            this.add(this.u1()); // count
+            this.u1();           // 0
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitDynamicCallsite(OperandKind operandType) {
+            this.add(this.u2());
+            if (this.u1() != 0 || this.u1() != 0) {
+                throw new RuntimeException("'invokedynamic' pad byte is not zero");
+            }
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitTableswitch(OperandKind operandType) {
+            this.padding("tableswitch");
+            this.branchTarget(this.s4());
+            int low  = this.s4();
+            int high = this.s4();
+            this.add(low);
+            this.add(high);
+            for (int i = low; i <= high; ++i) this.branchTarget(this.s4());
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitLookupswitch(OperandKind operandType) {
+            this.padding("lookupswitch");
+            this.branchTarget(this.s4());
+            int npairs = this.s4();
+            this.add(npairs);
+            for (int i = 0; i < npairs; ++i) {
+                this.add(this.s4());
+                this.branchTarget(this.s4());
+            }
+            return null;
+        }
+
+        private void
+        padding(String mnemonic) {
+            int npads = 3 - (ClassFileWalker.this.instruction.pc % 4);
+            for (int i = 0; i < npads; ++i) {
+                int padByte = this.u1();
+                if (padByte != 0) {
+                    throw new RuntimeException(
+                        "'"
+                        + mnemonic
+                        + "' pad byte #"
+                        + i
+                        + " is not zero, but "
+                        + padByte
+                    );
+                }
+            }
+        }
+
+        @Nullable private Void
+        branchTarget(int relativeOffset) { return this.add(ClassFileWalker.this.instruction.pc + relativeOffset); }
+
+        @Nullable private Void
+        add(int operand) {
+            Instruction insn = ClassFileWalker.this.instruction;
+            if (insn.operandCount == insn.operands.length) {
+                insn.operands = Arrays.copyOf(insn.operands, 2 * insn.operandCount);
+            }
+            insn.operands[insn.operandCount++] = operand;
+            return null;
+        }
+
+        // SUPPRESS CHECKSTYLE Javadoc:5
+        private int u1() { return 0xff & ClassFileWalker.this.code[ClassFileWalker.this.position++]; }
+        private int s1() { return ClassFileWalker.this.code[ClassFileWalker.this.position++]; }
+        private int u2() { return (this.u1() << 8) | this.u1(); }
+        private int s2() { return (short) this.u2(); }
+        private int s4() { return (this.u2() << 16) | this.u2(); }
+    };
+
+    /**
+     * A {@link ByteArrayInputStream} that can be reused for another byte array, and whose position can be read and
+     * set. Notice that its {@link #read()} method is not synchronized.
+     */
+    private static
+    class CodeInputStream extends ByteArrayInputStream {
+
+        CodeInputStream() { super(new byte[0]); }
+
+        void
+        setCode(byte[] code) {
+            this.buf   = code;
+            this.pos   = 0;
+            this.mark  = 0;
+            this.count = code.length;
+        }
+
+        int
+        getPosition() { return this.pos; }
+
+        void
+        setPosition(int position) { this.pos = position; }
+
+        @Override public int
+        read() { return this.pos < this.count ? 0xff & this.buf[this.pos++] : -1; }
+    }
+}
@@ -0,0 +1,412 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.AccessFlags;
+
+/**
+ * The class hierarchy, interface graph and class nesting of a whole classpath, stored in primitive arrays: Each class
+ * has an integer ID (its index in the alphabetically sorted class names), and each relation is stored as one {@code
+ * int} per class, or as an adjacency list in "compressed sparse row" form (an array of start offsets into an array of
+ * IDs). Thus a million classes need only a few dozen megabytes.
+ * <p>
+ *   Classes that are referenced (e.g. as a superclass) but not {@link #isDefined(int) defined} under the inputs, also
+ *   have IDs.
+ * </p>
+ * <p>
+ *   The hierarchy is {@link #build(int, File...) built} from the class file <em>headers</em> only; the constant pool
+ *   entries are not "cooked", and the fields, methods and attributes are skipped, except for the {@code InnerClasses}
+ *   and {@code EnclosingMethod} attributes.
+ * </p>
+ * <p>
+ *   Instances are immutable and thus thread-safe.
+ * </p>
+ */
+public final
+class ClassHierarchy {
+
+    private final String[] names;
+    private final int[]    accessFlags; // -1 for classes that are not defined under the inputs
+    private final int[]    superclass, outerClass;
+
+    // Adjacency lists: { starts, ids }.
+    private final int[][] superclasses, interfaces, subclasses, implementors, nestedClasses;
+
+    private
+    ClassHierarchy(
+        String[] names,
+        int[]    accessFlags,
+        int[]    superclass,
+        int[][]  interfaces,
+        int[]    outerClass
+    ) {
+        this.names         = names;
+        this.accessFlags   = accessFlags;
+        this.superclass    = superclass;
+        this.interfaces    = interfaces;
+        this.outerClass    = outerClass;
+        this.superclasses  = ClassHierarchy.adjacencyList(superclass);
+        this.subclasses    = ClassHierarchy.invert(superclass);
+        this.implementors  = ClassHierarchy.invert(interfaces, names.length);
+        this.nestedClasses = ClassHierarchy.invert(outerClass);
+    }
+
+    /**
+     * Reads the headers of all class files under the given <var>inputs</var> (class files, directories and archives)
+     * with the given number of threads. If a class is defined more than once, then the first definition counts.
+     */
+    public static ClassHierarchy
+    build(int threadCount, File... inputs) throws IOException {
+        return ClassHierarchy.build(threadCount, null, inputs);
+    }
+
+    /**
+     * Like {@link #build(int, File...)}, but, iff <var>errorSummary</var> is not {@code null}, class files that cannot
+     * be read are recorded there and skipped.
+     */
+    public static ClassHierarchy
+    build(int threadCount, @Nullable ErrorSummary errorSummary, File... inputs) throws IOException {
+
+        final Map<String, Integer> ids     = new HashMap<String, Integer>();
+        final List<String>         names   = new ArrayList<String>();
+        final IntList              headers = new IntList(); // this, flags, super, outer, interface count, interfaces
+
+        ClassFileScanner<Header> scanner = new ClassFileScanner<Header>(threadCount) {
+
+            @Override protected Header
+            process(byte[] classFile, String location) throws IOException {
+                return ClassHierarchy.parseHeader(classFile);
+            }
+
+            @Override protected void
+            consume(Header header, String location) {
+                headers.add(this.id(header.name));
+                headers.add(header.accessFlags);
+                headers.add(header.superclass == null ? -1 : this.id(header.superclass));
+                headers.add(header.outerClass == null ? -1 : this.id(header.outerClass));
+                headers.add(header.interfaces.length);
+                for (String name : header.interfaces) headers.add(this.id(name));
+            }
+
+            private int
+            id(@Nullable String name) {
+                assert name != null;
+                Integer result = ids.get(name);
+                if (result == null) {
+                    ids.put(name, (result = names.size()));
+                    names.add(name);
+                }
+                return result;
+            }
+        };
+        scanner.setErrorSummary(errorSummary);
+        scanner.scan(inputs);
+
+        // Number the classes alphabetically.
+        int      n           = names.size();
+        String[] sortedNames = names.toArray(new String[n]);
+        Arrays.sort(sortedNames);
+        int[] newIds = new int[n];
+        for (int i = 0; i < n; i++) newIds[ids.get(sortedNames[i])] = i;
+
+        int[] accessFlags = new int[n];
+        int[] superclass  = new int[n];
+        int[] outerClass  = new int[n];
+        Arrays.fill(accessFlags, -1);
+        Arrays.fill(superclass, -1);
+        Arrays.fill(outerClass, -1);
+
+        // First pass over the headers: Count the interfaces.
+        int[]  h              = headers.array();
+        int    hn             = headers.size();
+        int[]  interfaceStart = new int[n + 1];
+        BitSet defined        = new BitSet(n);
+        for (int p = 0; p < hn; p += 5 + h[p + 4]) {
+            int id = newIds[h[p]];
+            if (defined.get(id)) continue;
+            defined.set(id);
+            interfaceStart[id + 1] = h[p + 4];
+        }
+        for (int i = 0; i < n; i++) interfaceStart[i + 1] += interfaceStart[i];
+
+        // Second pass: Fill in the relations.
+        int[] interfaceIds = new int[interfaceStart[n]];
+        defined.clear();
+        for (int p = 0; p < hn; p += 5 + h[p + 4]) {
+            int id = newIds[h[p]];
+            if (defined.get(id)) continue;
+            defined.set(id);
+            accessFlags[id] = h[p + 1];
+            superclass[id]  = h[p + 2] == -1 ? -1 : newIds[h[p + 2]];
+            outerClass[id]  = h[p + 3] == -1 ? -1 : newIds[h[p + 3]];
+            for (int i = 0; i < h[p + 4]; i++) interfaceIds[interfaceStart[id] + i] = newIds[h[p + 5 + i]];
+        }
+
+        return new ClassHierarchy(
+            sortedNames,
+            accessFlags,
+            superclass,
+            new int[][] { interfaceStart, interfaceIds },
+            outerClass
+        );
+    }
+
+    /**
+     * @return The number of classes, i.e. the upper bound of the class IDs
+     */
+    public int
+    size() { return this.names.length; }
+
+    /**
+     * @return The ID of the class with the given fully qualified (dot-separated) <var>name</var>, or -1
+     */
+    public int
+    getId(String name) {
+        int result = Arrays.binarySearch(this.names, name);
+        return result >= 0 ? result : -1;
+    }
+
+    /**
+     * @return The fully qualified (dot-separated) name of the class with the given <var>id</var>
+     */
+    public String
+    getName(int id) { return this.names[id]; }
+
+    /**
+     * @return Whether the class is defined under the inputs, or only referenced
+     */
+    public boolean
+    isDefined(int id) { return this.accessFlags[id] != -1; }
+
+    /**
+     * @return The access flags of the class, or {@code null} iff it is not {@link #isDefined(int) defined}
+     */
+    @Nullable public AccessFlags
+    getAccessFlags(int id) { return this.accessFlags[id] == -1 ? null : new AccessFlags(this.accessFlags[id]); }
+
+    /**
+     * @return The ID of the superclass, or -1 ({@code java.lang.Object}, or the class is not defined)
+     */
+    public int
+    getSuperclass(int id) { return this.superclass[id]; }
+
+    /**
+     * @return The IDs of the interfaces that the class implements (or the interface extends) directly
+     */
+    public int[]
+    getInterfaces(int id) { return ClassHierarchy.get(this.interfaces, id); }
+
+    /**
+     * @return The IDs of the direct subclasses
+     */
+    public int[]
+    getSubclasses(int id) { return ClassHierarchy.get(this.subclasses, id); }
+
+    /**
+     * @return The IDs of the classes that implement the interface directly, and of the interfaces that extend it
+     *         directly
+     */
+    public int[]
+    getImplementors(int id) { return ClassHierarchy.get(this.implementors, id); }
+
+    /**
+     * @return The ID of the immediately enclosing class of a nested, local or anonymous class, or -1
+     */
+    public int
+    getOuterClass(int id) { return this.outerClass[id]; }
+
+    /**
+     * @return The IDs of the nested, local and anonymous classes that are immediately enclosed by the class
+     */
+    public int[]
+    getNestedClasses(int id) { return ClassHierarchy.get(this.nestedClasses, id); }
+
+    /**
+     * @return The IDs of all direct and indirect subclasses, implementors and subinterfaces, in ascending order
+     */
+    public int[]
+    getAllSubtypes(int id) { return this.closure(id, this.subclasses, this.implementors); }
+
+    /**
+     * @return The IDs of all direct and indirect superclasses and interfaces, in ascending order
+     */
+    public int[]
+    getAllSupertypes(int id) { return this.closure(id, this.superclasses, this.interfaces); }
+
+    private int[]
+    closure(int id, int[][] relation1, int[][] relation2) {
+
+        BitSet visited = new BitSet(this.names.length);
+        int[]  queue   = new int[16];
+        int    head    = 0, tail = 0;
+
+        queue[tail++] = id;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int[][] relation : new int[][][] { relation1, relation2 }) {
+                int[] starts = relation[0], ids = relation[1];
+                for (int i = starts[current]; i < starts[current + 1]; i++) {
+                    int next = ids[i];
+                    if (next == id || visited.get(next)) continue;
+                    visited.set(next);
+                    if (tail == queue.length) queue = Arrays.copyOf(queue, 2 * tail);
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        int[] result = new int[visited.cardinality()];
+        for (int i = visited.nextSetBit(0), j = 0; i != -1; i = visited.nextSetBit(i + 1)) result[j++] = i;
+        return result;
+    }
+
+    private static int[]
+    get(int[][] relation, int id) { return Arrays.copyOfRange(relation[1], relation[0][id], relation[0][id + 1]); }
+
+    /**
+     * Converts the single-valued relation <var>targets</var> ("-1" means "none") into an adjacency list.
+     */
+    private static int[][]
+    adjacencyList(int[] targets) {
+        int   n      = targets.length;
+        int[] starts = new int[n + 1];
+        for (int i = 0; i < n; i++) starts[i + 1] = starts[i] + (targets[i] == -1 ? 0 : 1);
+        int[] ids = new int[starts[n]];
+        for (int i = 0; i < n; i++) {
+            if (targets[i] != -1) ids[starts[i]] = targets[i];
+        }
+        return new int[][] { starts, ids };
+    }
+
+    private static int[][]
+    invert(int[] targets) { return ClassHierarchy.invert(ClassHierarchy.adjacencyList(targets), targets.length); }
+
+    /**
+     * Inverts the given adjacency list.
+     */
+    private static int[][]
+    invert(int[][] relation, int n) {
+
+        int[] starts = relation[0], ids = relation[1];
+
+        int[] resultStarts = new int[n + 1];
+        for (int id : ids) resultStarts[id + 1]++;
+        for (int i = 0; i < n; i++) resultStarts[i + 1] += resultStarts[i];
+
+        int[] fill      = Arrays.copyOf(resultStarts, n);
+        int[] resultIds = new int[ids.length];
+        for (int i = 0; i < n; i++) {
+            for (int j = starts[i]; j < starts[i + 1]; j++) resultIds[fill[ids[j]]++] = i;
+        }
+
+        return new int[][] { resultStarts, resultIds };
+    }
+
+    /**
+     * The parts of a class file that make up the hierarchy; all names are fully qualified and dot-separated.
+     */
+    static final
+    class Header {
+        String           name = "";
+        int              accessFlags;
+        @Nullable String superclass, outerClass;
+        String[]         interfaces = new String[0];
+    }
+
+    /**
+     * Parses the header of the given class file, and skips the rest.
+     */
+    static Header
+    parseHeader(byte[] classFile) throws IOException {
+
+        int[]           offsets = RawClassFile.constantPoolOffsets(classFile);
+        DataInputStream dis     = new DataInputStream(new ByteArrayInputStream(classFile));
+        dis.skipBytes(offsets[0]);
+
+        Header result = new Header();
+        result.accessFlags = dis.readUnsignedShort();
+
+        int thisClass = dis.readUnsignedShort();
+        result.name = RawClassFile.className(classFile, offsets, thisClass);
+
+        int superClass = dis.readUnsignedShort();
+        if (superClass != 0) result.superclass = RawClassFile.className(classFile, offsets, superClass);
+
+        result.interfaces = new String[dis.readUnsignedShort()];
+        for (int i = 0; i < result.interfaces.length; i++) {
+            result.interfaces[i] = RawClassFile.className(classFile, offsets, dis.readUnsignedShort());
+        }
+
+        // Skip the fields and methods.
+        for (int i = 0; i < 2; i++) {
+            for (int j = dis.readUnsignedShort(); j > 0; j--) {
+                dis.skipBytes(6);
+                RawClassFile.skipAttributes(dis);
+            }
+        }
+
+        // Find the outer class in the "InnerClasses" and "EnclosingMethod" attributes.
+        for (int i = dis.readUnsignedShort(); i > 0; i--) {
+            int    nameIndex = dis.readUnsignedShort();
+            int    length    = dis.readInt();
+            String name      = RawClassFile.utf8(classFile, offsets, nameIndex);
+            if ("InnerClasses".equals(name)) {
+                for (int j = dis.readUnsignedShort(); j > 0; j--) {
+                    int innerClassInfoIndex = dis.readUnsignedShort();
+                    int outerClassInfoIndex = dis.readUnsignedShort();
+                    dis.skipBytes(4);
+                    if (innerClassInfoIndex == thisClass && outerClassInfoIndex != 0) {
+                        result.outerClass = RawClassFile.className(classFile, offsets, outerClassInfoIndex);
+                    }
+                }
+            } else
+            if ("EnclosingMethod".equals(name)) {
+                int classIndex = dis.readUnsignedShort();
+                dis.skipBytes(2);
+                if (result.outerClass == null) {
+                    result.outerClass = RawClassFile.className(classFile, offsets, classIndex);
+                }
+            } else
+            {
+                dis.skipBytes(length);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,437 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.Method;
+
+/**
+ * Collects size and complexity metrics of the classes and methods under a set of class files, directories and
+ * archives, in one concurrent pass and without disassembling, and reports their distributions, the largest values,
+ * and the methods and classes that exceed well-known JVM limits, e.g.
+ * <pre>
+ * Code length (bytes): 160,453 methods, mean 56.9, max 28,898
+ *           1 -         1      2,844 ####
+ *           2 -         3      4,484 #######
+ *           4 -         7     34,253 ###############################################
+ * ...
+ *   Top 10:
+ *       28,898 sun.net.RegisteredDomain.&lt;clinit&gt;()V
+ * ...
+ * 50,072 methods longer than 35 bytes (inlined by HotSpot only if hot)
+ * 3,966 methods longer than 325 bytes (never inlined by HotSpot)
+ * 29 methods longer than 8,000 bytes (never JIT-compiled by HotSpot)
+ * ...
+ * </pre>
+ * <p>
+ *   Classes are parsed into {@link ClassFile}s; the per-method metrics are taken from the {@link CodeAttribute}, and
+ *   the instructions are counted by scanning, but not decoding, the code. Methods without code (abstract and native
+ *   methods) are not counted.
+ * </p>
+ */
+public
+class CodeStatistics {
+
+    /**
+     * The metrics that are collected.
+     */
+    public
+    enum Metric {
+
+        /** The length of the code of each method. */
+        CODE_LENGTH("Code length (bytes)", false),
+
+        /** The {@link CodeAttribute#maxStack} of each method. */
+        MAX_STACK("Max stack (slots)", false),
+
+        /** The {@link CodeAttribute#maxLocals} of each method. */
+        MAX_LOCALS("Max locals (slots)", false),
+
+        /** The number of instructions of each method. */
+        INSTRUCTIONS("Instructions", false),
+
+        /** The number of branch, {@code jsr} and switch instructions of each method. */
+        BRANCHES("Branch instructions", false),
+
+        /** The number of entries in the exception table of each method. */
+        EXCEPTION_HANDLERS("Exception handlers", false),
+
+        /** The {@link ConstantPool#getSize() size of the constant pool} of each class. */
+        CONSTANT_POOL_SIZE("Constant pool size (entries)", true);
+
+        /**
+         * A human-readable description of the metric, including its unit.
+         */
+        public final String description;
+
+        /**
+         * Whether the metric is collected per class (rather than per method).
+         */
+        public final boolean perClass;
+
+        Metric(String description, boolean perClass) {
+            this.description = description;
+            this.perClass    = perClass;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    /**
+     * Values above which methods and classes are counted separately; the defaults of HotSpot's "MaxInlineSize",
+     * "FreqInlineSize" and "HugeMethodLimit", and 90% of the class file format's limits.
+     */
+    private static final Limit[] LIMITS = {
+        new Limit(Metric.CODE_LENGTH,        35,    "methods longer than %,d bytes (inlined by HotSpot only if hot)"),
+        new Limit(Metric.CODE_LENGTH,        325,   "methods longer than %,d bytes (never inlined by HotSpot)"),
+        new Limit(Metric.CODE_LENGTH,        8000,  "methods longer than %,d bytes (never JIT-compiled by HotSpot)"),
+        new Limit(Metric.CODE_LENGTH,        58981, "methods longer than %,d bytes (near the 65,535 byte limit)"),
+        new Limit(Metric.CONSTANT_POOL_SIZE, 58981, "classes with over %,d constant pool entries (near the limit)"),
+    };
+
+    private int                    threadCount = Runtime.getRuntime().availableProcessors();
+    private int                    topCount    = 10;
+    @Nullable private ErrorSummary errorSummary;
+
+    private long                            classCount, methodCount;
+    private final Map<Metric, Distribution> distributions = new EnumMap<Metric, Distribution>(Metric.class);
+    private final long[]                    limitCounts   = new long[CodeStatistics.LIMITS.length];
+
+    /**
+     * The number of class files to parse concurrently; defaults to the number of processors.
+     */
+    public void
+    setThreadCount(int value) { this.threadCount = value; }
+
+    /**
+     * The number of methods resp. classes with the largest values to remember for each metric; defaults to 10.
+     */
+    public void
+    setTopCount(int value) { this.topCount = value; }
+
+    /**
+     * If not {@code null}, then class files that cannot be parsed are recorded in the <var>value</var> and skipped;
+     * otherwise the first such class file aborts the run. Defaults to {@code null}.
+     */
+    public void
+    setErrorSummary(@Nullable ErrorSummary value) { this.errorSummary = value; }
+
+    /**
+     * Collects the metrics of all class files under the given <var>inputs</var> (class files, directories and
+     * archives). Can be invoked repeatedly to accumulate the metrics of more inputs.
+     */
+    public void
+    collect(File... inputs) throws IOException {
+
+        ClassFileScanner<ClassMetrics> scanner = new ClassFileScanner<ClassMetrics>(this.threadCount) {
+
+            @Override protected ClassMetrics
+            process(byte[] classFile, String location) throws IOException {
+                return CodeStatistics.collect(classFile);
+            }
+
+            @Override protected void
+            consume(ClassMetrics result, String location) {
+                CodeStatistics.this.add(result);
+            }
+        };
+        scanner.setErrorSummary(this.errorSummary);
+        scanner.scan(inputs);
+    }
+
+    /**
+     * @return The number of classes that were collected
+     */
+    public long
+    getClassCount() { return this.classCount; }
+
+    /**
+     * @return The number of methods with code that were collected
+     */
+    public long
+    getMethodCount() { return this.methodCount; }
+
+    /**
+     * @return The histogram of the values of the <var>metric</var>; element 0 counts the values 0, element
+     *         <var>k</var> &gt; 0 counts the values 2<sup><var>k</var>-1</sup> through 2<sup><var>k</var></sup>-1
+     */
+    public long[]
+    getHistogram(Metric metric) { return this.distribution(metric).histogram.clone(); }
+
+    /**
+     * @return The methods resp. classes with the largest values of the <var>metric</var>, largest value first; ties
+     *         are ordered by input order
+     */
+    public List<Top>
+    getTop(Metric metric) {
+        List<Top> result = new ArrayList<Top>(this.distribution(metric).top);
+        Collections.sort(result, Collections.reverseOrder());
+        return result;
+    }
+
+    /**
+     * One of the methods resp. classes with the largest values of a metric.
+     */
+    public static final
+    class Top implements Comparable<Top> {
+
+        /**
+         * The fully qualified name of the class, or "<var>class</var>{@code .}<var>name</var><var>descriptor</var>"
+         * of the method.
+         */
+        public final String name;
+
+        /**
+         * The value of the metric.
+         */
+        public final int value;
+
+        private final long sequence;
+
+        Top(String name, int value, long sequence) {
+            this.name     = name;
+            this.value    = value;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Orders by value, then by <em>reverse</em> input order.
+         */
+        @Override public int
+        compareTo(Top that) {
+            return (
+                this.value != that.value ? (this.value < that.value ? -1 : 1)
+                : this.sequence == that.sequence ? 0
+                : this.sequence > that.sequence ? -1
+                : 1
+            );
+        }
+
+        @Override public String
+        toString() { return this.value + " " + this.name; }
+    }
+
+    /**
+     * Prints the distribution and the largest values of each metric, and the number of methods and classes that
+     * exceed the JVM limits.
+     */
+    public void
+    print(PrintWriter pw) {
+
+        for (Metric metric : CodeStatistics.METRICS) {
+            Distribution d     = this.distribution(metric);
+            String       units = metric.perClass ? "classes" : "methods";
+
+            pw.printf(
+                "%s: %,d %s, mean %.1f, max %,d%n",
+                metric.description,
+                d.count,
+                units,
+                d.count == 0 ? 0.0 : (double) d.sum / d.count,
+                d.max
+            );
+
+            int  lo = 0, hi = d.histogram.length - 1;
+            long peak = 1;
+            while (lo <= hi && d.histogram[lo] == 0) lo++;
+            while (hi >= lo && d.histogram[hi] == 0) hi--;
+            for (int k = lo; k <= hi; k++) peak = Math.max(peak, d.histogram[k]);
+            for (int k = lo; k <= hi; k++) {
+                long n = d.histogram[k];
+                pw.printf(
+                    "  %,9d - %,9d %,10d%s%n",
+                    k == 0 ? 0 : 1L << (k - 1),
+                    (1L << k) - 1,
+                    n,
+                    n == 0 ? "" : " " + CodeStatistics.bar((int) (1 + 49 * n / peak))
+                );
+            }
+
+            List<Top> top = this.getTop(metric);
+            if (!top.isEmpty()) {
+                pw.printf("  Top %d:%n", top.size());
+                for (Top t : top) pw.printf("  %,10d %s%n", t.value, t.name);
+            }
+            pw.println();
+        }
+
+        for (int i = 0; i < CodeStatistics.LIMITS.length; i++) {
+            Limit l = CodeStatistics.LIMITS[i];
+            pw.printf("%,d %s%n", this.limitCounts[i], String.format(l.description, l.value));
+        }
+        pw.flush();
+    }
+
+    /**
+     * E.g. "{@code 123 methods in 45 classes}".
+     */
+    @Override public String
+    toString() { return this.methodCount + " methods in " + this.classCount + " classes"; }
+
+    private void
+    add(ClassMetrics cm) {
+
+        this.classCount++;
+        this.add(Metric.CONSTANT_POOL_SIZE, cm.constantPoolSize, cm.className);
+
+        for (int i = 0; i < cm.methodNames.size(); i++) {
+            this.methodCount++;
+            int[] values = cm.methodValues.get(i);
+            for (Metric metric : CodeStatistics.METRICS) {
+                if (!metric.perClass) this.add(metric, values[metric.ordinal()], cm.methodNames.get(i));
+            }
+        }
+    }
+
+    private void
+    add(Metric metric, int value, String name) {
+
+        Distribution d = this.distribution(metric);
+        d.count++;
+        d.sum += value;
+        d.max = Math.max(d.max, value);
+        d.histogram[32 - Integer.numberOfLeadingZeros(value)]++;
+
+        // Keep the "topCount" largest values; on ties, the earlier ones win.
+        Top t = new Top(name, value, d.count);
+        if (d.top.size() < this.topCount) {
+            d.top.add(t);
+        } else
+        if (this.topCount > 0 && t.compareTo(d.top.peek()) > 0) {
+            d.top.poll();
+            d.top.add(t);
+        }
+
+        for (int i = 0; i < CodeStatistics.LIMITS.length; i++) {
+            Limit l = CodeStatistics.LIMITS[i];
+            if (l.metric == metric && value > l.value) this.limitCounts[i]++;
+        }
+    }
+
+    private Distribution
+    distribution(Metric metric) {
+        Distribution result = this.distributions.get(metric);
+        if (result == null) this.distributions.put(metric, (result = new Distribution()));
+        return result;
+    }
+
+    /**
+     * Parses the given class file and computes its metrics.
+     */
+    static ClassMetrics
+    collect(byte[] classFile) throws IOException {
+
+        ClassFile    cf     = new ClassFile(new DataInputStream(new ByteArrayInputStream(classFile)));
+        ClassMetrics result = new ClassMetrics(cf.thisClass.name, cf.constantPool.getSize());
+
+        for (Method m : cf.methods) {
+            CodeAttribute ca = m.codeAttribute;
+            if (ca == null) continue;
+
+            byte[] code         = ca.code;
+            int    instructions = 0, branches = 0;
+            for (int pc = 0; pc < code.length; instructions++) {
+                if (RawClassFile.isBranch(0xff & code[pc])) branches++;
+                pc += RawClassFile.instructionLength(code, 0, code.length, pc);
+            }
+
+            int[] values = new int[CodeStatistics.METRICS.length];
+            values[Metric.CODE_LENGTH.ordinal()]        = code.length;
+            values[Metric.MAX_STACK.ordinal()]          = 0xffff & ca.maxStack;
+            values[Metric.MAX_LOCALS.ordinal()]         = 0xffff & ca.maxLocals;
+            values[Metric.INSTRUCTIONS.ordinal()]       = instructions;
+            values[Metric.BRANCHES.ordinal()]           = branches;
+            values[Metric.EXCEPTION_HANDLERS.ordinal()] = ca.exceptionTable.size();
+
+            result.methodNames.add(cf.thisClass.name + "." + m.name + m.descriptor);
+            result.methodValues.add(values);
+        }
+
+        return result;
+    }
+
+    private static String
+    bar(int length) {
+        char[] result = new char[length];
+        Arrays.fill(result, '#');
+        return new String(result);
+    }
+
+    /**
+     * The metrics of one class file, as computed by a worker thread.
+     */
+    static
+    class ClassMetrics {
+
+        final String       className;
+        final int          constantPoolSize;
+        final List<String> methodNames  = new ArrayList<String>();
+        final List<int[]>  methodValues = new ArrayList<int[]>();
+
+        ClassMetrics(String className, int constantPoolSize) {
+            this.className        = className;
+            this.constantPoolSize = constantPoolSize;
+        }
+    }
+
+    private static
+    class Distribution {
+        long                     count, sum;
+        int                      max;
+        final long[]             histogram = new long[33];
+        final PriorityQueue<Top> top       = new PriorityQueue<Top>();
+    }
+
+    private static
+    class Limit {
+
+        final Metric metric;
+        final int    value;
+        final String description;
+
+        Limit(Metric metric, int value, String description) {
+            this.metric      = metric;
+            this.value       = value;
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * Lists the string and numeric constants of class files, i.e. the values of the {@code CONSTANT_String_info}, {@code
+ * CONSTANT_Integer_info}, {@code CONSTANT_Long_info}, {@code CONSTANT_Float_info} and {@code CONSTANT_Double_info}
+ * constant pool entries, one line each, e.g.
+ * <pre>
+ * com.acme.Foo.MAX_SIZE:I 100000
+ * com.acme.Foo.connect(Ljava/lang/String;)V "jdbc:acme://localhost"
+ * com.acme.Foo 3.14D
+ * </pre>
+ * <p>
+ *   Constants that are the {@code ConstantValue} of a field are attributed to the field. If {@link
+ *   #setAttributeToMethods(boolean) enabled}, constants that a method loads with {@code ldc}, {@code ldc_w} or {@code
+ *   ldc2_w} are attributed to the method (once per method); the code is scanned for these instructions, but not
+ *   decoded otherwise. All other constants are attributed to the class. Notice that small integer constants (which
+ *   are loaded with {@code iconst_*}, {@code bipush} and {@code sipush}) are not in the constant pool.
+ * </p>
+ * <p>
+ *   Only the constant pool and the member headers (and, optionally, the code) are parsed; the constant pool is not
+ *   "cooked". The class files are processed concurrently, and the lines are printed in input order, as soon as each
+ *   class is done.
+ * </p>
+ * <p>
+ *   Instances are not thread-safe.
+ * </p>
+ */
+public
+class ConstantExtractor {
+
+    private final PrintWriter      pw;
+    private boolean                attributeToMethods;
+    private int                    threadCount = Runtime.getRuntime().availableProcessors();
+    @Nullable private ErrorSummary errorSummary;
+
+    private long classCount, constantCount;
+
+    /**
+     * The constants are printed to the given <var>out</var>.
+     */
+    public
+    ConstantExtractor(Writer out) {
+        this.pw = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out);
+    }
+
+    /**
+     * Whether to attribute the constants to the methods that load them; defaults to {@code false}.
+     */
+    public void
+    setAttributeToMethods(boolean value) { this.attributeToMethods = value; }
+
+    /**
+     * The number of class files to process concurrently; defaults to the number of processors.
+     */
+    public void
+    setThreadCount(int value) { this.threadCount = value; }
+
+    /**
+     * If not {@code null}, then class files that cannot be parsed are recorded in the <var>value</var> and skipped;
+     * otherwise the first such class file aborts the run. Defaults to {@code null}.
+     */
+    public void
+    setErrorSummary(@Nullable ErrorSummary value) { this.errorSummary = value; }
+
+    /**
+     * Lists the constants of all class files under the given <var>inputs</var> (class files, directories and
+     * archives).
+     */
+    public void
+    extract(File... inputs) throws IOException {
+
+        final boolean attributeToMethods = this.attributeToMethods;
+
+        ClassFileScanner<List<String>> scanner = new ClassFileScanner<List<String>>(this.threadCount) {
+
+            @Override protected List<String>
+            process(byte[] classFile, String location) throws IOException {
+                return ConstantExtractor.extract(classFile, attributeToMethods);
+            }
+
+            @Override protected void
+            consume(List<String> lines, String location) {
+                for (String line : lines) ConstantExtractor.this.pw.println(line);
+                ConstantExtractor.this.classCount++;
+                ConstantExtractor.this.constantCount += lines.size();
+            }
+        };
+        scanner.setErrorSummary(this.errorSummary);
+        scanner.scan(inputs);
+
+        this.pw.flush();
+    }
+
+    @Override public String
+    toString() { return this.constantCount + " constants in " + this.classCount + " classes"; }
+
+    /**
+     * @return The lines that describe the constants of the given class file
+     */
+    static List<String>
+    extract(byte[] b, boolean attributeToMethods) throws IOException {
+
+        int[] offsets = RawClassFile.constantPoolOffsets(b);
+        int   count   = offsets.length;
+
+        // Find the attribute names of interest.
+        int constantValueIndex = -1, codeIndex = -1;
+        for (int i = 1; i < count; i++) {
+            int offset = offsets[i];
+            if (offset == 0 || b[offset] != 1) continue; // CONSTANT_Utf8_info
+            int length = RawClassFile.u2(b, offset + 1);
+            if (length == 13 && "ConstantValue".equals(RawClassFile.utf8(b, offsets, i))) constantValueIndex = i;
+            if (length == 4 && "Code".equals(RawClassFile.utf8(b, offsets, i))) codeIndex = i;
+        }
+
+        List<String> result     = new ArrayList<String>();
+        boolean[]    attributed = new boolean[count];
+        try {
+            int    p         = offsets[0];
+            String className = RawClassFile.className(b, offsets, RawClassFile.u2(b, p + 2));
+            p += 8 + 2 * RawClassFile.u2(b, p + 6);
+
+            // Fields.
+            int fieldCount = RawClassFile.u2(b, p);
+            p += 2;
+            for (int i = 0; i < fieldCount; i++) {
+                int    memberStart = p;
+                String member      = null;
+                int    ac          = RawClassFile.u2(b, p + 6);
+                for (p += 8; ac > 0; ac--) {
+                    if (RawClassFile.u2(b, p) == constantValueIndex) {
+                        int index = RawClassFile.u2(b, p + 6);
+                        if (member == null) member = ConstantExtractor.member(b, offsets, className, memberStart, ":");
+                        result.add(member + " " + ConstantExtractor.literal(b, offsets, index));
+                        attributed[index] = true;
+                    }
+                    p += 6 + ConstantExtractor.u4(b, p + 2);
+                }
+            }
+
+            // Methods.
+            int[] loaded      = new int[count]; // The number of the method that last loaded the constant, plus one
+            int   methodCount = RawClassFile.u2(b, p);
+            p += 2;
+            for (int i = 0; i < methodCount; i++) {
+                int    memberStart = p;
+                String member      = null;
+                int    ac          = RawClassFile.u2(b, p + 6);
+                for (p += 8; ac > 0; ac--) {
+                    if (attributeToMethods && RawClassFile.u2(b, p) == codeIndex) {
+                        int codeLength = ConstantExtractor.u4(b, p + 10);
+                        int codeStart  = p + 14;
+                        for (int pc = 0; pc < codeLength;) {
+                            int opcode = 0xff & b[codeStart + pc], index;
+                            if (opcode == 18) {                       // ldc
+                                index = 0xff & b[codeStart + pc + 1];
+                            } else
+                            if (opcode == 19 || opcode == 20) {       // ldc_w, ldc2_w
+                                index = RawClassFile.u2(b, codeStart + pc + 1);
+                            } else
+                            {
+                                index = 0;
+                            }
+                            if (ConstantExtractor.isConstant(b, offsets, index) && loaded[index] != i + 1) {
+                                loaded[index] = i + 1;
+                                if (member == null) {
+                                    member = ConstantExtractor.member(b, offsets, className, memberStart, "");
+                                }
+                                result.add(member + " " + ConstantExtractor.literal(b, offsets, index));
+                                attributed[index] = true;
+                            }
+                            pc += RawClassFile.instructionLength(b, codeStart, codeLength, pc);
+                        }
+                    }
+                    p += 6 + ConstantExtractor.u4(b, p + 2);
+                }
+            }
+
+            // All other constants.
+            for (int i = 1; i < count; i++) {
+                if (!attributed[i] && ConstantExtractor.isConstant(b, offsets, i)) {
+                    result.add(className + " " + ConstantExtractor.literal(b, offsets, i));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException aioobe) {
+            throw new ClassFileFormatException("Class file truncated", aioobe);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param p         The offset of the {@code field_info} or {@code method_info} structure
+     * @param separator Goes between the name and the descriptor
+     */
+    private static String
+    member(byte[] b, int[] offsets, String className, int p, String separator) throws ClassFileFormatException {
+        return (
+            className
+            + "."
+            + RawClassFile.utf8(b, offsets, RawClassFile.u2(b, p + 2))
+            + separator
+            + RawClassFile.utf8(b, offsets, RawClassFile.u2(b, p + 4))
+        );
+    }
+
+    private static boolean
+    isConstant(byte[] b, int[] offsets, int index) {
+        if (index <= 0 || index >= offsets.length || offsets[index] == 0) return false;
+        int tag = b[offsets[index]];
+        return (tag >= 3 && tag <= 6) || tag == 8; // Integer, Float, Long, Double, String
+    }
+
+    /**
+     * @return The value of the constant, as a Java literal, or, for the non-finite floating-point values, as the
+     *         constant that holds it, e.g. "{@code Double.NaN}"
+     */
+    private static String
+    literal(byte[] b, int[] offsets, int index) throws ClassFileFormatException {
+
+        if (!ConstantExtractor.isConstant(b, offsets, index)) {
+            throw new ClassFileFormatException("CP entry #" + index + " is not a constant");
+        }
+
+        int offset = offsets[index];
+        switch (b[offset]) {
+
+        case 3: // CONSTANT_Integer_info
+            return Integer.toString(ConstantExtractor.u4(b, offset + 1));
+
+        case 4: // CONSTANT_Float_info
+            {
+                float f = Float.intBitsToFloat(ConstantExtractor.u4(b, offset + 1));
+                return (
+                    Float.isNaN(f)      ? "Float.NaN" :
+                    Float.isInfinite(f) ? (f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY") :
+                    f + "F"
+                );
+            }
+
+        case 5: // CONSTANT_Long_info
+            return ConstantExtractor.u8(b, offset + 1) + "L";
+
+        case 6: // CONSTANT_Double_info
+            {
+                double d = Double.longBitsToDouble(ConstantExtractor.u8(b, offset + 1));
+                return (
+                    Double.isNaN(d)      ? "Double.NaN" :
+                    Double.isInfinite(d) ? (d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY") :
+                    d + "D"
+                );
+            }
+
+        default: // CONSTANT_String_info
+            String        s  = RawClassFile.utf8(b, offsets, RawClassFile.u2(b, offset + 1));
+            StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c   = s.charAt(i);
+                int  idx = "\"\\\b\t\n\f\r".indexOf(c);
+                if (idx != -1) {
+                    sb.append('\\').append("\"\\btnfr".charAt(idx));
+                } else
+                if (c < ' ' || (c >= 0x7f && c < 0xa0)) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else
+                {
+                    sb.append(c);
+                }
+            }
+            return sb.append('"').toString();
+        }
+    }
+
+    private static int
+    u4(byte[] b, int p) { return (RawClassFile.u2(b, p) << 16) | RawClassFile.u2(b, p + 2); }
+
+    private static long
+    u8(byte[] b, int p) {
+        return ((long) ConstantExtractor.u4(b, p) << 32) | (0xffffffffL & ConstantExtractor.u4(b, p + 4));
+    }
+}
@@ -34,7 +34,8 @@ import de.unkrig.commons.nullanalysis.Nullable;
 import de.unkrig.jdisasm.SignatureParser.SignatureException;
 
 /**
- * Representation of the "constant pool" in a Java class file.
+ * Representation of the "constant pool" in a Java class file. Immutable after construction, except through the
+ * deprecated {@link #setSignatureParser(SignatureParser)}.
  */
 public
 class ConstantPool {
@@ -44,10 +45,41 @@ class ConstantPool {
      */
     public
     interface ConstantPoolEntry {
+
         /** 1 or 2 */
         int size();
     }
 
+    /**
+     * @return A human-readable representation of the <var>entry</var>, where descriptors and signatures are converted
+     *         with the given <var>signatureParser</var>; {@link ConstantPoolEntry#toString()} is equivalent with using
+     *         the signature parser that the {@link ConstantPool} was created with
+     */
+    public static String
+    toString(ConstantPoolEntry entry, SignatureParser signatureParser) {
+        if (entry instanceof ConstantClassInfo) {
+            return ((ConstantClassInfo) entry).toString(signatureParser);
+        } else
+        if (entry instanceof ConstantFieldrefInfo) {
+            return ((ConstantFieldrefInfo) entry).toString(signatureParser);
+        } else
+        if (entry instanceof ConstantInterfaceMethodrefOrMethodrefInfo) {
+            return ((ConstantInterfaceMethodrefOrMethodrefInfo) entry).toString(signatureParser);
+        } else
+        if (entry instanceof ConstantNameAndTypeInfo) {
+            return ((ConstantNameAndTypeInfo) entry).toString(signatureParser);
+        } else
+        if (entry instanceof ConstantMethodHandleInfo) {
+            return ((ConstantMethodHandleInfo) entry).toString(signatureParser);
+        } else
+        if (entry instanceof ConstantMethodTypeInfo) {
+            return ((ConstantMethodTypeInfo) entry).toString(signatureParser);
+        } else
+        {
+            return entry.toString();
+        }
+    }
+
     /**
      * Representation of a CONSTANT_Class_info entry.
      */
@@ -65,11 +97,17 @@ class ConstantPool {
         size() { return 1; }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(ConstantPool.this.signatureParser); }
+
+        /**
+         * Like {@link #toString()}, but converts the class name with the given <var>signatureParser</var>.
+         */
+        public String
+        toString(SignatureParser signatureParser) {
 
             String typeName;
             try {
-                typeName = ConstantPool.this.signatureParser.decodeClassNameOrFieldDescriptor(this.name).toString();
+                typeName = signatureParser.decodeClassNameOrFieldDescriptor(this.name).toString();
             } catch (SignatureException e) {
                 typeName = this.name;
             }
@@ -103,10 +141,16 @@ class ConstantPool {
         size() { return 1; }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(ConstantPool.this.signatureParser); }
+
+        /**
+         * Like {@link #toString()}, but converts descriptors with the given <var>signatureParser</var>.
+         */
+        public String
+        toString(SignatureParser signatureParser) {
             try {
                 return (
-                    ConstantPool.this.signatureParser.decodeFieldDescriptor(this.nameAndType.descriptor.bytes)
+                    signatureParser.decodeFieldDescriptor(this.nameAndType.descriptor.bytes)
                     + " "
                     + ConstantPool.beautifyTypeName(this.clasS.name)
                     + "."
@@ -150,10 +194,10 @@ class ConstantPool {
         }
 
         @Override public String
-        toString() {
+        toString(SignatureParser signatureParser) {
 
             // Tweak the "toString()" to make it visually distinguishable from a non-interface methodref.
-            return super.toString().replace(":::", "::");
+            return super.toString(signatureParser).replace(":::", "::");
         }
     }
 
@@ -183,13 +227,19 @@ class ConstantPool {
         size() { return 1; }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(ConstantPool.this.signatureParser); }
+
+        /**
+         * Like {@link #toString()}, but converts descriptors with the given <var>signatureParser</var>.
+         */
+        public String
+        toString(SignatureParser signatureParser) {
             try {
                 return (
                     ConstantPool.beautifyTypeName(this.clasS.name)
                     + "."
                     + (
-                        ConstantPool.this.signatureParser.decodeMethodDescriptor(this.nameAndType.descriptor.bytes)
+                        signatureParser.decodeMethodDescriptor(this.nameAndType.descriptor.bytes)
                         .toString(ConstantPool.beautifyTypeName(this.clasS.name), this.nameAndType.name.bytes)
                     )
                 );
@@ -333,12 +383,18 @@ class ConstantPool {
         size() { return 1; }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(ConstantPool.this.signatureParser); }
+
+        /**
+         * Like {@link #toString()}, but converts descriptors with the given <var>signatureParser</var>.
+         */
+        public String
+        toString(SignatureParser signatureParser) {
             try {
                 return (
                     this.descriptor.bytes.indexOf('(') == -1
-                    ? ConstantPool.this.signatureParser.decodeFieldDescriptor(this.descriptor.bytes) + " " + this.name.bytes // SUPPRESS CHECKSTYLE LineLength
-                    : this.name.bytes + ConstantPool.this.signatureParser.decodeMethodDescriptor(this.descriptor.bytes)
+                    ? signatureParser.decodeFieldDescriptor(this.descriptor.bytes) + " " + this.name.bytes // SUPPRESS CHECKSTYLE LineLength
+                    : this.name.bytes + signatureParser.decodeMethodDescriptor(this.descriptor.bytes)
                 );
             } catch (SignatureException e) {
                 return this.name.bytes + this.descriptor.bytes;
@@ -373,8 +429,15 @@ class ConstantPool {
     public static
     class ConstantMethodHandleInfo implements ConstantPoolEntry {
 
-        private final short             referenceKind;
-        private final ConstantPoolEntry reference;
+        /**
+         * {@code CONSTANT_MethodHandle_info.reference_kind}, see JVMS8 4.4.8
+         */
+        public final short referenceKind;
+
+        /**
+         * The entry that {@code CONSTANT_MethodHandle_info.reference_index} designates, see JVMS8 4.4.8
+         */
+        public final ConstantPoolEntry reference;
 
         public
         ConstantMethodHandleInfo(byte referenceKind, ConstantPoolEntry reference) {
@@ -386,7 +449,18 @@ class ConstantPool {
         size() { return 1; }
 
         @Override public String
-        toString() {
+        toString() { return this.referenceKindName() + ":" + this.reference.toString(); }
+
+        /**
+         * Like {@link #toString()}, but converts descriptors with the given <var>signatureParser</var>.
+         */
+        public String
+        toString(SignatureParser signatureParser) {
+            return this.referenceKindName() + ":" + ConstantPool.toString(this.reference, signatureParser);
+        }
+
+        private String
+        referenceKindName() {
             return (
                 this.referenceKind == 1 ? "REF_getField"         :
                 this.referenceKind == 2 ? "REF_getStatic"        :
@@ -398,7 +472,8 @@ class ConstantPool {
                 this.referenceKind == 8 ? "REF_newInvokeSpecial" :
                 this.referenceKind == 9 ? "REF_invokeInterface"  :
                 "REF_??? (" + this.referenceKind + ")"
-            ) + ":" + this.reference.toString(); }
+            );
+        }
     }
 
     /**
@@ -422,9 +497,15 @@ class ConstantPool {
         size() { return 1; }
 
         @Override public String
-        toString() {
+        toString() { return this.toString(ConstantPool.this.signatureParser); }
+
+        /**
+         * Like {@link #toString()}, but converts descriptors with the given <var>signatureParser</var>.
+         */
+        public String
+        toString(SignatureParser signatureParser) {
             try {
-                return ConstantPool.this.signatureParser.decodeMethodDescriptor(this.descriptor.bytes).toString();
+                return signatureParser.decodeMethodDescriptor(this.descriptor.bytes).toString();
             } catch (SignatureException e) {
                 return this.descriptor.bytes;
             }
@@ -563,6 +644,9 @@ class ConstantPool {
     public
     interface ConstantDoubleOrLongOrDynamicInfo extends ConstantPoolEntry {}
 
+    /**
+     * Used by the {@link ConstantPoolEntry#toString()} methods.
+     */
     private SignatureParser signatureParser;
 
     /**
@@ -580,7 +664,18 @@ class ConstantPool {
      * @throws ArrayIndexOutOfBoundsException An index is too small or to great
      */
     public
-    ConstantPool(final DataInputStream dis, SignatureParser signatureParser) throws IOException {
+    ConstantPool(DataInputStream dis, SignatureParser signatureParser) throws IOException {
+        this(dis, signatureParser, Metrics.NOP);
+    }
+
+    /**
+     * Reads a constant pool from the given {@link InputStream}, and reports the time that took to the given
+     * <var>metrics</var>.
+     */
+    public
+    ConstantPool(final DataInputStream dis, SignatureParser signatureParser, Metrics metrics) throws IOException {
+
+        long start = metrics.now();
 
         this.signatureParser = signatureParser;
 
@@ -892,6 +987,8 @@ class ConstantPool {
                 throw new RuntimeException("Cooking CP entry #" + i + " of " + count + ": " + re.getMessage(), re);
             }
         }
+
+        metrics.time(Metrics.Timer.CONSTANT_POOL, start);
     }
 
     public static String
@@ -908,10 +1005,13 @@ class ConstantPool {
     }
 
     /**
-     * Sets a custom {@link SignatureParser}; that influences how the various descriptors and signatures in the class
-     * file are parsed and converted to human-readable strings by {@link Object#toString()}.
+     * Sets a custom {@link SignatureParser}; that influences how the various descriptors and signatures in the
+     * constant pool are converted to human-readable strings by {@link Object#toString()}.
+     *
+     * @deprecated This method modifies the {@link ConstantPool}, which makes it unsafe to share between threads; use
+     *             {@link #toString(ConstantPoolEntry, SignatureParser)} instead
      */
-    public void
+    @Deprecated public void
     setSignatureParser(SignatureParser signatureParser) {
         this.signatureParser = signatureParser;
     }
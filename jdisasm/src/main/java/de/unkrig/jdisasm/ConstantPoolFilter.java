@@ -0,0 +1,218 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides whether a class file can possibly be of interest, by scanning the raw bytes of its constant pool. Nothing
+ * is parsed beyond the constant pool, no {@link ConstantPool} entries are "cooked", and no objects are allocated, so
+ * most class files can be rejected at a fraction of the cost of constructing a {@link ClassFile}.
+ * <p>
+ *   A class file is {@link #accept(byte[], int, int) accepted} iff it has <em>all</em> of the required constant pool
+ *   entries; to find classes that have <em>any</em> of several entries, use one filter per entry.
+ * </p>
+ * <p>
+ *   Malformed class files are always accepted, so that the subsequent parsing can report the problem.
+ * </p>
+ * <p>
+ *   Instances are not thread-safe, because they keep their buffers.
+ * </p>
+ */
+public
+class ConstantPoolFilter {
+
+    // The required entries, in "modified UTF-8" encoding (JVMS8 4.4.7).
+    private final List<byte[]> utf8s      = new ArrayList<byte[]>();
+    private final List<byte[]> classNames = new ArrayList<byte[]>();
+
+    // Reused by "accept()".
+    private boolean[] utf8Found      = new boolean[0];
+    private int[]     utf8ClassName  = new int[0]; // Per CP index: 1 + the index of the equal class name, or 0
+    private int[]     classNameIndex = new int[0]; // The "name_index"es of the CONSTANT_Class_info entries
+    private boolean[] classFound     = new boolean[0];
+
+    /**
+     * Requires that at least one {@code CONSTANT_Utf8_info} entry <em>contains</em> the given <var>s</var>, e.g. a
+     * method name, a string literal or a fragment of a descriptor.
+     */
+    public void
+    requireUtf8(String s) {
+        this.utf8s.add(ConstantPoolFilter.modifiedUtf8(s));
+        this.utf8Found = new boolean[this.utf8s.size()];
+    }
+
+    /**
+     * Requires that a {@code CONSTANT_Class_info} entry references the class with the given <var>className</var>
+     * (e.g. "{@code java.util.Map$Entry}").
+     */
+    public void
+    requireClass(String className) {
+        this.classNames.add(ConstantPoolFilter.modifiedUtf8(className.replace('.', '/')));
+        this.classFound = new boolean[this.classNames.size()];
+    }
+
+    /**
+     * Equivalent with {@link #accept(byte[], int, int) accept}{@code (classFile, 0, classFile.length)}.
+     */
+    public boolean
+    accept(byte[] classFile) { return this.accept(classFile, 0, classFile.length); }
+
+    /**
+     * @return Whether the constant pool of the class file in the given byte range has all the required entries
+     */
+    public boolean
+    accept(byte[] b, int off, int len) {
+
+        final int end = off + len;
+
+        // "magic", "minor_version", "major_version", "constant_pool_count".
+        if (len < 10 || RawClassFile.u2(b, off) != 0xcafe || RawClassFile.u2(b, off + 2) != 0xbabe) {
+            return true;
+        }
+        final int count = RawClassFile.u2(b, off + 8);
+
+        final int utf8Count  = this.utf8s.size();
+        final int classCount = this.classNames.size();
+
+        int utf8Missing = utf8Count;
+        Arrays.fill(this.utf8Found, false);
+
+        int[] utf8ClassName = this.utf8ClassName, classNameIndex = this.classNameIndex;
+        if (classCount > 0) {
+            if (utf8ClassName.length < count) {
+                this.utf8ClassName  = (utf8ClassName = new int[count]);
+                this.classNameIndex = (classNameIndex = new int[count]);
+            } else {
+                Arrays.fill(utf8ClassName, 0, count, 0);
+            }
+        }
+        int classInfoCount = 0;
+
+        int p = off + 10;
+        for (int i = 1; i < count; i++) {
+            if (p + 3 > end) return true; // The shortest cp_info structures have three bytes.
+
+            int tag = b[p];
+            if (tag == 1) { // CONSTANT_Utf8_info
+                int length = RawClassFile.u2(b, p + 1);
+                if (p + 3 + length > end) return true;
+
+                for (int j = 0; j < utf8Count; j++) {
+                    if (!this.utf8Found[j] && ConstantPoolFilter.contains(b, p + 3, length, this.utf8s.get(j))) {
+                        this.utf8Found[j] = true;
+                        utf8Missing--;
+                    }
+                }
+                if (utf8Missing == 0 && classCount == 0) return true;
+
+                for (int j = 0; j < classCount; j++) {
+                    byte[] className = this.classNames.get(j);
+                    if (className.length == length && ConstantPoolFilter.contains(b, p + 3, length, className)) {
+                        utf8ClassName[i] = 1 + j;
+                        break;
+                    }
+                }
+            } else
+            if (tag == 7 && classCount > 0) { // CONSTANT_Class_info
+                classNameIndex[classInfoCount++] = RawClassFile.u2(b, p + 1);
+            }
+
+            int size = RawClassFile.constantSize(b, p);
+            if (size == -1) return true;
+            if (tag == 5 || tag == 6) i++; // CONSTANT_Long_info and CONSTANT_Double_info take two entries.
+            p += size;
+        }
+        if (p > end) return true;
+
+        if (utf8Missing > 0) return false;
+        if (classCount == 0) return true;
+
+        // Now check the names of the CONSTANT_Class_info entries.
+        int classMissing = classCount;
+        Arrays.fill(this.classFound, false);
+        for (int i = 0; i < classInfoCount; i++) {
+            int nameIndex = classNameIndex[i];
+            if (nameIndex >= count) return true;
+
+            int j = utf8ClassName[nameIndex] - 1;
+            if (j != -1 && !this.classFound[j]) {
+                this.classFound[j] = true;
+                if (--classMissing == 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether the byte range contains the <var>needle</var>
+     */
+    private static boolean
+    contains(byte[] b, int off, int len, byte[] needle) {
+
+        int n = needle.length;
+        if (n == 0) return true;
+
+        byte first = needle[0];
+        for (int i = off, last = off + len - n; i <= last; i++) {
+            if (b[i] != first) continue;
+            int j = 1;
+            while (j < n && b[i + j] == needle[j]) j++;
+            if (j == n) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Encodes the given <var>s</var> like {@link java.io.DataOutput#writeUTF(String)}, but without the length
+     * prefix.
+     */
+    private static byte[]
+    modifiedUtf8(String s) {
+
+        byte[] result = new byte[3 * s.length()];
+        int    n      = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007f) {
+                result[n++] = (byte) c;
+            } else
+            if (c <= 0x07ff) {
+                result[n++] = (byte) (0xc0 | (c >> 6));
+                result[n++] = (byte) (0x80 | (c & 0x3f));
+            } else
+            {
+                result[n++] = (byte) (0xe0 | (c >> 12));
+                result[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                result[n++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
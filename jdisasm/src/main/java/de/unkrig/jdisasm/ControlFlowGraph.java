@@ -0,0 +1,491 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+
+/**
+ * The control-flow graph of one method: its basic blocks, and the normal and exception edges between them.
+ * <p>
+ *   Blocks are identified by their index, in ascending code offset order; block 0 is the entry block. All data is
+ *   stored in {@code int} arrays (the edges as adjacency lists with start offsets), and accessed through index-based
+ *   getters, so no objects are allocated per block or per edge.
+ * </p>
+ * <p>
+ *   Normal edges are the branches (including the targets of switches and {@code jsr}s) and the fall-throughs.
+ *   {@code ret} has no normal successors, because its target is not statically known. Exception edges lead from
+ *   each block that lies within a TRY body to the block of the exception handler; the TRY bodies' start and end
+ *   offsets also start blocks, so that each block lies completely inside or outside of each TRY body.
+ * </p>
+ * <p>
+ *   Instances are immutable and thus thread-safe; a {@link Builder} should be reused for many methods.
+ * </p>
+ */
+public final
+class ControlFlowGraph {
+
+    private final int   blockCount;
+    private final int[] blockStarts; // blockCount + 1 elements; the last is the code length
+
+    // Adjacency lists.
+    private final int[] successorStarts, successors;
+    private final int[] predecessorStarts, predecessors;
+    private final int[] exceptionSuccessorStarts, exceptionSuccessors;
+    private final int[] exceptionPredecessorStarts, exceptionPredecessors;
+
+    private
+    ControlFlowGraph(
+        int[] blockStarts,
+        int[] successorStarts,
+        int[] successors,
+        int[] exceptionSuccessorStarts,
+        int[] exceptionSuccessors
+    ) {
+        this.blockCount               = blockStarts.length - 1;
+        this.blockStarts              = blockStarts;
+        this.successorStarts          = successorStarts;
+        this.successors               = successors;
+        this.exceptionSuccessorStarts = exceptionSuccessorStarts;
+        this.exceptionSuccessors      = exceptionSuccessors;
+
+        this.predecessorStarts = new int[this.blockCount + 1];
+        this.predecessors      = ControlFlowGraph.invert(successorStarts, successors, this.predecessorStarts);
+
+        this.exceptionPredecessorStarts = new int[this.blockCount + 1];
+        this.exceptionPredecessors      = ControlFlowGraph.invert(
+            exceptionSuccessorStarts,
+            exceptionSuccessors,
+            this.exceptionPredecessorStarts
+        );
+    }
+
+    /**
+     * Equivalent with {@code new Builder().build(codeAttribute)}.
+     */
+    public static ControlFlowGraph
+    build(CodeAttribute codeAttribute) throws IOException { return new Builder().build(codeAttribute); }
+
+    /**
+     * @return The number of basic blocks; 0 iff the code is empty
+     */
+    public int
+    getBlockCount() { return this.blockCount; }
+
+    /**
+     * @return The code offset of the first instruction of the <var>block</var>
+     */
+    public int
+    getStartPc(int block) { return this.blockStarts[block]; }
+
+    /**
+     * @return The code offset after the last instruction of the <var>block</var>
+     */
+    public int
+    getEndPc(int block) { return this.blockStarts[block + 1]; }
+
+    /**
+     * @return The block that contains the given code offset, or -1
+     */
+    public int
+    getBlockAt(int pc) {
+        if (pc < 0 || pc >= this.blockStarts[this.blockCount]) return -1;
+        int idx = Arrays.binarySearch(this.blockStarts, 0, this.blockCount, pc);
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    /**
+     * @return The number of normal successors of the <var>block</var>
+     */
+    public int
+    getSuccessorCount(int block) { return ControlFlowGraph.count(this.successorStarts, block); }
+
+    /**
+     * @return The <var>i</var>th normal successor of the <var>block</var>
+     */
+    public int
+    getSuccessor(int block, int i) { return this.successors[this.successorStarts[block] + i]; }
+
+    /**
+     * @return The number of normal predecessors of the <var>block</var>
+     */
+    public int
+    getPredecessorCount(int block) { return ControlFlowGraph.count(this.predecessorStarts, block); }
+
+    /**
+     * @return The <var>i</var>th normal predecessor of the <var>block</var>
+     */
+    public int
+    getPredecessor(int block, int i) { return this.predecessors[this.predecessorStarts[block] + i]; }
+
+    /**
+     * @return The number of exception successors of the <var>block</var>
+     */
+    public int
+    getExceptionSuccessorCount(int block) { return ControlFlowGraph.count(this.exceptionSuccessorStarts, block); }
+
+    /**
+     * @return The <var>i</var>th exception successor of the <var>block</var>
+     */
+    public int
+    getExceptionSuccessor(int block, int i) {
+        return this.exceptionSuccessors[this.exceptionSuccessorStarts[block] + i];
+    }
+
+    /**
+     * @return The number of exception predecessors of the <var>block</var>
+     */
+    public int
+    getExceptionPredecessorCount(int block) { return ControlFlowGraph.count(this.exceptionPredecessorStarts, block); }
+
+    /**
+     * @return The <var>i</var>th exception predecessor of the <var>block</var>
+     */
+    public int
+    getExceptionPredecessor(int block, int i) {
+        return this.exceptionPredecessors[this.exceptionPredecessorStarts[block] + i];
+    }
+
+    /**
+     * Computes the immediate dominator of each block, with the algorithm of Cooper, Harvey and Kennedy ("A Simple,
+     * Fast Dominance Algorithm"); both normal and exception edges count.
+     *
+     * @return The immediate dominator of each block, or -1 for the entry block and for unreachable blocks
+     */
+    public int[]
+    computeImmediateDominators() {
+
+        int n = this.blockCount;
+
+        // Number the reachable blocks in reverse postorder, with an explicit DFS stack.
+        int[] rpoNumber = new int[n];
+        int[] rpo       = new int[n];
+        int   rpoCount  = 0;
+        {
+            Arrays.fill(rpoNumber, -1);
+            int[]     stack   = new int[n];
+            int[]     next    = new int[n]; // The next edge to explore, per block on the stack
+            boolean[] visited = new boolean[n];
+            int       sp      = 0;
+            int[]     order   = new int[n];
+            int       count   = 0;
+            if (n > 0) {
+                stack[sp++] = 0;
+                visited[0]  = true;
+            }
+            while (sp > 0) {
+                int b = stack[sp - 1];
+                int e = next[b]++;
+                int normalCount = this.getSuccessorCount(b);
+                if (e < normalCount + this.getExceptionSuccessorCount(b)) {
+                    int s = e < normalCount ? this.getSuccessor(b, e) : this.getExceptionSuccessor(b, e - normalCount);
+                    if (!visited[s]) {
+                        visited[s]  = true;
+                        stack[sp++] = s;
+                    }
+                } else {
+                    order[count++] = b;
+                    sp--;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                rpo[i]                   = order[count - 1 - i];
+                rpoNumber[rpo[i]]        = i;
+            }
+            rpoCount = count;
+        }
+
+        int[] idom = new int[n];
+        Arrays.fill(idom, -1);
+        if (n == 0) return idom;
+        idom[0] = 0;
+
+        for (boolean changed = true; changed;) {
+            changed = false;
+            for (int i = 1; i < rpoCount; i++) {
+                int b       = rpo[i];
+                int newIdom = -1;
+                for (int kind = 0; kind < 2; kind++) {
+                    int pc = kind == 0 ? this.getPredecessorCount(b) : this.getExceptionPredecessorCount(b);
+                    for (int j = 0; j < pc; j++) {
+                        int p = kind == 0 ? this.getPredecessor(b, j) : this.getExceptionPredecessor(b, j);
+                        if (idom[p] == -1) continue;
+                        newIdom = newIdom == -1 ? p : ControlFlowGraph.intersect(p, newIdom, idom, rpoNumber);
+                    }
+                }
+                if (idom[b] != newIdom) {
+                    idom[b] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        idom[0] = -1;
+
+        return idom;
+    }
+
+    private static int
+    intersect(int b1, int b2, int[] idom, int[] rpoNumber) {
+        while (b1 != b2) {
+            while (rpoNumber[b1] > rpoNumber[b2]) b1 = idom[b1];
+            while (rpoNumber[b2] > rpoNumber[b1]) b2 = idom[b2];
+        }
+        return b1;
+    }
+
+    /**
+     * E.g. "<code>B0 [0-4) -&gt; B1; B1 [4-9) -&gt; B5 B2 !&gt; B6</code>", where "<code>!&gt;</code>" designates the
+     * exception edges.
+     */
+    @Override public String
+    toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int b = 0; b < this.blockCount; b++) {
+            if (b > 0) sb.append("; ");
+            sb.append('B').append(b).append(" [").append(this.getStartPc(b)).append('-').append(this.getEndPc(b));
+            sb.append(')');
+            for (int i = 0; i < this.getSuccessorCount(b); i++) {
+                sb.append(i == 0 ? " -> B" : " B").append(this.getSuccessor(b, i));
+            }
+            for (int i = 0; i < this.getExceptionSuccessorCount(b); i++) {
+                sb.append(i == 0 ? " !> B" : " B").append(this.getExceptionSuccessor(b, i));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int
+    count(int[] starts, int block) { return starts[block + 1] - starts[block]; }
+
+    /**
+     * Inverts the adjacency list {@code (starts, targets)}.
+     *
+     * @param resultStarts Receives the start offsets of the inverted adjacency list
+     * @return             The targets of the inverted adjacency list
+     */
+    private static int[]
+    invert(int[] starts, int[] targets, int[] resultStarts) {
+        int n = resultStarts.length - 1;
+        for (int i = 0; i < starts[n]; i++) resultStarts[targets[i] + 1]++;
+        for (int i = 0; i < n; i++) resultStarts[i + 1] += resultStarts[i];
+
+        int[] fill   = Arrays.copyOf(resultStarts, n);
+        int[] result = new int[starts[n]];
+        for (int i = 0; i < n; i++) {
+            for (int j = starts[i]; j < starts[i + 1]; j++) result[fill[targets[j]]++] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Builds {@link ControlFlowGraph}s. The instructions are decoded once, with a {@link ClassFileWalker}; the
+     * builder keeps its buffers, so it should be reused for many methods. Not thread-safe.
+     */
+    public static final
+    class Builder {
+
+        // Instruction kinds.
+        private static final int OTHER = 0, CONDITIONAL = 1, GOTO = 2, JSR = 3, RET = 4, SWITCH = 5, EXIT = 6;
+
+        private final ClassFileWalker walker = new ClassFileWalker(new AbstractDisassemblySink() {
+
+            @Override public void
+            instruction(Instruction instruction) { Builder.this.instruction(instruction); }
+        });
+
+        // Per code offset: 1 = instruction start, 2 = block start.
+        private byte[] marks = new byte[0];
+
+        // Per instruction.
+        private final IntList pcs          = new IntList();
+        private final IntList kinds        = new IntList();
+        private final IntList targetStarts = new IntList();
+        private final IntList targets      = new IntList();
+
+        private int codeLength;
+
+        /**
+         * Builds the control flow graph of the given <var>codeAttribute</var>.
+         */
+        public ControlFlowGraph
+        build(CodeAttribute codeAttribute) throws IOException {
+            return this.build(codeAttribute.code, codeAttribute.exceptionTable);
+        }
+
+        /**
+         * Builds the control flow graph of the given bytecode.
+         *
+         * @throws ClassFileFormatException A branch target or exception handler is not at the beginning of an
+         *                                  instruction
+         */
+        public ControlFlowGraph
+        build(byte[] code, List<ExceptionTableEntry> exceptionTable) throws IOException {
+
+            int n = this.codeLength = code.length;
+            if (this.marks.length < n + 1) {
+                this.marks = new byte[n + 1];
+            } else {
+                Arrays.fill(this.marks, 0, n + 1, (byte) 0);
+            }
+            byte[] marks = this.marks;
+            this.pcs.clear();
+            this.kinds.clear();
+            this.targetStarts.clear();
+            this.targets.clear();
+
+            // Decode the instructions, and record their starts, kinds and targets.
+            this.walker.walkCode(code, Collections.<ExceptionTableEntry>emptyList(), null);
+            int insnCount = this.pcs.size();
+            this.targetStarts.add(this.targets.size());
+            if (insnCount == 0) return new ControlFlowGraph(new int[1], new int[1], new int[0], new int[1], new int[0]);
+
+            // Mark the block starts.
+            int[] pcs = this.pcs.array(), kinds = this.kinds.array();
+            int[] targetStarts = this.targetStarts.array(), targets = this.targets.array();
+            marks[0] |= 2;
+            for (int i = 0; i < insnCount; i++) {
+                if (kinds[i] != Builder.OTHER && i + 1 < insnCount) marks[pcs[i + 1]] |= 2;
+                for (int j = targetStarts[i]; j < targetStarts[i + 1]; j++) this.markBlockStart(targets[j]);
+            }
+            for (ExceptionTableEntry ete : exceptionTable) {
+                this.markBlockStart(ete.handlerPc);
+                if (ete.startPc < n && marks[ete.startPc] != 0) marks[ete.startPc] |= 2;
+                if (ete.endPc < n && marks[ete.endPc] != 0) marks[ete.endPc] |= 2;
+            }
+
+            IntList blockStarts = new IntList();
+            for (int i = 0; i < insnCount; i++) {
+                if ((marks[pcs[i]] & 2) != 0) blockStarts.add(pcs[i]);
+            }
+            int   blockCount = blockStarts.size();
+            int[] bs         = Arrays.copyOf(blockStarts.array(), blockCount + 1);
+            bs[blockCount] = n;
+
+            // Compute the edges, from the last instruction of each block.
+            int[]   successorStarts          = new int[blockCount + 1];
+            IntList successors               = new IntList();
+            int[]   exceptionSuccessorStarts = new int[blockCount + 1];
+            IntList exceptionSuccessors      = new IntList();
+            for (int b = 0, i = 0; b < blockCount; b++) {
+
+                // Find the last instruction of the block.
+                while (i + 1 < insnCount && pcs[i + 1] < bs[b + 1]) i++;
+
+                int from = successors.size();
+                int kind = kinds[i];
+                for (int j = targetStarts[i]; j < targetStarts[i + 1]; j++) {
+                    ControlFlowGraph.addUnique(successors, from, Arrays.binarySearch(bs, 0, blockCount, targets[j]));
+                }
+                if (kind == Builder.OTHER || kind == Builder.CONDITIONAL || kind == Builder.JSR) {
+                    if (b + 1 < blockCount) ControlFlowGraph.addUnique(successors, from, b + 1);
+                }
+                successorStarts[b + 1] = successors.size();
+
+                from = exceptionSuccessors.size();
+                for (ExceptionTableEntry ete : exceptionTable) {
+                    if (bs[b] >= ete.startPc && bs[b] < ete.endPc) {
+                        int handler = Arrays.binarySearch(bs, 0, blockCount, ete.handlerPc);
+                        ControlFlowGraph.addUnique(exceptionSuccessors, from, handler);
+                    }
+                }
+                exceptionSuccessorStarts[b + 1] = exceptionSuccessors.size();
+                i++;
+            }
+
+            return new ControlFlowGraph(
+                bs,
+                successorStarts,
+                Arrays.copyOf(successors.array(), successors.size()),
+                exceptionSuccessorStarts,
+                Arrays.copyOf(exceptionSuccessors.array(), exceptionSuccessors.size())
+            );
+        }
+
+        private void
+        markBlockStart(int pc) throws ClassFileFormatException {
+            if (pc < 0 || pc >= this.codeLength || this.marks[pc] == 0) {
+                throw new ClassFileFormatException("Branch target " + pc + " is not the start of an instruction");
+            }
+            this.marks[pc] |= 2;
+        }
+
+        void
+        instruction(Instruction insn) {
+
+            this.marks[insn.pc] |= 1;
+            this.pcs.add(insn.pc);
+            this.targetStarts.add(this.targets.size());
+
+            int opcode = insn.opcode;
+            if ((opcode >= 153 && opcode <= 166) || opcode == 198 || opcode == 199) { // if*
+                this.kinds.add(Builder.CONDITIONAL);
+                this.targets.add(insn.operands[0]);
+            } else
+            if (opcode == 167 || opcode == 200) { // goto, goto_w
+                this.kinds.add(Builder.GOTO);
+                this.targets.add(insn.operands[0]);
+            } else
+            if (opcode == 168 || opcode == 201) { // jsr, jsr_w
+                this.kinds.add(Builder.JSR);
+                this.targets.add(insn.operands[0]);
+            } else
+            if (opcode == 169 || opcode == 0xc4a9) { // ret, wide ret
+                this.kinds.add(Builder.RET);
+            } else
+            if (opcode == 170) { // tableswitch: default, low, high, targets...
+                this.kinds.add(Builder.SWITCH);
+                this.targets.add(insn.operands[0]);
+                for (int i = 3; i < insn.operandCount; i++) this.targets.add(insn.operands[i]);
+            } else
+            if (opcode == 171) { // lookupswitch: default, npairs, (match, target)...
+                this.kinds.add(Builder.SWITCH);
+                this.targets.add(insn.operands[0]);
+                for (int i = 3; i < insn.operandCount; i += 2) this.targets.add(insn.operands[i]);
+            } else
+            if ((opcode >= 172 && opcode <= 177) || opcode == 191) { // *return, athrow
+                this.kinds.add(Builder.EXIT);
+            } else
+            {
+                this.kinds.add(Builder.OTHER);
+            }
+        }
+    }
+
+    private static void
+    addUnique(IntList list, int from, int value) {
+        int[] a = list.array();
+        for (int i = from; i < list.size(); i++) {
+            if (a[i] == value) return;
+        }
+        list.add(value);
+    }
+}
@@ -0,0 +1,395 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A persistent cross-reference index, as built by the {@link CrossReferenceIndexBuilder}. The index file is
+ * memory-mapped, so opening it is cheap, and each query is a handful of binary searches; no class files are read.
+ * <p>
+ *   The index records one {@link Reference} for each bytecode instruction that references a class, a field or a
+ *   method. References are described by <em>keys</em>:
+ * </p>
+ * <dl>
+ *   <dt>{@code com.acme.Foo}</dt>
+ *   <dd>A class, e.g. the operand of {@code new}, {@code checkcast} or {@code ldc}</dd>
+ *   <dt>{@code com.acme.Foo.bar(I)V}</dt>
+ *   <dd>A method, e.g. the operand of {@code invokevirtual}, or the bootstrap method of {@code invokedynamic}</dd>
+ *   <dt>{@code com.acme.Foo.x:I}</dt>
+ *   <dd>A field, e.g. the operand of {@code getfield}</dd>
+ * </dl>
+ * <p>
+ *   The referencing side ({@link Reference#source}) is always a method key.
+ * </p>
+ * <h3>File format</h3>
+ * <p>
+ *   All integers are big-endian.
+ * </p>
+ * <pre>
+ * int    magic, version, symbolCount, symbolBytesLength, recordCount, unitCount
+ * int    symbolOffsets[symbolCount + 1]    // Into "symbolBytes"
+ * byte   symbolBytes[symbolBytesLength]   // UTF-8, sorted bytewise, followed by 0...3 padding bytes
+ * int    records[recordCount][4]          // target symbol, source symbol, pc, line number (-1 = unknown)
+ * int    byTarget[recordCount]            // Record indexes, sorted by target symbol
+ * int    bySource[recordCount]            // Record indexes, sorted by source symbol
+ * unit   units[unitCount]
+ *
+ * unit:
+ * long   size, lastModified
+ * int    firstRecord, recordCount
+ * short  pathLength
+ * byte   path[pathLength]                 // UTF-8
+ * </pre>
+ * <p>
+ *   The records of each <em>unit</em> (a class file or an archive) are contiguous, so that the {@link
+ *   CrossReferenceIndexBuilder} can copy them when the unit is unchanged.
+ * </p>
+ * <p>
+ *   Instances are thread-safe.
+ * </p>
+ */
+public
+class CrossReferenceIndex {
+
+    static final int MAGIC   = 0x4a445852; // "JDXR"
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * One reference from a bytecode instruction to a class, a field or a method.
+     */
+    public static final
+    class Reference {
+
+        /**
+         * The key of the referenced class, field or method.
+         */
+        public final String target;
+
+        /**
+         * The key of the method that contains the instruction.
+         */
+        public final String source;
+
+        /**
+         * The code offset of the instruction.
+         */
+        public final int pc;
+
+        /**
+         * The source line number of the instruction, or -1 if unknown.
+         */
+        public final int lineNumber;
+
+        public
+        Reference(String target, String source, int pc, int lineNumber) {
+            this.target     = target;
+            this.source     = source;
+            this.pc         = pc;
+            this.lineNumber = lineNumber;
+        }
+
+        /**
+         * E.g. "{@code com.acme.Foo.bar(I)V #12 line 34: java.io.PrintStream.println(Ljava/lang/String;)V}".
+         */
+        @Override public String
+        toString() {
+            return (
+                this.source
+                + " #"
+                + this.pc
+                + (this.lineNumber == -1 ? "" : " line " + this.lineNumber)
+                + ": "
+                + this.target
+            );
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int        symbolCount, recordCount, unitCount;
+    private final int        symbolOffsetsPosition, symbolBytesPosition;
+    private final int        recordsPosition, byTargetPosition, bySourcePosition, unitsPosition;
+
+    private
+    CrossReferenceIndex(ByteBuffer buffer, File file) throws IOException {
+
+        this.buffer = buffer;
+
+        if (buffer.limit() < CrossReferenceIndex.HEADER_SIZE || buffer.getInt(0) != CrossReferenceIndex.MAGIC) {
+            throw new IOException("'" + file + "' is not a jdisasm cross-reference index");
+        }
+        if (buffer.getInt(4) != CrossReferenceIndex.VERSION) {
+            throw new IOException("'" + file + "' has unsupported version " + buffer.getInt(4));
+        }
+        this.symbolCount = buffer.getInt(8);
+        int symbolBytesLength = buffer.getInt(12);
+        this.recordCount = buffer.getInt(16);
+        this.unitCount   = buffer.getInt(20);
+
+        this.symbolOffsetsPosition = CrossReferenceIndex.HEADER_SIZE;
+        this.symbolBytesPosition   = this.symbolOffsetsPosition + 4 * (this.symbolCount + 1);
+        this.recordsPosition       = (this.symbolBytesPosition + symbolBytesLength + 3) & ~3;
+        this.byTargetPosition      = this.recordsPosition + 16 * this.recordCount;
+        this.bySourcePosition      = this.byTargetPosition + 4 * this.recordCount;
+        this.unitsPosition         = this.bySourcePosition + 4 * this.recordCount;
+
+        if (this.unitsPosition > buffer.limit()) throw new IOException("'" + file + "' is truncated");
+    }
+
+    /**
+     * Maps the given index <var>file</var> into memory.
+     */
+    public static CrossReferenceIndex
+    open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel fc = raf.getChannel();
+            if (fc.size() > Integer.MAX_VALUE) throw new IOException("'" + file + "' is too large");
+
+            // The mapping remains valid after the channel is closed.
+            MappedByteBuffer mbb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            return new CrossReferenceIndex(mbb, file);
+        } finally {
+            try { raf.close(); } catch (IOException ex) {}
+        }
+    }
+
+    /**
+     * Reads the given index <var>file</var> into memory. Other than {@link #open(File)}, this keeps no mapping of the
+     * <var>file</var>, so that it can be replaced while the index is in use; notably, Windows refuses to rename or
+     * delete a mapped file.
+     */
+    static CrossReferenceIndex
+    load(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            if (raf.length() > Integer.MAX_VALUE) throw new IOException("'" + file + "' is too large");
+
+            byte[] ba = new byte[(int) raf.length()];
+            raf.readFully(ba);
+            return new CrossReferenceIndex(ByteBuffer.wrap(ba), file);
+        } finally {
+            try { raf.close(); } catch (IOException ex) {}
+        }
+    }
+
+    /**
+     * @return The number of distinct keys in this index
+     */
+    public int
+    getSymbolCount() { return this.symbolCount; }
+
+    /**
+     * @return The number of references in this index
+     */
+    public int
+    getReferenceCount() { return this.recordCount; }
+
+    /**
+     * Returns the references to the given <var>key</var>. The <var>key</var> may also be a class name (to find the
+     * references to the class and all its members), a package name (all classes in the package and its
+     * subpackages), or a member key without the descriptor (to find all overloads).
+     */
+    public List<Reference>
+    referencesTo(String key) { return this.find(key, this.byTargetPosition, 0); }
+
+    /**
+     * Returns the references in the method with the given <var>key</var>. The <var>key</var> may also be a class
+     * name (to find the references in all its methods), a package name, or a method name without the descriptor.
+     */
+    public List<Reference>
+    referencesFrom(String key) { return this.find(key, this.bySourcePosition, 4); }
+
+    private List<Reference>
+    find(String key, int sortedPosition, int symbolFieldOffset) {
+
+        List<Reference> result = new ArrayList<Reference>();
+
+        // The exact key, then the keys of the members ("."), the overloads ("(") and the fields (":").
+        this.find(CrossReferenceIndex.utf8(key), false, sortedPosition, symbolFieldOffset, result);
+        this.find(CrossReferenceIndex.utf8(key + '.'), true, sortedPosition, symbolFieldOffset, result);
+        this.find(CrossReferenceIndex.utf8(key + '('), true, sortedPosition, symbolFieldOffset, result);
+        this.find(CrossReferenceIndex.utf8(key + ':'), true, sortedPosition, symbolFieldOffset, result);
+
+        return result;
+    }
+
+    private void
+    find(byte[] key, boolean prefix, int sortedPosition, int symbolFieldOffset, List<Reference> result) {
+
+        // Determine the range of matching symbols.
+        int fromSymbol = this.lowerBound(key);
+        int toSymbol;
+        if (prefix) {
+            key[key.length - 1]++;
+            toSymbol = this.lowerBound(key);
+        } else {
+            toSymbol = (
+                fromSymbol < this.symbolCount && this.compareSymbol(fromSymbol, key) == 0
+                ? fromSymbol + 1
+                : fromSymbol
+            );
+        }
+        if (fromSymbol == toSymbol) return;
+
+        // Because the sorted record indexes are ordered by symbol, the matching records are contiguous, too.
+        int from = this.lowerBoundRecord(fromSymbol, sortedPosition, symbolFieldOffset);
+        int to   = this.lowerBoundRecord(toSymbol, sortedPosition, symbolFieldOffset);
+        for (int i = from; i < to; i++) {
+            int r = this.recordsPosition + 16 * this.buffer.getInt(sortedPosition + 4 * i);
+            result.add(new Reference(
+                this.getSymbol(this.buffer.getInt(r)),
+                this.getSymbol(this.buffer.getInt(r + 4)),
+                this.buffer.getInt(r + 8),
+                this.buffer.getInt(r + 12)
+            ));
+        }
+    }
+
+    /**
+     * @return The index of the first symbol that is greater than or equal to the <var>key</var>
+     */
+    private int
+    lowerBound(byte[] key) {
+        int lo = 0, hi = this.symbolCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.compareSymbol(mid, key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return The position of the first record in the sorted index at <var>sortedPosition</var> whose symbol is
+     *         greater than or equal to the <var>symbol</var>
+     */
+    private int
+    lowerBoundRecord(int symbol, int sortedPosition, int symbolFieldOffset) {
+        int lo = 0, hi = this.recordCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int r   = this.recordsPosition + 16 * this.buffer.getInt(sortedPosition + 4 * mid);
+            if (this.buffer.getInt(r + symbolFieldOffset) < symbol) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Compares the symbol with the given <var>index</var> bytewise (unsigned) with the <var>key</var>.
+     */
+    private int
+    compareSymbol(int index, byte[] key) {
+        int from = this.symbolBytesPosition + this.buffer.getInt(this.symbolOffsetsPosition + 4 * index);
+        int to   = this.symbolBytesPosition + this.buffer.getInt(this.symbolOffsetsPosition + 4 * index + 4);
+        for (int i = 0;; i++) {
+            if (from + i == to) return i == key.length ? 0 : -1;
+            if (i == key.length) return 1;
+            int diff = (this.buffer.get(from + i) & 0xff) - (key[i] & 0xff);
+            if (diff != 0) return diff;
+        }
+    }
+
+    String
+    getSymbol(int index) {
+        int    from  = this.symbolBytesPosition + this.buffer.getInt(this.symbolOffsetsPosition + 4 * index);
+        int    to    = this.symbolBytesPosition + this.buffer.getInt(this.symbolOffsetsPosition + 4 * index + 4);
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = this.buffer.get(from + i);
+        return CrossReferenceIndex.string(bytes);
+    }
+
+    // Access to the units and the raw records, for the CrossReferenceIndexBuilder.
+
+    int getUnitCount() { return this.unitCount; }
+
+    /**
+     * Invokes the <var>visitor</var> for each unit, in the order they were stored.
+     */
+    void
+    visitUnits(UnitVisitor visitor) throws IOException {
+        int p = this.unitsPosition;
+        for (int i = 0; i < this.unitCount; i++) {
+            long   size         = this.buffer.getLong(p);
+            long   lastModified = this.buffer.getLong(p + 8);
+            int    firstRecord  = this.buffer.getInt(p + 16);
+            int    recordCount  = this.buffer.getInt(p + 20);
+            byte[] path         = new byte[this.buffer.getShort(p + 24) & 0xffff];
+            p += 26;
+            for (int j = 0; j < path.length; j++) path[j] = this.buffer.get(p++);
+            visitor.visit(CrossReferenceIndex.string(path), size, lastModified, firstRecord, recordCount);
+        }
+    }
+
+    /**
+     * @see CrossReferenceIndex#visitUnits(UnitVisitor)
+     */
+    interface UnitVisitor {
+        void visit(String path, long size, long lastModified, int firstRecord, int recordCount) throws IOException;
+    }
+
+    /**
+     * @param field 0 = target symbol, 1 = source symbol, 2 = pc, 3 = line number
+     */
+    int
+    getRecord(int index, int field) { return this.buffer.getInt(this.recordsPosition + 16 * index + 4 * field); }
+
+    static byte[]
+    utf8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException uee) {
+            throw new AssertionError(uee);
+        }
+    }
+
+    static String
+    string(byte[] utf8) {
+        try {
+            return new String(utf8, "UTF-8");
+        } catch (UnsupportedEncodingException uee) {
+            throw new AssertionError(uee);
+        }
+    }
+}
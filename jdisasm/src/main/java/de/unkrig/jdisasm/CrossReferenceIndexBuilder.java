@@ -0,0 +1,610 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ConstantPool.ConstantClassInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFieldrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefOrMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInvokeDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodHandleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantPoolEntry;
+
+/**
+ * Builds or updates a {@link CrossReferenceIndex} file from class files, directories and archives.
+ * <p>
+ *   The class files are parsed and walked concurrently. On subsequent runs, the references of the <em>units</em>
+ *   (class files and archives) whose size and modification time are unchanged are copied from the previous index,
+ *   without reading the unit.
+ * </p>
+ */
+public
+class CrossReferenceIndexBuilder {
+
+    private final File indexFile;
+    private int        threadCount = Runtime.getRuntime().availableProcessors();
+
+    // Statistics of the last run.
+    private int added, changed, unchanged, removed, symbolCount, referenceCount;
+
+    /**
+     * @param indexFile Where the index is stored; if it exists and is a valid index, then it is updated incrementally
+     */
+    public
+    CrossReferenceIndexBuilder(File indexFile) { this.indexFile = indexFile; }
+
+    /**
+     * The number of class files to process concurrently; defaults to the number of available processors.
+     */
+    public void
+    setThreadCount(int threadCount) { this.threadCount = threadCount; }
+
+    /**
+     * Brings the index file up to date with the given <var>inputs</var>, which are class files, directories (searched
+     * recursively for class files and archives) and "{@code .jar}", "{@code .zip}", "{@code .war}" or "{@code .ear}"
+     * archives. Units that are not under the <var>inputs</var> are removed from the index.
+     */
+    public void
+    build(File... inputs) throws IOException {
+
+        this.added = this.changed = this.unchanged = this.removed = 0;
+
+        // Find the units.
+        List<File> units = new ArrayList<File>();
+        for (File input : inputs) {
+            if (!input.exists()) throw new FileNotFoundException("'" + input + "' does not exist");
+            ClassFileScanner.findUnits(input.getAbsoluteFile(), units);
+        }
+
+        // If the previous run was interrupted while it replaced the index file, then restore the old index.
+        File backup = CrossReferenceIndexBuilder.backupFile(this.indexFile);
+        if (!this.indexFile.exists() && backup.exists()) backup.renameTo(this.indexFile);
+
+        // Load the unit table of the previous index, if any. If it is unusable, then start from scratch. The index
+        // is read into memory rather than mapped, because a mapped file cannot be replaced on all platforms.
+        final Map<String, long[]>     oldUnits = new HashMap<String, long[]>();
+        @Nullable CrossReferenceIndex oldIndex;
+        try {
+            oldIndex = this.indexFile.exists() ? CrossReferenceIndex.load(this.indexFile) : null;
+            if (oldIndex != null) {
+                oldIndex.visitUnits(new CrossReferenceIndex.UnitVisitor() {
+
+                    @Override public void
+                    visit(String path, long size, long lastModified, int firstRecord, int recordCount) {
+                        oldUnits.put(path, new long[] { size, lastModified, firstRecord, recordCount });
+                    }
+                });
+            }
+        } catch (IOException ioe) {
+            oldIndex = null;
+            oldUnits.clear();
+        }
+
+        // Index the new and changed units concurrently.
+        ExecutorService           executorService = Executors.newFixedThreadPool(this.threadCount);
+        List<ZipFile>             zipFiles        = new ArrayList<ZipFile>();
+        List<List<Future<Refs>>>  futures         = new ArrayList<List<Future<Refs>>>();
+        try {
+            for (File unit : units) {
+                long[] oldUnit = oldUnits.remove(unit.getPath());
+                if (oldUnit != null && oldUnit[0] == unit.length() && oldUnit[1] == unit.lastModified()) {
+                    futures.add(null);
+                    oldUnits.put(unit.getPath(), oldUnit);
+                    this.unchanged++;
+                    continue;
+                }
+                if (oldUnit == null) {
+                    this.added++;
+                } else {
+                    this.changed++;
+                }
+
+                List<Future<Refs>> unitFutures = new ArrayList<Future<Refs>>();
+                futures.add(unitFutures);
+                if (ClassFileScanner.isArchive(unit)) {
+                    ZipFile zf = new ZipFile(unit);
+                    zipFiles.add(zf);
+                    for (Enumeration<? extends ZipEntry> en = zf.entries(); en.hasMoreElements();) {
+                        final ZipFile  zf2 = zf;
+                        final ZipEntry ze  = en.nextElement();
+                        if (ze.isDirectory() || !ze.getName().endsWith(".class")) continue;
+
+                        unitFutures.add(executorService.submit(new IndexTask(unit + "!" + ze.getName()) {
+                            @Override InputStream open() throws IOException { return zf2.getInputStream(ze); }
+                        }));
+                    }
+                } else {
+                    final File file = unit;
+                    unitFutures.add(executorService.submit(new IndexTask(unit.getPath()) {
+                        @Override InputStream open() throws IOException { return new FileInputStream(file); }
+                    }));
+                }
+            }
+            this.removed = oldUnits.size() - this.unchanged;
+
+            // Nothing changed? Then leave the index file alone.
+            if (oldIndex != null && this.added + this.changed + this.removed == 0) {
+                this.symbolCount    = oldIndex.getSymbolCount();
+                this.referenceCount = oldIndex.getReferenceCount();
+                return;
+            }
+
+            // Merge the references of all units, in unit order.
+            Merger merger = new Merger();
+            for (int i = 0; i < units.size(); i++) {
+                File               unit         = units.get(i);
+                List<Future<Refs>> unitFutures  = futures.get(i);
+                long               size         = unit.length();
+                long               lastModified = unit.lastModified();
+                int                firstRecord  = merger.recordCount();
+
+                if (unitFutures == null) {
+                    assert oldIndex != null;
+                    long[] oldUnit = oldUnits.get(unit.getPath());
+                    merger.copy(oldIndex, (int) oldUnit[2], (int) oldUnit[3]);
+                    size         = oldUnit[0];
+                    lastModified = oldUnit[1];
+                } else {
+                    for (Future<Refs> f : unitFutures) merger.add(CrossReferenceIndexBuilder.get(f));
+                }
+                merger.unit(unit.getPath(), size, lastModified, firstRecord, merger.recordCount() - firstRecord);
+            }
+
+            // All records of the unchanged units are copied; release the old index, which may be large.
+            oldIndex = null;
+
+            // Write the new index to a temporary file, then replace the old index.
+            File tmp = new File(this.indexFile.getPath() + ".tmp");
+            merger.write(tmp);
+            CrossReferenceIndexBuilder.replace(tmp, this.indexFile);
+
+            this.symbolCount    = merger.symbols.size();
+            this.referenceCount = merger.recordCount();
+        } finally {
+            executorService.shutdownNow();
+            for (ZipFile zf : zipFiles) {
+                try { zf.close(); } catch (IOException ex) {}
+            }
+        }
+    }
+
+    /**
+     * @return A one-line summary of the last {@link #build(File...)} run
+     */
+    @Override public String
+    toString() {
+        return (
+            this.added
+            + " added, "
+            + this.changed
+            + " changed, "
+            + this.removed
+            + " removed, "
+            + this.unchanged
+            + " unchanged; "
+            + this.symbolCount
+            + " keys, "
+            + this.referenceCount
+            + " references"
+        );
+    }
+
+    /**
+     * Replaces the <var>target</var> file with the <var>source</var> file. Where {@link File#renameTo(File)} cannot
+     * replace an existing file (notably on Windows), the <var>target</var> is first moved to its {@link
+     * #backupFile(File) backup file}, so that, even if the process dies in between, one of the two files is complete;
+     * the next reader (e.g. {@link #build(File...)}) then restores it.
+     */
+    static void
+    replace(File source, File target) throws IOException {
+
+        // On POSIX systems, this replaces the target atomically.
+        if (source.renameTo(target)) return;
+
+        File backup = CrossReferenceIndexBuilder.backupFile(target);
+        backup.delete();
+        if (target.exists() && !target.renameTo(backup)) {
+            throw new IOException("Could not rename '" + target + "' to '" + backup + "'");
+        }
+        if (!source.renameTo(target)) {
+            backup.renameTo(target);
+            throw new IOException("Could not rename '" + source + "' to '" + target + "'");
+        }
+        backup.delete();
+    }
+
+    static File
+    backupFile(File file) { return new File(file.getPath() + ".bak"); }
+
+    private static Refs
+    get(Future<Refs> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            throw new IOException(ie.getMessage()); // SUPPRESS CHECKSTYLE AvoidHidingCause
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException)    throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error)          throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Reads one class file and collects its references. The class file is opened only when the task executes, so
+     * that not more files are open than there are threads.
+     */
+    private abstract static
+    class IndexTask implements Callable<Refs> {
+
+        private final String location;
+
+        IndexTask(String location) { this.location = location; }
+
+        abstract InputStream
+        open() throws IOException;
+
+        @Override public Refs
+        call() throws IOException {
+            try {
+                InputStream is = this.open();
+                try {
+                    Refs refs = new Refs();
+                    new ClassFileWalker(refs).walk(new ClassFile(new DataInputStream(new BufferedInputStream(is))));
+                    return refs;
+                } finally {
+                    try { is.close(); } catch (IOException ex) {}
+                }
+            } catch (IOException ioe) {
+                IOException ioe2 = new IOException("Indexing '" + this.location + "': " + ioe.getMessage());
+                ioe2.initCause(ioe);
+                throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
+            } catch (RuntimeException re) {
+                throw new RuntimeException("Indexing '" + this.location + "': " + re.getMessage(), re);
+            }
+        }
+    }
+
+    /**
+     * Collects the references of one class file, with symbol IDs that are local to the class file.
+     */
+    private static
+    class Refs extends AbstractDisassemblySink {
+
+        final List<String>         symbols   = new ArrayList<String>();
+        final IntList              records   = new IntList();
+        final Map<String, Integer> symbolIds = new HashMap<String, Integer>();
+
+        @Nullable private ClassFile cf;
+        private String              sourceKey = "";
+        private int                 source, lineNumber;
+
+        @Override public void
+        beginClass(ClassFile cf) { this.cf = cf; }
+
+        @Override public void
+        beginMethod(Method method) {
+            ClassFile cf = this.cf;
+            assert cf != null;
+
+            // Methods without references must not add a symbol.
+            this.sourceKey = cf.thisClass.name + '.' + method.name + method.descriptor;
+            this.source    = -1;
+        }
+
+        @Override public boolean
+        beginCode(Method method, ClassFile.CodeAttribute codeAttribute) {
+            this.lineNumber = -1;
+            return true;
+        }
+
+        @Override public void
+        lineNumber(int lineNumber, int pc) { this.lineNumber = lineNumber; }
+
+        @Override public void
+        instruction(Instruction instruction) {
+
+            if (instruction.operandCount == 0) return;
+
+            switch (instruction.operandKinds[0]) {
+
+            case FIELDREF2:
+            case METHODREF2:
+            case INTERFACEMETHODREF2:
+            case INTERFACEMETHODREFORMETHODREF2:
+            case DYNAMICCALLSITE:
+            case CLASS2:
+            case CLASSFLOATINTSTRINGMETHODHANDLEMETHODTYPEDYNAMIC:
+            case CLASSFLOATINTSTRINGMETHODHANDLEMETHODTYPEDYNAMIC_W:
+                ClassFile cf = this.cf;
+                assert cf != null;
+
+                String target = CrossReferenceIndexBuilder.key(cf.constantPool.entries[instruction.operands[0]], cf);
+                if (target == null) return;
+
+                if (this.source == -1) this.source = this.symbolId(this.sourceKey);
+
+                this.records.add(this.symbolId(target));
+                this.records.add(this.source);
+                this.records.add(instruction.pc);
+                this.records.add(this.lineNumber);
+                break;
+
+            default:
+                ;
+            }
+        }
+
+        private int
+        symbolId(String symbol) {
+            Integer id = this.symbolIds.get(symbol);
+            if (id == null) {
+                this.symbolIds.put(symbol, (id = this.symbols.size()));
+                this.symbols.add(symbol);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @return The {@link CrossReferenceIndex key} of the class, field or method that the <var>entry</var> designates,
+     *         or {@code null}
+     */
+    @Nullable static String
+    key(@Nullable ConstantPoolEntry entry, ClassFile cf) {
+
+        if (entry instanceof ConstantInvokeDynamicInfo) {
+            entry = BytecodeSearcher.bootstrapMethod((ConstantInvokeDynamicInfo) entry, cf);
+        } else
+        if (entry instanceof ConstantMethodHandleInfo) {
+            entry = ((ConstantMethodHandleInfo) entry).reference;
+        }
+
+        if (entry instanceof ConstantClassInfo) {
+            return CrossReferenceIndexBuilder.elementClassName(((ConstantClassInfo) entry).name);
+        }
+
+        if (entry instanceof ConstantFieldrefInfo) {
+            ConstantFieldrefInfo cfi = (ConstantFieldrefInfo) entry;
+            return (
+                CrossReferenceIndexBuilder.ownerName(cfi.clasS.name)
+                + '.'
+                + cfi.nameAndType.name.bytes
+                + ':'
+                + cfi.nameAndType.descriptor.bytes
+            );
+        }
+
+        if (entry instanceof ConstantInterfaceMethodrefOrMethodrefInfo) {
+            ConstantInterfaceMethodrefOrMethodrefInfo cimi = (ConstantInterfaceMethodrefOrMethodrefInfo) entry;
+            return (
+                CrossReferenceIndexBuilder.ownerName(cimi.clasS.name)
+                + '.'
+                + cimi.nameAndType.name.bytes
+                + cimi.nameAndType.descriptor.bytes
+            );
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The <var>className</var>, or, for an array class, the name of its element class, or {@code null} for an
+     *         array of primitives
+     */
+    @Nullable private static String
+    elementClassName(String className) {
+        if (className.charAt(0) != '[') return className;
+
+        int i = 0;
+        while (className.charAt(i) == '[') i++;
+        return className.charAt(i) == 'L' ? className.substring(i + 1, className.length() - 1) : null;
+    }
+
+    private static String
+    ownerName(String className) {
+        String result = CrossReferenceIndexBuilder.elementClassName(className);
+        return result != null ? result : className;
+    }
+
+    /**
+     * Merges the references of many class files into one global symbol table, and writes the index file.
+     */
+    private static
+    class Merger {
+
+        final List<String>         symbols   = new ArrayList<String>();
+        final Map<String, Integer> symbolIds = new HashMap<String, Integer>();
+        final IntList              records   = new IntList();
+
+        private final List<Object[]> units = new ArrayList<Object[]>();
+        @Nullable private int[]      oldSymbolIds;
+
+        int recordCount() { return this.records.size() / 4; }
+
+        void
+        add(Refs refs) {
+
+            int[] ids = new int[refs.symbols.size()];
+            for (int i = 0; i < ids.length; i++) ids[i] = this.symbolId(refs.symbols.get(i));
+
+            int[] r = refs.records.array();
+            for (int i = 0, n = refs.records.size(); i < n; i += 4) {
+                this.records.add(ids[r[i]]);
+                this.records.add(ids[r[i + 1]]);
+                this.records.add(r[i + 2]);
+                this.records.add(r[i + 3]);
+            }
+        }
+
+        /**
+         * Copies records from the <var>oldIndex</var>.
+         */
+        void
+        copy(CrossReferenceIndex oldIndex, int firstRecord, int recordCount) {
+
+            // Old symbol ID => new symbol ID + 1.
+            int[] ids = this.oldSymbolIds;
+            if (ids == null) this.oldSymbolIds = (ids = new int[oldIndex.getSymbolCount()]);
+
+            for (int i = firstRecord; i < firstRecord + recordCount; i++) {
+                for (int field = 0; field < 2; field++) {
+                    int oldId = oldIndex.getRecord(i, field);
+                    int id    = ids[oldId] - 1;
+                    if (id == -1) ids[oldId] = 1 + (id = this.symbolId(oldIndex.getSymbol(oldId)));
+                    this.records.add(id);
+                }
+                this.records.add(oldIndex.getRecord(i, 2));
+                this.records.add(oldIndex.getRecord(i, 3));
+            }
+        }
+
+        void
+        unit(String path, long size, long lastModified, int firstRecord, int recordCount) {
+            this.units.add(new Object[] { path, size, lastModified, firstRecord, recordCount });
+        }
+
+        void
+        write(File file) throws IOException {
+
+            // Sort the symbols bytewise, and renumber them.
+            final byte[][] symbolBytes = new byte[this.symbols.size()][];
+            Integer[]      order       = new Integer[symbolBytes.length];
+            for (int i = 0; i < symbolBytes.length; i++) {
+                symbolBytes[i] = CrossReferenceIndex.utf8(this.symbols.get(i));
+                order[i]       = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+
+                @Override public int
+                compare(Integer a, Integer b) { return Merger.compare(symbolBytes[a], symbolBytes[b]); }
+            });
+            int[] newIds = new int[order.length];
+            for (int i = 0; i < order.length; i++) newIds[order[i]] = i;
+
+            int[] records     = this.records.array();
+            int   recordCount = this.recordCount();
+            for (int i = 0; i < recordCount; i++) {
+                records[4 * i]     = newIds[records[4 * i]];
+                records[4 * i + 1] = newIds[records[4 * i + 1]];
+            }
+
+            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            boolean          ok  = false;
+            try {
+                int symbolBytesLength = 0;
+                for (byte[] b : symbolBytes) symbolBytesLength += b.length;
+
+                dos.writeInt(CrossReferenceIndex.MAGIC);
+                dos.writeInt(CrossReferenceIndex.VERSION);
+                dos.writeInt(symbolBytes.length);
+                dos.writeInt(symbolBytesLength);
+                dos.writeInt(recordCount);
+                dos.writeInt(this.units.size());
+
+                int offset = 0;
+                dos.writeInt(0);
+                for (Integer i : order) dos.writeInt((offset += symbolBytes[i].length));
+                for (Integer i : order) dos.write(symbolBytes[i]);
+                for (; (symbolBytesLength & 3) != 0; symbolBytesLength++) dos.write(0);
+
+                for (int i = 0; i < 4 * recordCount; i++) dos.writeInt(records[i]);
+
+                // For both sort orders, sort "symbol << 32 | record index".
+                for (int field = 0; field < 2; field++) {
+                    long[] keys = new long[recordCount];
+                    for (int i = 0; i < recordCount; i++) keys[i] = ((long) records[4 * i + field] << 32) | i;
+                    Arrays.sort(keys);
+                    for (long key : keys) dos.writeInt((int) key);
+                }
+
+                for (Object[] unit : this.units) {
+                    byte[] path = CrossReferenceIndex.utf8((String) unit[0]);
+                    dos.writeLong((Long) unit[1]);
+                    dos.writeLong((Long) unit[2]);
+                    dos.writeInt((Integer) unit[3]);
+                    dos.writeInt((Integer) unit[4]);
+                    dos.writeShort(path.length);
+                    dos.write(path);
+                }
+                dos.close();
+                ok = true;
+            } finally {
+                if (!ok) {
+                    try { dos.close(); } catch (IOException ex) {}
+                    file.delete();
+                }
+            }
+        }
+
+        private int
+        symbolId(String symbol) {
+            Integer id = this.symbolIds.get(symbol);
+            if (id == null) {
+                this.symbolIds.put(symbol, (id = this.symbols.size()));
+                this.symbols.add(symbol);
+            }
+            return id;
+        }
+
+        private static int
+        compare(byte[] a, byte[] b) {
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                int diff = (a[i] & 0xff) - (b[i] & 0xff);
+                if (diff != 0) return diff;
+            }
+            return a.length - b.length;
+        }
+    }
+}
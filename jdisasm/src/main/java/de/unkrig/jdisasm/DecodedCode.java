@@ -0,0 +1,113 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+
+/**
+ * The instructions of a method's code, decoded into {@code int} arrays: the offsets, the opcodes and the operand
+ * values of all instructions, as the {@link Instruction} events of the {@link ClassFileWalker} describe them. The
+ * arrays are reused by subsequent {@link #decode(byte[])}s.
+ */
+final
+class DecodedCode {
+
+    private final ClassFileWalker walker = new ClassFileWalker(new AbstractDisassemblySink() {
+
+        @Override public void
+        instruction(Instruction instruction) {
+            DecodedCode.this.pcs.add(instruction.pc);
+            DecodedCode.this.opcodes.add(instruction.opcode);
+            DecodedCode.this.operandStarts.add(DecodedCode.this.operands.size());
+            for (int i = 0; i < instruction.operandCount; i++) DecodedCode.this.operands.add(instruction.operands[i]);
+        }
+    });
+
+    private final IntList pcs           = new IntList();
+    private final IntList opcodes       = new IntList();
+    private final IntList operandStarts = new IntList();
+    private final IntList operands      = new IntList();
+    private int[]         insnAt        = new int[1]; // Code offset => instruction index, or -1
+    private int           codeLength;
+
+    /**
+     * Decodes the given bytecode, replacing the previously decoded instructions.
+     */
+    void
+    decode(byte[] code) throws IOException {
+        this.pcs.clear();
+        this.opcodes.clear();
+        this.operandStarts.clear();
+        this.operands.clear();
+        this.walker.walkCode(code, Collections.<ExceptionTableEntry>emptyList(), null);
+        this.operandStarts.add(this.operands.size());
+
+        int n = this.pcs.size();
+        this.codeLength = code.length;
+        if (this.insnAt.length < code.length + 1) this.insnAt = new int[code.length + 1];
+        Arrays.fill(this.insnAt, 0, code.length + 1, -1);
+        int[] pcs = this.pcs.array();
+        for (int i = 0; i < n; i++) this.insnAt[pcs[i]] = i;
+        this.insnAt[code.length] = n;
+    }
+
+    /**
+     * @return The number of decoded instructions
+     */
+    int size() { return this.pcs.size(); }
+
+    /**
+     * @return The code offsets of the instructions
+     */
+    int[] pcs() { return this.pcs.array(); }
+
+    /**
+     * @return The opcodes of the instructions; for "wide" instructions {@code 0xc400} plus the modified opcode
+     */
+    int[] opcodes() { return this.opcodes.array(); }
+
+    /**
+     * @return Where the operands of each instruction start in the {@link #operands()}; has {@link #size()}{@code +
+     *         1} valid elements
+     */
+    int[] operandStarts() { return this.operandStarts.array(); }
+
+    /**
+     * @return The operands of all instructions; branch targets are absolute code offsets
+     */
+    int[] operands() { return this.operands.array(); }
+
+    /**
+     * @return The index of the instruction at the given code offset, {@link #size()} for the end of the code, or -1
+     */
+    int
+    instructionAt(int pc) { return pc >= 0 && pc <= this.codeLength ? this.insnAt[pc] : -1; }
+}
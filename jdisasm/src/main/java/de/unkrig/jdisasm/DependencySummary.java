@@ -0,0 +1,530 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * The types that the classes of a whole classpath depend upon, similar to what the JDK's "jdeps" tool reports, stored
+ * in primitive arrays like the {@link ClassHierarchy}.
+ * <p>
+ *   The dependencies are determined from the constant pool only, without decoding any bytecode: The classes named by
+ *   {@code CONSTANT_Class_info} entries, and the classes that occur in the descriptors of {@code
+ *   CONSTANT_NameAndType_info} and {@code CONSTANT_MethodType_info} entries, of the fields and methods, and in the
+ *   {@code Signature} attributes of the class, its fields and its methods. Classes that are only referenced from
+ *   annotations or from local variable type tables are not detected.
+ * </p>
+ * <p>
+ *   The dependencies can be {@link #printEdges(Granularity, PrintWriter) printed} per class, per package, or per
+ *   archive.
+ * </p>
+ * <p>
+ *   Instances are immutable and thus thread-safe.
+ * </p>
+ */
+public final
+class DependencySummary {
+
+    /**
+     * The nodes of the dependency edges.
+     */
+    public
+    enum Granularity {
+
+        /**
+         * The edges lead from each class to the classes it references.
+         */
+        CLASS,
+
+        /**
+         * The edges lead from each package to the packages of the classes its classes reference.
+         */
+        PACKAGE,
+
+        /**
+         * The edges lead from each archive (or directory) to the archives that define the classes its classes
+         * reference; classes that are not defined under the inputs are attributed to "{@code not found}".
+         */
+        ARCHIVE,
+    }
+
+    private final String[] names;
+    private final String[] archives;
+    private final int[]    archive; // Per class: The index into "archives", or -1 iff the class is not defined
+
+    // Adjacency list of the dependencies.
+    private final int[] dependencyStarts, dependencies;
+
+    private
+    DependencySummary(String[] names, String[] archives, int[] archive, int[] dependencyStarts, int[] dependencies) {
+        this.names            = names;
+        this.archives         = archives;
+        this.archive          = archive;
+        this.dependencyStarts = dependencyStarts;
+        this.dependencies     = dependencies;
+    }
+
+    /**
+     * Reads the constant pools of all class files under the given <var>inputs</var> (class files, directories and
+     * archives) with the given number of threads. If a class is defined more than once, then the first definition
+     * counts.
+     */
+    public static DependencySummary
+    build(int threadCount, File... inputs) throws IOException {
+        return DependencySummary.build(threadCount, null, inputs);
+    }
+
+    /**
+     * Like {@link #build(int, File...)}, but, iff <var>errorSummary</var> is not {@code null}, class files that cannot
+     * be read are recorded there and skipped.
+     */
+    public static DependencySummary
+    build(int threadCount, @Nullable ErrorSummary errorSummary, File... inputs) throws IOException {
+
+        final Map<String, Integer> ids        = new HashMap<String, Integer>();
+        final List<String>         names      = new ArrayList<String>();
+        final Map<String, Integer> archiveIds = new HashMap<String, Integer>();
+        final List<String>         archives   = new ArrayList<String>();
+        final IntList              classes    = new IntList(); // this, archive, dependency count, dependencies
+
+        for (final File input : inputs) {
+            ClassFileScanner<String[]> scanner = new ClassFileScanner<String[]>(threadCount) {
+
+                @Override protected String[]
+                process(byte[] classFile, String location) throws IOException {
+                    return DependencySummary.parseDependencies(classFile);
+                }
+
+                @Override protected void
+                consume(String[] result, String location) {
+
+                    // For archive entries, the "location" is "archive!entry".
+                    int     idx       = location.lastIndexOf('!');
+                    String  archive   = idx == -1 ? input.getPath() : location.substring(0, idx);
+                    Integer archiveId = archiveIds.get(archive);
+                    if (archiveId == null) {
+                        archiveIds.put(archive, (archiveId = archives.size()));
+                        archives.add(archive);
+                    }
+
+                    classes.add(this.id(result[0]));
+                    classes.add(archiveId);
+                    classes.add(result.length - 1);
+                    for (int i = 1; i < result.length; i++) classes.add(this.id(result[i]));
+                }
+
+                private int
+                id(String name) {
+                    Integer result = ids.get(name);
+                    if (result == null) {
+                        ids.put(name, (result = names.size()));
+                        names.add(name);
+                    }
+                    return result;
+                }
+            };
+            scanner.setErrorSummary(errorSummary);
+            scanner.scan(input);
+        }
+
+        // Number the classes alphabetically.
+        int      n           = names.size();
+        String[] sortedNames = names.toArray(new String[n]);
+        Arrays.sort(sortedNames);
+        int[] newIds = new int[n];
+        for (int i = 0; i < n; i++) newIds[ids.get(sortedNames[i])] = i;
+
+        int[] archive = new int[n];
+        Arrays.fill(archive, -1);
+
+        // First pass: Count the dependencies of each class.
+        int[]  c                = classes.array();
+        int    cn               = classes.size();
+        int[]  dependencyStarts = new int[n + 1];
+        BitSet defined          = new BitSet(n);
+        for (int p = 0; p < cn; p += 3 + c[p + 2]) {
+            int id = newIds[c[p]];
+            if (defined.get(id)) continue;
+            defined.set(id);
+            archive[id]              = c[p + 1];
+            dependencyStarts[id + 1] = c[p + 2];
+        }
+        for (int i = 0; i < n; i++) dependencyStarts[i + 1] += dependencyStarts[i];
+
+        // Second pass: Fill in the (sorted) dependencies.
+        int[] dependencies = new int[dependencyStarts[n]];
+        defined.clear();
+        for (int p = 0; p < cn; p += 3 + c[p + 2]) {
+            int id = newIds[c[p]];
+            if (defined.get(id)) continue;
+            defined.set(id);
+            int start = dependencyStarts[id];
+            for (int i = 0; i < c[p + 2]; i++) dependencies[start + i] = newIds[c[p + 3 + i]];
+            Arrays.sort(dependencies, start, dependencyStarts[id + 1]);
+        }
+
+        return new DependencySummary(
+            sortedNames,
+            archives.toArray(new String[archives.size()]),
+            archive,
+            dependencyStarts,
+            dependencies
+        );
+    }
+
+    /**
+     * @return The number of classes, i.e. the upper bound of the class IDs
+     */
+    public int
+    size() { return this.names.length; }
+
+    /**
+     * @return The ID of the class with the given fully qualified (dot-separated) <var>name</var>, or -1
+     */
+    public int
+    getId(String name) {
+        int result = Arrays.binarySearch(this.names, name);
+        return result >= 0 ? result : -1;
+    }
+
+    /**
+     * @return The fully qualified (dot-separated) name of the class with the given <var>id</var>
+     */
+    public String
+    getName(int id) { return this.names[id]; }
+
+    /**
+     * @return Whether the class is defined under the inputs, or only referenced
+     */
+    public boolean
+    isDefined(int id) { return this.archive[id] != -1; }
+
+    /**
+     * @return The archive or directory that defines the class, or {@code null} iff the class is not {@link
+     *         #isDefined(int) defined}
+     */
+    @Nullable public String
+    getArchive(int id) { return this.archive[id] == -1 ? null : this.archives[this.archive[id]]; }
+
+    /**
+     * @return The IDs of the classes that the class references (excluding itself), in ascending order
+     */
+    public int[]
+    getDependencies(int id) {
+        return Arrays.copyOfRange(this.dependencies, this.dependencyStarts[id], this.dependencyStarts[id + 1]);
+    }
+
+    /**
+     * Prints one line "<var>from</var> {@code ->} <var>to</var>" per dependency, in alphabetical order. For the
+     * {@link Granularity#PACKAGE PACKAGE} and {@link Granularity#ARCHIVE ARCHIVE} granularities, the number of
+     * class dependencies that make up each edge is appended in parentheses, and edges from a package or archive to
+     * itself are omitted.
+     */
+    public void
+    printEdges(Granularity granularity, PrintWriter pw) {
+
+        if (granularity == Granularity.CLASS) {
+            for (int id = 0; id < this.names.length; id++) {
+                for (int i = this.dependencyStarts[id]; i < this.dependencyStarts[id + 1]; i++) {
+                    pw.println(this.names[id] + " -> " + this.names[this.dependencies[i]]);
+                }
+            }
+            return;
+        }
+
+        // Aggregate the class dependencies.
+        Map<String, Map<String, int[]>> edges = new TreeMap<String, Map<String, int[]>>();
+        for (int id = 0; id < this.names.length; id++) {
+            if (this.dependencyStarts[id] == this.dependencyStarts[id + 1]) continue;
+
+            String from = this.node(granularity, id);
+
+            Map<String, int[]> tos = edges.get(from);
+            if (tos == null) edges.put(from, (tos = new TreeMap<String, int[]>()));
+
+            for (int i = this.dependencyStarts[id]; i < this.dependencyStarts[id + 1]; i++) {
+                String to = this.node(granularity, this.dependencies[i]);
+                if (to.equals(from)) continue;
+
+                int[] count = tos.get(to);
+                if (count == null) tos.put(to, (count = new int[1]));
+                count[0]++;
+            }
+        }
+
+        for (Entry<String, Map<String, int[]>> e : edges.entrySet()) {
+            for (Entry<String, int[]> e2 : e.getValue().entrySet()) {
+                pw.println(e.getKey() + " -> " + e2.getKey() + " (" + e2.getValue()[0] + ")");
+            }
+        }
+    }
+
+    private String
+    node(Granularity granularity, int id) {
+
+        if (granularity == Granularity.PACKAGE) {
+            String name = this.names[id];
+            int    idx  = name.lastIndexOf('.');
+            return idx == -1 ? "<unnamed>" : name.substring(0, idx);
+        }
+
+        String archive = this.getArchive(id);
+        return archive == null ? "not found" : archive;
+    }
+
+    @Override public String
+    toString() {
+        int defined = 0;
+        for (int a : this.archive) {
+            if (a != -1) defined++;
+        }
+        return (
+            defined
+            + " classes, "
+            + this.dependencies.length
+            + " dependencies on "
+            + this.names.length
+            + " classes"
+        );
+    }
+
+    /**
+     * Parses the constant pool of the given class file, and the descriptors and signatures of its fields and methods,
+     * and skips everything else.
+     *
+     * @return The fully qualified (dot-separated) name of the class, followed by the names of the classes it
+     *         depends upon
+     */
+    static String[]
+    parseDependencies(byte[] classFile) throws IOException {
+
+        int[]     offsets     = RawClassFile.constantPoolOffsets(classFile);
+        int       count       = offsets.length;
+        boolean[] descriptors = new boolean[count]; // The UTF8 entries that are descriptors or signatures
+
+        Set<String> result         = new HashSet<String>();
+        int         signatureIndex = -1;
+        for (int i = 1; i < count; i++) {
+            int offset = offsets[i];
+            if (offset == 0) continue;
+
+            switch (classFile[offset]) {
+
+            case 1:  // CONSTANT_Utf8_info
+                if (
+                    RawClassFile.u2(classFile, offset + 1) == 9
+                    && "Signature".equals(RawClassFile.utf8(classFile, offsets, i))
+                ) signatureIndex = i;
+                break;
+
+            case 7:  // CONSTANT_Class_info
+                {
+                    String name = RawClassFile.utf8(classFile, offsets, RawClassFile.u2(classFile, offset + 1));
+                    if (name.startsWith("[")) {
+                        DependencySummary.parseSignature(name, result);
+                    } else {
+                        result.add(name);
+                    }
+                }
+                break;
+
+            case 12: // CONSTANT_NameAndType_info
+                descriptors[DependencySummary.index(classFile, offset + 3, count)] = true;
+                break;
+
+            case 16: // CONSTANT_MethodType_info
+                descriptors[DependencySummary.index(classFile, offset + 1, count)] = true;
+                break;
+            }
+        }
+
+        // Skip "access_flags", "this_class", "super_class" and "interfaces".
+        int p = offsets[0];
+        try {
+            int thisClass = RawClassFile.u2(classFile, p + 2);
+            p += 8 + 2 * RawClassFile.u2(classFile, p + 6);
+
+            // Mark the descriptors of the fields and methods, and the signatures.
+            for (int i = 0; i < 2; i++) {
+                int n = RawClassFile.u2(classFile, p);
+                for (p += 2; n > 0; n--) {
+                    descriptors[DependencySummary.index(classFile, p + 4, count)] = true;
+                    p = DependencySummary.markSignature(classFile, p + 6, signatureIndex, descriptors);
+                }
+            }
+            DependencySummary.markSignature(classFile, p, signatureIndex, descriptors);
+
+            for (int i = 1; i < count; i++) {
+                if (!descriptors[i]) continue;
+                DependencySummary.parseSignature(RawClassFile.utf8(classFile, offsets, i), result);
+            }
+
+            String name = RawClassFile.className(classFile, offsets, thisClass);
+            result.remove(name.replace('.', '/'));
+
+            String[] names = new String[1 + result.size()];
+            names[0] = name;
+            int k = 1;
+            for (String n : result) names[k++] = n.replace('/', '.');
+            return names;
+        } catch (ArrayIndexOutOfBoundsException aioobe) {
+            throw new ClassFileFormatException("Class file truncated", aioobe);
+        } catch (StringIndexOutOfBoundsException sioobe) {
+            throw new ClassFileFormatException("Invalid descriptor or signature", sioobe);
+        }
+    }
+
+    /**
+     * Marks the "Signature" attribute in the <var>descriptors</var>, and skips all attributes.
+     *
+     * @param p The offset of the "attributes_count"
+     * @return  The offset of the first byte after the attributes
+     */
+    private static int
+    markSignature(byte[] classFile, int p, int signatureIndex, boolean[] descriptors)
+    throws ClassFileFormatException {
+        int n = RawClassFile.u2(classFile, p);
+        for (p += 2; n > 0; n--) {
+            if (RawClassFile.u2(classFile, p) == signatureIndex) {
+                descriptors[DependencySummary.index(classFile, p + 6, descriptors.length)] = true;
+            }
+            p += 6 + ((RawClassFile.u2(classFile, p + 2) << 16) | RawClassFile.u2(classFile, p + 4));
+        }
+        return p;
+    }
+
+    private static int
+    index(byte[] classFile, int p, int count) throws ClassFileFormatException {
+        int result = RawClassFile.u2(classFile, p);
+        if (result == 0 || result >= count) throw new ClassFileFormatException("Invalid CP index " + result);
+        return result;
+    }
+
+    /**
+     * Adds the internal names of the classes that occur in the given descriptor or signature (of a class, a field or a
+     * method) to the <var>result</var>.
+     */
+    static void
+    parseSignature(String s, Set<String> result) {
+
+        int i = 0;
+
+        // Formal type parameters, e.g. "<K:Ljava/lang/Object;V::Ljava/lang/Comparable<TV;>;>".
+        if (s.startsWith("<")) {
+            for (i = 1; s.charAt(i) != '>';) {
+                i = s.indexOf(':', i);
+                while (s.charAt(i) == ':') {
+                    char c = s.charAt(++i);
+                    if (c == 'L' || c == 'T' || c == '[') i = DependencySummary.parseType(s, i, result);
+                }
+            }
+            i++;
+        }
+
+        // Superclass and interfaces, or parameter types, return type and exceptions, or field type.
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == '(' || c == ')' || c == '^') {
+                i++;
+            } else {
+                i = DependencySummary.parseType(s, i, result);
+            }
+        }
+    }
+
+    /**
+     * Parses one type (signature) at offset <var>i</var>.
+     *
+     * @return The offset after the type
+     */
+    private static int
+    parseType(String s, int i, Set<String> result) {
+
+        switch (s.charAt(i)) {
+
+        case 'L':
+            break;
+
+        case 'T': // Type variable
+            return s.indexOf(';', i) + 1;
+
+        case '[':
+            return DependencySummary.parseType(s, i + 1, result);
+
+        default:  // Primitive type or "V"
+            return i + 1;
+        }
+
+        // A class type, e.g. "Ljava/util/Map$Entry;", "Ljava/util/List<TT;>;" or "Lpkg/Outer<TT;>.Inner;".
+        StringBuilder name  = new StringBuilder();
+        int           start = ++i;
+        for (;;) {
+            char c = s.charAt(i);
+            if (c == '<') {
+                name.append(s, start, i);
+                for (i++; s.charAt(i) != '>';) {
+                    c = s.charAt(i);
+                    if (c == '*') {
+                        i++;
+                    } else {
+                        i = DependencySummary.parseType(s, c == '+' || c == '-' ? i + 1 : i, result);
+                    }
+                }
+                start = -1;
+                i++;
+            } else
+            if (c == '.') {
+                if (start != -1) name.append(s, start, i);
+                result.add(name.toString());
+                name.append('$');
+                start = ++i;
+            } else
+            if (c == ';') {
+                if (start != -1) name.append(s, start, i);
+                result.add(name.toString());
+                return i + 1;
+            } else
+            {
+                i++;
+            }
+        }
+    }
+}
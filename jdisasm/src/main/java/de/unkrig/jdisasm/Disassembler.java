@@ -38,6 +38,7 @@ import static de.unkrig.jdisasm.ClassFile.AccessFlags.FlagType.SYNCHRONIZED;
 import static de.unkrig.jdisasm.ClassFile.AccessFlags.FlagType.SYNTHETIC;
 import static de.unkrig.jdisasm.ClassFile.AccessFlags.FlagType.VARARGS;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.File;
@@ -50,11 +51,14 @@ import java.io.InputStream;
 import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -77,6 +81,7 @@ import de.unkrig.jdisasm.ClassFile.CodeAttribute;
 import de.unkrig.jdisasm.ClassFile.ConstantValueAttribute;
 import de.unkrig.jdisasm.ClassFile.DeprecatedAttribute;
 import de.unkrig.jdisasm.ClassFile.EnclosingMethodAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
 import de.unkrig.jdisasm.ClassFile.ExceptionsAttribute;
 import de.unkrig.jdisasm.ClassFile.Field;
 import de.unkrig.jdisasm.ClassFile.InnerClassesAttribute;
@@ -102,6 +107,7 @@ import de.unkrig.jdisasm.ClassFile.UnknownAttribute;
 import de.unkrig.jdisasm.ConstantPool.ConstantClassInfo;
 import de.unkrig.jdisasm.ConstantPool.ConstantNameAndTypeInfo;
 import de.unkrig.jdisasm.ConstantPool.ConstantPoolEntry;
+import de.unkrig.jdisasm.DependencySummary.Granularity;
 import de.unkrig.jdisasm.SignatureParser.ArrayTypeSignature;
 import de.unkrig.jdisasm.SignatureParser.ClassSignature;
 import de.unkrig.jdisasm.SignatureParser.ClassTypeSignature;
@@ -122,6 +128,11 @@ import de.unkrig.jdisasm.SignatureParser.TypeSignature;
  *   The disassembly is optimized to produce minimal DIFFs for changed class files: E.g. code offsets and local
  *   variable indexes are only printed if really necessary.
  * </p>
+ * <p>
+ *   The {@code disasm(..., Writer)} methods are thread-safe: Each invocation renders with its own output and its own
+ *   snapshot of the {@link Configuration}, so one configured {@link Disassembler} can serve many concurrent requests.
+ *   All other methods use the instance's shared output, and must not be invoked concurrently.
+ * </p>
  */
 public
 class Disassembler {
@@ -133,12 +144,50 @@ class Disassembler {
     private static final List<FormalTypeParameter> NO_FORMAL_TYPE_PARAMETERS = Collections.<FormalTypeParameter>emptyList();
     private static final List<ParameterAnnotation> NO_PARAMETER_ANNOTATIONS  = Collections.<ParameterAnnotation>emptyList();
 
+    /**
+     * The command line options that make the disassembler write files, and are thus rejected in server mode.
+     */
+    private static final List<String> FILE_WRITING_OPTIONS = Arrays.asList("-o", "-incremental", "-xref");
+
     // Configuration variables.
 
+    /**
+     * Where to print the output; the same as {@link #pw}, but without the metrics instrumentation. STDOUT, unless
+     * configured otherwise.
+     */
+    private Writer out;
+
+    /**
+     * The {@link OutputStream} underlying {@link #out}, or {@code null} iff the output was configured as a {@link
+     * Writer}; required for the {@link Format#BINARY} format.
+     */
+    @Nullable private OutputStream outputStream;
+
+    /**
+     * Writes to the {@link #outputStream}; created lazily.
+     */
+    @Nullable private BinaryDisassembler binaryDisassembler;
+
     /**
      * Where to print the output.
      */
-    private PrintWriter pw = new PrintWriter(System.out, true);
+    private PrintWriter pw;
+
+    /**
+     * Receives timings and counts while class files are parsed and disassembled.
+     */
+    Metrics metrics = Metrics.NOP;
+
+    /**
+     * The number of instructions disassembled since the current class file's disassembly began.
+     */
+    private long instructionCount;
+
+    /**
+     * Where to record the class files and methods that cannot be disassembled, or {@code null} to abort on the first
+     * failure.
+     */
+    @Nullable private ErrorSummary errorSummary;
 
     boolean showClassPoolIndexes;
 
@@ -148,6 +197,8 @@ class Disassembler {
 
     boolean printStackMap;
 
+    boolean printStackTypes;
+
     /**
      * An empty array means "do not attempt to find the source file".
      */
@@ -173,10 +224,41 @@ class Disassembler {
      */
     boolean printAllOffsets;
 
-    private SignatureParser signatureParser = new SignatureParser();
+    /**
+     * How to render the class files.
+     */
+    Format format = Format.TEXT;
+
+    /**
+     * Converts descriptors and signatures while a class file is being disassembled.
+     */
+    SignatureParser signatureParser;
 
     private enum AttributeContext { CLASS, FIELD, METHOD }
 
+    /**
+     * The output formats that the disassembler supports.
+     */
+    public
+    enum Format {
+
+        /**
+         * The human-readable disassembly listing.
+         */
+        TEXT,
+
+        /**
+         * One line of JSON per class file; see {@link JsonDisassembler}.
+         */
+        JSON,
+
+        /**
+         * A compact binary record per class file; see {@link BinaryDisassembler}. Requires that the output is
+         * configured as an {@link OutputStream}.
+         */
+        BINARY,
+    }
+
     /**
      * Generates a "disassembly document" from one or more Java class files.
      * <dl>
@@ -188,7 +270,69 @@ class Disassembler {
      *   <dd>
      *     Read STDIN and disassemble; STDIN must be Java class file.
      *   </dd>
+     *   <dt>{@code jdisasm [} <var>options</var> {@code ] -incremental} <var>output-dir</var> <var>input-dir</var> ...
+     *   </dt>
+     *   <dd>
+     *     Disassemble all class files under the <var>input-dirs</var> into one listing file each, under the
+     *     <var>output-dir</var>; on subsequent runs, only the class files that changed since the previous run are
+     *     disassembled, and the listings of deleted class files are removed. See {@link IncrementalDisassembler}.
+     *   </dd>
+     *   <dt>{@code jdisasm [} <var>options</var> {@code ] -find} <var>pattern</var> {@code [ -find} <var>pattern</var>
+     *   {@code ] ...} <var>files</var></dt>
+     *   <dd>
+     *     Print only the instructions that match any of the <var>patterns</var>, with their class, method, offset and
+     *     line number. The <var>files</var> may also be directories and JAR files. See {@link BytecodeSearcher}.
+     *   </dd>
+     *   <dt>{@code jdisasm -xref} <var>index-file</var> <var>files</var></dt>
+     *   <dd>
+     *     Build or update a cross-reference index of the <var>files</var>, which may also be directories and JAR
+     *     files. See {@link CrossReferenceIndexBuilder}.
+     *   </dd>
+     *   <dt>{@code jdisasm -xref} <var>index-file</var> {@code -refs-to} <var>key</var></dt>
+     *   <dt>{@code jdisasm -xref} <var>index-file</var> {@code -refs-from} <var>key</var></dt>
+     *   <dd>
+     *     Print the references to or from the class, field or method with the given <var>key</var>, e.g. "{@code
+     *     com.acme.Foo}", "{@code com.acme.Foo.bar}" or "{@code com.acme.Foo.bar(I)V}". See {@link
+     *     CrossReferenceIndex}.
+     *   </dd>
+     *   <dt>{@code jdisasm -diff} <var>old</var> <var>new</var></dt>
+     *   <dd>
+     *     Print which classes, fields and methods differ between the <var>old</var> and the <var>new</var> version
+     *     of a directory or JAR file. See {@link ClassDiff}.
+     *   </dd>
+     *   <dt>{@code jdisasm -dependencies} <var>granularity</var> <var>files</var></dt>
+     *   <dd>
+     *     Print the dependencies between the classes, packages or archives (<var>granularity</var> is "{@code
+     *     class}", "{@code package}" or "{@code archive}") that the <var>files</var> define, which may also be
+     *     directories and JAR files. See {@link DependencySummary}.
+     *   </dd>
+     *   <dt>{@code jdisasm -constants} <var>files</var></dt>
+     *   <dt>{@code jdisasm -method-constants} <var>files</var></dt>
+     *   <dd>
+     *     Print the string and numeric constants of the <var>files</var>, which may also be directories and JAR
+     *     files, attributed to the fields that they initialize, and (with {@code -method-constants}) to the methods
+     *     that load them. See {@link ConstantExtractor}.
+     *   </dd>
+     *   <dt>{@code jdisasm -code-stats} [ {@code -top} <var>n</var> ] <var>files</var></dt>
+     *   <dd>
+     *     Print the distributions and the <var>n</var> largest values of the method and class size metrics of the
+     *     <var>files</var>, which may also be directories and JAR files. See {@link CodeStatistics}.
+     *   </dd>
+     *   <dt>{@code jdisasm -validate} <var>files</var></dt>
+     *   <dd>
+     *     Check the <var>files</var>, which may also be directories and JAR files, for structural problems, and print
+     *     the findings as JSON lines. See {@link ClassFileValidator}.
+     *   </dd>
+     *   <dt>{@code jdisasm -subtypes} <var>class</var> <var>files</var></dt>
+     *   <dt>{@code jdisasm -supertypes} <var>class</var> <var>files</var></dt>
+     *   <dd>
+     *     Print all direct and indirect subtypes or supertypes of the <var>class</var>, as declared in the
+     *     <var>files</var>, which may also be directories and JAR files. See {@link ClassHierarchy}.
+     *   </dd>
      * </dl>
+     * <p>
+     *   These modes are mutually exclusive, except that {@code -subtypes} and {@code -supertypes} may be combined.
+     * </p>
      * <h3>Options</h3>
      * <dl>
      *   <dt>{@code -o} <var>file</var></dt>
@@ -215,6 +359,10 @@ class Disassembler {
      *   <dd>
      *     Print the StackMapTable attribute
      *   </dd>
+     *   <dt>{@code -print-stack-types}</dt>
+     *   <dd>
+     *     Print the operand stack types before each instruction, as computed by the {@link StackMapInterpreter}
+     *   </dd>
      *   <dt>{@code -src} <var>source-path</var></dt>
      *   <dd>
      *     Interweave the output with the class file's source code
@@ -231,6 +379,86 @@ class Disassembler {
      *   <dd>
      *     Use symbolic labels for offsets in the code attribute of methods
      *   </dd>
+     *   <dt>{@code -json}</dt>
+     *   <dd>
+     *     Instead of the disassembly listing, write one line of JSON per class file, see {@link JsonDisassembler}
+     *   </dd>
+     *   <dt>{@code -binary}</dt>
+     *   <dd>
+     *     Instead of the disassembly listing, write a compact binary record per class file, see {@link
+     *     BinaryDisassembler}
+     *   </dd>
+     *   <dt>{@code -incremental} <var>output-dir</var></dt>
+     *   <dd>
+     *     Disassemble the class files under the given directories incrementally into <var>output-dir</var>
+     *   </dd>
+     *   <dt>{@code -find} <var>pattern</var></dt>
+     *   <dd>
+     *     Instead of disassembling, search for instructions that match the <var>pattern</var>, e.g. "{@code
+     *     java.io.PrintStream.println}", "{@code getfield Foo.x}" or "{@code monitorenter}"
+     *   </dd>
+     *   <dt>{@code -xref} <var>index-file</var></dt>
+     *   <dd>
+     *     Instead of disassembling, build or update the cross-reference index from the given files, and/or query it
+     *   </dd>
+     *   <dt>{@code -refs-to} <var>key</var></dt>
+     *   <dd>
+     *     Print the references to the class, field or method with the given <var>key</var> from the {@code -xref}
+     *     index
+     *   </dd>
+     *   <dt>{@code -refs-from} <var>key</var></dt>
+     *   <dd>
+     *     Print the references from the method (or all methods of the class) with the given <var>key</var> from the
+     *     {@code -xref} index
+     *   </dd>
+     *   <dt>{@code -diff} <var>old</var></dt>
+     *   <dd>
+     *     Instead of disassembling, compare the <var>old</var> version of a directory or JAR file with the given one
+     *   </dd>
+     *   <dt>{@code -dependencies} <var>granularity</var></dt>
+     *   <dd>
+     *     Instead of disassembling, print the dependency edges between the classes, packages or archives
+     *   </dd>
+     *   <dt>{@code -constants}</dt>
+     *   <dd>
+     *     Instead of disassembling, print the string and numeric constants
+     *   </dd>
+     *   <dt>{@code -method-constants}</dt>
+     *   <dd>
+     *     Like {@code -constants}, but also attribute the constants to the methods that load them
+     *   </dd>
+     *   <dt>{@code -code-stats}</dt>
+     *   <dd>
+     *     Instead of disassembling, print code length, max stack, max locals, instruction, branch, exception handler
+     *     and constant pool size statistics
+     *   </dd>
+     *   <dt>{@code -top} <var>n</var></dt>
+     *   <dd>
+     *     With {@code -code-stats}: The number of largest values to print for each metric; defaults to 10
+     *   </dd>
+     *   <dt>{@code -validate}</dt>
+     *   <dd>
+     *     Instead of disassembling, check the class files and print the findings
+     *   </dd>
+     *   <dt>{@code -subtypes} <var>class</var></dt>
+     *   <dd>
+     *     Instead of disassembling, print all subclasses, implementors and subinterfaces of the <var>class</var>
+     *   </dd>
+     *   <dt>{@code -supertypes} <var>class</var></dt>
+     *   <dd>
+     *     Instead of disassembling, print all superclasses and interfaces of the <var>class</var>
+     *   </dd>
+     *   <dt>{@code -keep-going}</dt>
+     *   <dd>
+     *     Skip class files that cannot be processed, and render methods whose code cannot be decoded without their
+     *     code, instead of aborting; when done, print a summary of the failures to STDERR, and exit with status 1 iff
+     *     there were any failures. (Not supported with {@code -xref} and {@code -diff}.) See {@link ErrorSummary}.
+     *   </dd>
+     *   <dt>{@code -stats}</dt>
+     *   <dd>
+     *     After disassembling, print a summary of the time spent in each phase, and the number of classes, methods,
+     *     instructions, bytes etc. processed, to STDERR
+     *   </dd>
      *   <dt>{@code -help}</dt>
      *   <dd>
      *     Print this text and exit
@@ -244,16 +472,92 @@ class Disassembler {
         // scheme.
         de.unkrig.jdisasm.protocol.zip.Handler.registerMe();
 
-        Disassembler d = new Disassembler();
-        int          i;
+        if (!Disassembler.run(args, null, false, System.in, System.out, System.err)) System.exit(1);
+    }
+
+    /**
+     * Implements the command line interface; see {@link #main(String[])}.
+     *
+     * @param baseDirectory Relative file names on the command line are resolved against this directory; {@code null}
+     *                      means the current working directory
+     * @param serverMode    Whether the invocation runs on behalf of another process, and must thus reject the options
+     *                      that write files ("{@code -o}", "{@code -incremental}" and "{@code -xref}")
+     * @param in            Replaces STDIN
+     * @param out           Replaces STDOUT
+     * @param err           Replaces STDERR
+     * @return              {@code false} iff the command line is invalid, or {@code -keep-going} recorded any failures
+     */
+    static boolean
+    run(
+        String[]       args,
+        @Nullable File baseDirectory,
+        boolean        serverMode,
+        InputStream    in,
+        PrintStream    out,
+        PrintStream    err
+    ) throws IOException {
+
+        // Close the "-o" files even if the command line is invalid or the disassembly fails, so that repeated
+        // invocations (by the "DisassemblerDaemon") don't leak file descriptors.
+        List<OutputStream> outputFiles = new ArrayList<OutputStream>();
+        try {
+            return Disassembler.run2(args, baseDirectory, serverMode, in, out, err, outputFiles);
+        } finally {
+            for (OutputStream os : outputFiles) {
+                try { os.close(); } catch (IOException ex) {}
+            }
+        }
+    }
+
+    /**
+     * @param outputFiles The streams that the invocation opened, and that the caller must close
+     */
+    private static boolean
+    run2(
+        String[]           args,
+        @Nullable File     baseDirectory,
+        boolean            serverMode,
+        InputStream        in,
+        PrintStream        out,
+        PrintStream        err,
+        List<OutputStream> outputFiles
+    ) throws IOException {
+
+        Disassembler     d                 = new Disassembler();
+        File             incrementalOutput = null;
+        MetricsCollector stats             = null;
+        ErrorSummary     errors            = null;
+        List<String>     findPatterns      = new ArrayList<String>();
+        File             xrefIndex         = null;
+        List<String>     refsTo            = new ArrayList<String>();
+        List<String>     refsFrom          = new ArrayList<String>();
+        List<String>     subtypesOf        = new ArrayList<String>();
+        List<String>     supertypesOf      = new ArrayList<String>();
+        File             diffOld           = null;
+        Granularity      dependencies      = null;
+        boolean          constants         = false;
+        boolean          methodConstants   = false;
+        boolean          codeStats         = false;
+        int              top               = 10;
+        boolean          validate          = false;
+        int              i;
+
+        d.setOut(out);
         for (i = 0; i < args.length; ++i) {
 
             String arg = args[i];
             if (arg.charAt(0) != '-' || arg.length() == 1) break;
             if ("--".equals(arg)) { i++; break; }
 
+            if (serverMode && Disassembler.FILE_WRITING_OPTIONS.contains(arg)) {
+                err.println("\"" + arg + "\" is not allowed in server mode; try \"-help\".");
+                return false;
+            }
+
             if ("-o".equals(arg)) {
-                d.setOut(new FileOutputStream(args[++i]));
+                OutputStream os = new FileOutputStream(Disassembler.resolve(baseDirectory, args[++i]));
+                outputFiles.add(os);
+                d.setOut(os);
             } else
             if ("-verbose".equals(arg)) {
                 d.setVerbose(true);
@@ -273,8 +577,15 @@ class Disassembler {
             if ("-print-stack-map".equals(arg)) {
                 d.setPrintStackMap(true);
             } else
+            if ("-print-stack-types".equals(arg)) {
+                d.setPrintStackTypes(true);
+            } else
             if ("-src".equals(arg)) {
-                d.setSourcePath(Disassembler.splitPath(args[++i]));
+                File[] sourcePath = Disassembler.splitPath(args[++i]);
+                for (int j = 0; j < sourcePath.length; j++) {
+                    sourcePath[j] = Disassembler.resolve(baseDirectory, sourcePath[j].getPath());
+                }
+                d.setSourcePath(sourcePath);
             } else
             if ("-hide-lines".equals(arg)) {
                 d.setShowLineNumbers(false);
@@ -285,14 +596,91 @@ class Disassembler {
             if ("-symbolic-labels".equals(arg)) {
                 d.setSymbolicLabels(true);
             } else
+            if ("-json".equals(arg)) {
+                d.setFormat(Format.JSON);
+            } else
+            if ("-binary".equals(arg)) {
+                d.setFormat(Format.BINARY);
+            } else
+            if ("-incremental".equals(arg)) {
+                incrementalOutput = Disassembler.resolve(baseDirectory, args[++i]);
+            } else
+            if ("-find".equals(arg)) {
+                findPatterns.add(args[++i]);
+            } else
+            if ("-xref".equals(arg)) {
+                xrefIndex = Disassembler.resolve(baseDirectory, args[++i]);
+            } else
+            if ("-refs-to".equals(arg)) {
+                refsTo.add(args[++i]);
+            } else
+            if ("-refs-from".equals(arg)) {
+                refsFrom.add(args[++i]);
+            } else
+            if ("-diff".equals(arg)) {
+                diffOld = Disassembler.resolve(baseDirectory, args[++i]);
+            } else
+            if ("-dependencies".equals(arg)) {
+                String granularity = args[++i];
+                try {
+                    dependencies = Granularity.valueOf(granularity.toUpperCase());
+                } catch (IllegalArgumentException iae) {
+                    err.println("Invalid granularity \"" + granularity + "\"; try \"-help\".");
+                    return false;
+                }
+            } else
+            if ("-constants".equals(arg)) {
+                constants = true;
+            } else
+            if ("-method-constants".equals(arg)) {
+                constants       = true;
+                methodConstants = true;
+            } else
+            if ("-code-stats".equals(arg)) {
+                codeStats = true;
+            } else
+            if ("-validate".equals(arg)) {
+                validate = true;
+            } else
+            if ("-top".equals(arg)) {
+                String n = args[++i];
+                try {
+                    top = Integer.parseInt(n);
+                } catch (NumberFormatException nfe) {
+                    err.println("Invalid count \"" + n + "\"; try \"-help\".");
+                    return false;
+                }
+            } else
+            if ("-subtypes".equals(arg)) {
+                subtypesOf.add(args[++i]);
+            } else
+            if ("-supertypes".equals(arg)) {
+                supertypesOf.add(args[++i]);
+            } else
+            if ("-keep-going".equals(arg)) {
+                d.setErrorSummary((errors = new ErrorSummary()));
+            } else
+            if ("-stats".equals(arg)) {
+                d.setMetrics((stats = new MetricsCollector()));
+            } else
             if ("-help".equals(arg)) {
 
-                System.out.printf((
+                out.printf((
                     ""
                     + "Prints a disassembly listing of the given JAVA[TM] class files (or STDIN) to%n"
                     + "STDOUT.%n"
                     + "Usage:%n"
                     + "  java %1$s [ <option> ] ... [ <class-file-name> | <class-file-url> | '-' ] ...%n"
+                    + "  java %1$s [ <option> ] ... -incremental <output-dir> <input-dir> ...%n"
+                    + "  java %1$s [ <option> ] ... -find <pattern> ... [ <file> | <dir> | <jar> ] ...%n"
+                    + "  java %1$s -xref <index-file> [ <file> | <dir> | <jar> ] ...%n"
+                    + "  java %1$s -xref <index-file> [ -refs-to <key> | -refs-from <key> ] ...%n"
+                    + "  java %1$s [ -subtypes <class> | -supertypes <class> ] ... <file> ...%n"
+                    + "  java %1$s -diff <old-dir-or-jar> <new-dir-or-jar>%n"
+                    + "  java %1$s -dependencies <granularity> <file> ...%n"
+                    + "  java %1$s [ -constants | -method-constants ] <file> ...%n"
+                    + "  java %1$s -code-stats [ -top <n> ] <file> ...%n"
+                    + "  java %1$s -validate <file> ...%n"
                     + "Valid options are:%n"
                     + "  -o <output-file>         Store disassembly output in a file.%n"
                     + "  -show-class-pool-indexes Within the bytecode diassembly, print the index%n"
@@ -301,6 +689,7 @@ class Disassembler {
                     + "  -print-all-offsets       Include bytecode offsets.%n"
                     + "  -print-all-attributes    Also print the UNRECOGNIZED attributes.%n"
                     + "  -print-stack-map         Print the StackMapTable attribute.%n"
+                    + "  -print-stack-types       Print the operand stack types before each instruction.%n"
                     + "  -verbose                 Equivalent with \"-show-class-pool-indexes%n"
                     + "                           -dump-constant-pool -print-all-attributes%n"
                     + "                           -print-stack-map\".%n"
@@ -308,32 +697,251 @@ class Disassembler {
                     + "  -hide-lines              Don't print line numbers.%n"
                     + "  -hide-vars               Don't resolve local variable names.%n"
                     + "  -symbolic-labels         Use symbolic labels instead of offsets.%n"
+                    + "  -json                    Write one line of JSON per class file instead of the%n"
+                    + "                           disassembly listing.%n"
+                    + "  -binary                  Write a compact binary record per class file instead%n"
+                    + "                           of the disassembly listing.%n"
+                    + "  -incremental <output-dir>%n"
+                    + "                           Disassemble the class files under the <input-dir>s%n"
+                    + "                           into one listing file each; re-disassemble only%n"
+                    + "                           what changed since the previous run.%n"
+                    + "  -find <pattern>          Print only the instructions that match the pattern:%n"
+                    + "                           [ <mnemonic> ] [ <class>.<member>[<descriptor>] ],%n"
+                    + "                           with wildcards '*' and '?'; e.g. 'Foo.bar',%n"
+                    + "                           'getfield *.x:I', 'invokedynamic *.metafactory'.%n"
+                    + "  -xref <index-file>       Build or update the cross-reference index from the%n"
+                    + "                           given files, and/or query it.%n"
+                    + "  -refs-to <key>           Print the references to a class, field or method from%n"
+                    + "                           the index; e.g. 'com.acme.Foo', 'com.acme.Foo.bar',%n"
+                    + "                           'com.acme.Foo.bar(I)V', 'com.acme.Foo.x:I'.%n"
+                    + "  -refs-from <key>         Print the references from a method or class.%n"
+                    + "  -diff <old-dir-or-jar>   Print the classes, fields and methods that were added,%n"
+                    + "                           removed or changed in the given dir or jar.%n"
+                    + "  -dependencies class|package|archive%n"
+                    + "                           Print the dependency edges between the classes,%n"
+                    + "                           packages or archives.%n"
+                    + "  -constants               Print the string and numeric constants.%n"
+                    + "  -method-constants        Print the string and numeric constants, and the%n"
+                    + "                           methods that load them.%n"
+                    + "  -code-stats              Print method and class size statistics.%n"
+                    + "  -top <n>                 With \"-code-stats\": The number of largest values%n"
+                    + "                           to print for each metric (default 10).%n"
+                    + "  -validate                Check the class files and print the findings as%n"
+                    + "                           JSON lines.%n"
+                    + "  -subtypes <class>        Print all subclasses, implementors and subinterfaces%n"
+                    + "                           of the class.%n"
+                    + "  -supertypes <class>      Print all superclasses and interfaces of the class.%n"
+                    + "  -keep-going              Skip class files and methods that cannot be processed,%n"
+                    + "                           print a summary of the failures to STDERR, and exit%n"
+                    + "                           with status 1 iff there were any failures.%n"
+                    + "  -stats                   Print timings and counts to STDERR when done.%n"
                     + "  -help                    Print this text and exit.%n"
                 ), Disassembler.class.getName());
 
-                System.exit(0);
+                return true;
             } else
             {
-                System.err.println("Unrecognized command line option \"" + arg + "\"; try \"-help\".");
-                System.exit(1);
+                err.println("Unrecognized command line option \"" + arg + "\"; try \"-help\".");
+                return false;
             }
         }
+
+        // The options that replace the disassembly with another function are mutually exclusive.
+        List<String> modes = new ArrayList<String>();
+        if (xrefIndex != null)         modes.add("-xref");
+        if (diffOld != null)           modes.add("-diff");
+        if (dependencies != null)      modes.add("-dependencies");
+        if (constants)                 modes.add(methodConstants ? "-method-constants" : "-constants");
+        if (codeStats)                 modes.add("-code-stats");
+        if (validate)                  modes.add("-validate");
+        if (!findPatterns.isEmpty())   modes.add("-find");
+        if (incrementalOutput != null) modes.add("-incremental");
+        if (!subtypesOf.isEmpty()) {
+            modes.add("-subtypes");
+        } else
+        if (!supertypesOf.isEmpty()) {
+            modes.add("-supertypes");
+        }
+        if (modes.size() > 1) {
+            err.println("\"" + modes.get(0) + "\" and \"" + modes.get(1) + "\" are mutually exclusive; try \"-help\".");
+            return false;
+        }
+
+        if (xrefIndex != null) {
+            if (i < args.length) {
+                File[] inputs = Disassembler.resolve(baseDirectory, args, i);
+
+                CrossReferenceIndexBuilder xib = new CrossReferenceIndexBuilder(xrefIndex);
+                xib.build(inputs);
+                err.println(xib);
+            } else
+            if (refsTo.isEmpty() && refsFrom.isEmpty()) {
+                err.println("Neither input files nor queries given; try \"-help\".");
+                return false;
+            }
+
+            if (!refsTo.isEmpty() || !refsFrom.isEmpty()) {
+                CrossReferenceIndex xi = CrossReferenceIndex.open(xrefIndex);
+                for (String key : refsTo) {
+                    for (CrossReferenceIndex.Reference r : xi.referencesTo(key)) d.pw.println(r);
+                }
+                for (String key : refsFrom) {
+                    for (CrossReferenceIndex.Reference r : xi.referencesFrom(key)) d.pw.println(r);
+                }
+            }
+        } else
+        if (!refsTo.isEmpty() || !refsFrom.isEmpty()) {
+            err.println("\"-refs-to\" and \"-refs-from\" require \"-xref\"; try \"-help\".");
+            return false;
+        } else
+        if (diffOld != null) {
+            if (args.length - i != 1) {
+                err.println("\"-diff\" requires exactly one more input; try \"-help\".");
+                return false;
+            }
+
+            ClassDiff cd = new ClassDiff(d.pw);
+            cd.diff(diffOld, Disassembler.resolve(baseDirectory, args[i]));
+            err.println(cd);
+        } else
+        if (dependencies != null) {
+            File[] inputs = Disassembler.inputFiles(args, i, baseDirectory, err);
+            if (inputs == null) return false;
+
+            DependencySummary ds = DependencySummary.build(Runtime.getRuntime().availableProcessors(), errors, inputs);
+            ds.printEdges(dependencies, d.pw);
+            err.println(ds);
+        } else
+        if (constants) {
+            File[] inputs = Disassembler.inputFiles(args, i, baseDirectory, err);
+            if (inputs == null) return false;
+
+            ConstantExtractor ce = new ConstantExtractor(d.pw);
+            ce.setAttributeToMethods(methodConstants);
+            ce.setErrorSummary(errors);
+            ce.extract(inputs);
+            err.println(ce);
+        } else
+        if (codeStats) {
+            File[] inputs = Disassembler.inputFiles(args, i, baseDirectory, err);
+            if (inputs == null) return false;
+
+            CodeStatistics cs = new CodeStatistics();
+            cs.setTopCount(top);
+            cs.setErrorSummary(errors);
+            cs.collect(inputs);
+            cs.print(d.pw);
+            err.println(cs);
+        } else
+        if (validate) {
+            File[] inputs = Disassembler.inputFiles(args, i, baseDirectory, err);
+            if (inputs == null) return false;
+
+            ClassFileValidator cfv = new ClassFileValidator(d.pw);
+            cfv.setErrorSummary(errors);
+            cfv.validate(inputs);
+            err.println(cfv);
+        } else
+        if (!subtypesOf.isEmpty() || !supertypesOf.isEmpty()) {
+            File[] inputs = Disassembler.inputFiles(args, i, baseDirectory, err);
+            if (inputs == null) return false;
+
+            ClassHierarchy ch = ClassHierarchy.build(Runtime.getRuntime().availableProcessors(), errors, inputs);
+            for (int pass = 0; pass < 2; pass++) {
+                for (String className : pass == 0 ? subtypesOf : supertypesOf) {
+                    int id = ch.getId(className);
+                    if (id == -1) {
+                        err.println("Class \"" + className + "\" not found");
+                        continue;
+                    }
+                    for (int id2 : pass == 0 ? ch.getAllSubtypes(id) : ch.getAllSupertypes(id)) {
+                        d.pw.println(ch.getName(id2));
+                    }
+                }
+            }
+        } else
+        if (!findPatterns.isEmpty()) {
+            BytecodeSearcher bs = new BytecodeSearcher(d.pw);
+            for (String pattern : findPatterns) bs.addPattern(pattern);
+            if (stats != null) bs.setMetrics(stats);
+            bs.setErrorSummary(errors);
+
+            if (i == args.length) {
+                bs.search(in);
+            } else {
+                for (; i < args.length; ++i) {
+                    String name = args[i];
+                    if ("-".equals(name)) {
+                        bs.search(in);
+                    } else
+                    if (Disassembler.IS_URL.matcher(name).matches()) {
+                        bs.search(new URL(name));
+                    } else
+                    {
+                        bs.search(Disassembler.resolve(baseDirectory, name));
+                    }
+                }
+            }
+            err.println(bs);
+        } else
+        if (incrementalOutput != null) {
+            File[] inputDirectories = Disassembler.inputFiles(args, i, baseDirectory, err);
+            if (inputDirectories == null) return false;
+
+            IncrementalDisassembler id = new IncrementalDisassembler(d, incrementalOutput);
+            id.disasm(inputDirectories);
+            err.println(id);
+        } else
         if (i == args.length) {
-            d.disasm(System.in);
+            d.disasm(in);
         } else {
             for (; i < args.length; ++i) {
                 String name = args[i];
                 if ("-".equals(name)) {
-                    d.disasm(System.in);
+                    d.disasm(in);
                 } else
                 if (Disassembler.IS_URL.matcher(name).matches()) {
                     d.disasm(new URL(name));
                 } else
                 {
-                    d.disasm(new File(name));
+                    d.disasm(Disassembler.resolve(baseDirectory, name));
                 }
             }
         }
+        d.pw.flush();
+
+        if (errors != null) errors.print(err);
+        if (stats != null) stats.print(err);
+
+        return errors == null || errors.isEmpty();
+    }
+
+    /**
+     * @return The <var>args</var>, starting at index <var>i</var>, resolved against the <var>baseDirectory</var>,
+     *         or {@code null} iff there are none; then an error message was printed to <var>err</var>
+     */
+    @Nullable private static File[]
+    inputFiles(String[] args, int i, @Nullable File baseDirectory, PrintStream err) {
+
+        if (i == args.length) {
+            err.println("Input files missing; try \"-help\".");
+            return null;
+        }
+
+        return Disassembler.resolve(baseDirectory, args, i);
+    }
+
+    private static File[]
+    resolve(@Nullable File baseDirectory, String[] fileNames, int from) {
+        File[] result = new File[fileNames.length - from];
+        for (int i = 0; i < result.length; i++) result[i] = Disassembler.resolve(baseDirectory, fileNames[from + i]);
+        return result;
+    }
+
+    private static File
+    resolve(@Nullable File baseDirectory, String fileName) {
+        File file = new File(fileName);
+        return baseDirectory == null || file.isAbsolute() ? file : new File(baseDirectory, fileName);
     }
 
     private static File[]
@@ -357,28 +965,175 @@ class Disassembler {
 
     private static final Pattern IS_URL = Pattern.compile("\\w\\w+:.*");
 
-    public Disassembler() {}
+    /**
+     * Creates a disassembler with the default settings; its output goes to STDOUT.
+     */
+    public
+    Disassembler() {
+        this.signatureParser = new SignatureParser();
+        this.setOut(System.out);
+    }
+
+    /**
+     * Creates a disassembler with the given <var>configuration</var>; its output goes to STDOUT.
+     */
+    public
+    Disassembler(Configuration configuration) {
+        this();
+        this.setConfiguration(configuration);
+    }
+
+    /**
+     * Creates a private disassembler that renders with the settings of the <var>prototype</var> to the given
+     * <var>writer</var>; serves as the state of one rendering invocation. Unlike {@link #getConfiguration()}, this
+     * does not copy the settings into a snapshot, and no output to STDOUT is allocated.
+     */
+    private
+    Disassembler(Disassembler prototype, Writer writer) {
+        this.showClassPoolIndexes = prototype.showClassPoolIndexes;
+        this.dumpConstantPool     = prototype.dumpConstantPool;
+        this.printAllAttributes   = prototype.printAllAttributes;
+        this.printStackMap        = prototype.printStackMap;
+        this.printStackTypes      = prototype.printStackTypes;
+        this.sourcePath           = prototype.sourcePath;
+        this.showLineNumbers      = prototype.showLineNumbers;
+        this.showVariableNames    = prototype.showVariableNames;
+        this.symbolicLabels       = prototype.symbolicLabels;
+        this.printAllOffsets      = prototype.printAllOffsets;
+        this.format               = prototype.format;
+        this.signatureParser      = prototype.signatureParser;
+        this.metrics              = prototype.metrics;
+        this.errorSummary         = prototype.errorSummary;
+        this.setOut(writer);
+    }
+
+    /**
+     * An immutable snapshot of all settings that affect the disassembly output, as configured through the setters of
+     * {@link Disassembler}.
+     */
+    public static final
+    class Configuration {
+
+        final boolean showClassPoolIndexes;
+        final boolean dumpConstantPool;
+        final boolean printAllAttributes;
+        final boolean printStackMap;
+        final boolean printStackTypes;
+        final File[]  sourcePath;
+        final boolean showLineNumbers;
+        final boolean showVariableNames;
+        final boolean symbolicLabels;
+        final boolean printAllOffsets;
+        final Format  format;
+
+        Configuration(Disassembler d) {
+            this.showClassPoolIndexes = d.showClassPoolIndexes;
+            this.dumpConstantPool     = d.dumpConstantPool;
+            this.printAllAttributes   = d.printAllAttributes;
+            this.printStackMap        = d.printStackMap;
+            this.printStackTypes      = d.printStackTypes;
+            this.sourcePath           = d.sourcePath.clone();
+            this.showLineNumbers      = d.showLineNumbers;
+            this.showVariableNames    = d.showVariableNames;
+            this.symbolicLabels       = d.symbolicLabels;
+            this.printAllOffsets      = d.printAllOffsets;
+            this.format               = d.format;
+        }
+
+        /**
+         * @return A string that represents all settings; two equal configuration strings produce identical output
+         *         for the same class file
+         */
+        @Override public String
+        toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("showClassPoolIndexes=").append(this.showClassPoolIndexes);
+            sb.append(",dumpConstantPool=").append(this.dumpConstantPool);
+            sb.append(",printAllAttributes=").append(this.printAllAttributes);
+            sb.append(",printStackMap=").append(this.printStackMap);
+            sb.append(",printStackTypes=").append(this.printStackTypes);
+            sb.append(",showLineNumbers=").append(this.showLineNumbers);
+            sb.append(",showVariableNames=").append(this.showVariableNames);
+            sb.append(",symbolicLabels=").append(this.symbolicLabels);
+            sb.append(",printAllOffsets=").append(this.printAllOffsets);
+            sb.append(",format=").append(this.format);
+            sb.append(",sourcePath=");
+            for (int i = 0; i < this.sourcePath.length; i++) {
+                if (i > 0) sb.append(File.pathSeparatorChar);
+                sb.append(this.sourcePath[i]);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * @return An immutable snapshot of the current settings of this disassembler
+     */
+    public Configuration
+    getConfiguration() { return new Configuration(this); }
+
+    /**
+     * Replaces all settings of this disassembler with the given <var>configuration</var>.
+     */
+    public void
+    setConfiguration(Configuration configuration) {
+        this.showClassPoolIndexes = configuration.showClassPoolIndexes;
+        this.dumpConstantPool     = configuration.dumpConstantPool;
+        this.printAllAttributes   = configuration.printAllAttributes;
+        this.printStackMap        = configuration.printStackMap;
+        this.printStackTypes      = configuration.printStackTypes;
+        this.sourcePath           = configuration.sourcePath.clone();
+        this.showLineNumbers      = configuration.showLineNumbers;
+        this.showVariableNames    = configuration.showVariableNames;
+        this.symbolicLabels       = configuration.symbolicLabels;
+        this.printAllOffsets      = configuration.printAllOffsets;
+        this.format               = configuration.format;
+    }
 
     /**
      * @param writer Where to write all output
      */
     public void
     setOut(Writer writer) {
-        this.pw = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer, true);
+        this.out                = writer;
+        this.outputStream       = null;
+        this.binaryDisassembler = null;
+        this.instrumentOut();
     }
 
     /**
      * @param stream Where to write all output
      */
     public void
-    setOut(OutputStream stream) { this.pw = new PrintWriter(stream, true); }
+    setOut(OutputStream stream) {
+        this.setOut(new BufferedWriter(new OutputStreamWriter(stream)));
+        this.outputStream = stream;
+    }
 
     /**
      * @param stream Where to write all output
      */
     public void
     setOut(OutputStream stream, String charsetName) throws UnsupportedEncodingException {
-        this.pw = new PrintWriter(new OutputStreamWriter(stream, charsetName), true);
+        this.setOut(new OutputStreamWriter(stream, charsetName));
+        this.outputStream = stream;
+    }
+
+    private void
+    instrumentOut() {
+        Writer writer = this.out;
+        if (this.metrics != Metrics.NOP) writer = new MetricsWriter(writer, this.metrics);
+        this.pw = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer, true);
+    }
+
+    /**
+     * @param metrics Receives timings and counts while class files are parsed and disassembled; the default is {@link
+     *                Metrics#NOP}
+     */
+    public void
+    setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        this.instrumentOut();
     }
 
     /**
@@ -416,6 +1171,12 @@ class Disassembler {
     public void
     setPrintStackMap(boolean printStackMap) { this.printStackMap = printStackMap; }
 
+    /**
+     * Whether to print the operand stack types before each instruction.
+     */
+    public void
+    setPrintStackTypes(boolean printStackTypes) { this.printStackTypes = printStackTypes; }
+
     /**
      * Where to look for source files; an empty array disables source file loading. Source file loading is disabled by
      * default.
@@ -467,6 +1228,31 @@ class Disassembler {
     public void
     setPrintAllOffsets(boolean printAllOffsets) { this.printAllOffsets = printAllOffsets; }
 
+    /**
+     * @param format How to render the class files (defaults to {@link Format#TEXT})
+     */
+    public void
+    setFormat(Format format) { this.format = format; }
+
+    /**
+     * If not {@code null}, then class files that cannot be disassembled by {@link #disasm(File)} and {@link
+     * #disasm(URL)} are recorded in the <var>value</var> and skipped, and methods whose code cannot be decoded are
+     * recorded there and rendered without their instructions. Otherwise the first such failure is thrown. Defaults to
+     * {@code null}.
+     * <p>
+     *   Notice that each class file is then rendered into a buffer first, so that a failing class file leaves no
+     *   partial output.
+     * </p>
+     */
+    public void
+    setErrorSummary(@Nullable ErrorSummary value) { this.errorSummary = value; }
+
+    /**
+     * @see #setErrorSummary(ErrorSummary)
+     */
+    @Nullable public ErrorSummary
+    getErrorSummary() { return this.errorSummary; }
+
     private void print(String s)                       { this.pw.print(s);             }
     private void println()                             { this.pw.println();            }
     private void println(String s)                     { this.pw.println(s);           }
@@ -476,33 +1262,55 @@ class Disassembler {
      * Reads a class file from the given <var>file</var> and disassembles it.
      */
     public void
-    disasm(File file) throws IOException {
-        InputStream is = new FileInputStream(file);
-        try {
-            this.println();
-            this.println("// *** Disassembly of '" + file + "'.");
-            this.disasm(is);
-        } catch (IOException ioe) {
-            IOException ioe2 = new IOException("Disassembling '" + file + "': " + ioe.getMessage());
-            ioe2.initCause(ioe);
-            throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
-        } catch (RuntimeException re) {
-            throw new RuntimeException("Disassembling '" + file + "': " + re.getMessage(), re);
-        } finally {
-            try { is.close(); } catch (IOException ex) {}
-        }
-    }
+    disasm(File file) throws IOException { this.disasm(new FileInputStream(file), file.toString()); }
 
     /**
      * Reads a class file from the given <var>location</var> and disassembles it.
      */
     public void
     disasm(URL location) throws IOException {
-        InputStream is = location.openConnection().getInputStream();
+        this.disasm(location.openConnection().getInputStream(), location.toString());
+    }
+
+    /**
+     * Disassembles the class file from the given <var>is</var>, and closes the <var>is</var>.
+     *
+     * @param location The file or URL where the class file was read from
+     */
+    private void
+    disasm(InputStream is, String location) throws IOException {
         try {
-            this.println();
-            this.println("// *** Disassembly of '" + location + "'.");
-            this.disasm(is);
+            if (this.format == Format.TEXT) {
+                this.println();
+                this.println("// *** Disassembly of '" + location + "'.");
+            }
+
+            ErrorSummary es = this.errorSummary;
+            if (es == null) {
+                this.disasm(is);
+                return;
+            }
+
+            // Render into a buffer, so that a failure leaves no partial output. (The BINARY format needs no extra
+            // buffer, because the BinaryDisassembler assembles each record in memory before it writes it.)
+            StringWriter sw = this.format == Format.BINARY ? null : new StringWriter();
+            try {
+                if (sw == null) {
+                    this.disasm(is);
+                } else {
+                    this.disasm(is, sw);
+                }
+            } catch (IOException ioe) {
+                this.skip(location, ioe, es);
+                return;
+            } catch (RuntimeException re) {
+                this.skip(location, re, es);
+                return;
+            }
+            if (sw != null) {
+                this.pw.flush();
+                this.out.write(sw.toString());
+            }
         } catch (IOException ioe) {
             IOException ioe2 = new IOException("Disassembling '" + location + "': " + ioe.getMessage());
             ioe2.initCause(ioe);
@@ -514,20 +1322,217 @@ class Disassembler {
         }
     }
 
+    /**
+     * Records that the class file at <var>location</var> failed, and, for the {@link Format#TEXT} format, notes that
+     * in the output.
+     */
+    private void
+    skip(String location, Exception e, ErrorSummary es) {
+        es.add(location, null, e);
+        if (this.format == Format.TEXT) this.println("// *** Skipped: " + ErrorSummary.message(e));
+    }
+
     /**
      * Reads a class file from the given <var>stream</var> and disassembles it.
      */
     public void
     disasm(InputStream stream) throws IOException {
+        CountingInputStream cis = new CountingInputStream(stream);
+        ClassFile           cf  = new ClassFile(new DataInputStream(cis), this.metrics);
+        this.disasm(cf, cis.getCount());
+    }
 
-        DataInputStream
-        dis = stream instanceof DataInputStream ? (DataInputStream) stream : new DataInputStream(stream);
+    /**
+     * Reads a class file from the given <var>stream</var> and disassembles it to the given <var>writer</var>. This
+     * method is thread-safe.
+     */
+    public void
+    disasm(InputStream stream, Writer writer) throws IOException {
+        Disassembler rc = new Disassembler(this, writer);
+        rc.disasm(stream);
+        rc.pw.flush();
+    }
 
-        this.disasm(new ClassFile(dis));
+    /**
+     * Disassembles the given class file to the given <var>writer</var>. This method is thread-safe; the same
+     * <var>cf</var> may be disassembled concurrently, even by differently configured disassemblers.
+     */
+    public void
+    disasm(ClassFile cf, Writer writer) throws IOException {
+        Disassembler rc = new Disassembler(this, writer);
+        rc.disasm(cf);
+        rc.pw.flush();
     }
 
+    /**
+     * Disassembles the given class file to the output configured with {@link #setOut(Writer)}.
+     */
     public void
-    disasm(ClassFile cf) throws IOException {
+    disasm(ClassFile cf) throws IOException { this.disasm(cf, -1); }
+
+    /**
+     * @param byteSize The size of the class file, or -1 if unknown; for the JFR event
+     */
+    private void
+    disasm(ClassFile cf, long byteSize) throws IOException {
+
+        Object event = FlightRecorder.INSTANCE.beginClassDisassembled();
+        long   start = this.metrics.now();
+
+        this.instructionCount = 0;
+        try {
+            DisassemblySink sink;
+            if (this.format == Format.JSON) {
+                sink = new JsonDisassembler(this.pw);
+            } else
+            if (this.format == Format.BINARY) {
+                BinaryDisassembler bd = this.binaryDisassembler;
+                if (bd == null) {
+                    OutputStream os = this.outputStream;
+                    if (os == null) throw new IllegalStateException("Binary format requires an OutputStream");
+                    this.pw.flush();
+                    this.binaryDisassembler = (bd = new BinaryDisassembler(os));
+                }
+                sink = bd;
+            } else {
+                sink = new TextSink();
+            }
+
+            ClassFileWalker walker = new ClassFileWalker(sink, this.metrics);
+            walker.setErrorSummary(this.errorSummary);
+            walker.walk(cf);
+            this.instructionCount = walker.getInstructionCount();
+        } finally {
+            this.metrics.time(Metrics.Timer.RENDER, start);
+        }
+
+        FlightRecorder.INSTANCE.endClassDisassembled(event, cf.thisClassName, byteSize, this.instructionCount);
+    }
+
+    /**
+     * Renders the class files in the human-readable {@link Format#TEXT} format; the rendering of the bytecode is
+     * delegated to a {@link BytecodeDisassembler}.
+     */
+    private
+    class TextSink extends AbstractDisassemblySink {
+
+        @Nullable private Map<Integer, String> sourceLines;
+        private TypeSignature[]                parameterTypes = new TypeSignature[0];
+        @Nullable private BytecodeDisassembler bytecodeDisassembler;
+
+        /**
+         * Holds the listing of the current method's code iff there is an {@link #errorSummary}, so that {@link
+         * #codeFailed(Method, CodeAttribute, String)} can discard it.
+         */
+        @Nullable private StringWriter codeBuffer;
+
+        @Override public void
+        beginClass(ClassFile cf) throws IOException {
+            Disassembler.this.disassembleClassHeader(cf);
+            this.sourceLines = Disassembler.this.loadSourceLines(cf);
+        }
+
+        @Override public void
+        field(Field field) { Disassembler.this.disassembleField(field); }
+
+        @Override public void
+        beginMethod(Method method) {
+            List<TypeSignature> pts = Disassembler.this.disassembleMethodHeader(method).parameterTypes;
+            this.parameterTypes = pts.toArray(new TypeSignature[pts.size()]);
+        }
+
+        @Override public boolean
+        beginCode(Method method, CodeAttribute codeAttribute) throws IOException {
+            BytecodeDisassembler bd = new BytecodeDisassembler(
+                new ByteArrayInputStream(codeAttribute.code),
+                codeAttribute.exceptionTable,
+                codeAttribute.lineNumberTableAttribute,
+                codeAttribute.stackMapTableAttribute,
+                this.sourceLines,
+                method,
+                this.parameterTypes,
+                Disassembler.this
+            );
+            PrintWriter pw = Disassembler.this.pw;
+            if (Disassembler.this.errorSummary != null) {
+                StringWriter sw = this.codeBuffer;
+                if (sw == null) {
+                    this.codeBuffer = (sw = new StringWriter());
+                } else {
+                    sw.getBuffer().setLength(0);
+                }
+                pw = new PrintWriter(sw);
+            }
+            bd.begin(pw, codeAttribute.code);
+            this.bytecodeDisassembler = bd;
+            return true;
+        }
+
+        // SUPPRESS CHECKSTYLE Javadoc|LineLength:4
+        @Override public void tryEnd(List<ExceptionTableEntry> entries, int pc) { this.getBytecodeDisassembler().tryEnd(entries, pc);         }
+        @Override public void tryStart(int startPc, int endPc, int pc)          { this.getBytecodeDisassembler().tryStart(startPc, endPc, pc); }
+        @Override public void lineNumber(int lineNumber, int pc)                { this.getBytecodeDisassembler().lineNumber(lineNumber, pc);   }
+        @Override public void instruction(Instruction instruction) throws IOException { this.getBytecodeDisassembler().instruction(instruction); }
+
+        @Override public void
+        codeFailed(Method method, CodeAttribute codeAttribute, String message) {
+            StringWriter sw = this.codeBuffer;
+            if (sw != null) sw.getBuffer().setLength(0);
+            Disassembler.this.println("        // *** Skipped: " + message);
+            this.endCode(method, codeAttribute);
+        }
+
+        @Override public void
+        endCode(Method method, CodeAttribute codeAttribute) {
+            StringWriter sw = this.codeBuffer;
+            if (sw != null) {
+                Disassembler.this.print(sw.toString());
+                sw.getBuffer().setLength(0);
+            }
+            this.bytecodeDisassembler = null;
+            Disassembler.this.println("    }");
+            Disassembler.this.printAttributes(
+                codeAttribute.unprocessedAttributes,
+                codeAttribute.allAttributes,
+                "    ",
+                AttributeContext.METHOD
+            );
+        }
+
+        @Override public void
+        endMethod(Method method) {
+            Disassembler.this.printAttributes(
+                method.unprocessedAttributes,
+                method.allAttributes,
+                "    // ",
+                AttributeContext.METHOD
+            );
+        }
+
+        @Override public void
+        endClass(ClassFile cf) {
+            Disassembler.this.println("}");
+            Disassembler.this.printAttributes(
+                cf.unprocessedAttributes,
+                cf.allAttributes,
+                "// ",
+                AttributeContext.CLASS
+            );
+        }
+
+        private BytecodeDisassembler
+        getBytecodeDisassembler() {
+            BytecodeDisassembler bd = this.bytecodeDisassembler;
+            assert bd != null;
+            return bd;
+        }
+    }
+
+    /**
+     * Prints everything that precedes the fields of the class.
+     */
+    private void
+    disassembleClassHeader(ClassFile cf) {
 
         // Print JDK version.
         this.println();
@@ -538,7 +1543,8 @@ class Disassembler {
         final String tcpn = cf.thisClassName.substring(0, cf.thisClassName.lastIndexOf('.') + 1);
 
         // Configure a custom signature parser that is in effect while the disassembly is generated; that signature
-        // parser makes long class names more readable.
+        // parser makes long class names more readable. (It is passed to the "toString(SignatureParser)" methods of the
+        // class file model, which itself remains unmodified.)
         this.signatureParser = new SignatureParser(new Options() {
 
             @Override public String
@@ -549,9 +1555,7 @@ class Disassembler {
                     : packageNamePrefix
                 );
             }
-        });
-
-        cf.setSignatureParser(this.signatureParser);
+        }, this.metrics);
 
         // Print package declaration.
         if (tcpn.length() > 0) {
@@ -569,7 +1573,7 @@ class Disassembler {
             this.println();
             this.println(
                 "// This class is enclosed by method '"
-                + ema.clasS
+                + ema.clasS.toString(this.signatureParser)
                 + ("<init>".equals(methodName) ? "(...)" : "." + methodName + "(...)")
                 + "'."
             );
@@ -665,7 +1669,12 @@ class Disassembler {
                 if (pet.startsWith("Constant")) pet = pet.substring(8);
                 if (pet.endsWith("Info")) pet = pet.substring(0, pet.length() - 4);
 
-                this.printf("    //   #%-5d %-21s %s%n", i, "(" + pet + "):", constantPoolEntry);
+                this.printf(
+                    "    //   #%-5d %-21s %s%n",
+                    i,
+                    "(" + pet + "):",
+                    ConstantPool.toString(constantPoolEntry, this.signatureParser)
+                );
                 i += constantPoolEntry.size();
             }
         }
@@ -677,7 +1686,7 @@ class Disassembler {
                 this.println();
                 this.println("    // Enclosing/enclosed types:");
                 for (InnerClassesAttribute.ClasS c : ica.classes) {
-                    this.println("    //   " + Disassembler.toString(c));
+                    this.println("    //   " + this.toString(c));
                 }
             }
         }
@@ -694,12 +1703,18 @@ class Disassembler {
             }
         }
 
-        // Print fields.
-        this.disassembleFields(cf.fields);
+    }
+
+    /**
+     * Before the class's methods are disassembled, locates, reads and loads the source file.
+     */
+    @Nullable private Map<Integer, String>
+    loadSourceLines(ClassFile cf) throws IOException {
 
-        // Before disassembling the class's methods, locate, read and load the source file.
         Map<Integer, String> sourceLines;
         {
+            long start = this.metrics.now();
+
             SourceFileAttribute sfa = cf.sourceFileAttribute;
 
             sourceLines = null;
@@ -724,17 +1739,12 @@ class Disassembler {
                 ));
                 if (sourceLines != null) break;
             }
-        }
 
-        // Disassemble all methods.
-        for (Method m : cf.methods) {
-            this.disassembleMethod(m, sourceLines);
+            if (sourceLines != null) this.metrics.count(Metrics.Counter.SOURCE_FILES, 1);
+            this.metrics.time(Metrics.Timer.SOURCE, start);
         }
 
-        this.println("}");
-
-        // Print class attributes.
-        this.printAttributes(cf.unprocessedAttributes, cf.allAttributes, "// ", AttributeContext.CLASS);
+        return sourceLines;
     }
 
     @Nullable private static Map<Integer, String>
@@ -742,6 +1752,8 @@ class Disassembler {
 
         if (!file.exists()) return null;
 
+        Object event = FlightRecorder.INSTANCE.beginSourceFileLoaded();
+
         Map<Integer, String> result = new HashMap<Integer, String>();
 
         LineNumberReader lnr = new LineNumberReader(new FileReader(file));
@@ -755,245 +1767,213 @@ class Disassembler {
             try { lnr.close(); } catch (Exception e) {}
         }
 
+        FlightRecorder.INSTANCE.endSourceFileLoaded(event, file.getPath(), file.length(), result.size());
+
         return result;
     }
 
     /**
-     * Disassembles one method.
+     * Prints the declaration of one method, up to and including the opening brace of the method body (if any).
+     *
+     * @return The method's type signature
      */
-    private void
-    disassembleMethod(Method method, @Nullable Map<Integer, String> sourceLines) {
-        try {
+    private MethodTypeSignature
+    disassembleMethodHeader(Method method) {
 
-            // One blank line before each method declaration.
-            this.println();
+        // One blank line before each method declaration.
+        this.println();
 
-            // Print SYNTHETIC notice.
-            if (method.accessFlags.is(SYNTHETIC) || method.syntheticAttribute != null) {
-                this.println("    // (Synthetic method)");
-            }
+        // Print SYNTHETIC notice.
+        if (method.accessFlags.is(SYNTHETIC) || method.syntheticAttribute != null) {
+            this.println("    // (Synthetic method)");
+        }
 
-            // Print BRIDGE notice.
-            if (method.accessFlags.is(BRIDGE)) this.println("    // (Bridge method)");
+        // Print BRIDGE notice.
+        if (method.accessFlags.is(BRIDGE)) this.println("    // (Bridge method)");
 
-            // Print DEPRECATED notice.
-            if (method.deprecatedAttribute != null) this.println("    /** @deprecated */");
+        // Print DEPRECATED notice.
+        if (method.deprecatedAttribute != null) this.println("    /** @deprecated */");
 
-            // Print method annotations.
-            {
-                RuntimeInvisibleAnnotationsAttribute riaa = method.runtimeInvisibleAnnotationsAttribute;
-                if (riaa != null) {
-                    for (Annotation a : riaa.annotations) this.println("    " + a.toString());
-                }
+        // Print method annotations.
+        {
+            RuntimeInvisibleAnnotationsAttribute riaa = method.runtimeInvisibleAnnotationsAttribute;
+            if (riaa != null) {
+                for (Annotation a : riaa.annotations) this.println("    " + a.toString());
             }
-            {
-                RuntimeVisibleAnnotationsAttribute rvaa = method.runtimeVisibleAnnotationsAttribute;
-                if (rvaa != null) {
-                    for (Annotation a : rvaa.annotations) this.println("    " + a.toString());
-                }
+        }
+        {
+            RuntimeVisibleAnnotationsAttribute rvaa = method.runtimeVisibleAnnotationsAttribute;
+            if (rvaa != null) {
+                for (Annotation a : rvaa.annotations) this.println("    " + a.toString());
             }
+        }
 
-            // Print method access flags.
-            {
-
-                // Remove "pseudo modifiers" - these are handled elsewhere.
-                AccessFlags maf = (
-                    method.accessFlags
-                    .remove(SYNTHETIC) // <= Has already been reported above
-                    .remove(BRIDGE)    // <= Has already been reported above
-                    .remove(VARARGS)   // <= Is handled below
-                );
+        // Print method access flags.
+        {
 
-                // Remove redundant modifiers "public abstract" from interface mathods.
-                if (method.getClassFile().accessFlags.is(INTERFACE)) {
-                    maf = maf.remove(PUBLIC).remove(ABSTRACT);
-                }
+            // Remove "pseudo modifiers" - these are handled elsewhere.
+            AccessFlags maf = (
+                method.accessFlags
+                .remove(SYNTHETIC) // <= Has already been reported above
+                .remove(BRIDGE)    // <= Has already been reported above
+                .remove(VARARGS)   // <= Is handled below
+            );
 
-                Disassembler.this.print("    " + maf);
+            // Remove redundant modifiers "public abstract" from interface mathods.
+            if (method.getClassFile().accessFlags.is(INTERFACE)) {
+                maf = maf.remove(PUBLIC).remove(ABSTRACT);
             }
 
-            // Print formal type parameters.
-            MethodTypeSignature mts;
-            {
-                SignatureAttribute sa = method.signatureAttribute;
-                mts = (
-                    sa == null
-                    ? this.decodeMethodDescriptor(method.descriptor)
-                    : this.decodeMethodTypeSignature(sa.signature)
-                );
-                if (!mts.formalTypeParameters.isEmpty()) {
-                    Iterator<FormalTypeParameter> it = mts.formalTypeParameters.iterator();
-                    this.print("<" + it.next());
-                    while (it.hasNext()) this.print(", " + it.next());
-                    this.print(">");
-                }
-            }
+            Disassembler.this.print("    " + maf);
+        }
 
-            List<ConstantClassInfo> exceptionNames;
-            {
-                ExceptionsAttribute ea = method.exceptionsAttribute;
-                exceptionNames = ea == null ? Disassembler.NO_CONSTANT_CLASS_INFOS : ea.exceptionNames;
+        // Print formal type parameters.
+        MethodTypeSignature mts;
+        {
+            SignatureAttribute sa = method.signatureAttribute;
+            mts = (
+                sa == null
+                ? this.decodeMethodDescriptor(method.descriptor)
+                : this.decodeMethodTypeSignature(sa.signature)
+            );
+            if (!mts.formalTypeParameters.isEmpty()) {
+                Iterator<FormalTypeParameter> it = mts.formalTypeParameters.iterator();
+                this.print("<" + it.next());
+                while (it.hasNext()) this.print(", " + it.next());
+                this.print(">");
             }
+        }
 
-            String functionName = method.name;
-            if (
-                "<clinit>".equals(functionName)
-                && method.accessFlags.is(STATIC)
-                && exceptionNames.isEmpty()
-                && mts.formalTypeParameters.isEmpty()
-                && mts.parameterTypes.isEmpty()
-                && mts.returnType == SignatureParser.VOID
-                && mts.thrownTypes.isEmpty()
-            ) {
-
-                // Need to do NOTHING here because "static" has already been printed, and "{" will be printed later.
-                ;
-            } else
-            if (
-                "<init>".equals(functionName)
-                && !method.accessFlags.isAny(ABSTRACT, FINAL, INTERFACE, STATIC) // <= forbidden for construtors.
-                && mts.formalTypeParameters.isEmpty()
-                && mts.returnType == SignatureParser.VOID
-            ) {
-
-                // Print constructor name and parameters.
-                this.print(method.getClassFile().simpleThisClassName);
-                this.printParameters(
-                    method.runtimeInvisibleParameterAnnotationsAttribute,
-                    method.runtimeVisibleParameterAnnotationsAttribute,
-                    method.methodParametersAttribute,
-                    mts.parameterTypes,
-                    method,
-                    (short) 1,
-                    method.accessFlags.is(VARARGS)
-                );
-            } else
-            {
+        List<ConstantClassInfo> exceptionNames;
+        {
+            ExceptionsAttribute ea = method.exceptionsAttribute;
+            exceptionNames = ea == null ? Disassembler.NO_CONSTANT_CLASS_INFOS : ea.exceptionNames;
+        }
 
-                // Print method return type, name and parameters.
-                this.print(mts.returnType + " ");
-                this.print(functionName);
-                this.printParameters(
-                    method.runtimeInvisibleParameterAnnotationsAttribute,
-                    method.runtimeVisibleParameterAnnotationsAttribute,
-                    method.methodParametersAttribute,
-                    mts.parameterTypes,
-                    method,
-                    method.accessFlags.is(STATIC) ? (short) 0 : (short) 1, // firstIndex
-                    method.accessFlags.is(VARARGS)                         // varargs
-                );
-            }
+        String functionName = method.name;
+        if (
+            "<clinit>".equals(functionName)
+            && method.accessFlags.is(STATIC)
+            && exceptionNames.isEmpty()
+            && mts.formalTypeParameters.isEmpty()
+            && mts.parameterTypes.isEmpty()
+            && mts.returnType == SignatureParser.VOID
+            && mts.thrownTypes.isEmpty()
+        ) {
+
+            // Need to do NOTHING here because "static" has already been printed, and "{" will be printed later.
+            ;
+        } else
+        if (
+            "<init>".equals(functionName)
+            && !method.accessFlags.isAny(ABSTRACT, FINAL, INTERFACE, STATIC) // <= forbidden for construtors.
+            && mts.formalTypeParameters.isEmpty()
+            && mts.returnType == SignatureParser.VOID
+        ) {
+
+            // Print constructor name and parameters.
+            this.print(method.getClassFile().simpleThisClassName);
+            this.printParameters(
+                method.runtimeInvisibleParameterAnnotationsAttribute,
+                method.runtimeVisibleParameterAnnotationsAttribute,
+                method.methodParametersAttribute,
+                mts.parameterTypes,
+                method,
+                (short) 1,
+                method.accessFlags.is(VARARGS)
+            );
+        } else
+        {
 
-            // Print thrown types.
-            if (!mts.thrownTypes.isEmpty()) {
-                Iterator<ThrowsSignature> it = mts.thrownTypes.iterator();
-                this.print(" throws " + it.next());
-                while (it.hasNext()) this.print(", " + it.next());
-            } else
-            if (!exceptionNames.isEmpty()) {
-                Iterator<ConstantClassInfo> it = exceptionNames.iterator();
-                this.print(" throws " + it.next());
-                while (it.hasNext()) this.print(", " + it.next());
-            }
+            // Print method return type, name and parameters.
+            this.print(mts.returnType + " ");
+            this.print(functionName);
+            this.printParameters(
+                method.runtimeInvisibleParameterAnnotationsAttribute,
+                method.runtimeVisibleParameterAnnotationsAttribute,
+                method.methodParametersAttribute,
+                mts.parameterTypes,
+                method,
+                method.accessFlags.is(STATIC) ? (short) 0 : (short) 1, // firstIndex
+                method.accessFlags.is(VARARGS)                         // varargs
+            );
+        }
 
-            // Annotation default.
-            {
-                AnnotationDefaultAttribute ada = method.annotationDefaultAttribute;
-                if (ada != null) this.print("default " + ada.defaultValue);
-            }
+        // Print thrown types.
+        if (!mts.thrownTypes.isEmpty()) {
+            Iterator<ThrowsSignature> it = mts.thrownTypes.iterator();
+            this.print(" throws " + it.next());
+            while (it.hasNext()) this.print(", " + it.next());
+        } else
+        if (!exceptionNames.isEmpty()) {
+            Iterator<ConstantClassInfo> it = exceptionNames.iterator();
+            this.print(" throws " + it.next().toString(this.signatureParser));
+            while (it.hasNext()) this.print(", " + it.next().toString(this.signatureParser));
+        }
 
-            // Code.
-            {
-                CodeAttribute ca = method.codeAttribute;
-                if (ca == null) {
-                    this.println(";");
-                } else {
-                    this.println(" {");
-                    try {
-                        new BytecodeDisassembler(
-                            new ByteArrayInputStream(ca.code),
-                            ca.exceptionTable,
-                            ca.lineNumberTableAttribute,
-                            ca.stackMapTableAttribute,
-                            sourceLines,
-                            method,
-                            mts.parameterTypes.toArray(new SignatureParser.TypeSignature[mts.parameterTypes.size()]),
-                            this
-                        ).disassembleBytecode(this.pw);
-                    } catch (IOException ignored) {
-                        ;
-                    }
-                    this.println("    }");
+        // Annotation default.
+        {
+            AnnotationDefaultAttribute ada = method.annotationDefaultAttribute;
+            if (ada != null) this.print("default " + ada.defaultValue);
+        }
 
-                    this.printAttributes(ca.unprocessedAttributes, ca.allAttributes, "    ", AttributeContext.METHOD);
-                }
-            }
+        // Code.
+        this.println(method.codeAttribute == null ? ";" : " {");
 
-            // Print method attributes.
-            this.printAttributes(
-                method.unprocessedAttributes,
-                method.allAttributes,
-                "    // ",
-                AttributeContext.METHOD
-            );
-        } catch (RuntimeException rte) {
-            throw new RuntimeException("Method '" + method.name + "' " + method.descriptor, rte);
-        }
+        return mts;
     }
 
     private void
-    disassembleFields(List<Field> fields) {
-        for (Field field : fields) {
-            this.println();
+    disassembleField(Field field) {
+        this.println();
 
-            // Print field annotations.
-            {
-                RuntimeInvisibleAnnotationsAttribute riaa = field.runtimeInvisibleAnnotationsAttribute;
-                if (riaa != null) {
-                    for (Annotation a : riaa.annotations) this.println("    " + a);
-                }
+        // Print field annotations.
+        {
+            RuntimeInvisibleAnnotationsAttribute riaa = field.runtimeInvisibleAnnotationsAttribute;
+            if (riaa != null) {
+                for (Annotation a : riaa.annotations) this.println("    " + a);
             }
-            {
-                RuntimeVisibleAnnotationsAttribute rvaa = field.runtimeVisibleAnnotationsAttribute;
-                if (rvaa != null) {
-                    for (Annotation a : rvaa.annotations) this.println("    " + a);
-                }
+        }
+        {
+            RuntimeVisibleAnnotationsAttribute rvaa = field.runtimeVisibleAnnotationsAttribute;
+            if (rvaa != null) {
+                for (Annotation a : rvaa.annotations) this.println("    " + a);
             }
+        }
 
-            // print SYNTHETIC notice.
-            if (field.accessFlags.is(SYNTHETIC) || field.syntheticAttribute != null) {
-                this.println("    // (Synthetic field)");
-            }
+        // print SYNTHETIC notice.
+        if (field.accessFlags.is(SYNTHETIC) || field.syntheticAttribute != null) {
+            this.println("    // (Synthetic field)");
+        }
 
-            // Print DEPRECATED notice.
-            if (field.deprecatedAttribute != null) this.println("    /** @deprecated */");
+        // Print DEPRECATED notice.
+        if (field.deprecatedAttribute != null) this.println("    /** @deprecated */");
 
-            // Print field access flags, type, name and initializer.
-            {
-                SignatureAttribute sa = field.signatureAttribute;
+        // Print field access flags, type, name and initializer.
+        {
+            SignatureAttribute sa = field.signatureAttribute;
 
-                TypeSignature typeSignature = (
-                    sa != null
-                    ? this.decodeFieldTypeSignature(sa.signature)
-                    : this.decodeFieldDescriptor(field.descriptor)
-                );
+            TypeSignature typeSignature = (
+                sa != null
+                ? this.decodeFieldTypeSignature(sa.signature)
+                : this.decodeFieldDescriptor(field.descriptor)
+            );
 
-                String prefix = field.accessFlags.remove(SYNTHETIC).toString() + typeSignature;
+            String prefix = field.accessFlags.remove(SYNTHETIC).toString() + typeSignature;
 
-                ConstantValueAttribute cva = field.constantValueAttribute;
-                if (cva == null) {
-                    this.printf("    %-40s %s;%n", prefix, field.name);
-                } else {
-                    this.printf("    %-40s %-15s = %s;%n", prefix, field.name, cva.constantValue);
-                }
+            ConstantValueAttribute cva = field.constantValueAttribute;
+            if (cva == null) {
+                this.printf("    %-40s %s;%n", prefix, field.name);
+            } else {
+                this.printf("    %-40s %-15s = %s;%n", prefix, field.name, cva.constantValue);
             }
-
-            // Print field attributes.
-            this.printAttributes(field.unprocessedAttributes, field.allAttributes, "    // ", AttributeContext.FIELD);
         }
+
+        // Print field attributes.
+        this.printAttributes(field.unprocessedAttributes, field.allAttributes, "    // ", AttributeContext.FIELD);
     }
 
-    private static String
+    private String
     toString(InnerClassesAttribute.ClasS c) {
 
         ConstantClassInfo oci   = c.outerClassInfo;
@@ -1010,8 +1990,14 @@ class Disassembler {
 
         return (
             oci == null
-            ? "anonymous class " + ici
-            : oci + " { " + Disassembler.typeAccessFlagsToString(icafs) + ici + " }"
+            ? "anonymous class " + ici.toString(this.signatureParser)
+            : (
+                oci.toString(this.signatureParser)
+                + " { "
+                + Disassembler.typeAccessFlagsToString(icafs)
+                + ici.toString(this.signatureParser)
+                + " }"
+            )
         );
     }
 
@@ -1067,7 +2053,7 @@ class Disassembler {
         visit(BootstrapMethodsAttribute bma) {
             Disassembler.this.println(this.prefix + "BootstrapMethods:");
             for (BootstrapMethod bm : bma.bootstrapMethods) {
-                Disassembler.this.println(this.prefix + "  " + bm);
+                Disassembler.this.println(this.prefix + "  " + bm.toString(Disassembler.this.signatureParser));
             }
         }
 
@@ -1122,7 +2108,7 @@ class Disassembler {
                 m == null
                 ? "(none)"
                 : Disassembler.this.decodeMethodDescriptor(m.descriptor.bytes).toString(
-                    ema.clasS.toString(),
+                    ema.clasS.toString(Disassembler.this.signatureParser),
                     m.name.bytes
                 )
             ));
@@ -1132,7 +2118,7 @@ class Disassembler {
         visit(ExceptionsAttribute ea) {
             Disassembler.this.println(this.prefix + "Exceptions:");
             for (ConstantClassInfo en : ea.exceptionNames) {
-                Disassembler.this.println(this.prefix + "  " + en);
+                Disassembler.this.println(this.prefix + "  " + en.toString(Disassembler.this.signatureParser));
             }
         }
 
@@ -1140,7 +2126,7 @@ class Disassembler {
         visit(InnerClassesAttribute ica) {
             Disassembler.this.println(this.prefix + "InnerClasses:");
             for (InnerClassesAttribute.ClasS c : ica.classes) {
-                Disassembler.this.println(this.prefix + "  " + Disassembler.toString(c));
+                Disassembler.this.println(this.prefix + "  " + Disassembler.this.toString(c));
             }
         }
 
@@ -1286,7 +2272,13 @@ class Disassembler {
             int bytecodeOffset = -1;
             for (StackMapFrame smf : smta.entries) {
                 bytecodeOffset += 1 + smf.offsetDelta;
-                Disassembler.this.println(this.prefix + "  " + bytecodeOffset + ": " + smf);
+                Disassembler.this.println(
+                    this.prefix
+                    + "  "
+                    + bytecodeOffset
+                    + ": "
+                    + smf.toString(Disassembler.this.signatureParser)
+                );
             }
         }
 
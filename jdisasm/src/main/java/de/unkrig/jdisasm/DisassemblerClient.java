@@ -0,0 +1,135 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * A thin client for the {@link DisassemblerDaemon}: Sends its command line to the daemon, copies the disassembly
+ * listing and the error messages that the daemon sends back to STDOUT and STDERR, and exits with the daemon's exit
+ * status.
+ */
+public final
+class DisassemblerClient {
+
+    private DisassemblerClient() {}
+
+    /**
+     * Has the {@link DisassemblerDaemon} process a command line.
+     * <dl>
+     *   <dt>{@code jdisasm-client [ -port} <var>port</var> {@code ]} <var>jdisasm-args</var></dt>
+     *   <dd>
+     *     The <var>jdisasm-args</var> are exactly those of {@link Disassembler#main(String[])}; relative file names
+     *     are resolved against the client's working directory. The {@code -port} option must come first and
+     *     defaults to {@value DisassemblerDaemon#DEFAULT_PORT}. Unlike with {@link Disassembler#main(String[])}, STDIN
+     *     is only forwarded to the daemon if one of the <var>jdisasm-args</var> is "{@code -}", and the options that
+     *     write files ({@code -o}, {@code -incremental} and {@code -xref}) are not allowed. The client authenticates
+     *     with the secret that the daemon stored in its {@link DisassemblerDaemon#secretFile() secret file}.
+     *   </dd>
+     * </dl>
+     */
+    public static void
+    main(String[] args) throws IOException {
+
+        int port = DisassemblerDaemon.DEFAULT_PORT;
+        int i    = 0;
+        if (args.length >= 2 && "-port".equals(args[0])) {
+            port = Integer.parseInt(args[1]);
+            i    = 2;
+        }
+
+        int    status;
+        Socket socket = new Socket(InetAddress.getByName(null), port);
+        try {
+
+            // Send the request.
+            OutputStream os = new BufferedOutputStream(socket.getOutputStream());
+            DisassemblerDaemon.writeLine(os, DisassemblerDaemon.PROTOCOL_VERSION);
+            DisassemblerDaemon.writeLine(os, DisassemblerDaemon.readSecret(DisassemblerDaemon.secretFile()));
+            DisassemblerDaemon.writeLine(os, System.getProperty("user.dir"));
+            boolean readsStdin = false;
+            for (; i < args.length; i++) {
+                DisassemblerDaemon.writeLine(os, args[i]);
+                if ("-".equals(args[i])) readsStdin = true;
+            }
+            DisassemblerDaemon.writeLine(os, "");
+            if (readsStdin) DisassemblerClient.copy(System.in, os);
+            os.flush();
+            socket.shutdownOutput();
+
+            // Stream the response to STDOUT and STDERR.
+            status = DisassemblerClient.receive(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+        } finally {
+            try { socket.close(); } catch (IOException ioe) {}
+        }
+
+        System.exit(status);
+    }
+
+    /**
+     * Copies the records of the response to STDOUT and STDERR.
+     *
+     * @return The exit status that the daemon sent
+     */
+    private static int
+    receive(DataInputStream dis) throws IOException {
+        byte[] buffer = new byte[8192];
+        try {
+            for (;;) {
+                int type = dis.read();
+                if (type == -1) throw new EOFException("Daemon closed the connection without an exit status");
+                if (type == DisassemblerDaemon.EXIT) return dis.readUnsignedByte();
+
+                int length = dis.readInt();
+                if (length > buffer.length) buffer = new byte[length];
+                dis.readFully(buffer, 0, length);
+                (type == DisassemblerDaemon.STDERR ? System.err : System.out).write(buffer, 0, length);
+            }
+        } finally {
+            System.out.flush();
+            System.err.flush();
+        }
+    }
+
+    private static void
+    copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        for (;;) {
+            int n = in.read(buffer);
+            if (n == -1) return;
+            out.write(buffer, 0, n);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-lived process that accepts disassembly requests on a loopback TCP port and streams the disassembly listing
+ * back to the requester. Keeping the JVM running saves the JVM startup and JIT warmup that dominate short
+ * disassembler runs. See {@link DisassemblerClient} for the matching client.
+ * <p>
+ *   Each connection carries exactly one request:
+ * </p>
+ * <ol>
+ *   <li>The line "{@value #PROTOCOL_VERSION}"</li>
+ *   <li>One line with the shared secret (see below)</li>
+ *   <li>One line with the client's working directory, which is used to resolve relative file names</li>
+ *   <li>One line per command line argument, exactly as for {@link Disassembler#main(String[])}</li>
+ *   <li>An empty line</li>
+ *   <li>The data that the disassembler reads for the "{@code -}" (STDIN) argument, if any</li>
+ * </ol>
+ * <p>
+ *   All lines are UTF-8-encoded and terminated with a line feed. The version and secret lines must not exceed
+ *   {@value #MAX_HEADER_LINE_LENGTH} bytes, and the other lines {@value #MAX_ARGUMENT_LINE_LENGTH} bytes. The server
+ *   responds with a sequence of records, and then closes the connection:
+ * </p>
+ * <dl>
+ *   <dt>{@code 'O'} <var>u4-length</var> <var>bytes</var></dt>
+ *   <dd>A chunk of the disassembler's STDOUT (the disassembly listing)</dd>
+ *   <dt>{@code 'E'} <var>u4-length</var> <var>bytes</var></dt>
+ *   <dd>A chunk of the disassembler's STDERR (error messages and summaries)</dd>
+ *   <dt>{@code 'X'} <var>u1-status</var></dt>
+ *   <dd>The last record: The exit status; 0 iff the request succeeded</dd>
+ * </dl>
+ * <p>
+ *   Requests are processed concurrently by a fixed number of worker threads. A client that does not complete the
+ *   authentication within the {@link #DEFAULT_AUTHENTICATION_TIMEOUT} is disconnected, so that idle connections
+ *   cannot block the workers.
+ * </p>
+ * <p>
+ *   Because any local user can connect to a loopback port, each request must carry a shared secret, which the
+ *   daemon creates in the {@link #secretFile() secret file} in the user's home directory, readable only by its owner.
+ *   Requests with the wrong secret are rejected. Also, because the daemon runs with its owner's privileges, it runs
+ *   the disassembler in "server mode", which rejects the options that would make it write files ("{@code -o}",
+ *   "{@code -incremental}" and "{@code -xref}").
+ * </p>
+ */
+public final
+class DisassemblerDaemon {
+
+    private DisassemblerDaemon() {}
+
+    /**
+     * The first line of each request.
+     */
+    public static final String PROTOCOL_VERSION = "jdisasm-3";
+
+    /**
+     * The record types of the response.
+     */
+    static final int STDOUT = 'O', STDERR = 'E', EXIT = 'X';
+
+    /**
+     * The TCP port that the daemon listens on by default.
+     */
+    public static final int DEFAULT_PORT = 7341;
+
+    /**
+     * The default number of milliseconds that the daemon waits for a client to send the protocol version and the
+     * secret.
+     */
+    public static final int DEFAULT_AUTHENTICATION_TIMEOUT = 10000;
+
+    /**
+     * The maximum length of the protocol version line and the secret line, which the daemon reads before the request
+     * is authenticated.
+     */
+    static final int MAX_HEADER_LINE_LENGTH = 256;
+
+    /**
+     * The maximum length of the working directory line and of each argument line.
+     */
+    static final int MAX_ARGUMENT_LINE_LENGTH = 65536;
+
+    /**
+     * Listens for disassembly requests.
+     * <dl>
+     *   <dt>{@code jdisasm-daemon [} <var>options</var> {@code ]}</dt>
+     * </dl>
+     * <h3>Options</h3>
+     * <dl>
+     *   <dt>{@code -port} <var>port</var></dt>
+     *   <dd>
+     *     The loopback TCP port to listen on (defaults to {@value #DEFAULT_PORT})
+     *   </dd>
+     *   <dt>{@code -threads} <var>n</var></dt>
+     *   <dd>
+     *     The number of requests to process concurrently (defaults to the number of available processors)
+     *   </dd>
+     *   <dt>{@code -help}</dt>
+     *   <dd>
+     *     Print this text and exit
+     *   </dd>
+     * </dl>
+     */
+    public static void
+    main(String[] args) throws IOException {
+
+        // To disassemble .class files in zip (.jar, .ear, ...) archives, register a stream handler for the 'zip'
+        // scheme.
+        de.unkrig.jdisasm.protocol.zip.Handler.registerMe();
+
+        int port    = DisassemblerDaemon.DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+
+            if ("-port".equals(arg)) {
+                port = Integer.parseInt(args[++i]);
+            } else
+            if ("-threads".equals(arg)) {
+                threads = Integer.parseInt(args[++i]);
+            } else
+            if ("-help".equals(arg)) {
+
+                System.out.printf((
+                    ""
+                    + "Accepts disassembly requests from \"%2$s\" on a loopback TCP port.%n"
+                    + "Usage:%n"
+                    + "  java %1$s [ <option> ] ...%n"
+                    + "Valid options are:%n"
+                    + "  -port <port>             The port to listen on (default %3$d).%n"
+                    + "  -threads <n>             The number of requests to process concurrently%n"
+                    + "                           (default: number of processors).%n"
+                    + "  -help                    Print this text and exit.%n"
+                ),
+                    DisassemblerDaemon.class.getName(),
+                    DisassemblerClient.class.getName(),
+                    DisassemblerDaemon.DEFAULT_PORT
+                );
+
+                System.exit(0);
+            } else
+            {
+                System.err.println("Unrecognized command line option \"" + arg + "\"; try \"-help\".");
+                System.exit(1);
+            }
+        }
+
+        DisassemblerDaemon.serve(
+            new ServerSocket(port, 50, InetAddress.getByName(null)),
+            threads,
+            DisassemblerDaemon.createSecret(DisassemblerDaemon.secretFile())
+        );
+    }
+
+    /**
+     * @return The file "{@code .jdisasm-daemon-secret}" in the user's home directory
+     */
+    public static File
+    secretFile() { return new File(System.getProperty("user.home"), ".jdisasm-daemon-secret"); }
+
+    /**
+     * Writes a new, random secret to the <var>file</var>, which only its owner can read and write.
+     *
+     * @return The secret
+     */
+    public static String
+    createSecret(File file) throws IOException {
+
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) sb.append(Character.forDigit(0xf & (b >> 4), 16)).append(Character.forDigit(0xf & b, 16));
+        String secret = sb.toString();
+
+        // Restrict the permissions before the secret is written. (On Windows, the permissions cannot be set with
+        // "java.io.File", but the user's home directory is private anyway.)
+        if (file.exists() && !file.delete()) throw new IOException("Could not delete '" + file + "'");
+        if (!file.createNewFile()) throw new IOException("Could not create '" + file + "'");
+        if (File.separatorChar != '\\' && !(
+            file.setReadable(false, false)
+            && file.setWritable(false, false)
+            && file.setReadable(true, true)
+            && file.setWritable(true, true)
+        )) throw new IOException("Could not restrict the permissions of '" + file + "' to the owner");
+
+        OutputStream os = new FileOutputStream(file);
+        try {
+            DisassemblerDaemon.writeLine(os, secret);
+        } finally {
+            os.close();
+        }
+        return secret;
+    }
+
+    /**
+     * @return The secret that {@link #createSecret(File)} wrote to the <var>file</var>
+     */
+    public static String
+    readSecret(File file) throws IOException {
+        InputStream is = new FileInputStream(file);
+        try {
+            return DisassemblerDaemon.readLine(is, DisassemblerDaemon.MAX_HEADER_LINE_LENGTH);
+        } finally {
+            try { is.close(); } catch (IOException ex) {}
+        }
+    }
+
+    /**
+     * Accepts connections on the <var>serverSocket</var> and processes their requests, until the
+     * <var>serverSocket</var> is closed.
+     *
+     * @param secret Requests that do not carry this secret are rejected
+     */
+    public static void
+    serve(ServerSocket serverSocket, int threads, String secret) throws IOException {
+        DisassemblerDaemon.serve(serverSocket, threads, secret, DisassemblerDaemon.DEFAULT_AUTHENTICATION_TIMEOUT);
+    }
+
+    /**
+     * Accepts connections on the <var>serverSocket</var> and processes their requests, until the
+     * <var>serverSocket</var> is closed.
+     *
+     * @param secret                Requests that do not carry this secret are rejected
+     * @param authenticationTimeout The number of milliseconds to wait for the protocol version and the secret of each
+     *                              request
+     */
+    public static void
+    serve(ServerSocket serverSocket, int threads, final String secret, int authenticationTimeout)
+    throws IOException {
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            for (;;) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                    socket.setSoTimeout(authenticationTimeout);
+                } catch (IOException ioe) {
+                    if (serverSocket.isClosed()) return;
+                    throw ioe;
+                }
+
+                executorService.execute(new Runnable() {
+
+                    @Override public void
+                    run() {
+                        try {
+                            DisassemblerDaemon.processRequest(socket, secret);
+                        } catch (Exception e) {
+                            ; // The client has most likely gone away; nothing we can do about that.
+                        } finally {
+                            try { socket.close(); } catch (IOException ioe) {}
+                        }
+                    }
+                });
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static void
+    processRequest(Socket socket, String secret) throws IOException {
+
+        InputStream      in  = socket.getInputStream();
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        PrintStream      out = new PrintStream(new BufferedOutputStream(
+            new RecordOutputStream(dos, DisassemblerDaemon.STDOUT)
+        ));
+        PrintStream err    = new PrintStream(new RecordOutputStream(dos, DisassemblerDaemon.STDERR), true);
+        int         status = 1;
+        try {
+
+            String version = DisassemblerDaemon.readLine(in, DisassemblerDaemon.MAX_HEADER_LINE_LENGTH);
+            if (!DisassemblerDaemon.PROTOCOL_VERSION.equals(version)) {
+                err.println("*** Error: Unsupported protocol \"" + version + "\"");
+                return;
+            }
+
+            if (!MessageDigest.isEqual(
+                secret.getBytes("UTF-8"),
+                DisassemblerDaemon.readLine(in, DisassemblerDaemon.MAX_HEADER_LINE_LENGTH).getBytes("UTF-8")
+            )) {
+                err.println("*** Error: Wrong secret; see \"" + DisassemblerDaemon.secretFile() + "\"");
+                return;
+            }
+
+            // Authenticated clients may take as long as they like, e.g. to stream STDIN data.
+            socket.setSoTimeout(0);
+
+            File baseDirectory = new File(DisassemblerDaemon.readLine(in, DisassemblerDaemon.MAX_ARGUMENT_LINE_LENGTH));
+
+            List<String> args = new ArrayList<String>();
+            for (;;) {
+                String arg = DisassemblerDaemon.readLine(in, DisassemblerDaemon.MAX_ARGUMENT_LINE_LENGTH);
+                if (arg.length() == 0) break;
+                args.add(arg);
+            }
+
+            try {
+                if (Disassembler.run(args.toArray(new String[args.size()]), baseDirectory, true, in, out, err)) {
+                    status = 0;
+                }
+            } catch (Exception e) {
+                out.flush();
+                err.println("*** Error: " + e);
+            }
+        } catch (IOException ioe) {
+            err.println("*** Error: Invalid request: " + ioe.getMessage());
+        } finally {
+            out.flush();
+            err.flush();
+            dos.writeByte(DisassemblerDaemon.EXIT);
+            dos.writeByte(status);
+            dos.flush();
+        }
+    }
+
+    /**
+     * Writes each chunk of data as one response record of the given type.
+     */
+    private static
+    class RecordOutputStream extends OutputStream {
+
+        private final DataOutputStream dos;
+        private final int              type;
+
+        RecordOutputStream(DataOutputStream dos, int type) {
+            this.dos  = dos;
+            this.type = type;
+        }
+
+        @Override public void
+        write(int b) throws IOException { this.write(new byte[] { (byte) b }, 0, 1); }
+
+        @Override public void
+        write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            synchronized (this.dos) {
+                this.dos.writeByte(this.type);
+                this.dos.writeInt(len);
+                this.dos.write(b, off, len);
+            }
+        }
+
+        @Override public void
+        flush() throws IOException {
+            synchronized (this.dos) { this.dos.flush(); }
+        }
+    }
+
+    /**
+     * Reads one UTF-8-encoded, LF-terminated line; unlike {@link java.io.BufferedReader#readLine()}, this does not
+     * read beyond the end of the line, so the remaining bytes of the <var>in</var> stay available as the STDIN
+     * of the disassembler.
+     *
+     * @param maxLength     The maximum number of bytes of the line, excluding the line feed
+     * @throws IOException  The line is longer than <var>maxLength</var> bytes
+     */
+    private static String
+    readLine(InputStream in, int maxLength) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (;;) {
+            int b = in.read();
+            if (b == -1) throw new EOFException("Unexpected end of request");
+            if (b == '\n') return new String(baos.toByteArray(), "UTF-8");
+            if (baos.size() == maxLength) throw new IOException("Request line exceeds " + maxLength + " bytes");
+            baos.write(b);
+        }
+    }
+
+    /**
+     * Writes one line in the format that {@link #readLine(InputStream, int)} expects.
+     */
+    static void
+    writeLine(OutputStream out, String line) throws IOException {
+        if (line.indexOf('\n') != -1) throw new IllegalArgumentException("Line feed in \"" + line + "\"");
+        out.write(line.getBytes("UTF-8"));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,137 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.util.List;
+
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+import de.unkrig.jdisasm.ClassFile.Field;
+import de.unkrig.jdisasm.ClassFile.Method;
+
+/**
+ * Receives the events that a {@link ClassFileWalker} emits while it traverses a {@link ClassFile}. The events arrive
+ * in this order:
+ * <pre>
+ * beginClass
+ * field*
+ * (
+ *   beginMethod
+ *   (
+ *     beginCode
+ *     ((tryEnd* tryStart* lineNumber? instruction)*)?  // Only iff "beginCode()" returned true
+ *     (endCode | codeFailed)                           // "codeFailed" only iff the walker has an error summary
+ *   )?
+ *   endMethod
+ * )*
+ * endClass
+ * </pre>
+ * <p>
+ *   The text, JSON and binary output formats are implemented as sinks. A sink that needs only part of the
+ *   information, e.g. for counting or searching, never pays for the rendering of the rest; see {@link
+ *   AbstractDisassemblySink}.
+ * </p>
+ */
+public
+interface DisassemblySink {
+
+    /**
+     * The beginning of a class file.
+     */
+    void beginClass(ClassFile cf) throws IOException;
+
+    /**
+     * One field of the class; all fields are reported before the first method.
+     */
+    void field(Field field) throws IOException;
+
+    /**
+     * The beginning of a method.
+     */
+    void beginMethod(Method method) throws IOException;
+
+    /**
+     * The beginning of the {@code Code} attribute of the current method.
+     *
+     * @return Whether the instructions should be decoded; if {@code false}, then the walker skips right to {@link
+     *         #endCode(Method, CodeAttribute)}
+     */
+    boolean beginCode(Method method, CodeAttribute codeAttribute) throws IOException;
+
+    /**
+     * The end of a TRY body, reported immediately before the instruction at offset <var>pc</var>. All
+     * <var>entries</var> have the same {@link ExceptionTableEntry#startPc startPc} and {@link
+     * ExceptionTableEntry#endPc endPc}, which is less than <var>pc</var> iff it does not point to the beginning of an
+     * instruction.
+     */
+    void tryEnd(List<ExceptionTableEntry> entries, int pc) throws IOException;
+
+    /**
+     * The beginning of a TRY body, reported immediately before the instruction at offset <var>pc</var>, and after
+     * all {@link #tryEnd(List, int)} events for the same instruction. TRY bodies that begin at the same offset are
+     * reported outermost first. The <var>startPc</var> is less than <var>pc</var> iff it does not point to the
+     * beginning of an instruction.
+     */
+    void tryStart(int startPc, int endPc, int pc) throws IOException;
+
+    /**
+     * The source line number of the instruction at offset <var>pc</var>, as declared by the {@code
+     * LineNumberTable} attribute.
+     */
+    void lineNumber(int lineNumber, int pc) throws IOException;
+
+    /**
+     * One decoded instruction. The <var>instruction</var> object is reused for the next instruction, so a sink must
+     * not keep a reference to it.
+     */
+    void instruction(Instruction instruction) throws IOException;
+
+    /**
+     * Reported instead of {@link #endCode(Method, CodeAttribute) endCode} iff the walker has an {@link
+     * ClassFileWalker#setErrorSummary(ErrorSummary) error summary}, and the code of the current method cannot be
+     * decoded. The instructions before the failure have already been reported.
+     *
+     * @param message Describes what went wrong
+     */
+    void codeFailed(Method method, CodeAttribute codeAttribute, String message) throws IOException;
+
+    /**
+     * The end of the {@code Code} attribute of the current method.
+     */
+    void endCode(Method method, CodeAttribute codeAttribute) throws IOException;
+
+    /**
+     * The end of a method.
+     */
+    void endMethod(Method method) throws IOException;
+
+    /**
+     * The end of a class file.
+     */
+    void endClass(ClassFile cf) throws IOException;
+}
@@ -0,0 +1,137 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * Collects the failures of a bulk run, so that one corrupt class file does not abort the processing of all the
+ * others. Where an error summary is configured (see e.g. {@link Disassembler#setErrorSummary(ErrorSummary)} and
+ * {@link ClassFileScanner#setErrorSummary(ErrorSummary)}), a class file that cannot be processed is recorded here and
+ * skipped, and a method whose code cannot be decoded is recorded here and rendered without its instructions.
+ * <p>
+ *   Instances are thread-safe.
+ * </p>
+ */
+public
+class ErrorSummary {
+
+    /**
+     * One failure of one class file or one method.
+     */
+    public static final
+    class Failure {
+
+        /**
+         * The class file's path, "<var>archive</var>{@code !}<var>entry</var>", URL or class name.
+         */
+        public final String location;
+
+        /**
+         * The name and descriptor of the method that failed, or {@code null} iff the entire class file failed.
+         */
+        @Nullable public final String member;
+
+        /**
+         * Describes what went wrong.
+         */
+        public final String message;
+
+        Failure(String location, @Nullable String member, String message) {
+            this.location = location;
+            this.member   = member;
+            this.message  = message;
+        }
+
+        /**
+         * E.g. "{@code com/acme/Foo.class: Wrong magic number 0xcafebabf}" or "{@code com.acme.Foo.bar(I)V: #12:
+         * Invalid opcode 255}".
+         */
+        @Override public String
+        toString() {
+            return this.location + (this.member == null ? "" : "." + this.member) + ": " + this.message;
+        }
+    }
+
+    private final List<Failure> failures = new ArrayList<Failure>();
+    private int                 classCount, methodCount;
+
+    /**
+     * Records that the class file at <var>location</var> (or, iff <var>member</var> is not {@code null}, one of its
+     * methods) failed with the given exception.
+     */
+    public synchronized void
+    add(String location, @Nullable String member, Throwable t) {
+        this.failures.add(new Failure(location, member, ErrorSummary.message(t)));
+        if (member == null) {
+            this.classCount++;
+        } else {
+            this.methodCount++;
+        }
+    }
+
+    /**
+     * @return The failures recorded so far, in the order they were recorded
+     */
+    public synchronized List<Failure>
+    getFailures() { return new ArrayList<Failure>(this.failures); }
+
+    /**
+     * @return Whether no failures were recorded
+     */
+    public synchronized boolean
+    isEmpty() { return this.failures.isEmpty(); }
+
+    /**
+     * Prints a one-line summary, followed by all failures, one per line.
+     */
+    public synchronized void
+    print(PrintStream ps) {
+        ps.println(this);
+        for (Failure f : this.failures) ps.println("  " + f);
+    }
+
+    /**
+     * E.g. "{@code 2 classes and 1 methods failed}".
+     */
+    @Override public synchronized String
+    toString() { return this.classCount + " classes and " + this.methodCount + " methods failed"; }
+
+    /**
+     * @return The message of the <var>t</var>, or, if that is not very descriptive, its class name and message
+     */
+    static String
+    message(Throwable t) {
+        String message = t.getMessage();
+        return t instanceof IOException && message != null ? message : t.toString();
+    }
+}
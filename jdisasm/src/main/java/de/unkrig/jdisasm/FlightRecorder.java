@@ -0,0 +1,155 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * Emits <a href="https://docs.oracle.com/en/java/javase/11/docs/api/jdk.jfr/jdk/jfr/package-summary.html">JDK Flight
+ * Recorder</a> events for long-running bulk disassemblies. On runtimes without JFR (and if the JFR-specific classes,
+ * which require Java 11, were not compiled), all methods are no-ops.
+ * <p>
+ *   Each event is begun with a {@code begin*()} method, and ended and committed with the corresponding {@code
+ *   end*()} method, passing the handle that the {@code begin*()} method returned.
+ * </p>
+ */
+public abstract
+class FlightRecorder {
+
+    /**
+     * Emits no events at all.
+     */
+    public static final FlightRecorder NOP = new FlightRecorder() {
+
+        @Override @Nullable public Object
+        beginClassDisassembled() { return null; }
+
+        @Override public void
+        endClassDisassembled(@Nullable Object event, String className, long byteSize, long instructionCount) {}
+
+        @Override @Nullable public Object
+        beginMethodRendered() { return null; }
+
+        @Override public void
+        endMethodRendered(
+            @Nullable Object event,
+            String           className,
+            String           methodName,
+            String           methodDescriptor,
+            long             byteSize,
+            long             instructionCount
+        ) {}
+
+        @Override @Nullable public Object
+        beginSourceFileLoaded() { return null; }
+
+        @Override public void
+        endSourceFileLoaded(@Nullable Object event, String path, long byteSize, long lineCount) {}
+
+        @Override @Nullable public Object
+        beginArchiveOpened() { return null; }
+
+        @Override public void
+        endArchiveOpened(@Nullable Object event, String archive, String entryName, long entriesSkipped) {}
+    };
+
+    /**
+     * The instance to use; either the JFR-backed implementation or {@link #NOP}. (Must be declared after {@link #NOP},
+     * which {@link #load()} may return.)
+     */
+    public static final FlightRecorder INSTANCE = FlightRecorder.load();
+
+    FlightRecorder() {}
+
+    /**
+     * Begins the "class disassembled" event.
+     */
+    @Nullable public abstract Object
+    beginClassDisassembled();
+
+    /**
+     * @param byteSize The size of the class file, or -1 if unknown
+     */
+    public abstract void
+    endClassDisassembled(@Nullable Object event, String className, long byteSize, long instructionCount);
+
+    /**
+     * Begins the "method rendered" event.
+     */
+    @Nullable public abstract Object
+    beginMethodRendered();
+
+    /**
+     * @param methodDescriptor E.g. {@code "()Ljava/lang/String;"}
+     * @param byteSize         The size of the method's bytecode
+     */
+    public abstract void
+    endMethodRendered(
+        @Nullable Object event,
+        String           className,
+        String           methodName,
+        String           methodDescriptor,
+        long             byteSize,
+        long             instructionCount
+    );
+
+    /**
+     * Begins the "source file loaded" event.
+     */
+    @Nullable public abstract Object
+    beginSourceFileLoaded();
+
+    /***/
+    public abstract void
+    endSourceFileLoaded(@Nullable Object event, String path, long byteSize, long lineCount);
+
+    /**
+     * Begins the "archive opened" event.
+     */
+    @Nullable public abstract Object
+    beginArchiveOpened();
+
+    /**
+     * @param entriesSkipped How many entries preceded the <var>entryName</var> in the archive
+     */
+    public abstract void
+    endArchiveOpened(@Nullable Object event, String archive, String entryName, long entriesSkipped);
+
+    private static FlightRecorder
+    load() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (FlightRecorder) (
+                Class.forName("de.unkrig.jdisasm.JfrFlightRecorder").getDeclaredConstructor().newInstance()
+            );
+        } catch (Exception e) {
+            return FlightRecorder.NOP;
+        } catch (LinkageError le) {
+            return FlightRecorder.NOP;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Disassembles all class files under one or more input directories into an output directory tree, with one listing
+ * per class file.
+ * <p>
+ *   A manifest in the output directory records the size, modification time and content hash of each class file
+ *   processed. On subsequent runs, only those class files are re-disassembled whose fingerprint has changed, and the
+ *   listings of class files that no longer exist are deleted. If the configuration of the {@link Disassembler} changes
+ *   between runs, then all class files are re-disassembled.
+ * </p>
+ * <p>
+ *   If the {@link Disassembler} has an {@link Disassembler#setErrorSummary(ErrorSummary) error summary}, then class
+ *   files that cannot be disassembled are recorded there and skipped; they get no listing and no manifest entry, and
+ *   are thus retried on the next run.
+ * </p>
+ */
+public
+class IncrementalDisassembler {
+
+    /**
+     * The name of the manifest file in the output directory.
+     */
+    public static final String MANIFEST_FILE_NAME = ".jdisasm-manifest";
+
+    /**
+     * The file name suffix of the generated listings; replaces the "{@code .class}" suffix of the class file.
+     */
+    public static final String LISTING_SUFFIX = ".disasm";
+
+    private static final String MANIFEST_HEADER = "// jdisasm incremental manifest";
+    private static final String OPTIONS_PREFIX  = "options=";
+
+    private final Disassembler disassembler;
+    private final File         outputDirectory;
+
+    // Statistics of the last run.
+    private int added, changed, unchanged, removed, failed;
+
+    /**
+     * @param disassembler    Is used to generate the listings
+     * @param outputDirectory Where the listings and the manifest are stored; is created if it does not exist
+     */
+    public
+    IncrementalDisassembler(Disassembler disassembler, File outputDirectory) {
+        this.disassembler    = disassembler;
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Brings the listings in the output directory up to date with the class files under the
+     * <var>inputDirectories</var>. The listing of "{@code <var>inputDirectory</var>/pkg/Foo.class}" is stored in
+     * "{@code <var>outputDirectory</var>/pkg/Foo.disasm}"; thus the input directories must not contain class files with
+     * equal relative paths.
+     */
+    public void
+    disasm(File... inputDirectories) throws IOException {
+
+        this.added = this.changed = this.unchanged = this.removed = this.failed = 0;
+
+        String configuration = this.disassembler.getConfiguration().toString();
+
+        // Read the manifest of the previous run, if any. Iff the configuration has changed since then, the old
+        // fingerprints are worthless.
+        Map<String, Fingerprint> oldManifest = new TreeMap<String, Fingerprint>();
+        boolean                  reuse       = this.readManifest(oldManifest, configuration);
+
+        // Scan the input directories.
+        Map<String, File> classFiles = new TreeMap<String, File>();
+        for (File inputDirectory : inputDirectories) {
+            if (!inputDirectory.isDirectory()) {
+                throw new FileNotFoundException("Input directory '" + inputDirectory + "' does not exist");
+            }
+            IncrementalDisassembler.findClassFiles(inputDirectory, "", classFiles);
+        }
+
+        Map<String, Fingerprint> newManifest = new TreeMap<String, Fingerprint>();
+        for (Entry<String, File> e : classFiles.entrySet()) {
+            String path      = e.getKey();
+            File   classFile = e.getValue();
+
+            Fingerprint oldFingerprint = reuse ? oldManifest.get(path) : null;
+            long        size           = classFile.length();
+            long        lastModified   = classFile.lastModified();
+
+            // Size and modification time unchanged? Then don't even read the class file.
+            if (
+                oldFingerprint != null
+                && oldFingerprint.size == size
+                && oldFingerprint.lastModified == lastModified
+                && this.listingFile(path).exists()
+            ) {
+                newManifest.put(path, oldFingerprint);
+                this.unchanged++;
+                continue;
+            }
+
+            byte[] bytes = IncrementalDisassembler.readFully(classFile);
+            String hash  = IncrementalDisassembler.hash(bytes);
+
+            // Content unchanged (e.g. the file was only "touched")? Then only update the manifest.
+            if (oldFingerprint != null && oldFingerprint.hash.equals(hash) && this.listingFile(path).exists()) {
+                newManifest.put(path, new Fingerprint(bytes.length, lastModified, hash));
+                this.unchanged++;
+                continue;
+            }
+
+            if (!this.disasm(classFile, bytes, this.listingFile(path))) {
+                this.failed++;
+                continue;
+            }
+            newManifest.put(path, new Fingerprint(bytes.length, lastModified, hash));
+            if (oldManifest.containsKey(path)) {
+                this.changed++;
+            } else {
+                this.added++;
+            }
+        }
+
+        // Delete the listings of class files that have disappeared.
+        for (String path : oldManifest.keySet()) {
+            if (classFiles.containsKey(path)) continue;
+
+            File listingFile = this.listingFile(path);
+            if (listingFile.exists() && !listingFile.delete()) {
+                throw new IOException("Could not delete obsolete listing '" + listingFile + "'");
+            }
+            IncrementalDisassembler.deleteEmptyDirectories(listingFile.getParentFile(), this.outputDirectory);
+            this.removed++;
+        }
+
+        this.writeManifest(newManifest, configuration);
+    }
+
+    /**
+     * @return A one-line summary of the last {@link #disasm(File...)} run
+     */
+    @Override public String
+    toString() {
+        return (
+            this.added
+            + " added, "
+            + this.changed
+            + " changed, "
+            + this.removed
+            + " removed, "
+            + this.unchanged
+            + " unchanged"
+            + (this.failed == 0 ? "" : ", " + this.failed + " failed")
+        );
+    }
+
+    /**
+     * @return Whether the listing was created; {@code false} iff the disassembly failed and was recorded in the
+     *         disassembler's error summary
+     */
+    private boolean
+    disasm(File classFile, byte[] bytes, File listingFile) throws IOException {
+
+        File dir = listingFile.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory '" + dir + "'");
+        }
+
+        PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(listingFile), "UTF-8"));
+        boolean     ok = false;
+        try {
+            ErrorSummary es = this.disassembler.getErrorSummary();
+            try {
+                this.disassembler.disasm(new ByteArrayInputStream(bytes), pw);
+            } catch (IOException ioe) {
+                if (es != null) {
+                    es.add(classFile.getPath(), null, ioe);
+                    return false;
+                }
+                IOException ioe2 = new IOException("Disassembling '" + classFile + "': " + ioe.getMessage());
+                ioe2.initCause(ioe);
+                throw ioe2; // SUPPRESS CHECKSTYLE AvoidHidingCause
+            } catch (RuntimeException re) {
+                if (es != null) {
+                    es.add(classFile.getPath(), null, re);
+                    return false;
+                }
+                throw new RuntimeException("Disassembling '" + classFile + "': " + re.getMessage(), re);
+            }
+            if (pw.checkError()) throw new IOException("Error writing '" + listingFile + "'");
+            ok = true;
+        } finally {
+            pw.close();
+
+            // Don't leave a partial listing behind; it would be taken for up-to-date on the next run.
+            if (!ok) listingFile.delete();
+        }
+        return true;
+    }
+
+    private File
+    listingFile(String classFilePath) {
+        return new File(
+            this.outputDirectory,
+            classFilePath.substring(0, classFilePath.length() - 6).replace('/', File.separatorChar)
+            + IncrementalDisassembler.LISTING_SUFFIX
+        );
+    }
+
+    /**
+     * Adds all class files under <var>dir</var> to the <var>result</var>, keyed by their slash-separated path
+     * relative to the input directory.
+     */
+    private static void
+    findClassFiles(File dir, String pathPrefix, Map<String, File> result) throws IOException {
+
+        File[] members = dir.listFiles();
+        if (members == null) throw new IOException("Could not list directory '" + dir + "'");
+        Arrays.sort(members);
+
+        for (File member : members) {
+            String path = pathPrefix + member.getName();
+            if (member.isDirectory()) {
+                IncrementalDisassembler.findClassFiles(member, path + '/', result);
+            } else
+            if (path.endsWith(".class") && member.isFile()) {
+                File other = result.put(path, member);
+                if (other != null) {
+                    throw new IOException("Class files '" + other + "' and '" + member + "' have the same path");
+                }
+            }
+        }
+    }
+
+    private static void
+    deleteEmptyDirectories(File dir, File root) {
+        while (!dir.equals(root) && dir.delete()) dir = dir.getParentFile();
+    }
+
+    /**
+     * Reads the manifest file (if it exists) into the <var>result</var>.
+     *
+     * @return Whether the manifest exists and was created with the same <var>configuration</var>
+     */
+    private boolean
+    readManifest(Map<String, Fingerprint> result, String configuration) throws IOException {
+
+        File manifestFile = new File(this.outputDirectory, IncrementalDisassembler.MANIFEST_FILE_NAME);
+
+        // Restore the manifest if a previous run died while replacing it.
+        File backup = CrossReferenceIndexBuilder.backupFile(manifestFile);
+        if (!manifestFile.exists() && backup.exists()) backup.renameTo(manifestFile);
+
+        if (!manifestFile.exists()) return false;
+
+        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), "UTF-8"));
+        try {
+            if (!IncrementalDisassembler.MANIFEST_HEADER.equals(br.readLine())) {
+                throw new IOException("'" + manifestFile + "' is not a jdisasm manifest");
+            }
+
+            String optionsLine = br.readLine();
+            if (optionsLine == null || !optionsLine.startsWith(IncrementalDisassembler.OPTIONS_PREFIX)) {
+                throw new IOException("'" + manifestFile + "' lacks the options line");
+            }
+
+            for (;;) {
+                String line = br.readLine();
+                if (line == null) break;
+
+                // <size> TAB <last-modified> TAB <hash> TAB <path>
+                String[] tokens = line.split("\t", 4);
+                if (tokens.length != 4) throw new IOException("'" + manifestFile + "': Invalid line \"" + line + "\"");
+                try {
+                    result.put(tokens[3], new Fingerprint(
+                        Long.parseLong(tokens[0]),
+                        Long.parseLong(tokens[1]),
+                        tokens[2]
+                    ));
+                } catch (NumberFormatException nfe) {
+                    throw new IOException("'" + manifestFile + "': Invalid line \"" + line + "\"");
+                }
+            }
+
+            return configuration.equals(optionsLine.substring(IncrementalDisassembler.OPTIONS_PREFIX.length()));
+        } finally {
+            try { br.close(); } catch (Exception e) {}
+        }
+    }
+
+    private void
+    writeManifest(Map<String, Fingerprint> manifest, String configuration) throws IOException {
+
+        if (!this.outputDirectory.isDirectory() && !this.outputDirectory.mkdirs()) {
+            throw new IOException("Could not create directory '" + this.outputDirectory + "'");
+        }
+
+        File manifestFile = new File(this.outputDirectory, IncrementalDisassembler.MANIFEST_FILE_NAME);
+
+        // Write the new manifest to a temporary file, then replace the old manifest, so that a run that dies halfway
+        // leaves a complete manifest behind.
+        File tmp = new File(manifestFile.getPath() + ".tmp");
+
+        PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"));
+        try {
+            pw.print(IncrementalDisassembler.MANIFEST_HEADER + '\n');
+            pw.print(IncrementalDisassembler.OPTIONS_PREFIX + configuration + '\n');
+            for (Entry<String, Fingerprint> e : manifest.entrySet()) {
+                Fingerprint fp = e.getValue();
+                pw.print(fp.size + "\t" + fp.lastModified + "\t" + fp.hash + "\t" + e.getKey() + '\n');
+            }
+        } finally {
+            pw.close();
+        }
+        if (pw.checkError()) {
+            tmp.delete();
+            throw new IOException("Error writing '" + tmp + "'");
+        }
+
+        CrossReferenceIndexBuilder.replace(tmp, manifestFile);
+    }
+
+    private static byte[]
+    readFully(File file) throws IOException {
+        InputStream is = new FileInputStream(file);
+        try {
+            long size = file.length();
+            if (size > Integer.MAX_VALUE) throw new IOException("'" + file + "' is too large");
+
+            byte[] result = new byte[(int) size];
+            for (int off = 0; off < result.length;) {
+                int n = is.read(result, off, result.length - off);
+                if (n == -1) return Arrays.copyOf(result, off); // File shrank while reading.
+                off += n;
+            }
+            return result;
+        } finally {
+            try { is.close(); } catch (IOException ex) {}
+        }
+    }
+
+    private static String
+    hash(byte[] bytes) {
+
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new AssertionError(nsae);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest(bytes)) {
+            sb.append(Character.forDigit(0xf & (b >> 4), 16)).append(Character.forDigit(0xf & b, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * What the manifest records about each class file.
+     */
+    private static
+    class Fingerprint {
+
+        final long   size;
+        final long   lastModified;
+        final String hash;
+
+        Fingerprint(long size, long lastModified, String hash) {
+            this.size         = size;
+            this.lastModified = lastModified;
+            this.hash         = hash;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+/**
+ * One decoded instruction, as reported by {@link DisassemblySink#instruction(Instruction)}. The same object is reused
+ * for all instructions of a walk, so no objects are allocated per instruction.
+ * <p>
+ *   The {@link #operands} are the raw operand values, without any constant pool lookups or string building:
+ * </p>
+ * <ul>
+ *   <li>Constant pool indexes, local variable indexes and immediate values, in the order of the {@link
+ *   #operandKinds}, signed or unsigned as the JVMS defines them</li>
+ *   <li>Branch targets as absolute code offsets</li>
+ *   <li>{@code invokeinterface}: The constant pool index and the <var>count</var></li>
+ *   <li>{@code tableswitch}: <var>default</var>, <var>low</var>, <var>high</var> and the targets</li>
+ *   <li>{@code lookupswitch}: <var>default</var>, <var>npairs</var> and the match/target pairs</li>
+ * </ul>
+ * <p>
+ *   Implicit operands (e.g. the local variable index of {@code aload_0}) and padding are omitted; the implicit local
+ *   variable index is conveyed by the {@link OperandKind}.
+ * </p>
+ */
+public final
+class Instruction {
+
+    /**
+     * The code offset of the instruction.
+     */
+    public int pc;
+
+    /**
+     * The length of the instruction in bytes, including operands and padding.
+     */
+    public int length;
+
+    /**
+     * The opcode; for "wide" instructions {@code 0xc400} plus the modified opcode.
+     */
+    public int opcode;
+
+    /**
+     * E.g. {@code "aload_0"} or {@code "wide iinc"}.
+     */
+    public String mnemonic = "";
+
+    /**
+     * The kinds of the operands, as documented by the {@link BytecodeDecoder}.
+     */
+    public OperandKind[] operandKinds = new OperandKind[0];
+
+    /**
+     * The operand values; only the first {@link #operandCount} elements are valid.
+     */
+    public int[] operands = new int[16];
+
+    /**
+     * The number of valid {@link #operands}.
+     */
+    public int operandCount;
+
+    @Override public String
+    toString() { return this.pc + ": " + this.mnemonic; }
+}
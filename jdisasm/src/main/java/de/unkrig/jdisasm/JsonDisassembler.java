@@ -0,0 +1,622 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+import de.unkrig.jdisasm.ClassFile.ExceptionsAttribute;
+import de.unkrig.jdisasm.ClassFile.Field;
+import de.unkrig.jdisasm.ClassFile.LineNumberTableAttribute;
+import de.unkrig.jdisasm.ClassFile.LineNumberTableEntry;
+import de.unkrig.jdisasm.ClassFile.LocalVariableTableAttribute;
+import de.unkrig.jdisasm.ClassFile.LocalVariableTypeTableAttribute;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ConstantPool.ConstantClassInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDoubleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFieldrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFloatInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantIntegerInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefOrMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInvokeDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantLongInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodHandleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodTypeInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantPoolEntry;
+import de.unkrig.jdisasm.ConstantPool.ConstantStringInfo;
+
+/**
+ * Renders class files as JSON, for processing by other tools. Each class file becomes one JSON object on one line
+ * ("JSON lines"), e.g.
+ * <pre>
+ * {"name":"pkg.Foo","majorVersion":52,"minorVersion":0,"access":33,"superClass":"java.lang.Object",
+ *  "interfaces":[],"sourceFile":"Foo.java","fields":[...],"methods":[{"access":1,"name":"&lt;init>",
+ *  "descriptor":"()V","code":{"maxStack":1,"maxLocals":1,"instructions":[{"pc":0,"opcode":42,"mnemonic":"aload_0",
+ *  "operands":[{"local":0,"name":"this"}]},...],"exceptionTable":[],"lineNumbers":[...],"localVariables":[...]}}]}
+ * </pre>
+ * <p>
+ *   Access flags are written as their numeric class file value, descriptors and signatures in their class file
+ *   notation, and class names in their dot-separated form. Constant pool references carry the constant pool index
+ *   ({@code "cp"}) and the decoded entry; branch targets are absolute code offsets. If the code of a method could
+ *   not be decoded (see {@link ClassFileWalker#setErrorSummary(ErrorSummary)}), then its {@code "instructions"} array
+ *   ends before the failure, and is followed by an {@code "error"} message.
+ * </p>
+ * <p>
+ *   The JSON text is written as the {@link DisassemblySink} events arrive; no document tree is built, so the memory
+ *   consumption does not depend on the size of the class file.
+ * </p>
+ */
+public
+class JsonDisassembler extends AbstractDisassemblySink {
+
+    private final Writer          out;
+    private final JsonWriter      jw;
+    private final SignatureParser signatureParser = new SignatureParser();
+    private final ClassFileWalker walker          = new ClassFileWalker(this);
+
+    // Whether the "fields" array (and not yet the "methods" array) is open.
+    private boolean inFields;
+
+    // Valid while the code of one method is being written.
+    @Nullable private Method        method;
+    @Nullable private CodeAttribute codeAttribute;
+    private int[]                   operands = new int[0];
+    private int                     operandIndex;
+    private int                     instructionOffset;
+
+    private int instructionCount;
+
+    public
+    JsonDisassembler(Writer out) {
+        this.out = out;
+        this.jw  = new JsonWriter(out);
+    }
+
+    /**
+     * Writes the given class file as one line of JSON.
+     */
+    public void
+    disasm(ClassFile cf) throws IOException { this.walker.walk(cf); }
+
+    @Override public void
+    beginClass(ClassFile cf) throws IOException {
+
+        JsonWriter jw = this.jw;
+
+        this.instructionCount = 0;
+
+        jw.beginObject();
+        jw.name("name").value(cf.thisClass.name);
+        jw.name("majorVersion").value(cf.majorVersion);
+        jw.name("minorVersion").value(cf.minorVersion);
+        jw.name("access").value(cf.accessFlags.intValue());
+        jw.name("superClass").value(cf.superClass == null ? null : cf.superClass.name);
+        jw.name("interfaces").beginArray();
+        for (ConstantClassInfo in : cf.interfaces) jw.value(in.name);
+        jw.endArray();
+        if (cf.signatureAttribute != null) jw.name("signature").value(cf.signatureAttribute.signature);
+        if (cf.sourceFileAttribute != null) jw.name("sourceFile").value(cf.sourceFileAttribute.sourceFile);
+        if (cf.deprecatedAttribute != null) jw.name("deprecated").value(true);
+
+        jw.name("fields").beginArray();
+        this.inFields = true;
+    }
+
+    @Override public void
+    endClass(ClassFile cf) throws IOException {
+        this.endFields();
+        this.jw.endArray();
+        this.jw.endObject();
+        this.out.write('\n');
+    }
+
+    /**
+     * Closes the "fields" array and opens the "methods" array, unless that was already done.
+     */
+    private void
+    endFields() throws IOException {
+        if (!this.inFields) return;
+        this.jw.endArray();
+        this.jw.name("methods").beginArray();
+        this.inFields = false;
+    }
+
+    /**
+     * @return The number of instructions that the preceding {@link #disasm(ClassFile)} wrote
+     */
+    public int
+    getInstructionCount() { return this.instructionCount; }
+
+    @Override public void
+    field(Field f) throws IOException {
+
+        JsonWriter jw = this.jw;
+
+        jw.beginObject();
+        jw.name("access").value(f.accessFlags.intValue());
+        jw.name("name").value(f.name);
+        jw.name("descriptor").value(f.descriptor);
+        if (f.signatureAttribute != null) jw.name("signature").value(f.signatureAttribute.signature);
+        if (f.constantValueAttribute != null) {
+            jw.name("constantValue").value(f.constantValueAttribute.constantValue);
+        }
+        if (f.deprecatedAttribute != null) jw.name("deprecated").value(true);
+        jw.endObject();
+    }
+
+    @Override public void
+    beginMethod(Method m) throws IOException {
+
+        JsonWriter jw = this.jw;
+
+        this.endFields();
+
+        jw.beginObject();
+        jw.name("access").value(m.accessFlags.intValue());
+        jw.name("name").value(m.name);
+        jw.name("descriptor").value(m.descriptor);
+        if (m.signatureAttribute != null) jw.name("signature").value(m.signatureAttribute.signature);
+
+        ExceptionsAttribute ea = m.exceptionsAttribute;
+        if (ea != null) {
+            jw.name("exceptions").beginArray();
+            for (ConstantClassInfo en : ea.exceptionNames) jw.value(en.name);
+            jw.endArray();
+        }
+
+        if (m.deprecatedAttribute != null) jw.name("deprecated").value(true);
+    }
+
+    @Override public void
+    endMethod(Method m) throws IOException { this.jw.endObject(); }
+
+    @Override public boolean
+    beginCode(Method m, CodeAttribute ca) throws IOException {
+
+        JsonWriter jw = this.jw;
+
+        jw.name("code").beginObject();
+        jw.name("maxStack").value(ca.maxStack);
+        jw.name("maxLocals").value(ca.maxLocals);
+        jw.name("instructions").beginArray();
+
+        this.method        = m;
+        this.codeAttribute = ca;
+
+        return true;
+    }
+
+    @Override public void
+    instruction(Instruction insn) throws IOException {
+
+        JsonWriter jw = this.jw;
+
+        this.instructionOffset = insn.pc;
+        this.operands          = insn.operands;
+        this.operandIndex      = 0;
+
+        jw.beginObject();
+        jw.name("pc").value(insn.pc);
+        jw.name("opcode").value(insn.opcode > 0xff ? insn.opcode >> 8 : insn.opcode);
+        jw.name("mnemonic").value(insn.mnemonic);
+        if (insn.operandKinds.length > 0) {
+            jw.name("operands").beginArray();
+            for (OperandKind ok : insn.operandKinds) ok.accept(this.writeOperand);
+            jw.endArray();
+        }
+        jw.endObject();
+
+        this.instructionCount++;
+    }
+
+    @Override public void
+    codeFailed(Method m, CodeAttribute ca, String message) throws IOException {
+
+        JsonWriter jw = this.jw;
+
+        jw.endArray();
+
+        this.method        = null;
+        this.codeAttribute = null;
+
+        jw.name("error").value(message);
+        jw.endObject();
+    }
+
+    @Override public void
+    endCode(Method m, CodeAttribute ca) throws IOException {
+
+        JsonWriter jw = this.jw;
+
+        jw.endArray();
+
+        this.method        = null;
+        this.codeAttribute = null;
+
+        jw.name("exceptionTable").beginArray();
+        for (ExceptionTableEntry ete : ca.exceptionTable) {
+            jw.beginObject();
+            jw.name("startPc").value(ete.startPc);
+            jw.name("endPc").value(ete.endPc);
+            jw.name("handlerPc").value(ete.handlerPc);
+            jw.name("catchType").value(ete.catchType == null ? null : ete.catchType.name);
+            jw.endObject();
+        }
+        jw.endArray();
+
+        LineNumberTableAttribute lnta = ca.lineNumberTableAttribute;
+        if (lnta != null) {
+            jw.name("lineNumbers").beginArray();
+            for (LineNumberTableEntry lnte : lnta.entries) {
+                jw.beginObject();
+                jw.name("startPc").value(lnte.startPc);
+                jw.name("line").value(lnte.lineNumber);
+                jw.endObject();
+            }
+            jw.endArray();
+        }
+
+        LocalVariableTableAttribute lvta = ca.localVariableTableAttribute;
+        if (lvta != null) {
+            jw.name("localVariables").beginArray();
+            for (LocalVariableTableAttribute.Entry lvte : lvta.entries) {
+                jw.beginObject();
+                jw.name("startPc").value(0xffff & lvte.startPC);
+                jw.name("length").value(0xffff & lvte.length);
+                jw.name("index").value(0xffff & lvte.index);
+                jw.name("name").value(lvte.name);
+                jw.name("descriptor").value(lvte.descriptor);
+
+                LocalVariableTypeTableAttribute lvtta = ca.localVariableTypeTableAttribute;
+                if (lvtta != null) {
+                    for (LocalVariableTypeTableAttribute.Entry lvtte : lvtta.entries) {
+                        if (lvtte.index == lvte.index && lvtte.startPC == (0xffff & lvte.startPC)) {
+                            jw.name("signature").value(lvtte.signature);
+                            break;
+                        }
+                    }
+                }
+                jw.endObject();
+            }
+            jw.endArray();
+        }
+
+        jw.endObject();
+    }
+
+    /**
+     * Takes an instruction operand from the {@link #operands} and writes it as a JSON value.
+     */
+    private final OperandKind.Visitor<Void, IOException>
+    writeOperand = new OperandKind.Visitor<Void, IOException>() {
+
+        @Override @Nullable public Void
+        visitClassFloatIntStringMethodHandleMethodTypeDynamic(OperandKind operandType) throws IOException {
+            return this.constant(JsonDisassembler.this.nextOperand());
+        }
+
+        @Override @Nullable public Void
+        visitClassFloatIntStringMethodHandleMethodTypeDynamicW(OperandKind operandType) throws IOException {
+            return this.constant(JsonDisassembler.this.nextOperand());
+        }
+
+        @Override @Nullable public Void
+        visitDoubleLongDynamicW(OperandKind operandType) throws IOException {
+            return this.constant(JsonDisassembler.this.nextOperand());
+        }
+
+        @Override @Nullable public Void
+        visitFieldref2(OperandKind operandType) throws IOException {
+
+            int                  index = JsonDisassembler.this.nextOperand();
+            ConstantFieldrefInfo fr    = JsonDisassembler.this.getConstantPool().get(
+                (short) index,
+                ConstantFieldrefInfo.class
+            );
+
+            JsonWriter jw = JsonDisassembler.this.jw;
+            jw.beginObject();
+            jw.name("cp").value(index);
+            jw.name("class").value(fr.clasS.name);
+            jw.name("name").value(fr.nameAndType.name.bytes);
+            jw.name("descriptor").value(fr.nameAndType.descriptor.bytes);
+            jw.endObject();
+
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitMethodref2(OperandKind operandType) throws IOException {
+            return this.methodref(JsonDisassembler.this.nextOperand());
+        }
+
+        @Override @Nullable public Void
+        visitInterfaceMethodref2(OperandKind operandType) throws IOException {
+            int index = JsonDisassembler.this.nextOperand();
+            JsonDisassembler.this.nextOperand(); // count
+            return this.methodref(index);
+        }
+
+        @Override @Nullable public Void
+        visitInterfaceMethodrefOrMethodref2(OperandKind operandType) throws IOException {
+            return this.methodref(JsonDisassembler.this.nextOperand());
+        }
+
+        @Override @Nullable public Void
+        visitClass2(OperandKind operandType) throws IOException {
+            return this.constant(JsonDisassembler.this.nextOperand());
+        }
+
+        @Override @Nullable public Void
+        visitLocalVariableIndex1(OperandKind operandType) throws IOException {
+            int index = JsonDisassembler.this.nextOperand();
+            return this.localVariable(index, JsonDisassembler.this.instructionOffset + 2);
+        }
+
+        @Override @Nullable public Void
+        visitLocalVariableIndex2(OperandKind operandType) throws IOException {
+
+            // For an initial assignment (e.g. 'wide istore 300'), the local variable is only visible AFTER this
+            // instruction.
+            int index = JsonDisassembler.this.nextOperand();
+            return this.localVariable(index, JsonDisassembler.this.instructionOffset + 4);
+        }
+
+        @Override @Nullable public Void
+        visitImplicitLocalVariableIndex(OperandKind operandType, int index) throws IOException {
+            return this.localVariable(index, JsonDisassembler.this.instructionOffset + 1);
+        }
+
+        @Override @Nullable public Void
+        visitBranchOffset2(OperandKind operandType) throws IOException {
+            JsonDisassembler.this.jw.value(JsonDisassembler.this.nextOperand());
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitBranchOffset4(OperandKind operandType) throws IOException {
+            JsonDisassembler.this.jw.value(JsonDisassembler.this.nextOperand());
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitSignedByte(OperandKind operandType) throws IOException {
+            JsonDisassembler.this.jw.value(JsonDisassembler.this.nextOperand());
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitUnsignedByte(OperandKind operandType) throws IOException {
+            JsonDisassembler.this.jw.value(JsonDisassembler.this.nextOperand());
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitSignedShort(OperandKind operandType) throws IOException {
+            JsonDisassembler.this.jw.value(JsonDisassembler.this.nextOperand());
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitAtype(OperandKind operandType) throws IOException {
+
+            int b = JsonDisassembler.this.nextOperand();
+
+            JsonDisassembler.this.jw.value(
+                b ==  4 ? "BOOLEAN" :
+                b ==  5 ? "CHAR"    :
+                b ==  6 ? "FLOAT"   :
+                b ==  7 ? "DOUBLE"  :
+                b ==  8 ? "BYTE"    :
+                b ==  9 ? "SHORT"   :
+                b == 10 ? "INT"     :
+                b == 11 ? "LONG"    :
+                Integer.toString(b)
+            );
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitTableswitch(OperandKind operandType) throws IOException {
+
+            JsonDisassembler jd = JsonDisassembler.this;
+            JsonWriter       jw = jd.jw;
+
+            jw.beginObject();
+            jw.name("default").value(jd.nextOperand());
+
+            int low  = jd.nextOperand();
+            int high = jd.nextOperand();
+            jw.name("low").value(low);
+            jw.name("targets").beginArray();
+            for (int i = low; i <= high; ++i) jw.value(jd.nextOperand());
+            jw.endArray();
+            jw.endObject();
+
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitLookupswitch(OperandKind operandType) throws IOException {
+
+            JsonDisassembler jd = JsonDisassembler.this;
+            JsonWriter       jw = jd.jw;
+
+            jw.beginObject();
+            jw.name("default").value(jd.nextOperand());
+            jw.name("pairs").beginArray();
+            for (int i = jd.nextOperand(); i > 0; --i) {
+                jw.beginObject();
+                jw.name("match").value(jd.nextOperand());
+                jw.name("target").value(jd.nextOperand());
+                jw.endObject();
+            }
+            jw.endArray();
+            jw.endObject();
+
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitDynamicCallsite(OperandKind operandType) throws IOException {
+
+            int index = JsonDisassembler.this.nextOperand();
+
+            Method                    m    = JsonDisassembler.this.method;
+            ConstantInvokeDynamicInfo cidy = JsonDisassembler.this.getConstantPool().get(
+                (short) index,
+                ConstantInvokeDynamicInfo.class
+            );
+            assert m != null;
+
+            JsonWriter jw = JsonDisassembler.this.jw;
+            jw.beginObject();
+            jw.name("cp").value(index);
+            jw.name("bootstrapMethod").value(
+                m.getBootstrapMethodsAttribute().bootstrapMethods.get(cidy.bootstrapMethodAttrIndex).toString(
+                    JsonDisassembler.this.signatureParser
+                )
+            );
+            jw.name("name").value(cidy.nameAndType.name.bytes);
+            jw.name("descriptor").value(cidy.nameAndType.descriptor.bytes);
+            jw.endObject();
+
+            return null;
+        }
+
+        @Nullable private Void
+        constant(int index) throws IOException {
+
+            ConstantPoolEntry cpe = JsonDisassembler.this.getConstantPool().get((short) index, ConstantPoolEntry.class);
+
+            JsonWriter jw = JsonDisassembler.this.jw;
+            jw.beginObject();
+            jw.name("cp").value(index);
+            if (cpe instanceof ConstantStringInfo) {
+                jw.name("string").value(((ConstantStringInfo) cpe).string);
+            } else
+            if (cpe instanceof ConstantIntegerInfo) {
+                jw.name("int").value(((ConstantIntegerInfo) cpe).bytes);
+            } else
+            if (cpe instanceof ConstantLongInfo) {
+                jw.name("long").value(((ConstantLongInfo) cpe).bytes);
+            } else
+            if (cpe instanceof ConstantFloatInfo) {
+                jw.name("float").value(((ConstantFloatInfo) cpe).bytes);
+            } else
+            if (cpe instanceof ConstantDoubleInfo) {
+                jw.name("double").value(((ConstantDoubleInfo) cpe).bytes);
+            } else
+            if (cpe instanceof ConstantClassInfo) {
+                jw.name("class").value(((ConstantClassInfo) cpe).name);
+            } else
+            if (cpe instanceof ConstantMethodTypeInfo) {
+                jw.name("methodType").value(((ConstantMethodTypeInfo) cpe).descriptor.bytes);
+            } else
+            if (cpe instanceof ConstantMethodHandleInfo) {
+                jw.name("methodHandle").value(ConstantPool.toString(cpe, JsonDisassembler.this.signatureParser));
+            } else
+            if (cpe instanceof ConstantDynamicInfo) {
+                jw.name("dynamic").value(ConstantPool.toString(cpe, JsonDisassembler.this.signatureParser));
+            } else
+            {
+                jw.name("value").value(ConstantPool.toString(cpe, JsonDisassembler.this.signatureParser));
+            }
+            jw.endObject();
+
+            return null;
+        }
+
+        @Nullable private Void
+        methodref(int index) throws IOException {
+
+            ConstantInterfaceMethodrefOrMethodrefInfo
+            imromr = JsonDisassembler.this.getConstantPool().get(
+                (short) index,
+                ConstantInterfaceMethodrefOrMethodrefInfo.class
+            );
+
+            JsonWriter jw = JsonDisassembler.this.jw;
+            jw.beginObject();
+            jw.name("cp").value(index);
+            jw.name("class").value(imromr.clasS.name);
+            jw.name("name").value(imromr.nameAndType.name.bytes);
+            jw.name("descriptor").value(imromr.nameAndType.descriptor.bytes);
+            if (imromr instanceof ConstantInterfaceMethodrefInfo) jw.name("interface").value(true);
+            jw.endObject();
+
+            return null;
+        }
+
+        /**
+         * Writes the local variable index, and the variable's name from the "LocalVariableTable" attribute, if any.
+         */
+        @Nullable private Void
+        localVariable(int index, int instructionOffset) throws IOException {
+
+            JsonWriter jw = JsonDisassembler.this.jw;
+            jw.beginObject();
+            jw.name("local").value(index);
+
+            CodeAttribute ca = JsonDisassembler.this.codeAttribute;
+            assert ca != null;
+
+            LocalVariableTableAttribute lvta = ca.localVariableTableAttribute;
+            if (lvta != null) {
+                for (LocalVariableTableAttribute.Entry lvte : lvta.entries) {
+                    if (
+                        instructionOffset >= lvte.startPC
+                        && instructionOffset <= lvte.startPC + lvte.length
+                        && index == lvte.index
+                    ) {
+                        jw.name("name").value(lvte.name);
+                        break;
+                    }
+                }
+            }
+            jw.endObject();
+
+            return null;
+        }
+    };
+
+    private int
+    nextOperand() { return this.operands[this.operandIndex++]; }
+
+    private ConstantPool
+    getConstantPool() {
+        Method m = this.method;
+        assert m != null;
+        return m.getClassFile().constantPool;
+    }
+}
@@ -0,0 +1,219 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+
+/**
+ * Writes JSON text token by token to a {@link Writer}, without building a document tree in memory. The separators
+ * between members and elements are inserted automatically; the caller is responsible for the proper nesting of the
+ * {@code begin*()} and {@code end*()} invocations, and for invoking {@link #name(String)} before each member value.
+ */
+public
+class JsonWriter {
+
+    private final Writer out;
+
+    /**
+     * For each open object or array: Whether no member or element has been written into it yet.
+     */
+    private boolean[] empty = new boolean[16];
+    private int       depth;
+
+    /**
+     * Whether the next value is a member value, i.e. follows {@link #name(String)}.
+     */
+    private boolean afterName;
+
+    public
+    JsonWriter(Writer out) { this.out = out; }
+
+    /**
+     * Writes the opening brace of an object.
+     */
+    public JsonWriter
+    beginObject() throws IOException { return this.open('{'); }
+
+    /**
+     * Writes the closing brace of an object.
+     */
+    public JsonWriter
+    endObject() throws IOException { return this.close('}'); }
+
+    /**
+     * Writes the opening bracket of an array.
+     */
+    public JsonWriter
+    beginArray() throws IOException { return this.open('['); }
+
+    /**
+     * Writes the closing bracket of an array.
+     */
+    public JsonWriter
+    endArray() throws IOException { return this.close(']'); }
+
+    /**
+     * Writes the name of an object member; must be followed by exactly one value, object or array.
+     */
+    public JsonWriter
+    name(String name) throws IOException {
+        this.beforeValue();
+        this.string(name);
+        this.out.write(':');
+        this.afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or {@code null}.
+     */
+    public JsonWriter
+    value(@Nullable String value) throws IOException {
+        this.beforeValue();
+        if (value == null) {
+            this.out.write("null");
+        } else {
+            this.string(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an integral number value.
+     */
+    public JsonWriter
+    value(long value) throws IOException {
+        this.beforeValue();
+        this.out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a number value; NaN and the infinities, which JSON cannot represent as numbers, are written as strings.
+     */
+    public JsonWriter
+    value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return this.value(Double.toString(value));
+        this.beforeValue();
+        this.out.write(Double.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a number value; NaN and the infinities, which JSON cannot represent as numbers, are written as strings.
+     */
+    public JsonWriter
+    value(float value) throws IOException {
+        if (Float.isNaN(value) || Float.isInfinite(value)) return this.value(Float.toString(value));
+        this.beforeValue();
+        this.out.write(Float.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     */
+    public JsonWriter
+    value(boolean value) throws IOException {
+        this.beforeValue();
+        this.out.write(value ? "true" : "false");
+        return this;
+    }
+
+    private JsonWriter
+    open(char c) throws IOException {
+        this.beforeValue();
+        this.out.write(c);
+        if (this.depth == this.empty.length) this.empty = Arrays.copyOf(this.empty, 2 * this.depth);
+        this.empty[this.depth++] = true;
+        return this;
+    }
+
+    private JsonWriter
+    close(char c) throws IOException {
+        if (this.depth == 0 || this.afterName) throw new IllegalStateException("Unbalanced '" + c + "'");
+        this.depth--;
+        this.out.write(c);
+        return this;
+    }
+
+    private void
+    beforeValue() throws IOException {
+
+        if (this.afterName) {
+            this.afterName = false;
+            return;
+        }
+
+        if (this.depth == 0) return;
+
+        if (this.empty[this.depth - 1]) {
+            this.empty[this.depth - 1] = false;
+        } else {
+            this.out.write(',');
+        }
+    }
+
+    private void
+    string(String s) throws IOException {
+
+        Writer out = this.out;
+
+        out.write('"');
+
+        // Write runs of characters that need no escaping in one go.
+        int start = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') continue;
+
+            out.write(s, start, i - start);
+            start = i + 1;
+            switch (c) {
+            case '"':  out.write("\\\""); break;
+            case '\\': out.write("\\\\"); break;
+            case '\b': out.write("\\b");  break;
+            case '\f': out.write("\\f");  break;
+            case '\n': out.write("\\n");  break;
+            case '\r': out.write("\\r");  break;
+            case '\t': out.write("\\t");  break;
+            default:
+                out.write("\\u00");
+                out.write(Character.forDigit(c >> 4, 16));
+                out.write(Character.forDigit(c & 15, 16));
+                break;
+            }
+        }
+        out.write(s, start, s.length() - start);
+
+        out.write('"');
+    }
+}
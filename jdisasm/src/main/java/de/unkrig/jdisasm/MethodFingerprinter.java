@@ -0,0 +1,433 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.util.Arrays;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.BootstrapMethodsAttribute;
+import de.unkrig.jdisasm.ClassFile.BootstrapMethodsAttribute.BootstrapMethod;
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ConstantPool.ConstantClassInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDoubleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFieldrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFloatInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantIntegerInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefOrMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInvokeDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantLongInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodHandleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodTypeInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantNameAndTypeInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantPoolEntry;
+import de.unkrig.jdisasm.ConstantPool.ConstantStringInfo;
+
+/**
+ * Computes 64 bit fingerprints of method bodies that do not depend on the layout of the constant pool: Instead of
+ * constant pool indexes, the fingerprint covers what the entries designate (class names, member names and
+ * descriptors, constant values, bootstrap methods), and instead of code offsets, it covers the instruction indexes
+ * of branch targets and of the exception table entries. Also, {@code ldc_w}, {@code goto_w}, {@code jsr_w} and the
+ * "wide" variants of the local variable instructions count like their short forms. Thus, two compilations of the
+ * same source yield the same fingerprint even if their constant pools are ordered differently.
+ * <p>
+ *   Only the code is covered, not the name, descriptor and modifiers of the method, nor the debug attributes. The
+ *   code is decoded directly from the {@link CodeAttribute#code code} array in two linear sweeps (the first maps
+ *   code offsets to instruction indexes), and the constant pool entries' hash values are cached per class file, so
+ *   fingerprinting allocates no objects (after the buffers have grown to the size of the largest method).
+ * </p>
+ * <p>
+ *   Instances are not thread-safe, but should be reused for many methods.
+ * </p>
+ */
+public final
+class MethodFingerprinter {
+
+    // Valid while one method is being fingerprinted.
+    private byte[] code = new byte[0];
+    private int[]  insnAt = new int[1]; // Code offset => instruction index, or -1
+    private long   hash;
+
+    // The cached hash values of the constant pool entries of the "current" class file; an entry is valid iff its
+    // stamp equals the "stamp".
+    @Nullable private ClassFile cf;
+    private long[]              cpHashes = new long[0];
+    private int[]               cpStamps = new int[0];
+    private int                 stamp;
+
+    /**
+     * @return The fingerprint of the code of the given method, or 0 iff the method has no code (because it is
+     *         abstract or native)
+     * @throws ClassFileFormatException The code is malformed, e.g. it contains an invalid opcode, or a branch
+     *                                  target or constant pool reference is invalid
+     */
+    public long
+    fingerprint(Method method) throws ClassFileFormatException {
+
+        CodeAttribute ca = method.codeAttribute;
+        if (ca == null) return 0;
+
+        ClassFile cf = method.getClassFile();
+        if (cf != this.cf) this.setClassFile(cf);
+
+        byte[] code = (this.code = ca.code);
+
+        this.hash = 0x6a09e667f3bcc908L;
+        this.add(this.index());
+
+        for (int pc = 0; pc < code.length;) {
+            int opcode = 0xff & code[pc];
+            switch (RawClassFile.layout(opcode)) {
+
+            case RawClassFile.NONE:
+                this.add(opcode);
+                pc++;
+                break;
+
+            case RawClassFile.U1:
+                this.add(opcode);
+                this.add(this.u1(pc + 1));
+                pc += 2;
+                break;
+
+            case RawClassFile.S1:
+                this.add(opcode);
+                this.add(code[pc + 1]);
+                pc += 2;
+                break;
+
+            case RawClassFile.S2:
+                this.add(opcode);
+                this.add(this.s2(pc + 1));
+                pc += 3;
+                break;
+
+            case RawClassFile.CP1:
+                this.add(opcode);
+                this.add(this.cpHash(this.u1(pc + 1)));
+                pc += 2;
+                break;
+
+            case RawClassFile.CP2:
+                this.add(opcode == 19 ? 18 : opcode); // ldc_w => ldc
+                this.add(this.cpHash(this.u2(pc + 1)));
+                pc += 3;
+                break;
+
+            case RawClassFile.CP2_X2:
+                this.add(opcode);
+                this.add(this.cpHash(this.u2(pc + 1)));
+                pc += 5;
+                break;
+
+            case RawClassFile.CP2_U1:
+                this.add(opcode);
+                this.add(this.cpHash(this.u2(pc + 1)));
+                this.add(this.u1(pc + 3));
+                pc += 4;
+                break;
+
+            case RawClassFile.IINC:
+                this.add(opcode);
+                this.add(this.u1(pc + 1));
+                this.add(code[pc + 2]);
+                pc += 3;
+                break;
+
+            case RawClassFile.BRANCH2:
+                this.add(opcode);
+                this.add(this.target(pc, this.s2(pc + 1)));
+                pc += 3;
+                break;
+
+            case RawClassFile.BRANCH4:
+                this.add(opcode - 33); // goto_w => goto, jsr_w => jsr
+                this.add(this.target(pc, this.s4(pc + 1)));
+                pc += 5;
+                break;
+
+            case RawClassFile.TABLESWITCH:
+                {
+                    int p    = (pc + 4) & ~3;
+                    int low  = this.s4(p + 4);
+                    int high = this.s4(p + 8);
+                    this.add(opcode);
+                    this.add(this.target(pc, this.s4(p)));
+                    this.add(low);
+                    this.add(high);
+                    p += 12;
+                    for (int i = high - low; i >= 0; i--, p += 4) this.add(this.target(pc, this.s4(p)));
+                    pc = p;
+                }
+                break;
+
+            case RawClassFile.LOOKUPSWITCH:
+                {
+                    int p      = (pc + 4) & ~3;
+                    int npairs = this.s4(p + 4);
+                    this.add(opcode);
+                    this.add(this.target(pc, this.s4(p)));
+                    this.add(npairs);
+                    for (p += 8; npairs > 0; npairs--, p += 8) {
+                        this.add(this.s4(p));
+                        this.add(this.target(pc, this.s4(p + 4)));
+                    }
+                    pc = p;
+                }
+                break;
+
+            case RawClassFile.WIDE:
+                opcode = this.u1(pc + 1);
+                this.add(opcode); // The "wide" prefix itself is not significant.
+                this.add(this.u2(pc + 2));
+                if (opcode == 132) { // iinc
+                    this.add(this.s2(pc + 4));
+                    pc += 6;
+                } else {
+                    pc += 4;
+                }
+                break;
+
+            default:
+                throw new AssertionError(opcode);
+            }
+        }
+
+        for (ExceptionTableEntry ete : ca.exceptionTable) {
+            this.add(this.instructionIndex(ete.startPc));
+            this.add(this.instructionIndex(ete.endPc));
+            this.add(this.instructionIndex(ete.handlerPc));
+            ConstantClassInfo catchType = ete.catchType;
+            this.add(catchType == null ? 0 : MethodFingerprinter.hash(catchType.name));
+        }
+
+        // Finalize (the "fmix64" step of MurmurHash3), so that all bits of the result depend on all input bits.
+        long h = this.hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Validates the instruction boundaries of the {@link #code}, and fills in the {@link #insnAt} array.
+     *
+     * @return The number of instructions
+     */
+    private int
+    index() throws ClassFileFormatException {
+
+        byte[] code = this.code;
+        int    len  = code.length;
+
+        if (this.insnAt.length < len + 1) this.insnAt = new int[len + 1];
+        int[] at = this.insnAt;
+        Arrays.fill(at, 0, len + 1, -1);
+
+        int n = 0;
+        for (int pc = 0; pc < len; n++) {
+            at[pc] = n;
+            pc += RawClassFile.instructionLength(code, 0, len, pc);
+        }
+        at[len] = n;
+
+        return n;
+    }
+
+    /**
+     * @return The index of the instruction that the branch at <var>pc</var> with the given offset targets
+     */
+    private int
+    target(int pc, int offset) throws ClassFileFormatException { return this.instructionIndex(pc + offset); }
+
+    /**
+     * @return The index of the instruction at the given code offset, or the number of instructions for the end of the
+     *         code
+     */
+    private int
+    instructionIndex(int pc) throws ClassFileFormatException {
+        int result = pc >= 0 && pc <= this.code.length ? this.insnAt[pc] : -1;
+        if (result == -1) {
+            throw new ClassFileFormatException("Branch target " + pc + " is not the start of an instruction");
+        }
+        return result;
+    }
+
+    private void
+    setClassFile(ClassFile cf) {
+        this.cf = cf;
+        int size = cf.constantPool.getSize();
+        if (this.cpStamps.length < size) {
+            this.cpHashes = new long[size];
+            this.cpStamps = new int[size];
+            this.stamp    = 0;
+        }
+        if (++this.stamp == 0) {
+            Arrays.fill(this.cpStamps, 0);
+            this.stamp = 1;
+        }
+    }
+
+    /**
+     * @return The hash value of the entry at the given index of the {@link #cf}'s constant pool
+     */
+    private long
+    cpHash(int index) throws ClassFileFormatException {
+
+        ClassFile cf = this.cf;
+        assert cf != null;
+
+        if (index < cf.constantPool.getSize() && this.cpStamps[index] == this.stamp) return this.cpHashes[index];
+
+        ConstantPoolEntry cpe = index < cf.constantPool.getSize() ? cf.constantPool.entries[index] : null;
+        if (cpe == null) throw new ClassFileFormatException("Invalid constant pool index " + index);
+
+        long result = MethodFingerprinter.hash(cpe, cf);
+        this.cpHashes[index] = result;
+        this.cpStamps[index] = this.stamp;
+        return result;
+    }
+
+    /**
+     * @return A hash value of what the constant pool entry designates
+     */
+    private static long
+    hash(ConstantPoolEntry cpe, ClassFile cf) {
+
+        if (cpe instanceof ConstantClassInfo) {
+            return MethodFingerprinter.mix(1, MethodFingerprinter.hash(((ConstantClassInfo) cpe).name));
+        }
+
+        if (cpe instanceof ConstantFieldrefInfo) {
+            ConstantFieldrefInfo fr = (ConstantFieldrefInfo) cpe;
+            return MethodFingerprinter.hash(2, fr.clasS, fr.nameAndType);
+        }
+
+        if (cpe instanceof ConstantInterfaceMethodrefOrMethodrefInfo) {
+            ConstantInterfaceMethodrefOrMethodrefInfo mr = (ConstantInterfaceMethodrefOrMethodrefInfo) cpe;
+            int                                       tag = cpe instanceof ConstantInterfaceMethodrefInfo ? 3 : 4;
+            return MethodFingerprinter.hash(tag, mr.clasS, mr.nameAndType);
+        }
+
+        if (cpe instanceof ConstantStringInfo) {
+            return MethodFingerprinter.mix(5, MethodFingerprinter.hash(((ConstantStringInfo) cpe).string));
+        }
+        if (cpe instanceof ConstantIntegerInfo) return MethodFingerprinter.mix(6, ((ConstantIntegerInfo) cpe).bytes);
+        if (cpe instanceof ConstantLongInfo)    return MethodFingerprinter.mix(7, ((ConstantLongInfo) cpe).bytes);
+        if (cpe instanceof ConstantFloatInfo) {
+            return MethodFingerprinter.mix(8, Float.floatToRawIntBits(((ConstantFloatInfo) cpe).bytes));
+        }
+        if (cpe instanceof ConstantDoubleInfo) {
+            return MethodFingerprinter.mix(9, Double.doubleToRawLongBits(((ConstantDoubleInfo) cpe).bytes));
+        }
+
+        if (cpe instanceof ConstantMethodHandleInfo) {
+            ConstantMethodHandleInfo mhi = (ConstantMethodHandleInfo) cpe;
+            return MethodFingerprinter.mix(
+                MethodFingerprinter.mix(10, mhi.referenceKind),
+                MethodFingerprinter.hash(mhi.reference, cf)
+            );
+        }
+
+        if (cpe instanceof ConstantMethodTypeInfo) {
+            String descriptor = ((ConstantMethodTypeInfo) cpe).descriptor.bytes;
+            return MethodFingerprinter.mix(11, MethodFingerprinter.hash(descriptor));
+        }
+
+        if (cpe instanceof ConstantInvokeDynamicInfo) {
+            ConstantInvokeDynamicInfo idi = (ConstantInvokeDynamicInfo) cpe;
+            return MethodFingerprinter.hash(12, idi.nameAndType, idi.bootstrapMethodAttrIndex, cf);
+        }
+
+        if (cpe instanceof ConstantDynamicInfo) {
+            ConstantDynamicInfo di = (ConstantDynamicInfo) cpe;
+            return MethodFingerprinter.hash(13, di.nameAndType, di.bootstrapMethodAttrIndex, cf);
+        }
+
+        return MethodFingerprinter.mix(14, MethodFingerprinter.hash(cpe.toString()));
+    }
+
+    /**
+     * @return A hash value of a field, method or interface method reference
+     */
+    private static long
+    hash(int tag, ConstantClassInfo clasS, ConstantNameAndTypeInfo nameAndType) {
+        long h = MethodFingerprinter.mix(tag, MethodFingerprinter.hash(clasS.name));
+        h = MethodFingerprinter.mix(h, MethodFingerprinter.hash(nameAndType.name.bytes));
+        return MethodFingerprinter.mix(h, MethodFingerprinter.hash(nameAndType.descriptor.bytes));
+    }
+
+    /**
+     * @return A hash value of a dynamically-computed call site or constant
+     */
+    private static long
+    hash(int tag, ConstantNameAndTypeInfo nameAndType, short bootstrapMethodAttrIndex, ClassFile cf) {
+        long h = MethodFingerprinter.mix(tag, MethodFingerprinter.hash(nameAndType.name.bytes));
+        h = MethodFingerprinter.mix(h, MethodFingerprinter.hash(nameAndType.descriptor.bytes));
+
+        BootstrapMethodsAttribute bma = cf.bootstrapMethodsAttribute;
+        int                       idx = 0xffff & bootstrapMethodAttrIndex;
+        if (bma == null || idx >= bma.bootstrapMethods.size()) return MethodFingerprinter.mix(h, -1);
+
+        BootstrapMethod bm = bma.bootstrapMethods.get(idx);
+        h = MethodFingerprinter.mix(h, MethodFingerprinter.hash(bm.bootstrapMethod, cf));
+        for (ConstantPoolEntry argument : bm.bootstrapArguments) {
+            h = MethodFingerprinter.mix(h, MethodFingerprinter.hash(argument, cf));
+        }
+        return MethodFingerprinter.mix(h, bm.bootstrapArguments.size());
+    }
+
+    /**
+     * @return A 64 bit hash value of the characters of the string (FNV-1a)
+     */
+    private static long
+    hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = s.length(); i < n; i++) h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        return h;
+    }
+
+    private void
+    add(long value) { this.hash = MethodFingerprinter.mix(this.hash, value); }
+
+    private static long
+    mix(long h, long value) {
+        h = (h ^ value) * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 29);
+    }
+
+    // SUPPRESS CHECKSTYLE Javadoc:4
+    private int u1(int offset) { return 0xff & this.code[offset]; }
+    private int u2(int offset) { return (this.u1(offset) << 8) | this.u1(offset + 1); }
+    private int s2(int offset) { return (short) this.u2(offset); }
+    private int s4(int offset) { return (this.u2(offset) << 16) | this.u2(offset + 2); }
+}
@@ -0,0 +1,150 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+/**
+ * Receives timings and counts from the parsing and rendering code ({@link ClassFile}, {@link ConstantPool}, {@link
+ * SignatureParser}, {@link ClassFileWalker} and {@link Disassembler}).
+ * <p>
+ *   The instrumented code uses the following pattern:
+ * </p>
+ * <pre>
+ *   long start = metrics.now();
+ *   ...
+ *   metrics.time(Metrics.Timer.XYZ, start);
+ * </pre>
+ * <p>
+ *   With {@link #NOP}, both calls are trivially inlined away, so metrics that are not used cost nothing.
+ * </p>
+ * <p>
+ *   Implementations must be thread-safe if they are shared between concurrently executing disassemblers.
+ * </p>
+ *
+ * @see MetricsCollector
+ */
+public
+interface Metrics {
+
+    /**
+     * The phases that are timed. Notice that some phases include other phases.
+     */
+    enum Timer {
+
+        /** Reading and parsing class files; includes {@link #CONSTANT_POOL} and {@link #ATTRIBUTES}. */
+        READ("Reading class files"),
+
+        /** Reading the constant pool and "cooking" its entries. */
+        CONSTANT_POOL("  Constant pool"),
+
+        /** Parsing fields, methods and attributes. */
+        ATTRIBUTES("  Fields, methods, attributes"),
+
+        /** Rendering class files; includes {@link #BYTECODE}, {@link #SOURCE} and most of {@link #SIGNATURES}. */
+        RENDER("Rendering class files"),
+
+        /** Decoding and rendering bytecode. */
+        BYTECODE("  Bytecode"),
+
+        /** Loading source files (see {@link Disassembler#setSourcePath(java.io.File[])}). */
+        SOURCE("  Source files"),
+
+        /** Decoding signatures and descriptors. */
+        SIGNATURES("Signatures and descriptors"),
+
+        /** Writing the output (encoding, buffering, I/O). */
+        OUTPUT("Writing output"),
+        ;
+
+        /**
+         * For reports.
+         */
+        public final String description;
+
+        Timer(String description) { this.description = description; }
+    }
+
+    /**
+     * The things that are counted.
+     */
+    enum Counter {
+
+        /** The number of class files parsed. */
+        CLASSES("Classes"),
+
+        /** The number of methods parsed. */
+        METHODS("Methods"),
+
+        /** The number of bytecode instructions disassembled. */
+        INSTRUCTIONS("Instructions"),
+
+        /** The number of signatures and descriptors decoded. */
+        SIGNATURES("Signatures and descriptors"),
+
+        /** The number of source files loaded. */
+        SOURCE_FILES("Source files"),
+
+        /** The number of class file bytes read. */
+        INPUT_BYTES("Input bytes"),
+
+        /** The number of characters written. */
+        OUTPUT_CHARS("Output chars"),
+        ;
+
+        /**
+         * For reports.
+         */
+        public final String description;
+
+        Counter(String description) { this.description = description; }
+    }
+
+    /**
+     * Metrics that ignore everything.
+     */
+    Metrics NOP = new Metrics() {
+        @Override public long now()                          { return 0; }
+        @Override public void time(Timer timer, long start)  {}
+        @Override public void count(Counter counter, long n) {}
+    };
+
+    /**
+     * @return The start time for a subsequent {@link #time(Timer, long)} call, in nanoseconds
+     */
+    long now();
+
+    /**
+     * Adds the nanoseconds elapsed since <var>start</var> to the given <var>timer</var>.
+     *
+     * @param start A value previously returned by {@link #now()}
+     */
+    void time(Timer timer, long start);
+
+    /**
+     * Adds <var>n</var> to the given <var>counter</var>.
+     */
+    void count(Counter counter, long n);
+}
@@ -0,0 +1,84 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe {@link Metrics} implementation that accumulates all timings and counts, and can print a summary.
+ */
+public
+class MetricsCollector implements Metrics {
+
+    private final AtomicLongArray timers   = new AtomicLongArray(Timer.values().length);
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+    @Override public long
+    now() { return System.nanoTime(); }
+
+    @Override public void
+    time(Timer timer, long start) { this.timers.addAndGet(timer.ordinal(), System.nanoTime() - start); }
+
+    @Override public void
+    count(Counter counter, long n) { this.counters.addAndGet(counter.ordinal(), n); }
+
+    /**
+     * @return The accumulated nanoseconds of the given <var>timer</var>
+     */
+    public long
+    get(Timer timer) { return this.timers.get(timer.ordinal()); }
+
+    /**
+     * @return The accumulated value of the given <var>counter</var>
+     */
+    public long
+    get(Counter counter) { return this.counters.get(counter.ordinal()); }
+
+    /**
+     * Prints a human-readable summary of all timings and counts.
+     */
+    public void
+    print(PrintStream ps) {
+
+        ps.println("Timings:");
+        for (Timer t : Timer.values()) {
+            ps.printf("  %-30s %,12.3f ms%n", t.description, this.get(t) / 1E6);
+        }
+
+        ps.println("Counts:");
+        for (Counter c : Counter.values()) {
+            ps.printf("  %-30s %,12d%n", c.description, this.get(c));
+        }
+
+        long classes = this.get(Counter.CLASSES);
+        long nanos   = this.get(Timer.READ) + this.get(Timer.RENDER);
+        if (classes > 0 && nanos > 0) {
+            ps.printf("  %-30s %,12.1f%n", "Classes/s", classes * 1E9 / nanos);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import de.unkrig.commons.nullanalysis.NotNullByDefault;
+
+/**
+ * A {@link Writer} that reports the time spent in the delegate {@link Writer} as {@link Metrics.Timer#OUTPUT}, and the
+ * number of characters written as {@link Metrics.Counter#OUTPUT_CHARS}.
+ */
+@NotNullByDefault(false)
+class MetricsWriter extends FilterWriter {
+
+    private final Metrics metrics;
+
+    MetricsWriter(Writer delegate, Metrics metrics) {
+        super(delegate);
+        this.metrics = metrics;
+    }
+
+    @Override public void
+    write(int c) throws IOException {
+        long start = this.metrics.now();
+        this.out.write(c);
+        this.metrics.time(Metrics.Timer.OUTPUT, start);
+        this.metrics.count(Metrics.Counter.OUTPUT_CHARS, 1);
+    }
+
+    @Override public void
+    write(char[] cbuf, int off, int len) throws IOException {
+        long start = this.metrics.now();
+        this.out.write(cbuf, off, len);
+        this.metrics.time(Metrics.Timer.OUTPUT, start);
+        this.metrics.count(Metrics.Counter.OUTPUT_CHARS, len);
+    }
+
+    @Override public void
+    write(String str, int off, int len) throws IOException {
+        long start = this.metrics.now();
+        this.out.write(str, off, len);
+        this.metrics.time(Metrics.Timer.OUTPUT, start);
+        this.metrics.count(Metrics.Counter.OUTPUT_CHARS, len);
+    }
+
+    @Override public void
+    flush() throws IOException {
+        long start = this.metrics.now();
+        this.out.flush();
+        this.metrics.time(Metrics.Timer.OUTPUT, start);
+    }
+}
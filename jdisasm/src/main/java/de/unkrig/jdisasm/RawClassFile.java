@@ -0,0 +1,304 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decodes the parts of class files that the fast scanners need (the {@link ClassHierarchy}, the {@link
+ * DependencySummary}, the {@link ConstantExtractor}, the {@link ClassFileValidator} etc.) directly from their raw
+ * bytes, without constructing a {@link ClassFile} and without "cooking" the constant pool.
+ */
+final
+class RawClassFile {
+
+    private RawClassFile() {}
+
+    // The operand layouts of the opcodes.
+    static final byte INVALID      = 0;
+    static final byte NONE         = 1;
+    static final byte U1           = 2;  // Local variable index, atype
+    static final byte S1           = 3;  // bipush
+    static final byte S2           = 4;  // sipush
+    static final byte CP1          = 5;  // ldc
+    static final byte CP2          = 6;
+    static final byte CP2_X2       = 7;  // invokeinterface, invokedynamic: Two redundant bytes follow
+    static final byte CP2_U1       = 8;  // multianewarray
+    static final byte IINC         = 9;
+    static final byte BRANCH2      = 10;
+    static final byte BRANCH4      = 11;
+    static final byte TABLESWITCH  = 12;
+    static final byte LOOKUPSWITCH = 13;
+    static final byte WIDE         = 14;
+
+    private static final byte[] LAYOUTS = new byte[256];
+    static {
+        byte[] l = RawClassFile.LAYOUTS;
+        Arrays.fill(l, 0, 202, RawClassFile.NONE);
+        l[16] = RawClassFile.S1;
+        l[17] = RawClassFile.S2;
+        l[18] = RawClassFile.CP1;
+        l[19] = (l[20] = RawClassFile.CP2);
+        Arrays.fill(l, 21, 26, RawClassFile.U1);  // xload
+        Arrays.fill(l, 54, 59, RawClassFile.U1);  // xstore
+        l[132] = RawClassFile.IINC;
+        Arrays.fill(l, 153, 169, RawClassFile.BRANCH2); // if*, goto, jsr
+        l[169] = RawClassFile.U1;                       // ret
+        l[170] = RawClassFile.TABLESWITCH;
+        l[171] = RawClassFile.LOOKUPSWITCH;
+        Arrays.fill(l, 178, 185, RawClassFile.CP2);     // get/put field/static, invokevirtual/special/static
+        l[185] = (l[186] = RawClassFile.CP2_X2);
+        l[187] = RawClassFile.CP2;                      // new
+        l[188] = RawClassFile.U1;                       // newarray
+        l[189] = (l[192] = (l[193] = RawClassFile.CP2)); // anewarray, checkcast, instanceof
+        l[196] = RawClassFile.WIDE;
+        l[197] = RawClassFile.CP2_U1;
+        l[198] = (l[199] = RawClassFile.BRANCH2);       // ifnull, ifnonnull
+        l[200] = (l[201] = RawClassFile.BRANCH4);       // goto_w, jsr_w
+    }
+
+    /**
+     * Validates the magic number, and determines where the constant pool entries start, without "cooking" them.
+     *
+     * @return The offsets of the constant pool entries in the <var>classFile</var>, indexed by constant pool index;
+     *         0 for the "unusable" entries, except for element 0, which is the offset of the first byte after the
+     *         constant pool
+     */
+    static int[]
+    constantPoolOffsets(byte[] classFile) throws ClassFileFormatException {
+
+        if (classFile.length < 10) throw new ClassFileFormatException("Class file truncated");
+        int magic = (RawClassFile.u2(classFile, 0) << 16) | RawClassFile.u2(classFile, 2);
+        if (magic != 0xcafebabe) {
+            throw new ClassFileFormatException("Wrong magic number 0x" + Integer.toHexString(magic));
+        }
+
+        int count = RawClassFile.u2(classFile, 8);
+        if (count == 0) throw new ClassFileFormatException("Invalid constant_pool_count 0");
+
+        int[] offsets = new int[count];
+        int   p       = 10;
+        try {
+            for (int i = 1; i < count; i++) {
+                offsets[i] = p;
+                int tag  = classFile[p];
+                int size = RawClassFile.constantSize(classFile, p);
+                if (size == -1) {
+                    throw new ClassFileFormatException(
+                        "Invalid cp_info tag " + tag + " on entry #" + i + " of " + count
+                    );
+                }
+                if (tag == 5 || tag == 6) i++; // CONSTANT_Long_info and CONSTANT_Double_info take two entries.
+                p += size;
+            }
+        } catch (ArrayIndexOutOfBoundsException aioobe) {
+            throw new ClassFileFormatException("Constant pool truncated", aioobe);
+        }
+        if (p > classFile.length) throw new ClassFileFormatException("Constant pool truncated");
+        offsets[0] = p;
+
+        return offsets;
+    }
+
+    /**
+     * @param p The offset of a {@code cp_info} structure in <var>b</var>
+     * @return  The size of the {@code cp_info} structure, including its tag, or -1 iff the tag is invalid
+     * @throws ArrayIndexOutOfBoundsException The structure is truncated
+     */
+    static int
+    constantSize(byte[] b, int p) {
+        switch (b[p]) {
+
+        case 1:  // CONSTANT_Utf8_info
+            return 3 + RawClassFile.u2(b, p + 1);
+
+        case 7:  // CONSTANT_Class_info
+        case 8:  // CONSTANT_String_info
+        case 16: // CONSTANT_MethodType_info
+        case 19: // CONSTANT_Module_info
+        case 20: // CONSTANT_Package_info
+            return 3;
+
+        case 15: // CONSTANT_MethodHandle_info
+            return 4;
+
+        case 3:  // CONSTANT_Integer_info
+        case 4:  // CONSTANT_Float_info
+        case 9:  // CONSTANT_Fieldref_info
+        case 10: // CONSTANT_Methodref_info
+        case 11: // CONSTANT_InterfaceMethodref_info
+        case 12: // CONSTANT_NameAndType_info
+        case 17: // CONSTANT_Dynamic_info
+        case 18: // CONSTANT_InvokeDynamic_info
+            return 5;
+
+        case 5:  // CONSTANT_Long_info
+        case 6:  // CONSTANT_Double_info
+            return 9;
+
+        default:
+            return -1;
+        }
+    }
+
+    static void
+    skipAttributes(DataInputStream dis) throws IOException {
+        for (int i = dis.readUnsignedShort(); i > 0; i--) {
+            dis.skipBytes(2);
+            int length = dis.readInt();
+            if (dis.skipBytes(length) != length) throw new ClassFileFormatException("Attribute truncated");
+        }
+    }
+
+    static String
+    className(byte[] classFile, int[] offsets, int index) throws ClassFileFormatException {
+        RawClassFile.checkIndex(classFile, offsets, index, 7);
+        String internalName = RawClassFile.utf8(classFile, offsets, RawClassFile.u2(classFile, offsets[index] + 1));
+        return internalName.replace('/', '.');
+    }
+
+    static String
+    utf8(byte[] classFile, int[] offsets, int index) throws ClassFileFormatException {
+        RawClassFile.checkIndex(classFile, offsets, index, 1);
+        try {
+            return new DataInputStream(new ByteArrayInputStream(classFile, offsets[index] + 1, 65537)).readUTF();
+        } catch (IOException ioe) {
+            throw new ClassFileFormatException("Invalid UTF-8 in CP entry #" + index);
+        }
+    }
+
+    private static void
+    checkIndex(byte[] classFile, int[] offsets, int index, int tag) throws ClassFileFormatException {
+        if (index == 0 || index >= offsets.length || offsets[index] == 0 || classFile[offsets[index]] != tag) {
+            throw new ClassFileFormatException("CP entry #" + index + " is not a tag-" + tag + " entry");
+        }
+    }
+
+    /**
+     * @return The operand layout of the <var>opcode</var>, e.g. {@link #BRANCH2}
+     */
+    static byte
+    layout(int opcode) { return RawClassFile.LAYOUTS[opcode]; }
+
+    /**
+     * @param b          Contains the code
+     * @param codeOffset Where the code starts in <var>b</var>
+     * @param codeLength The length of the code
+     * @param pc         The code offset of the instruction
+     * @return           The length of the instruction, including its operands
+     * @throws ClassFileFormatException The opcode is invalid, or the instruction exceeds the code
+     */
+    static int
+    instructionLength(byte[] b, int codeOffset, int codeLength, int pc) throws ClassFileFormatException {
+
+        int opcode = 0xff & b[codeOffset + pc];
+        int length;
+        switch (RawClassFile.LAYOUTS[opcode]) {
+        case NONE:         length = 1; break;
+        case U1:           length = 2; break;
+        case S1:           length = 2; break;
+        case CP1:          length = 2; break;
+        case S2:           length = 3; break;
+        case CP2:          length = 3; break;
+        case IINC:         length = 3; break;
+        case BRANCH2:      length = 3; break;
+        case CP2_U1:       length = 4; break;
+        case CP2_X2:       length = 5; break;
+        case BRANCH4:      length = 5; break;
+
+        case TABLESWITCH:
+            {
+                int p = (pc + 4) & ~3;
+                if (p + 12 > codeLength) throw RawClassFile.truncated(pc);
+                long low   = RawClassFile.s4(b, codeOffset + p + 4);
+                long high  = RawClassFile.s4(b, codeOffset + p + 8);
+                long count = high - low + 1;
+                if (count <= 0) throw new ClassFileFormatException("#" + pc + ": Invalid tableswitch bounds");
+                length = (int) Math.min(p + 12 + 4 * count - pc, Integer.MAX_VALUE);
+            }
+            break;
+
+        case LOOKUPSWITCH:
+            {
+                int p = (pc + 4) & ~3;
+                if (p + 8 > codeLength) throw RawClassFile.truncated(pc);
+                long npairs = RawClassFile.s4(b, codeOffset + p + 4);
+                if (npairs < 0) throw new ClassFileFormatException("#" + pc + ": Invalid lookupswitch pair count");
+                length = (int) Math.min(p + 8 + 8 * npairs - pc, Integer.MAX_VALUE);
+            }
+            break;
+
+        case WIDE:
+            {
+                if (pc + 1 >= codeLength) throw RawClassFile.truncated(pc);
+                int opcode2 = 0xff & b[codeOffset + pc + 1];
+                if (opcode2 == 132) { // iinc
+                    length = 6;
+                } else
+                if (RawClassFile.LAYOUTS[opcode2] == RawClassFile.U1 && opcode2 != 188) {
+                    length = 4;
+                } else
+                {
+                    throw new ClassFileFormatException("#" + pc + ": Invalid opcode " + opcode2 + " after wide");
+                }
+            }
+            break;
+
+        default:
+            throw new ClassFileFormatException("#" + pc + ": Invalid opcode " + opcode);
+        }
+
+        if (length > codeLength - pc) throw RawClassFile.truncated(pc);
+        return length;
+    }
+
+    /**
+     * @return Whether the <var>opcode</var> is a conditional or unconditional branch, a {@code jsr} or a switch
+     */
+    static boolean
+    isBranch(int opcode) {
+        byte layout = RawClassFile.LAYOUTS[opcode];
+        return (
+            layout == RawClassFile.BRANCH2
+            || layout == RawClassFile.BRANCH4
+            || layout == RawClassFile.TABLESWITCH
+            || layout == RawClassFile.LOOKUPSWITCH
+        );
+    }
+
+    private static ClassFileFormatException
+    truncated(int pc) { return new ClassFileFormatException("#" + pc + ": Instruction exceeds the code"); }
+
+    static int
+    u2(byte[] b, int p) { return ((b[p] & 0xff) << 8) | (b[p + 1] & 0xff); }
+
+    static int
+    s4(byte[] b, int p) { return (RawClassFile.u2(b, p) << 16) | RawClassFile.u2(b, p + 2); }
+}
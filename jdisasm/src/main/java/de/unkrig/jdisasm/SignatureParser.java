@@ -76,19 +76,30 @@ class SignatureParser {
         }
     };
 
-    private Options options = SignatureParser.DEFAULT_OPTIONS; // Initialize early to avoid an NPE!
+    private Options       options = SignatureParser.DEFAULT_OPTIONS; // Initialize early to avoid an NPE!
+    private final Metrics metrics;
 
     public
-    SignatureParser() {}
+    SignatureParser() { this(SignatureParser.DEFAULT_OPTIONS); }
 
     public
-    SignatureParser(Options options) { this.options = options; }
+    SignatureParser(Options options) { this(options, Metrics.NOP); }
+
+    /**
+     * @param metrics Receives the timings and counts of all {@code decode*()} invocations
+     */
+    public
+    SignatureParser(Options options, Metrics metrics) {
+        this.options = options;
+        this.metrics = metrics;
+    }
 
     /**
      * Decodes a 'class signature' as defined in JVMS7 4.3.4 / JVMS8 4.7.9.1.
      */
     public ClassSignature
     decodeClassSignature(String s) throws SignatureException {
+        long start = this.metrics.now();
         try {
             StringCharStream scs = new StringCharStream(s);
             ClassSignature   cls;
@@ -101,6 +112,9 @@ class SignatureParser {
             throw new SignatureException("Class signature '" + s + "': " + e.getMessage(), e);
         } catch (UnexpectedCharacterException e) {
             throw new SignatureException("Class signature '" + s + "': " + e.getMessage(), e);
+        } finally {
+            this.metrics.time(Metrics.Timer.SIGNATURES, start);
+            this.metrics.count(Metrics.Counter.SIGNATURES, 1);
         }
     }
 
@@ -109,6 +123,7 @@ class SignatureParser {
      */
     public MethodTypeSignature
     decodeMethodTypeSignature(String s) throws SignatureException {
+        long start = this.metrics.now();
         try {
             StringCharStream          scs = new StringCharStream(s);
             final MethodTypeSignature mts = this.parseMethodTypeSignature(scs);
@@ -120,6 +135,9 @@ class SignatureParser {
             throw new SignatureException("Method type signature '" + s + "': " + e.getMessage(), e);
         } catch (UnexpectedCharacterException e) {
             throw new SignatureException("Method type signature '" + s + "': " + e.getMessage(), e);
+        } finally {
+            this.metrics.time(Metrics.Timer.SIGNATURES, start);
+            this.metrics.count(Metrics.Counter.SIGNATURES, 1);
         }
     }
 
@@ -128,6 +146,7 @@ class SignatureParser {
      */
     public TypeSignature
     decodeTypeSignature(String s) throws SignatureException {
+        long start = this.metrics.now();
         try {
             StringCharStream    scs = new StringCharStream(s);
             final TypeSignature ts  = this.parseTypeSignature(scs);
@@ -139,6 +158,9 @@ class SignatureParser {
             throw new SignatureException("Field type signature '" + s + "': " + e.getMessage(), e);
         } catch (UnexpectedCharacterException e) {
             throw new SignatureException("Field type signature '" + s + "': " + e.getMessage(), e);
+        } finally {
+            this.metrics.time(Metrics.Timer.SIGNATURES, start);
+            this.metrics.count(Metrics.Counter.SIGNATURES, 1);
         }
     }
 
@@ -147,6 +169,7 @@ class SignatureParser {
      */
     public FieldTypeSignature
     decodeFieldTypeSignature(String s) throws SignatureException {
+        long start = this.metrics.now();
         try {
             StringCharStream         scs = new StringCharStream(s);
             final FieldTypeSignature fts = this.parseFieldTypeSignature(scs);
@@ -158,6 +181,9 @@ class SignatureParser {
             throw new SignatureException("Field type signature '" + s + "': " + e.getMessage(), e);
         } catch (UnexpectedCharacterException e) {
             throw new SignatureException("Field type signature '" + s + "': " + e.getMessage(), e);
+        } finally {
+            this.metrics.time(Metrics.Timer.SIGNATURES, start);
+            this.metrics.count(Metrics.Counter.SIGNATURES, 1);
         }
     }
 
@@ -168,6 +194,7 @@ class SignatureParser {
      */
     public MethodTypeSignature
     decodeMethodDescriptor(String s) throws SignatureException {
+        long start = this.metrics.now();
         try {
             StringCharStream          scs = new StringCharStream(s);
             final MethodTypeSignature mts = this.parseMethodDescriptor(scs);
@@ -179,6 +206,9 @@ class SignatureParser {
             throw new SignatureException("Method descriptor '" + s + "': " + e.getMessage(), e);
         } catch (UnexpectedCharacterException e) {
             throw new SignatureException("Method descriptor '" + s + "': " + e.getMessage(), e);
+        } finally {
+            this.metrics.time(Metrics.Timer.SIGNATURES, start);
+            this.metrics.count(Metrics.Counter.SIGNATURES, 1);
         }
     }
 
@@ -205,6 +235,7 @@ class SignatureParser {
      */
     public TypeSignature
     decodeFieldDescriptor(String s) throws SignatureException {
+        long start = this.metrics.now();
         try {
             StringCharStream    scs = new StringCharStream(s);
             final TypeSignature ts  = this.parseFieldDescriptor(scs);
@@ -216,6 +247,9 @@ class SignatureParser {
             throw new SignatureException("Field descriptor '" + s + "': " + e.getMessage(), e);
         } catch (UnexpectedCharacterException e) {
             throw new SignatureException("Field descriptor '" + s + "': " + e.getMessage(), e);
+        } finally {
+            this.metrics.time(Metrics.Timer.SIGNATURES, start);
+            this.metrics.count(Metrics.Counter.SIGNATURES, 1);
         }
     }
 
@@ -237,6 +271,7 @@ class SignatureParser {
      */
     public TypeSignature
     decodeReturnType(String s) throws SignatureException {
+        long start = this.metrics.now();
         try {
             StringCharStream    scs = new StringCharStream(s);
             final TypeSignature ts  = this.parseReturnType(scs);
@@ -248,6 +283,9 @@ class SignatureParser {
             throw new SignatureException("Return type '" + s + "': " + e.getMessage(), e);
         } catch (UnexpectedCharacterException e) {
             throw new SignatureException("Return type '" + s + "': " + e.getMessage(), e);
+        } finally {
+            this.metrics.time(Metrics.Timer.SIGNATURES, start);
+            this.metrics.count(Metrics.Counter.SIGNATURES, 1);
         }
     }
 
@@ -0,0 +1,1197 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.ClassFile.AccessFlags.FlagType;
+import de.unkrig.jdisasm.ClassFile.AppendFrame;
+import de.unkrig.jdisasm.ClassFile.ChopFrame;
+import de.unkrig.jdisasm.ClassFile.CodeAttribute;
+import de.unkrig.jdisasm.ClassFile.DoubleVariableInfo;
+import de.unkrig.jdisasm.ClassFile.ExceptionTableEntry;
+import de.unkrig.jdisasm.ClassFile.FloatVariableInfo;
+import de.unkrig.jdisasm.ClassFile.FullFrame;
+import de.unkrig.jdisasm.ClassFile.IntegerVariableInfo;
+import de.unkrig.jdisasm.ClassFile.LongVariableInfo;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ClassFile.NullVariableInfo;
+import de.unkrig.jdisasm.ClassFile.ObjectVariableInfo;
+import de.unkrig.jdisasm.ClassFile.SameFrame;
+import de.unkrig.jdisasm.ClassFile.SameFrameExtended;
+import de.unkrig.jdisasm.ClassFile.SameLocals1StackItemFrame;
+import de.unkrig.jdisasm.ClassFile.SameLocals1StackItemFrameExtended;
+import de.unkrig.jdisasm.ClassFile.StackMapFrame;
+import de.unkrig.jdisasm.ClassFile.StackMapFrameVisitor;
+import de.unkrig.jdisasm.ClassFile.StackMapTableAttribute;
+import de.unkrig.jdisasm.ClassFile.UninitializedThisVariableInfo;
+import de.unkrig.jdisasm.ClassFile.UninitializedVariableInfo;
+import de.unkrig.jdisasm.ClassFile.VerificationTypeInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantClassInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDoubleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFieldrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantFloatInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantIntegerInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInterfaceMethodrefOrMethodrefInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantInvokeDynamicInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantLongInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodHandleInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantMethodTypeInfo;
+import de.unkrig.jdisasm.ConstantPool.ConstantPoolEntry;
+import de.unkrig.jdisasm.ConstantPool.ConstantStringInfo;
+import de.unkrig.jdisasm.SignatureParser.SignatureException;
+
+/**
+ * An abstract interpreter that computes the types of the operand stack and the local variables before each
+ * instruction of a method.
+ * <p>
+ *   Where the method's {@code StackMapTable} attribute declares a frame, that frame is taken as is; elsewhere the
+ *   types are derived from the instructions, and merged where control flow joins (which is only relevant for class
+ *   files without a {@code StackMapTable}). As with the verifier, {@code long} and {@code double} values occupy two
+ *   slots, the second of which is {@link #TOP}.
+ * </p>
+ * <p>
+ *   Verification types are represented as {@code int}s: The lower four bits are the "tag" ({@link #TOP}, {@link
+ *   #INTEGER}, ...); for {@link #OBJECT} the upper bits are an index into a table of class names, and for {@link
+ *   #UNINITIALIZED} they are the offset of the {@code new} instruction. The types are stored in {@code int} arrays
+ *   that are reused across methods, so an instance should be reused for many methods. Not thread-safe.
+ * </p>
+ * <p>
+ *   The interpreter does not check the types of the operands (that requires a class hierarchy), but it detects
+ *   operand stack overflow and underflow, local variable indexes beyond {@code maxLocals}, inconsistent stack sizes
+ *   where control flow joins, and branches into the middle of instructions.
+ * </p>
+ */
+public final
+class StackMapInterpreter {
+
+    // SUPPRESS CHECKSTYLE JavadocVariable:9
+    public static final int TOP                = 0;
+    public static final int INTEGER            = 1;
+    public static final int FLOAT              = 2;
+    public static final int LONG               = 3;
+    public static final int DOUBLE             = 4;
+    public static final int NULL               = 5;
+    public static final int UNINITIALIZED_THIS = 6;
+    public static final int OBJECT             = 7;
+    public static final int UNINITIALIZED      = 8;
+
+    private static final int RETURN_ADDRESS = 9;
+
+    private static final int[] ARITHMETIC_TYPES = {
+        StackMapInterpreter.INTEGER,
+        StackMapInterpreter.LONG,
+        StackMapInterpreter.FLOAT,
+        StackMapInterpreter.DOUBLE,
+    };
+
+    /**
+     * The "from" and "to" types of the conversion instructions {@code i2l} through {@code i2s}.
+     */
+    private static final int[] CONVERSIONS = {
+        StackMapInterpreter.INTEGER, StackMapInterpreter.LONG,    // i2l
+        StackMapInterpreter.INTEGER, StackMapInterpreter.FLOAT,   // i2f
+        StackMapInterpreter.INTEGER, StackMapInterpreter.DOUBLE,  // i2d
+        StackMapInterpreter.LONG,    StackMapInterpreter.INTEGER, // l2i
+        StackMapInterpreter.LONG,    StackMapInterpreter.FLOAT,   // l2f
+        StackMapInterpreter.LONG,    StackMapInterpreter.DOUBLE,  // l2d
+        StackMapInterpreter.FLOAT,   StackMapInterpreter.INTEGER, // f2i
+        StackMapInterpreter.FLOAT,   StackMapInterpreter.LONG,    // f2l
+        StackMapInterpreter.FLOAT,   StackMapInterpreter.DOUBLE,  // f2d
+        StackMapInterpreter.DOUBLE,  StackMapInterpreter.INTEGER, // d2i
+        StackMapInterpreter.DOUBLE,  StackMapInterpreter.LONG,    // d2l
+        StackMapInterpreter.DOUBLE,  StackMapInterpreter.FLOAT,   // d2f
+        StackMapInterpreter.INTEGER, StackMapInterpreter.INTEGER, // i2b
+        StackMapInterpreter.INTEGER, StackMapInterpreter.INTEGER, // i2c
+        StackMapInterpreter.INTEGER, StackMapInterpreter.INTEGER, // i2s
+    };
+
+    // The decoded instructions.
+    private final DecodedCode code = new DecodedCode();
+
+    // The class names of the OBJECT types.
+    @Nullable private ClassFile        classFile;
+    private final List<String>         classNames  = new ArrayList<String>();
+    private final Map<String, Integer> classIds    = new HashMap<String, Integer>();
+    private int[]                      cpTypeCache = new int[0]; // CP index => type + 1, or 0
+
+    // The results, per instruction.
+    private int   insnCount, maxStack, maxLocals;
+    private int[] stackSizes = new int[0]; // -1 == not reached
+    private int[] stacks     = new int[0]; // insnCount * maxStack
+    private int[] locals     = new int[0]; // insnCount * maxLocals
+    private int   maxStackSize, maxLocalsSize;
+
+    // The work list.
+    private int[]     work   = new int[0];
+    private int       workCount;
+    private boolean[] queued = new boolean[0], fixed = new boolean[0];
+
+    // The current state.
+    private int[] stack = new int[0], local = new int[0];
+    private int   sp, pc;
+
+    // The declared locals of the current stack map frame, and their sizes (1 or 2).
+    private final IntList frameLocals = new IntList(), frameLocalSizes = new IntList(), frameStack = new IntList();
+
+    /**
+     * Computes the types of the operand stack and the local variables before each instruction of the given
+     * <var>method</var>; the results are available through {@link #getInstructionCount()} etc. until the next
+     * invocation.
+     *
+     * @throws ClassFileFormatException The code is inconsistent; see {@link StackMapInterpreter}
+     */
+    public void
+    interpret(Method method) throws IOException {
+
+        ClassFile cf = method.getClassFile();
+        if (cf != this.classFile) {
+            this.classFile = cf;
+            this.classNames.clear();
+            this.classIds.clear();
+            this.cpTypeCache = new int[cf.constantPool.entries.length];
+        }
+
+        this.insnCount = 0;
+        CodeAttribute ca = method.codeAttribute;
+        if (ca == null) return;
+        this.code.decode(ca.code);
+        this.insnCount = this.code.size();
+
+        int n         = this.insnCount;
+        int maxStack  = this.maxStack  = 0xffff & ca.maxStack;
+        int maxLocals = this.maxLocals = 0xffff & ca.maxLocals;
+        if (this.stackSizes.length < n) {
+            this.stackSizes = new int[n];
+            this.work       = new int[n];
+            this.queued     = new boolean[n];
+            this.fixed      = new boolean[n];
+        }
+        Arrays.fill(this.stackSizes, 0, n, -1);
+        Arrays.fill(this.queued, 0, n, false);
+        Arrays.fill(this.fixed, 0, n, false);
+        if (this.stacks.length < n * maxStack) this.stacks = new int[n * maxStack];
+        if (this.locals.length < n * maxLocals) this.locals = new int[n * maxLocals];
+        if (this.stack.length < maxStack) this.stack = new int[maxStack];
+        if (this.local.length < maxLocals) this.local = new int[maxLocals];
+        this.workCount     = 0;
+        this.maxStackSize  = 0;
+        this.maxLocalsSize = 0;
+        if (n == 0) return;
+
+        // The implicit frame at offset 0.
+        this.pc = 0;
+        this.frameLocals.clear();
+        this.frameLocalSizes.clear();
+        this.frameStack.clear();
+        if (!method.accessFlags.is(FlagType.STATIC)) {
+            this.frameLocals.add(
+                "<init>".equals(method.name) && !"java.lang.Object".equals(cf.thisClass.name)
+                ? StackMapInterpreter.UNINITIALIZED_THIS
+                : this.objectType(cf.thisClass.name)
+            );
+            this.frameLocalSizes.add(1);
+        }
+        String md = method.descriptor;
+        for (int i = 1; md.charAt(i) != ')'; i = StackMapInterpreter.skipFieldType(md, i)) {
+            int t = this.fieldType(md, i);
+            this.frameLocals.add(t);
+            if (StackMapInterpreter.isWide(t)) this.frameLocals.add(StackMapInterpreter.TOP);
+            this.frameLocalSizes.add(StackMapInterpreter.isWide(t) ? 2 : 1);
+        }
+        Arrays.fill(this.local, 0, maxLocals, StackMapInterpreter.TOP);
+        this.loadFrame();
+        this.flowTo(0);
+
+        // The explicit frames.
+        StackMapTableAttribute smta = ca.stackMapTableAttribute;
+        if (smta != null) {
+            FrameDecoder fd = new FrameDecoder();
+            int          pc = -1;
+            for (StackMapFrame smf : smta.entries) {
+                this.pc = pc = pc + 1 + smf.offsetDelta;
+                smf.accept(fd);
+                int insn = this.instructionAt(pc, "Stack map frame");
+                this.loadFrame();
+                this.stackSizes[insn] = this.sp;
+                System.arraycopy(this.stack, 0, this.stacks, insn * maxStack, this.sp);
+                System.arraycopy(this.local, 0, this.locals, insn * maxLocals, maxLocals);
+                this.fixed[insn] = true;
+                this.enqueue(insn);
+            }
+        }
+
+        while (this.workCount > 0) {
+            int insn = this.work[--this.workCount];
+            this.queued[insn] = false;
+            this.step(insn, ca.exceptionTable);
+        }
+    }
+
+    /**
+     * @return The number of instructions of the method that was last {@link #interpret(Method) interpret}ed
+     */
+    public int
+    getInstructionCount() { return this.insnCount; }
+
+    /**
+     * @return The code offset of the <var>insn</var>th instruction
+     */
+    public int
+    getPc(int insn) { return this.code.pcs()[insn]; }
+
+    /**
+     * @return The index of the instruction at the given code offset, or -1
+     */
+    public int
+    getInstructionIndex(int pc) {
+        int insn = this.code.instructionAt(pc);
+        return insn == this.insnCount ? -1 : insn;
+    }
+
+    /**
+     * @return The number of operand stack slots that are in use before the <var>insn</var>th instruction, or -1 iff
+     *         that instruction is unreachable
+     */
+    public int
+    getStackSize(int insn) { return this.stackSizes[insn]; }
+
+    /**
+     * @return The type of the <var>i</var>th operand stack slot (counting from the bottom) before the
+     *         <var>insn</var>th instruction
+     */
+    public int
+    getStackType(int insn, int i) { return this.stacks[insn * this.maxStack + i]; }
+
+    /**
+     * @return The type of local variable <var>i</var> before the <var>insn</var>th instruction
+     */
+    public int
+    getLocalType(int insn, int i) { return this.locals[insn * this.maxLocals + i]; }
+
+    /**
+     * @return The greatest operand stack size that the method actually reaches; should be equal to the declared
+     *         {@code maxStack}
+     */
+    public int
+    getMaxStackSize() { return this.maxStackSize; }
+
+    /**
+     * @return One plus the greatest local variable index that the method actually uses (including the
+     *         parameters); should be equal to the declared {@code maxLocals}
+     */
+    public int
+    getMaxLocalsSize() { return this.maxLocalsSize; }
+
+    /**
+     * @return The tag of the given <var>type</var>, e.g. {@link #OBJECT}
+     */
+    public static int
+    getTag(int type) { return type & 15; }
+
+    /**
+     * @return The class name (dot-separated, or an array descriptor) of the given {@link #OBJECT} <var>type</var>
+     */
+    public String
+    getClassName(int type) { return this.classNames.get(type >>> 4); }
+
+    /**
+     * @return E.g. "{@code int}", "{@code java.lang.String}" or "{@code uninitialized(offset=12)}"
+     */
+    public String
+    toString(int type) {
+        switch (type & 15) {
+        case TOP:                return "top";
+        case INTEGER:            return "int";
+        case FLOAT:              return "float";
+        case LONG:               return "long";
+        case DOUBLE:             return "double";
+        case NULL:               return "null";
+        case UNINITIALIZED_THIS: return "uninitializedThis";
+        case OBJECT:             return this.getClassName(type);
+        case UNINITIALIZED:      return "uninitialized(offset=" + (type >>> 4) + ")";
+        default:                 return "returnAddress";
+        }
+    }
+
+    /**
+     * Like {@link #toString(int)}, but converts class names with the given <var>signatureParser</var>.
+     */
+    public String
+    toString(int type, SignatureParser signatureParser) {
+        if ((type & 15) != StackMapInterpreter.OBJECT) return this.toString(type);
+        String name = this.getClassName(type);
+        try {
+
+            // Array types are field descriptors, which the parser expects in internal form, e.g.
+            // "[Ljava/lang/String;".
+            name = (
+                name.charAt(0) == '['
+                ? signatureParser.decodeFieldDescriptor(name.replace('.', '/'))
+                : signatureParser.decodeClassNameOrFieldDescriptor(name)
+            ).toString();
+        } catch (SignatureException e) {
+            ;
+        }
+        return ConstantPool.beautifyTypeName(name);
+    }
+
+    /**
+     * @return The types of the operand stack before the <var>insn</var>th instruction, e.g. "{@code [int, long]}",
+     *         where the second slots of {@code long} and {@code double} values are omitted
+     */
+    public String
+    stackToString(int insn, SignatureParser signatureParser) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0, n = this.getStackSize(insn); i < n; i++) {
+            int t = this.getStackType(insn, i);
+            if (i > 0) sb.append(", ");
+            sb.append(this.toString(t, signatureParser));
+            if (StackMapInterpreter.isWide(t)) i++;
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Executes the <var>insn</var>th instruction, and propagates the resulting state to its successors.
+     */
+    private void
+    step(int insn, List<ExceptionTableEntry> exceptionTable) throws ClassFileFormatException {
+
+        int maxStack = this.maxStack, maxLocals = this.maxLocals;
+        int pc       = this.pc = this.code.pcs()[insn];
+        this.sp = this.stackSizes[insn];
+        System.arraycopy(this.stacks, insn * maxStack, this.stack, 0, this.sp);
+        System.arraycopy(this.locals, insn * maxLocals, this.local, 0, maxLocals);
+
+        // Exception edges, with the locals before the instruction.
+        for (ExceptionTableEntry ete : exceptionTable) {
+            if (pc < ete.startPc || pc >= ete.endPc) continue;
+            int savedSp = this.sp, saved0 = maxStack > 0 ? this.stack[0] : 0;
+            this.sp = 0;
+            ConstantClassInfo ct = ete.catchType;
+            this.push(this.objectType(ct == null ? "java.lang.Throwable" : ct.name));
+            this.flowTo(this.instructionAt(ete.handlerPc, "Exception handler"));
+            this.sp = savedSp;
+            if (maxStack > 0) this.stack[0] = saved0;
+        }
+
+        int[] ops    = this.code.operands();
+        int   o      = this.code.operandStarts()[insn];
+        int   opcode = this.code.opcodes()[insn];
+        if ((opcode & 0xff00) == 0xc400) opcode &= 0xff; // "wide" instructions have the same effect
+
+        boolean fallsThrough = true;
+        switch (opcode) {
+
+        case 0:   // nop
+            break;
+
+        case 1:   // aconst_null
+            this.push(StackMapInterpreter.NULL);
+            break;
+
+        case 2:   // iconst_m1
+        case 3:   // iconst_0
+        case 4:   // iconst_1
+        case 5:   // iconst_2
+        case 6:   // iconst_3
+        case 7:   // iconst_4
+        case 8:   // iconst_5
+        case 16:  // bipush
+        case 17:  // sipush
+            this.push(StackMapInterpreter.INTEGER);
+            break;
+
+        case 9:   // lconst_0
+        case 10:  // lconst_1
+            this.push(StackMapInterpreter.LONG);
+            break;
+
+        case 11:  // fconst_0
+        case 12:  // fconst_1
+        case 13:  // fconst_2
+            this.push(StackMapInterpreter.FLOAT);
+            break;
+
+        case 14:  // dconst_0
+        case 15:  // dconst_1
+            this.push(StackMapInterpreter.DOUBLE);
+            break;
+
+        case 18:  // ldc
+        case 19:  // ldc_w
+        case 20:  // ldc2_w
+            this.push(this.constantType(ops[o]));
+            break;
+
+        case 21:  // iload
+        case 22:  // lload
+        case 23:  // fload
+        case 24:  // dload
+        case 25:  // aload
+            this.load(ops[o], opcode - 21);
+            break;
+
+        case 26: case 27: case 28: case 29: // iload_<n>
+        case 30: case 31: case 32: case 33: // lload_<n>
+        case 34: case 35: case 36: case 37: // fload_<n>
+        case 38: case 39: case 40: case 41: // dload_<n>
+        case 42: case 43: case 44: case 45: // aload_<n>
+            this.load((opcode - 26) & 3, (opcode - 26) >> 2);
+            break;
+
+        case 46:  // iaload
+        case 51:  // baload
+        case 52:  // caload
+        case 53:  // saload
+            this.pop(2);
+            this.push(StackMapInterpreter.INTEGER);
+            break;
+
+        case 47:  // laload
+            this.pop(2);
+            this.push(StackMapInterpreter.LONG);
+            break;
+
+        case 48:  // faload
+            this.pop(2);
+            this.push(StackMapInterpreter.FLOAT);
+            break;
+
+        case 49:  // daload
+            this.pop(2);
+            this.push(StackMapInterpreter.DOUBLE);
+            break;
+
+        case 50:  // aaload
+            {
+                this.pop(2);
+                int arrayType = this.stack[this.sp];
+                this.push(this.componentType(arrayType));
+            }
+            break;
+
+        case 54:  // istore
+        case 55:  // lstore
+        case 56:  // fstore
+        case 57:  // dstore
+        case 58:  // astore
+            this.store(ops[o], opcode == 55 || opcode == 57 ? 2 : 1);
+            break;
+
+        case 59: case 60: case 61: case 62: // istore_<n>
+        case 63: case 64: case 65: case 66: // lstore_<n>
+        case 67: case 68: case 69: case 70: // fstore_<n>
+        case 71: case 72: case 73: case 74: // dstore_<n>
+        case 75: case 76: case 77: case 78: // astore_<n>
+            {
+                int kind = (opcode - 59) >> 2;
+                this.store((opcode - 59) & 3, kind == 1 || kind == 3 ? 2 : 1);
+            }
+            break;
+
+        case 79:  // iastore
+        case 81:  // fastore
+        case 83:  // aastore
+        case 84:  // bastore
+        case 85:  // castore
+        case 86:  // sastore
+            this.pop(3);
+            break;
+
+        case 80:  // lastore
+        case 82:  // dastore
+            this.pop(4);
+            break;
+
+        case 87:  // pop
+            this.pop(1);
+            break;
+
+        case 88:  // pop2
+            this.pop(2);
+            break;
+
+        case 89:  // dup
+            this.dup(1, 0);
+            break;
+
+        case 90:  // dup_x1
+            this.dup(1, 1);
+            break;
+
+        case 91:  // dup_x2
+            this.dup(1, 2);
+            break;
+
+        case 92:  // dup2
+            this.dup(2, 0);
+            break;
+
+        case 93:  // dup2_x1
+            this.dup(2, 1);
+            break;
+
+        case 94:  // dup2_x2
+            this.dup(2, 2);
+            break;
+
+        case 95:  // swap
+            {
+                this.pop(2);
+                int t = this.stack[this.sp];
+                this.stack[this.sp]     = this.stack[this.sp + 1];
+                this.stack[this.sp + 1] = t;
+                this.sp += 2;
+            }
+            break;
+
+        case 96: case 97: case 98: case 99:     // iadd, ladd, fadd, dadd
+        case 100: case 101: case 102: case 103: // *sub
+        case 104: case 105: case 106: case 107: // *mul
+        case 108: case 109: case 110: case 111: // *div
+        case 112: case 113: case 114: case 115: // *rem
+            {
+                int t = StackMapInterpreter.ARITHMETIC_TYPES[(opcode - 96) & 3];
+                this.pop(2 * StackMapInterpreter.size(t));
+                this.push(t);
+            }
+            break;
+
+        case 116: case 117: case 118: case 119: // ineg, lneg, fneg, dneg
+            {
+                int t = StackMapInterpreter.ARITHMETIC_TYPES[opcode - 116];
+                this.pop(StackMapInterpreter.size(t));
+                this.push(t);
+            }
+            break;
+
+        case 120: case 122: case 124: // ishl, ishr, iushr
+        case 126: case 128: case 130: // iand, ior, ixor
+            this.pop(2);
+            this.push(StackMapInterpreter.INTEGER);
+            break;
+
+        case 121: case 123: case 125: // lshl, lshr, lushr
+            this.pop(3);
+            this.push(StackMapInterpreter.LONG);
+            break;
+
+        case 127: case 129: case 131: // land, lor, lxor
+            this.pop(4);
+            this.push(StackMapInterpreter.LONG);
+            break;
+
+        case 132: // iinc
+            this.checkLocal(ops[o], 1);
+            break;
+
+        case 133: case 134: case 135: case 136: case 137: case 138: case 139: case 140: // i2l ... f2l
+        case 141: case 142: case 143: case 144: case 145: case 146: case 147:           // f2d ... i2s
+            {
+                int from = StackMapInterpreter.CONVERSIONS[2 * (opcode - 133)];
+                int to   = StackMapInterpreter.CONVERSIONS[2 * (opcode - 133) + 1];
+                this.pop(StackMapInterpreter.size(from));
+                this.push(to);
+            }
+            break;
+
+        case 148: // lcmp
+        case 151: // dcmpl
+        case 152: // dcmpg
+            this.pop(4);
+            this.push(StackMapInterpreter.INTEGER);
+            break;
+
+        case 149: // fcmpl
+        case 150: // fcmpg
+            this.pop(2);
+            this.push(StackMapInterpreter.INTEGER);
+            break;
+
+        case 153: case 154: case 155: case 156: case 157: case 158: // if<cond>
+        case 198: case 199:                                         // ifnull, ifnonnull
+            this.pop(1);
+            this.flowTo(this.instructionAt(ops[o], "Branch target"));
+            break;
+
+        case 159: case 160: case 161: case 162: case 163: case 164: // if_icmp<cond>
+        case 165: case 166:                                         // if_acmp<cond>
+            this.pop(2);
+            this.flowTo(this.instructionAt(ops[o], "Branch target"));
+            break;
+
+        case 167: // goto
+        case 200: // goto_w
+            this.flowTo(this.instructionAt(ops[o], "Branch target"));
+            fallsThrough = false;
+            break;
+
+        case 168: // jsr
+        case 201: // jsr_w
+            // Approximation: The subroutine is entered with a return address, and the state after the
+            // subroutine's "ret" is assumed to be the state before the "jsr".
+            this.push(StackMapInterpreter.RETURN_ADDRESS);
+            this.flowTo(this.instructionAt(ops[o], "Branch target"));
+            this.pop(1);
+            break;
+
+        case 169: // ret
+            this.checkLocal(ops[o], 1);
+            fallsThrough = false;
+            break;
+
+        case 170: // tableswitch: default, low, high, targets...
+        case 171: // lookupswitch: default, npairs, (match, target)...
+            this.pop(1);
+            this.flowTo(this.instructionAt(ops[o], "Branch target"));
+            for (int i = o + 3, end = this.code.operandStarts()[insn + 1]; i < end; i += opcode == 170 ? 1 : 2) {
+                this.flowTo(this.instructionAt(ops[i], "Branch target"));
+            }
+            fallsThrough = false;
+            break;
+
+        case 172: // ireturn
+        case 174: // freturn
+        case 176: // areturn
+        case 191: // athrow
+            this.pop(1);
+            fallsThrough = false;
+            break;
+
+        case 173: // lreturn
+        case 175: // dreturn
+            this.pop(2);
+            fallsThrough = false;
+            break;
+
+        case 177: // return
+            fallsThrough = false;
+            break;
+
+        case 178: // getstatic
+        case 179: // putstatic
+        case 180: // getfield
+        case 181: // putfield
+            {
+                int fieldType = this.constantType(ops[o]);
+                if (opcode == 179 || opcode == 181) this.pop(StackMapInterpreter.size(fieldType));
+                if (opcode == 180 || opcode == 181) this.pop(1);
+                if (opcode == 178 || opcode == 180) this.push(fieldType);
+            }
+            break;
+
+        case 182: // invokevirtual
+        case 183: // invokespecial
+        case 184: // invokestatic
+        case 185: // invokeinterface
+        case 186: // invokedynamic
+            this.invoke(opcode, ops[o]);
+            break;
+
+        case 187: // new
+            this.push(StackMapInterpreter.UNINITIALIZED | (pc << 4));
+            break;
+
+        case 188: // newarray
+            if (ops[o] < 4 || ops[o] > 11) throw this.error("Invalid array type " + ops[o]);
+            this.pop(1);
+            this.push(this.objectType("[" + "ZCFDBSIJ".charAt(ops[o] - 4)));
+            break;
+
+        case 189: // anewarray
+            {
+                this.pop(1);
+                String componentType = ((ConstantClassInfo) this.cpEntry(ops[o])).name;
+                this.push(this.objectType(
+                    componentType.startsWith("[") ? "[" + componentType : "[L" + componentType + ";"
+                ));
+            }
+            break;
+
+        case 190: // arraylength
+        case 193: // instanceof
+            this.pop(1);
+            this.push(StackMapInterpreter.INTEGER);
+            break;
+
+        case 192: // checkcast
+            this.pop(1);
+            this.push(this.constantType(ops[o]));
+            break;
+
+        case 194: // monitorenter
+        case 195: // monitorexit
+            this.pop(1);
+            break;
+
+        case 197: // multianewarray
+            this.pop(ops[o + 1]);
+            this.push(this.constantType(ops[o]));
+            break;
+
+        default:
+            throw this.error("Unexpected opcode " + opcode);
+        }
+
+        if (fallsThrough) {
+            if (insn + 1 == this.insnCount) throw this.error("Execution falls off the end of the code");
+            this.flowTo(insn + 1);
+        }
+    }
+
+    private void
+    invoke(int opcode, int cpIndex) throws ClassFileFormatException {
+
+        ConstantPoolEntry cpe = this.cpEntry(cpIndex);
+        String            name, descriptor;
+        if (cpe instanceof ConstantInterfaceMethodrefOrMethodrefInfo) {
+            ConstantInterfaceMethodrefOrMethodrefInfo mr = (ConstantInterfaceMethodrefOrMethodrefInfo) cpe;
+            name       = mr.nameAndType.name.bytes;
+            descriptor = mr.nameAndType.descriptor.bytes;
+        } else
+        if (cpe instanceof ConstantInvokeDynamicInfo) {
+            ConstantInvokeDynamicInfo idi = (ConstantInvokeDynamicInfo) cpe;
+            name       = idi.nameAndType.name.bytes;
+            descriptor = idi.nameAndType.descriptor.bytes;
+        } else
+        {
+            throw this.error("Constant pool entry #" + cpIndex + " is not a method reference");
+        }
+
+        int argumentSize = 0, i = 1;
+        for (; descriptor.charAt(i) != ')'; i = StackMapInterpreter.skipFieldType(descriptor, i)) {
+            char c = descriptor.charAt(i);
+            argumentSize += c == 'J' || c == 'D' ? 2 : 1;
+        }
+        this.pop(argumentSize);
+
+        if (opcode == 183 && "<init>".equals(name)) { // invokespecial <init>
+            this.pop(1);
+            int receiver = this.stack[this.sp], initialized;
+            if (receiver == StackMapInterpreter.UNINITIALIZED_THIS) {
+                ClassFile cf = this.classFile;
+                assert cf != null;
+                initialized = this.objectType(cf.thisClass.name);
+            } else
+            if ((receiver & 15) == StackMapInterpreter.UNINITIALIZED) {
+                int newInsn = this.instructionAt(receiver >>> 4, "Uninitialized object");
+                initialized = this.constantType(this.code.operands()[this.code.operandStarts()[newInsn]]);
+            } else
+            {
+                throw this.error("Constructor invocation on an initialized object");
+            }
+            for (int j = 0; j < this.sp; j++) {
+                if (this.stack[j] == receiver) this.stack[j] = initialized;
+            }
+            for (int j = 0; j < this.maxLocals; j++) {
+                if (this.local[j] == receiver) this.local[j] = initialized;
+            }
+        } else
+        if (opcode != 184 && opcode != 186) { // invokestatic, invokedynamic
+            this.pop(1);
+        }
+
+        if (descriptor.charAt(i + 1) != 'V') this.push(this.fieldType(descriptor, i + 1));
+    }
+
+    /**
+     * Propagates the current state to the <var>insn</var>th instruction.
+     */
+    private void
+    flowTo(int insn) throws ClassFileFormatException {
+
+        int maxStack = this.maxStack, maxLocals = this.maxLocals;
+        int sp       = this.sp;
+
+        int targetSp = this.stackSizes[insn];
+        if (targetSp == -1) {
+            this.stackSizes[insn] = sp;
+            System.arraycopy(this.stack, 0, this.stacks, insn * maxStack, sp);
+            System.arraycopy(this.local, 0, this.locals, insn * maxLocals, maxLocals);
+            this.enqueue(insn);
+            return;
+        }
+
+        if (targetSp != sp) {
+            throw this.error(
+                "Stack size "
+                + sp
+                + " is inconsistent with stack size "
+                + targetSp
+                + " at offset "
+                + this.code.pcs()[insn]
+            );
+        }
+
+        // A frame from the StackMapTable is not merged.
+        if (this.fixed[insn]) return;
+
+        boolean changed = false;
+        for (int i = 0; i < sp; i++) {
+            int idx = insn * maxStack + i, merged = this.merge(this.stacks[idx], this.stack[i]);
+            if (merged != this.stacks[idx]) {
+                this.stacks[idx] = merged;
+                changed          = true;
+            }
+        }
+        for (int i = 0; i < maxLocals; i++) {
+            int idx = insn * maxLocals + i, merged = this.merge(this.locals[idx], this.local[i]);
+            if (merged != this.locals[idx]) {
+                this.locals[idx] = merged;
+                changed          = true;
+            }
+        }
+        if (changed) this.enqueue(insn);
+    }
+
+    private int
+    merge(int t1, int t2) {
+        if (t1 == t2) return t1;
+        if (!StackMapInterpreter.isReference(t1) || !StackMapInterpreter.isReference(t2)) {
+            return StackMapInterpreter.TOP;
+        }
+        if (t1 == StackMapInterpreter.NULL) return t2;
+        if (t2 == StackMapInterpreter.NULL) return t1;
+        return this.objectType("java.lang.Object");
+    }
+
+    private void
+    enqueue(int insn) {
+        if (this.queued[insn]) return;
+        this.queued[insn]              = true;
+        this.work[this.workCount++] = insn;
+    }
+
+    private void
+    push(int type) throws ClassFileFormatException {
+        int size = StackMapInterpreter.size(type);
+        if (this.sp + size > this.maxStack) {
+            throw this.error("Operand stack overflow (maxStack=" + this.maxStack + ")");
+        }
+        this.stack[this.sp++] = type;
+        if (size == 2) this.stack[this.sp++] = StackMapInterpreter.TOP;
+        if (this.sp > this.maxStackSize) this.maxStackSize = this.sp;
+    }
+
+    private void
+    pop(int size) throws ClassFileFormatException {
+        if (size > this.sp) throw this.error("Operand stack underflow");
+        this.sp -= size;
+    }
+
+    /**
+     * Duplicates the top <var>n</var> stack slots, and inserts the copy <var>x</var> slots further down.
+     */
+    private void
+    dup(int n, int x) throws ClassFileFormatException {
+        int sp = this.sp;
+        if (n + x > sp) throw this.error("Operand stack underflow");
+        if (sp + n > this.maxStack) throw this.error("Operand stack overflow (maxStack=" + this.maxStack + ")");
+        System.arraycopy(this.stack, sp - n - x, this.stack, sp - x, n + x);
+        System.arraycopy(this.stack, sp, this.stack, sp - n - x, n);
+        this.sp = sp + n;
+        if (this.sp > this.maxStackSize) this.maxStackSize = this.sp;
+    }
+
+    /**
+     * @param kind 0=int, 1=long, 2=float, 3=double, 4=reference
+     */
+    private void
+    load(int index, int kind) throws ClassFileFormatException {
+        int size = kind == 1 || kind == 3 ? 2 : 1;
+        this.checkLocal(index, size);
+        this.push(kind == 4 ? this.local[index] : StackMapInterpreter.ARITHMETIC_TYPES[kind]);
+    }
+
+    private void
+    store(int index, int size) throws ClassFileFormatException {
+        this.checkLocal(index, size);
+        this.pop(size);
+        if (index > 0 && StackMapInterpreter.isWide(this.local[index - 1])) {
+            this.local[index - 1] = StackMapInterpreter.TOP;
+        }
+        this.local[index] = this.stack[this.sp];
+        if (size == 2) this.local[index + 1] = StackMapInterpreter.TOP;
+    }
+
+    private void
+    checkLocal(int index, int size) throws ClassFileFormatException {
+        if (index + size > this.maxLocals) {
+            throw this.error("Local variable index " + index + " exceeds maxLocals=" + this.maxLocals);
+        }
+        if (index + size > this.maxLocalsSize) this.maxLocalsSize = index + size;
+    }
+
+    /**
+     * @return The index of the instruction at the given code offset
+     */
+    private int
+    instructionAt(int pc, String what) throws ClassFileFormatException {
+        int insn = this.getInstructionIndex(pc);
+        if (insn == -1) throw this.error(what + " " + pc + " is not the start of an instruction");
+        return insn;
+    }
+
+    /**
+     * Loads the current stack map frame into the current state.
+     */
+    private void
+    loadFrame() throws ClassFileFormatException {
+        int n = this.frameLocals.size();
+        if (n > this.maxLocals) throw this.error("Frame has " + n + " locals, exceeds maxLocals=" + this.maxLocals);
+        System.arraycopy(this.frameLocals.array(), 0, this.local, 0, n);
+        Arrays.fill(this.local, n, this.maxLocals, StackMapInterpreter.TOP);
+        if (n > this.maxLocalsSize) this.maxLocalsSize = n;
+
+        this.sp = 0;
+        for (int i = 0, m = this.frameStack.size(); i < m; i++) this.push(this.frameStack.array()[i]);
+    }
+
+    /**
+     * Applies {@link StackMapFrame}s to the {@link #frameLocals}, {@link #frameLocalSizes} and {@link #frameStack}.
+     */
+    private
+    class FrameDecoder implements StackMapFrameVisitor<Void> {
+
+        @Override @Nullable public Void
+        visitSameFrame(SameFrame sf) {
+            StackMapInterpreter.this.frameStack.clear();
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitSameLocals1StackItemFrame(SameLocals1StackItemFrame sl1sif) {
+            StackMapInterpreter.this.frameStack.clear();
+            StackMapInterpreter.this.frameStack.add(StackMapInterpreter.this.verificationType(sl1sif.stack));
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitSameLocals1StackItemFrameExtended(SameLocals1StackItemFrameExtended sl1sife) {
+            StackMapInterpreter.this.frameStack.clear();
+            StackMapInterpreter.this.frameStack.add(StackMapInterpreter.this.verificationType(sl1sife.stack));
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitChopFrame(ChopFrame cf) {
+            IntList locals = StackMapInterpreter.this.frameLocals, sizes = StackMapInterpreter.this.frameLocalSizes;
+            for (int i = 0; i < cf.k && sizes.size() > 0; i++) {
+                locals.truncate(locals.size() - sizes.array()[sizes.size() - 1]);
+                sizes.truncate(sizes.size() - 1);
+            }
+            StackMapInterpreter.this.frameStack.clear();
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitSameFrameExtended(SameFrameExtended sfe) {
+            StackMapInterpreter.this.frameStack.clear();
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitAppendFrame(AppendFrame af) {
+            this.appendLocals(af.locals);
+            StackMapInterpreter.this.frameStack.clear();
+            return null;
+        }
+
+        @Override @Nullable public Void
+        visitFullFrame(FullFrame ff) {
+            StackMapInterpreter.this.frameLocals.clear();
+            StackMapInterpreter.this.frameLocalSizes.clear();
+            this.appendLocals(ff.locals);
+            StackMapInterpreter.this.frameStack.clear();
+            for (VerificationTypeInfo vti : ff.stack) {
+                StackMapInterpreter.this.frameStack.add(StackMapInterpreter.this.verificationType(vti));
+            }
+            return null;
+        }
+
+        private void
+        appendLocals(VerificationTypeInfo[] vtis) {
+            for (VerificationTypeInfo vti : vtis) {
+                int t = StackMapInterpreter.this.verificationType(vti);
+                StackMapInterpreter.this.frameLocals.add(t);
+                if (StackMapInterpreter.isWide(t)) StackMapInterpreter.this.frameLocals.add(StackMapInterpreter.TOP);
+                StackMapInterpreter.this.frameLocalSizes.add(StackMapInterpreter.size(t));
+            }
+        }
+    }
+
+    private int
+    verificationType(VerificationTypeInfo vti) {
+        if (vti instanceof IntegerVariableInfo)           return StackMapInterpreter.INTEGER;
+        if (vti instanceof FloatVariableInfo)             return StackMapInterpreter.FLOAT;
+        if (vti instanceof LongVariableInfo)              return StackMapInterpreter.LONG;
+        if (vti instanceof DoubleVariableInfo)            return StackMapInterpreter.DOUBLE;
+        if (vti instanceof NullVariableInfo)              return StackMapInterpreter.NULL;
+        if (vti instanceof UninitializedThisVariableInfo) return StackMapInterpreter.UNINITIALIZED_THIS;
+        if (vti instanceof ObjectVariableInfo) {
+            return this.objectType(((ObjectVariableInfo) vti).constantClassInfo.name);
+        }
+        if (vti instanceof UninitializedVariableInfo) {
+            return StackMapInterpreter.UNINITIALIZED | ((0xffff & ((UninitializedVariableInfo) vti).offset) << 4);
+        }
+        return StackMapInterpreter.TOP;
+    }
+
+    /**
+     * @return The type of the value that {@code ldc}, {@code getfield}, {@code checkcast} etc. produce for the given
+     *         constant pool entry
+     */
+    private int
+    constantType(int cpIndex) throws ClassFileFormatException {
+
+        int cached = this.cpTypeCache[cpIndex];
+        if (cached != 0) return cached - 1;
+
+        ConstantPoolEntry cpe = this.cpEntry(cpIndex);
+        int               result;
+        if (cpe instanceof ConstantIntegerInfo) {
+            result = StackMapInterpreter.INTEGER;
+        } else
+        if (cpe instanceof ConstantFloatInfo) {
+            result = StackMapInterpreter.FLOAT;
+        } else
+        if (cpe instanceof ConstantLongInfo) {
+            result = StackMapInterpreter.LONG;
+        } else
+        if (cpe instanceof ConstantDoubleInfo) {
+            result = StackMapInterpreter.DOUBLE;
+        } else
+        if (cpe instanceof ConstantStringInfo) {
+            result = this.objectType("java.lang.String");
+        } else
+        if (cpe instanceof ConstantClassInfo) {
+
+            // For "ldc", a class literal is a "java.lang.Class"; for "checkcast" etc. it designates the type.
+            result = this.objectType(((ConstantClassInfo) cpe).name);
+        } else
+        if (cpe instanceof ConstantMethodTypeInfo) {
+            result = this.objectType("java.lang.invoke.MethodType");
+        } else
+        if (cpe instanceof ConstantMethodHandleInfo) {
+            result = this.objectType("java.lang.invoke.MethodHandle");
+        } else
+        if (cpe instanceof ConstantDynamicInfo) {
+            result = this.fieldType(((ConstantDynamicInfo) cpe).nameAndType.descriptor.bytes, 0);
+        } else
+        if (cpe instanceof ConstantFieldrefInfo) {
+            result = this.fieldType(((ConstantFieldrefInfo) cpe).nameAndType.descriptor.bytes, 0);
+        } else
+        {
+            throw this.error("Unexpected constant pool entry #" + cpIndex);
+        }
+
+        this.cpTypeCache[cpIndex] = result + 1;
+        return result;
+    }
+
+    private ConstantPoolEntry
+    cpEntry(int cpIndex) throws ClassFileFormatException {
+        ClassFile cf = this.classFile;
+        assert cf != null;
+        ConstantPoolEntry[] entries = cf.constantPool.entries;
+        ConstantPoolEntry   result  = cpIndex > 0 && cpIndex < entries.length ? entries[cpIndex] : null;
+        if (result == null) throw this.error("Invalid constant pool index " + cpIndex);
+        return result;
+    }
+
+    /**
+     * @return The type of the field descriptor at offset <var>i</var> of <var>s</var>
+     */
+    private int
+    fieldType(String s, int i) {
+        switch (s.charAt(i)) {
+        case 'B': case 'C': case 'I': case 'S': case 'Z': return StackMapInterpreter.INTEGER;
+        case 'F':                                         return StackMapInterpreter.FLOAT;
+        case 'J':                                         return StackMapInterpreter.LONG;
+        case 'D':                                         return StackMapInterpreter.DOUBLE;
+        case 'L':
+            return this.objectType(s.substring(i + 1, s.indexOf(';', i)).replace('/', '.'));
+        default:
+            return this.objectType(s.substring(i, StackMapInterpreter.skipFieldType(s, i)).replace('/', '.'));
+        }
+    }
+
+    /**
+     * @return The offset after the field descriptor at offset <var>i</var> of <var>s</var>
+     */
+    private static int
+    skipFieldType(String s, int i) {
+        while (s.charAt(i) == '[') i++;
+        return s.charAt(i) == 'L' ? s.indexOf(';', i) + 1 : i + 1;
+    }
+
+    private int
+    componentType(int arrayType) {
+        if ((arrayType & 15) != StackMapInterpreter.OBJECT) return arrayType; // E.g. NULL
+        String name = this.getClassName(arrayType);
+        return name.startsWith("[") ? this.fieldType(name, 1) : StackMapInterpreter.TOP;
+    }
+
+    private int
+    objectType(String className) {
+        Integer id = this.classIds.get(className);
+        if (id == null) {
+            this.classIds.put(className, (id = this.classNames.size()));
+            this.classNames.add(className);
+        }
+        return (id << 4) | StackMapInterpreter.OBJECT;
+    }
+
+    private ClassFileFormatException
+    error(String message) { return new ClassFileFormatException("#" + this.pc + ": " + message); }
+
+    private static boolean
+    isWide(int type) { return type == StackMapInterpreter.LONG || type == StackMapInterpreter.DOUBLE; }
+
+    private static int
+    size(int type) { return StackMapInterpreter.isWide(type) ? 2 : 1; }
+
+    private static boolean
+    isReference(int type) {
+        int tag = type & 15;
+        return (
+            tag == StackMapInterpreter.NULL
+            || tag == StackMapInterpreter.OBJECT
+            || tag == StackMapInterpreter.UNINITIALIZED
+            || tag == StackMapInterpreter.UNINITIALIZED_THIS
+        );
+    }
+}
@@ -37,6 +37,7 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import de.unkrig.commons.nullanalysis.Nullable;
+import de.unkrig.jdisasm.FlightRecorder;
 
 /**
  * A {@link URLStreamHandler} for the protocol "{@code zip}".
@@ -132,11 +133,13 @@ class Handler extends URLStreamHandler {
                 assert zipContainer != null;
                 assert entryName != null;
 
+                Object event = FlightRecorder.INSTANCE.beginArchiveOpened();
+
                 // Open the ZIP container.
                 ZipInputStream zis = new ZipInputStream(zipContainer.openStream());
 
                 // Fast forward up to the requested entry.
-                for (;;) {
+                for (int entriesSkipped = 0;; entriesSkipped++) {
                     ZipEntry ze = zis.getNextEntry();
                     if (ze == null) {
 
@@ -144,7 +147,15 @@ class Handler extends URLStreamHandler {
                         try { zis.close(); } catch (Exception e) {}
                         throw new FileNotFoundException(zipContainer.toString() + '!' + entryName);
                     }
-                    if (ze.getName().equals(entryName)) return zis;
+                    if (ze.getName().equals(entryName)) {
+                        FlightRecorder.INSTANCE.endArchiveOpened(
+                            event,
+                            zipContainer.toString(),
+                            entryName,
+                            entriesSkipped
+                        );
+                        return zis;
+                    }
                 }
             }
         };
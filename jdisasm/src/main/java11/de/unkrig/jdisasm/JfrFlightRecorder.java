@@ -0,0 +1,164 @@
+
+/*
+ * JDISASM - A Java[TM] class file disassembler
+ *
+ * Copyright (c) 2026, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote
+ *       products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.unkrig.jdisasm;
+
+import de.unkrig.commons.nullanalysis.Nullable;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JFR-backed implementation of {@link FlightRecorder}. This class is compiled for Java 11 and only loaded
+ * (reflectively) on JFR-capable runtimes.
+ */
+final
+class JfrFlightRecorder extends FlightRecorder {
+
+    @Name("de.unkrig.jdisasm.ClassDisassembled") @Label("Class Disassembled") @Category("JDISASM")
+    @Description("A class file was disassembled")
+    static
+    class ClassDisassembledEvent extends Event {
+        @Label("Class Name")              String className;
+        @Label("Byte Size") @DataAmount   long   byteSize;
+        @Label("Instruction Count")       long   instructionCount;
+    }
+
+    @Name("de.unkrig.jdisasm.MethodRendered") @Label("Method Rendered") @Category("JDISASM")
+    @Description("The bytecode of a method was disassembled")
+    static
+    class MethodRenderedEvent extends Event {
+        @Label("Class Name")              String className;
+        @Label("Method")                  String methodName;
+        @Label("Bytecode Size") @DataAmount long   byteSize;
+        @Label("Instruction Count")       long   instructionCount;
+    }
+
+    @Name("de.unkrig.jdisasm.SourceFileLoaded") @Label("Source File Loaded") @Category("JDISASM")
+    @Description("A source file was loaded for interweaving it with the disassembly")
+    static
+    class SourceFileLoadedEvent extends Event {
+        @Label("Path")                    String path;
+        @Label("Byte Size") @DataAmount   long   byteSize;
+        @Label("Line Count")              long   lineCount;
+    }
+
+    @Name("de.unkrig.jdisasm.ArchiveOpened") @Label("Archive Opened") @Category("JDISASM")
+    @Description("A ZIP archive was opened, and fast-forwarded to an entry")
+    static
+    class ArchiveOpenedEvent extends Event {
+        @Label("Archive")                 String archive;
+        @Label("Entry Name")              String entryName;
+        @Label("Entries Skipped")         long   entriesSkipped;
+    }
+
+    @Override @Nullable public Object
+    beginClassDisassembled() {
+        ClassDisassembledEvent e = new ClassDisassembledEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override public void
+    endClassDisassembled(@Nullable Object event, String className, long byteSize, long instructionCount) {
+        ClassDisassembledEvent e = (ClassDisassembledEvent) event;
+        assert e != null;
+        e.end();
+        if (!e.shouldCommit()) return;
+        e.className        = className;
+        e.byteSize         = byteSize;
+        e.instructionCount = instructionCount;
+        e.commit();
+    }
+
+    @Override @Nullable public Object
+    beginMethodRendered() {
+        MethodRenderedEvent e = new MethodRenderedEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override public void
+    endMethodRendered(
+        @Nullable Object event,
+        String           className,
+        String           methodName,
+        String           methodDescriptor,
+        long             byteSize,
+        long             instructionCount
+    ) {
+        MethodRenderedEvent e = (MethodRenderedEvent) event;
+        assert e != null;
+        e.end();
+        if (!e.shouldCommit()) return;
+        e.className        = className;
+        e.methodName       = methodName + methodDescriptor;
+        e.byteSize         = byteSize;
+        e.instructionCount = instructionCount;
+        e.commit();
+    }
+
+    @Override @Nullable public Object
+    beginSourceFileLoaded() {
+        SourceFileLoadedEvent e = new SourceFileLoadedEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override public void
+    endSourceFileLoaded(@Nullable Object event, String path, long byteSize, long lineCount) {
+        SourceFileLoadedEvent e = (SourceFileLoadedEvent) event;
+        assert e != null;
+        e.end();
+        if (!e.shouldCommit()) return;
+        e.path      = path;
+        e.byteSize  = byteSize;
+        e.lineCount = lineCount;
+        e.commit();
+    }
+
+    @Override @Nullable public Object
+    beginArchiveOpened() {
+        ArchiveOpenedEvent e = new ArchiveOpenedEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override public void
+    endArchiveOpened(@Nullable Object event, String archive, String entryName, long entriesSkipped) {
+        ArchiveOpenedEvent e = (ArchiveOpenedEvent) event;
+        assert e != null;
+        e.end();
+        if (!e.shouldCommit()) return;
+        e.archive        = archive;
+        e.entryName      = entryName;
+        e.entriesSkipped = entriesSkipped;
+        e.commit();
+    }
+}
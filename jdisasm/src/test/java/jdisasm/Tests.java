@@ -26,14 +26,61 @@
 
 package jdisasm;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import de.unkrig.commons.junit4.AssertRegex;
+import de.unkrig.jdisasm.AbstractDisassemblySink;
+import de.unkrig.jdisasm.BinaryDisassemblyReader;
+import de.unkrig.jdisasm.BytecodeSearcher;
+import de.unkrig.jdisasm.ClassDiff;
+import de.unkrig.jdisasm.ClassFile;
+import de.unkrig.jdisasm.ClassFile.Method;
+import de.unkrig.jdisasm.ClassFile.StackMapFrame;
+import de.unkrig.jdisasm.ClassFile.StackMapFrameVisitor;
+import de.unkrig.jdisasm.ClassFile.VerificationTypeInfo;
+import de.unkrig.jdisasm.ClassFileValidator;
+import de.unkrig.jdisasm.ClassFileValidator.Finding;
+import de.unkrig.jdisasm.ClassFileWalker;
+import de.unkrig.jdisasm.ClassHierarchy;
+import de.unkrig.jdisasm.CodeStatistics;
+import de.unkrig.jdisasm.CodeStatistics.Metric;
+import de.unkrig.jdisasm.ConstantExtractor;
+import de.unkrig.jdisasm.ConstantPoolFilter;
+import de.unkrig.jdisasm.ControlFlowGraph;
+import de.unkrig.jdisasm.CrossReferenceIndex;
+import de.unkrig.jdisasm.CrossReferenceIndex.Reference;
+import de.unkrig.jdisasm.CrossReferenceIndexBuilder;
+import de.unkrig.jdisasm.DependencySummary;
 import de.unkrig.jdisasm.Disassembler;
+import de.unkrig.jdisasm.DisassemblerDaemon;
+import de.unkrig.jdisasm.ErrorSummary;
+import de.unkrig.jdisasm.ErrorSummary.Failure;
+import de.unkrig.jdisasm.FlightRecorder;
+import de.unkrig.jdisasm.Instruction;
+import de.unkrig.jdisasm.IncrementalDisassembler;
+import de.unkrig.jdisasm.MethodFingerprinter;
+import de.unkrig.jdisasm.Metrics;
+import de.unkrig.jdisasm.MetricsCollector;
+import de.unkrig.jdisasm.SignatureParser;
+import de.unkrig.jdisasm.StackMapInterpreter;
 
 public
 class Tests {
@@ -45,6 +92,991 @@ class Tests {
         AssertRegex.assertFind("(?m)^        wide istore     \\[int l270\\]$", output);
     }
 
+    @Test public void
+    testLdiv() throws IOException {
+        String output = Tests.disassemble("target/test-classes/subject/LongDivision.class");
+        AssertRegex.assertFind("(?m)^        ldiv$", output);
+    }
+
+    @Test public void
+    testIncremental() throws IOException {
+
+        File outputDirectory = File.createTempFile("jdisasm", ".out");
+        Assert.assertTrue(outputDirectory.delete());
+        try {
+            IncrementalDisassembler id = new IncrementalDisassembler(new Disassembler(), outputDirectory);
+
+            id.disasm(new File("target/test-classes"));
+            Assert.assertTrue(new File(outputDirectory, "subject/WideLocals.disasm").isFile());
+            AssertRegex.assertMatches("\\d+ added, 0 changed, 0 removed, 0 unchanged", id.toString());
+
+            id.disasm(new File("target/test-classes"));
+            AssertRegex.assertMatches("0 added, 0 changed, 0 removed, \\d+ unchanged", id.toString());
+
+            // The manifest is replaced through a temporary file; a run that died while replacing it leaves the old
+            // manifest as its backup file, which the next run restores.
+            File manifest = new File(outputDirectory, IncrementalDisassembler.MANIFEST_FILE_NAME);
+            Assert.assertFalse(new File(manifest.getPath() + ".tmp").exists());
+            Assert.assertTrue(manifest.renameTo(new File(manifest.getPath() + ".bak")));
+            id.disasm(new File("target/test-classes"));
+            AssertRegex.assertMatches("0 added, 0 changed, 0 removed, \\d+ unchanged", id.toString());
+
+            id.disasm(new File("target/test-classes/subject"));
+            Assert.assertFalse(new File(outputDirectory, "subject/WideLocals.disasm").exists());
+            Assert.assertTrue(new File(outputDirectory, "WideLocals.disasm").isFile());
+        } finally {
+            Tests.deleteRecursively(outputDirectory);
+        }
+    }
+
+    @Test public void
+    testConcurrentRendering() throws Exception {
+
+        final Disassembler d = new Disassembler();
+        d.setSymbolicLabels(true);
+
+        final byte[]    bytes   = Tests.readFully(new File("target/test-classes/subject/WideLocals.class"));
+        final ClassFile cf      = new ClassFile(new DataInputStream(new ByteArrayInputStream(bytes)));
+        final String[]  outputs = new String[8];
+        Thread[]        threads = new Thread[outputs.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+
+                @Override public void
+                run() {
+                    StringWriter sw = new StringWriter();
+                    try {
+                        if (index % 2 == 0) {
+                            d.disasm(new ByteArrayInputStream(bytes), sw);
+                        } else {
+                            d.disasm(cf, sw);
+                        }
+                    } catch (IOException ioe) {
+                        throw new AssertionError(ioe);
+                    }
+                    outputs[index] = sw.toString();
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+
+        AssertRegex.assertFind("(?m)^        wide istore     \\[int l270\\]$", outputs[0]);
+        for (String output : outputs) Assert.assertEquals(outputs[0], output);
+    }
+
+    @Test public void
+    testModelIsUnmodifiable() throws Exception {
+
+        ClassFile cf = new ClassFile(new DataInputStream(new FileInputStream(
+            "target/test-classes/subject/WideLocals.class"
+        )));
+        Method        m     = cf.methods.get(0);
+        List<List<?>> lists = Arrays.<List<?>>asList(
+            cf.methods,
+            cf.allAttributes,
+            m.allAttributes,
+            m.unprocessedAttributes
+        );
+        for (List<?> l : lists) {
+            try {
+                l.clear();
+                Assert.fail("List is modifiable");
+            } catch (UnsupportedOperationException uoe) {}
+        }
+    }
+
+    @Test public void
+    testModelExtensions() {
+
+        // Subclasses and implementors that were written before "toString(SignatureParser)" existed must still work.
+        StackMapFrame frame = new StackMapFrame(7) {
+            @Override public <T> T  accept(StackMapFrameVisitor<T> smfv) { throw new UnsupportedOperationException(); }
+            @Override public String toString()                           { return "my_frame"; }
+        };
+        Assert.assertEquals("my_frame", frame.toString(new SignatureParser()));
+
+        VerificationTypeInfo vti = new VerificationTypeInfo() {
+            @Override public String toString() { return "my_type"; }
+        };
+        Assert.assertEquals("my_type", ClassFile.toString(vti, new SignatureParser()));
+    }
+
+    @Test public void
+    testMetrics() throws IOException {
+
+        File             file  = new File("target/test-classes/subject/WideLocals.class");
+        MetricsCollector stats = new MetricsCollector();
+        Disassembler     d     = new Disassembler();
+        d.setMetrics(stats);
+
+        StringWriter sw = new StringWriter();
+        d.disasm(new FileInputStream(file), sw);
+
+        Assert.assertEquals(1, stats.get(Metrics.Counter.CLASSES));
+        Assert.assertEquals(file.length(), stats.get(Metrics.Counter.INPUT_BYTES));
+        Assert.assertEquals(sw.toString().length(), stats.get(Metrics.Counter.OUTPUT_CHARS));
+        Assert.assertTrue(stats.get(Metrics.Counter.INSTRUCTIONS) > 0);
+        Assert.assertTrue(stats.get(Metrics.Timer.BYTECODE) > 0);
+    }
+
+    @Test public void
+    testJson() throws IOException {
+
+        Disassembler d = new Disassembler();
+        d.setFormat(Disassembler.Format.JSON);
+
+        StringWriter sw = new StringWriter();
+        d.disasm(new FileInputStream("target/test-classes/subject/WideLocals.class"), sw);
+        String output = sw.toString();
+
+        AssertRegex.assertMatches("\\{\"name\":\"subject\\.WideLocals\",[^\n]*\\}\n", output);
+        AssertRegex.assertFind(
+            "\\{\"pc\":\\d+,\"opcode\":196,\"mnemonic\":\"wide istore\",\"operands\":\\[\\{\"local\":272,\"name\":\"l270\"\\}\\]\\}", // SUPPRESS CHECKSTYLE LineLength
+            output
+        );
+    }
+
+    @Test public void
+    testBinary() throws IOException {
+
+        Disassembler d = new Disassembler();
+        d.setFormat(Disassembler.Format.BINARY);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        d.setOut(baos);
+        d.disasm(new File("target/test-classes/subject/WideLocals.class"));
+        d.disasm(new File("target/test-classes/subject/WideLocals.class"));
+
+        BinaryDisassemblyReader r = new BinaryDisassemblyReader(baos.toByteArray());
+        for (int i = 0; i < 2; i++) {
+            Assert.assertTrue(r.nextClass());
+            Assert.assertEquals("subject.WideLocals", r.getString(r.getThisClass()));
+            Assert.assertEquals("java.lang.Object", r.getString(r.getSuperClass()));
+
+            Assert.assertTrue(r.nextMethod());
+            Assert.assertEquals("<init>", r.getString(r.getMethodName()));
+            Assert.assertTrue(r.nextInstruction());
+            Assert.assertTrue(r.nextInstruction());
+            Assert.assertEquals(183, r.getOpcode()); // invokespecial
+            Assert.assertEquals("java.lang.Object", r.getString(r.getConstantClassName(r.getOperand(0))));
+
+            Assert.assertTrue(r.nextMethod());
+            Assert.assertTrue(r.nextMethod());
+            Assert.assertEquals("methodWithManyLocals", r.getString(r.getMethodName()));
+            int wideStores = 0;
+            while (r.nextInstruction()) {
+                if (r.getOpcode() == 0xc436) { // wide istore
+                    Assert.assertEquals(272, r.getOperand(0));
+                    wideStores++;
+                }
+            }
+            Assert.assertEquals(1, wideStores);
+        }
+        Assert.assertFalse(r.nextClass());
+    }
+
+    @Test public void
+    testSink() throws IOException {
+
+        ClassFile cf = new ClassFile(new DataInputStream(new ByteArrayInputStream(
+            Tests.readFully(new File("target/test-classes/subject/WideLocals.class"))
+        )));
+
+        // A sink that only counts; nothing is rendered.
+        final int[] counts = new int[3]; // methods, instructions, "wide istore"s
+        ClassFileWalker walker = new ClassFileWalker(new AbstractDisassemblySink() {
+
+            @Override public void
+            beginMethod(Method method) { counts[0]++; }
+
+            @Override public void
+            instruction(Instruction instruction) {
+                counts[1]++;
+                if (instruction.opcode == 0xc436) { // wide istore
+                    Assert.assertEquals(1, instruction.operandCount);
+                    Assert.assertEquals(272, instruction.operands[0]);
+                    Assert.assertEquals(4, instruction.length);
+                    counts[2]++;
+                }
+            }
+        });
+        walker.walk(cf);
+
+        Assert.assertEquals(3, counts[0]);
+        Assert.assertEquals(walker.getInstructionCount(), counts[1]);
+        Assert.assertEquals(1, counts[2]);
+    }
+
+    @Test public void
+    testSearch() throws IOException {
+
+        StringWriter     sw = new StringWriter();
+        BytecodeSearcher bs = new BytecodeSearcher(sw);
+        bs.addPattern("Object.<init>");
+        bs.addPattern("wide istore");
+        bs.search(new File("target/test-classes/subject/WideLocals.class"));
+
+        AssertRegex.assertMatches(
+            (
+                "subject\\.WideLocals <init>\\(\\)V #1 line \\d+: "
+                + "invokespecial java\\.lang\\.Object\\.<init>\\(\\)V\\r?\\n"
+                + "subject\\.WideLocals methodWithManyLocals\\(I\\)I #\\d+ line \\d+: wide istore\\r?\\n"
+            ),
+            sw.toString()
+        );
+        Assert.assertEquals(2, bs.getHitCount());
+
+        // No constant pool entry can match, so the class is skipped without decoding any bytecode.
+        bs = new BytecodeSearcher(sw);
+        bs.addPattern("java.io.PrintStream.println");
+        bs.search(new File("target/test-classes/subject"));
+        AssertRegex.assertMatches(
+            "0 hits in (\\d+) classes \\(\\1 skipped after the constant pool check\\)",
+            bs.toString()
+        );
+    }
+
+    @Test public void
+    testConstantPoolFilter() throws IOException {
+
+        byte[] bytes = Tests.readFully(new File("target/test-classes/subject/WideLocals.class"));
+
+        ConstantPoolFilter cpf = new ConstantPoolFilter();
+        Assert.assertTrue(cpf.accept(bytes));
+
+        cpf.requireUtf8("WithManyLoc");
+        cpf.requireClass("java.lang.Object");
+        Assert.assertTrue(cpf.accept(bytes));
+
+        cpf.requireUtf8("println");
+        Assert.assertFalse(cpf.accept(bytes));
+
+        cpf = new ConstantPoolFilter();
+        cpf.requireClass("java.io.PrintStream");
+        Assert.assertFalse(cpf.accept(bytes));
+
+        // Is a CONSTANT_Utf8_info, but not referenced by a CONSTANT_Class_info.
+        cpf = new ConstantPoolFilter();
+        cpf.requireClass("methodWithManyLocals");
+        Assert.assertFalse(cpf.accept(bytes));
+
+        // Malformed class files are accepted.
+        Assert.assertTrue(cpf.accept(Arrays.copyOf(bytes, 40)));
+    }
+
+    @Test public void
+    testCrossReferenceIndex() throws IOException {
+
+        File indexFile = File.createTempFile("jdisasm", ".xref");
+        Assert.assertTrue(indexFile.delete());
+        try {
+            CrossReferenceIndexBuilder xib = new CrossReferenceIndexBuilder(indexFile);
+            xib.build(new File("target/test-classes/subject/WideLocals.class"));
+            AssertRegex.assertMatches("\\d+ added, 0 changed, 0 removed, 0 unchanged; .*", xib.toString());
+
+            CrossReferenceIndex xi = CrossReferenceIndex.open(indexFile);
+
+            List<Reference> refs = xi.referencesTo("java.lang.Object");
+            Assert.assertEquals(1, refs.size());
+            Assert.assertEquals("java.lang.Object.<init>()V", refs.get(0).target);
+            Assert.assertEquals("subject.WideLocals.<init>()V", refs.get(0).source);
+            Assert.assertEquals(1, refs.get(0).pc);
+
+            Assert.assertEquals(1, xi.referencesFrom("subject.WideLocals").size());
+            Assert.assertEquals(1, xi.referencesFrom("subject.WideLocals.<init>").size());
+            Assert.assertEquals(0, xi.referencesFrom("subject.WideLocals.methodWithManyLocals(I)I").size());
+
+            // Nothing changed, so nothing is re-indexed.
+            xib.build(new File("target/test-classes/subject/WideLocals.class"));
+            AssertRegex.assertMatches("0 added, 0 changed, 0 removed, \\d+ unchanged; .*", xib.toString());
+
+            // Replace the index while it is open, and after an interrupted replacement of the index file.
+            File backup = new File(indexFile.getPath() + ".bak");
+            Assert.assertTrue(indexFile.renameTo(backup));
+            xib.build(
+                new File("target/test-classes/subject/WideLocals.class"),
+                new File("target/test-classes/subject/ControlFlow.class")
+            );
+            AssertRegex.assertMatches("1 added, 0 changed, 0 removed, 1 unchanged; .*", xib.toString());
+            Assert.assertFalse(backup.exists());
+            Assert.assertEquals(1, xi.referencesFrom("subject.WideLocals").size());
+            Assert.assertEquals(
+                1,
+                CrossReferenceIndex.open(indexFile).referencesFrom("subject.WideLocals.<init>").size()
+            );
+        } finally {
+            indexFile.delete();
+        }
+    }
+
+    @Test public void
+    testClassHierarchy() throws IOException {
+
+        ClassHierarchy ch = ClassHierarchy.build(2, new File("target/test-classes"));
+
+        int object     = ch.getId("java.lang.Object");
+        int wideLocals = ch.getId("subject.WideLocals");
+        Assert.assertFalse(ch.isDefined(object));
+        Assert.assertTrue(ch.isDefined(wideLocals));
+        Assert.assertEquals(object, ch.getSuperclass(wideLocals));
+        Assert.assertEquals(Arrays.toString(new int[] { object }), Arrays.toString(ch.getAllSupertypes(wideLocals)));
+        Assert.assertTrue(Arrays.binarySearch(ch.getAllSubtypes(object), wideLocals) >= 0);
+
+        // The anonymous classes in this test.
+        int   tests  = ch.getId(Tests.class.getName());
+        int[] nested = ch.getNestedClasses(tests);
+        Assert.assertTrue(nested.length > 0);
+        for (int id : nested) Assert.assertEquals(tests, ch.getOuterClass(id));
+    }
+
+    @Test public void
+    testControlFlowGraph() throws IOException {
+
+        ClassFile cf = new ClassFile(new DataInputStream(new ByteArrayInputStream(
+            Tests.readFully(new File("target/test-classes/subject/ControlFlow.class"))
+        )));
+
+        ControlFlowGraph.Builder builder = new ControlFlowGraph.Builder();
+        for (Method m : cf.methods) {
+            ClassFile.CodeAttribute ca = m.codeAttribute;
+            assert ca != null;
+            ControlFlowGraph cfg = builder.build(ca);
+            int[]            idom = cfg.computeImmediateDominators();
+
+            if ("loop".equals(m.name)) {
+
+                // Entry, condition, "if", "sum += i", "i++", "return".
+                Assert.assertEquals(cfg.toString(), 6, cfg.getBlockCount());
+                Assert.assertEquals(1, cfg.getSuccessor(4, 0));
+                Assert.assertEquals(cfg.getStartPc(1), cfg.getStartPc(cfg.getBlockAt(cfg.getEndPc(1) - 1)));
+                Assert.assertEquals(2, cfg.getPredecessorCount(1));
+                Assert.assertEquals(-1, idom[0]);
+                Assert.assertEquals(2, idom[4]);
+                Assert.assertEquals(1, idom[5]);
+            } else
+            if ("tryCatch".equals(m.name)) {
+
+                // Try body, "return", handler.
+                Assert.assertEquals(cfg.toString(), 3, cfg.getBlockCount());
+                Assert.assertEquals(1, cfg.getSuccessor(0, 0));
+                Assert.assertEquals(0, cfg.getExceptionSuccessorCount(1));
+                Assert.assertEquals(2, cfg.getExceptionSuccessor(0, 0));
+                Assert.assertEquals(0, cfg.getExceptionPredecessor(2, 0));
+                Assert.assertEquals(0, idom[2]);
+            }
+        }
+    }
+
+    @Test public void
+    testStackMapInterpreter() throws IOException {
+
+        ClassFile cf = new ClassFile(new DataInputStream(new ByteArrayInputStream(
+            Tests.readFully(new File("target/test-classes/subject/ControlFlow.class"))
+        )));
+
+        StackMapInterpreter smi = new StackMapInterpreter();
+        for (Method m : cf.methods) {
+            ClassFile.CodeAttribute ca = m.codeAttribute;
+            assert ca != null;
+            smi.interpret(m);
+            Assert.assertEquals(ca.maxStack, smi.getMaxStackSize());
+            Assert.assertEquals(ca.maxLocals, smi.getMaxLocalsSize());
+
+            if ("tryCatch".equals(m.name)) {
+
+                // The handler starts with the caught exception on the operand stack.
+                int handler = smi.getInstructionIndex(ca.exceptionTable.get(0).handlerPc);
+                Assert.assertEquals(1, smi.getStackSize(handler));
+                int t = smi.getStackType(handler, 0);
+                Assert.assertEquals(StackMapInterpreter.OBJECT, StackMapInterpreter.getTag(t));
+                Assert.assertEquals("java.lang.NumberFormatException", smi.getClassName(t));
+
+                // "aload_0" loads the "String" parameter.
+                Assert.assertEquals("java.lang.String", smi.getClassName(smi.getStackType(1, 0)));
+            }
+        }
+
+        // Array types are rendered like the other class names, e.g. without the name of the current package.
+        Disassembler d = new Disassembler();
+        d.setPrintStackTypes(true);
+        StringWriter sw = new StringWriter();
+        d.disasm(ClassLoader.getSystemResourceAsStream("java/util/HashMap.class"), sw);
+        String output = sw.toString();
+        Assert.assertTrue(output.contains("// Stack=[HashMap$Node[]]"));
+        Assert.assertFalse(output.contains("java.util.HashMap$Node[]"));
+    }
+
+    @Test public void
+    testClassDiff() throws IOException {
+
+        StringWriter sw = new StringWriter();
+        ClassDiff    cd = new ClassDiff(sw);
+        cd.diff(new File("target/test-classes/subject"), new File("target/test-classes/subject"));
+        Assert.assertEquals("", sw.toString());
+        AssertRegex.assertMatches("0 added, 0 removed, 0 changed, 0 equivalent, \\d+ identical classes", cd.toString());
+
+        // Two single class files are compared even if their names differ; the constructors are equivalent, although
+        // their constant pool indexes differ.
+        sw = new StringWriter();
+        cd = new ClassDiff(sw);
+        cd.diff(
+            new File("target/test-classes/subject/WideLocals.class"),
+            new File("target/test-classes/subject/ControlFlow.class")
+        );
+        Assert.assertEquals((
+            ""
+            + "+ ControlFlow.loop(I)I%n"
+            + "- ControlFlow.methodWithManyLocals(I)I%n"
+            + "- ControlFlow.methodWithOnlyAFewLocals(I)I%n"
+            + "+ ControlFlow.tryCatch(Ljava/lang/String;)I%n"
+        ).replace("%n", System.getProperty("line.separator")), sw.toString());
+        Assert.assertEquals("0 added, 0 removed, 1 changed, 0 equivalent, 0 identical classes", cd.toString());
+    }
+
+    @Test public void
+    testMethodFingerprinter() throws IOException {
+
+        ClassFile cf1 = new ClassFile(new DataInputStream(new ByteArrayInputStream(
+            Tests.readFully(new File("target/test-classes/subject/WideLocals.class"))
+        )));
+        ClassFile cf2 = new ClassFile(new DataInputStream(new ByteArrayInputStream(
+            Tests.readFully(new File("target/test-classes/subject/ControlFlow.class"))
+        )));
+
+        // The constructors are identical, although their constant pool indexes differ.
+        MethodFingerprinter mf    = new MethodFingerprinter();
+        long                init1 = mf.fingerprint(Tests.method(cf1, "<init>"));
+        long                loop  = mf.fingerprint(Tests.method(cf2, "loop"));
+        long                init2 = mf.fingerprint(Tests.method(cf2, "<init>"));
+        Assert.assertEquals(init1, init2);
+        Assert.assertFalse(loop == init2);
+        Assert.assertFalse(loop == mf.fingerprint(Tests.method(cf2, "tryCatch")));
+        Assert.assertEquals(loop, new MethodFingerprinter().fingerprint(Tests.method(cf2, "loop")));
+    }
+
+    @Test public void
+    testDependencySummary() throws IOException {
+
+        DependencySummary ds = DependencySummary.build(
+            2,
+            new File("target/test-classes/subject/ControlFlow.class"),
+            new File("target/test-classes/subject/WideLocals.class")
+        );
+
+        int id = ds.getId("subject.ControlFlow");
+        Assert.assertTrue(ds.isDefined(id));
+        Assert.assertFalse(ds.isDefined(ds.getId("java.lang.Integer")));
+        Assert.assertEquals(new File("target/test-classes/subject/ControlFlow.class").getPath(), ds.getArchive(id));
+
+        StringBuilder sb = new StringBuilder();
+        for (int id2 : ds.getDependencies(id)) sb.append(ds.getName(id2)).append(' ');
+        Assert.assertEquals(
+            "java.lang.Integer java.lang.NumberFormatException java.lang.Object java.lang.String ",
+            sb.toString()
+        );
+
+        // Two classes depend on "java.lang".
+        StringWriter sw = new StringWriter();
+        PrintWriter  pw = new PrintWriter(sw);
+        ds.printEdges(DependencySummary.Granularity.PACKAGE, pw);
+        pw.flush();
+        Assert.assertEquals("subject -> java.lang (5)" + System.getProperty("line.separator"), sw.toString());
+    }
+
+    @Test public void
+    testConstantExtractor() throws IOException {
+
+        File   file = new File("target/test-classes/subject/Constants.class");
+        String nl   = System.getProperty("line.separator");
+
+        StringWriter      sw = new StringWriter();
+        ConstantExtractor ce = new ConstantExtractor(sw);
+        ce.setThreadCount(1);
+        ce.extract(file);
+        Assert.assertEquals((
+            "subject.Constants.GREETING:Ljava/lang/String; \"Hello\\tworld\"" + nl
+            + "subject.Constants.BIG:J 1234567890123L" + nl
+            + "subject.Constants 2.5D" + nl
+            + "subject.Constants \"Hi \"" + nl
+            + "subject.Constants \"!\"" + nl
+        ), sw.toString());
+
+        // With attribution, the constants are attributed to the methods that load them; notice that "BIG" is
+        // inlined into "greet()".
+        sw = new StringWriter();
+        ce = new ConstantExtractor(sw);
+        ce.setAttributeToMethods(true);
+        ce.extract(file);
+        String greet = "subject.Constants.greet(Ljava/lang/String;)Ljava/lang/String; ";
+        Assert.assertEquals((
+            "subject.Constants.GREETING:Ljava/lang/String; \"Hello\\tworld\"" + nl
+            + "subject.Constants.BIG:J 1234567890123L" + nl
+            + "subject.Constants.scale(D)D 2.5D" + nl
+            + greet + "\"Hi \"" + nl
+            + greet + "\"!\"" + nl
+            + greet + "1234567890123L" + nl
+        ), sw.toString());
+        Assert.assertEquals("6 constants in 1 classes", ce.toString());
+
+        // Non-finite values are not rendered as "NaND" or "InfinityD".
+        byte[] ba   = Tests.readFully(file);
+        byte[] bits = { 0x40, 0x04, 0, 0, 0, 0, 0, 0 }; // 2.5
+        int    p;
+        for (p = 0;; p++) {
+            if (Arrays.equals(bits, Arrays.copyOfRange(ba, p, p + 8))) break;
+        }
+        File file2 = File.createTempFile("Constants", ".class");
+        try {
+            for (byte[] value : new byte[][] { { 0x7f, (byte) 0xf8 }, { (byte) 0xff, (byte) 0xf0 } }) {
+                ba[p]     = value[0];
+                ba[p + 1] = value[1];
+                FileOutputStream fos = new FileOutputStream(file2);
+                try { fos.write(ba); } finally { fos.close(); }
+
+                sw = new StringWriter();
+                ce = new ConstantExtractor(sw);
+                ce.setThreadCount(1);
+                ce.extract(file2);
+                AssertRegex.assertFind(
+                    "(?m)^subject\\.Constants " + (value[0] > 0 ? "Double\\.NaN" : "Double\\.NEGATIVE_INFINITY") + "$",
+                    sw.toString()
+                );
+            }
+        } finally {
+            file2.delete();
+        }
+    }
+
+    @Test public void
+    testCodeStatistics() throws IOException {
+
+        CodeStatistics cs = new CodeStatistics();
+        cs.setTopCount(2);
+        cs.collect(new File("target/test-classes/subject/ControlFlow.class"));
+        Assert.assertEquals("3 methods in 1 classes", cs.toString());
+
+        // "loop()" has two conditional branches and a "goto".
+        List<CodeStatistics.Top> top = cs.getTop(Metric.BRANCHES);
+        Assert.assertEquals(2, top.size());
+        Assert.assertEquals("3 subject.ControlFlow.loop(I)I", top.get(0).toString());
+        Assert.assertEquals("0 subject.ControlFlow.<init>()V", top.get(1).toString());
+
+        Assert.assertEquals(
+            "subject.ControlFlow.tryCatch(Ljava/lang/String;)I",
+            cs.getTop(Metric.EXCEPTION_HANDLERS).get(0).name
+        );
+
+        // Histogram buckets: 0, 1, 2-3, 4-7, ...
+        Assert.assertEquals("[2, 0, 1, 0]", Arrays.toString(Arrays.copyOf(cs.getHistogram(Metric.BRANCHES), 4)));
+        Assert.assertEquals(1, cs.getHistogram(Metric.CONSTANT_POOL_SIZE)[6]);
+
+        // Classes in "java.lang" are reported with their fully qualified names.
+        File objectClass = File.createTempFile("Object", ".class");
+        try {
+            InputStream  is = ClassLoader.getSystemResourceAsStream("java/lang/Object.class");
+            OutputStream os = new FileOutputStream(objectClass);
+            try {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = is.read(buffer)) != -1;) os.write(buffer, 0, n);
+            } finally {
+                os.close();
+                is.close();
+            }
+
+            cs = new CodeStatistics();
+            cs.collect(objectClass);
+            Assert.assertEquals("java.lang.Object", cs.getTop(Metric.CONSTANT_POOL_SIZE).get(0).name);
+            AssertRegex.assertMatches("java\\.lang\\.Object\\..*", cs.getTop(Metric.BRANCHES).get(0).name);
+        } finally {
+            objectClass.delete();
+        }
+    }
+
+    @Test public void
+    testClassFileValidator() throws IOException {
+
+        File   file = new File("target/test-classes/subject/ControlFlow.class");
+        byte[] ba   = Tests.readFully(file);
+        Assert.assertEquals("[]", ClassFileValidator.check(ba).toString());
+
+        StringWriter       sw  = new StringWriter();
+        ClassFileValidator cfv = new ClassFileValidator(sw);
+        cfv.validate(file);
+        Assert.assertEquals("", sw.toString());
+        Assert.assertEquals("0 errors and 0 warnings in 0 of 1 classes", cfv.toString());
+
+        // Trailing garbage.
+        Assert.assertEquals(
+            "[ERROR FORMAT subject.ControlFlow: 1 extraneous bytes after the end of the class file]",
+            ClassFileValidator.check(Arrays.copyOf(ba, ba.length + 1)).toString()
+        );
+
+        // Truncation.
+        Assert.assertEquals(
+            "[ERROR FORMAT subject.ControlFlow: Class file truncated]",
+            ClassFileValidator.check(Arrays.copyOf(ba, ba.length - 1)).toString()
+        );
+
+        // A "constant_pool_count" of zero.
+        byte[] ba3 = ba.clone();
+        ba3[8] = (ba3[9] = 0);
+        Assert.assertEquals("[ERROR FORMAT: Invalid constant_pool_count 0]", ClassFileValidator.check(ba3).toString());
+
+        // Let the backward "goto" of "loop()" jump into the middle of the "if_icmpge".
+        ClassFile cf   = new ClassFile(new DataInputStream(new ByteArrayInputStream(ba)));
+        byte[]    code = Tests.method(cf, "loop").codeAttribute.code;
+        int       codeOffset;
+        for (codeOffset = 0;; codeOffset++) {
+            if (Arrays.equals(code, Arrays.copyOfRange(ba, codeOffset, codeOffset + code.length))) break;
+        }
+        int gotoPc = 0;
+        while (code[gotoPc] != (byte) 0xa7) gotoPc++; // goto
+        byte[] ba2 = ba.clone();
+        ba2[codeOffset + gotoPc + 2] += 3;
+
+        List<Finding> findings = ClassFileValidator.check(ba2);
+        Assert.assertEquals(1, findings.size());
+        Finding f = findings.get(0);
+        Assert.assertEquals(ClassFileValidator.Kind.BRANCH_TARGET, f.kind);
+        Assert.assertEquals("loop(I)I", f.member);
+        Assert.assertEquals(gotoPc, f.pc);
+
+        sw  = new StringWriter();
+        cfv = new ClassFileValidator(sw);
+        File file2 = File.createTempFile("ControlFlow", ".class");
+        try {
+            FileOutputStream fos = new FileOutputStream(file2);
+            try { fos.write(ba2); } finally { fos.close(); }
+            cfv.validate(file2);
+        } finally {
+            file2.delete();
+        }
+        Assert.assertEquals((
+            "{\"location\":\""
+            + file2.getPath().replace("\\", "\\\\")
+            + "\",\"severity\":\"ERROR\",\"kind\":\"BRANCH_TARGET\",\"class\":\"subject.ControlFlow\","
+            + "\"member\":\"loop(I)I\",\"pc\":"
+            + gotoPc
+            + ",\"message\":\""
+            + f.message
+            + "\"}"
+            + System.getProperty("line.separator")
+        ), sw.toString());
+        Assert.assertEquals(1, cfv.getInvalidClassCount());
+    }
+
+    @Test public void
+    testKeepGoing() throws IOException {
+
+        File   file = new File("target/test-classes/subject/ControlFlow.class");
+        byte[] ba   = Tests.readFully(file);
+
+        // Let the last instruction of "loop()" exceed the code.
+        ClassFile cf   = new ClassFile(new DataInputStream(new ByteArrayInputStream(ba)));
+        byte[]    code = Tests.method(cf, "loop").codeAttribute.code;
+        int       codeOffset;
+        for (codeOffset = 0;; codeOffset++) {
+            if (Arrays.equals(code, Arrays.copyOfRange(ba, codeOffset, codeOffset + code.length))) break;
+        }
+        byte[] ba2 = ba.clone();
+        ba2[codeOffset + code.length - 1] = 0x11; // sipush
+
+        File badMethod = File.createTempFile("ControlFlow", ".class");
+        File truncated = File.createTempFile("ControlFlow", ".class");
+        try {
+            FileOutputStream fos = new FileOutputStream(badMethod);
+            try { fos.write(ba2); } finally { fos.close(); }
+            fos = new FileOutputStream(truncated);
+            try { fos.write(ba, 0, ba.length / 2); } finally { fos.close(); }
+
+            ErrorSummary errors = new ErrorSummary();
+            StringWriter sw     = new StringWriter();
+            Disassembler d      = new Disassembler();
+            d.setOut(sw);
+            d.setErrorSummary(errors);
+            d.disasm(truncated);
+            d.disasm(badMethod);
+            d.disasm(file);
+
+            // The truncated class file is skipped, the bad method is rendered without its code, and the other
+            // methods are disassembled.
+            String output = sw.toString();
+            AssertRegex.assertFind(
+                "public static int loop\\(int n\\) \\{\\s+// \\*\\*\\* Skipped: [^\\n]*\\s+\\}",
+                output
+            );
+            Assert.assertEquals(2, output.split("Integer\\.parseInt").length - 1);
+            Assert.assertEquals("1 classes and 1 methods failed", errors.toString());
+
+            List<Failure> failures = errors.getFailures();
+            Assert.assertEquals(truncated.getPath(), failures.get(0).location);
+            Assert.assertNull(failures.get(0).member);
+            Assert.assertEquals("subject.ControlFlow", failures.get(1).location);
+            Assert.assertEquals("loop(I)I", failures.get(1).member);
+            Assert.assertEquals(
+                "Instruction at offset " + (code.length - 1) + " exceeds the code",
+                failures.get(1).message
+            );
+
+            // The same for the BINARY format: No record for the truncated class file, and no instructions for the bad
+            // method.
+            errors = new ErrorSummary();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            d = new Disassembler();
+            d.setFormat(Disassembler.Format.BINARY);
+            d.setOut(baos);
+            d.setErrorSummary(errors);
+            d.disasm(truncated);
+            d.disasm(badMethod);
+            d.disasm(file);
+            Assert.assertEquals("1 classes and 1 methods failed", errors.toString());
+
+            BinaryDisassemblyReader r = new BinaryDisassemblyReader(baos.toByteArray());
+            for (boolean bad : new boolean[] { true, false }) {
+                Assert.assertTrue(r.nextClass());
+                boolean found = false;
+                while (r.nextMethod()) {
+                    if (!"loop".equals(r.getString(r.getMethodName()))) continue;
+                    Assert.assertEquals(!bad, r.nextInstruction());
+                    found = true;
+                }
+                Assert.assertTrue(found);
+            }
+            Assert.assertFalse(r.nextClass());
+
+            // The same for the JSON format: The instructions of the bad method end before the failure, and are
+            // followed by the error message.
+            errors = new ErrorSummary();
+            sw     = new StringWriter();
+            d      = new Disassembler();
+            d.setFormat(Disassembler.Format.JSON);
+            d.setOut(sw);
+            d.setErrorSummary(errors);
+            d.disasm(badMethod);
+            Assert.assertEquals("0 classes and 1 methods failed", errors.toString());
+            AssertRegex.assertFind(
+                "\"name\":\"loop\",[^\\n]*\"instructions\":\\[\\{[^\\n]*\\}\\],\"error\":\"[^\"]*exceeds the code\"",
+                sw.toString()
+            );
+
+            // The same for the class file scanner.
+            errors = new ErrorSummary();
+            CodeStatistics cs = new CodeStatistics();
+            cs.setErrorSummary(errors);
+            cs.collect(truncated, file);
+            Assert.assertEquals(1, cs.getClassCount());
+            Assert.assertEquals("1 classes and 0 methods failed", errors.toString());
+        } finally {
+            badMethod.delete();
+            truncated.delete();
+        }
+    }
+
+    @Test public void
+    testFlightRecorderFallback() throws Exception {
+
+        // Load the jdisasm classes through a class loader that hides the JFR-backed implementation, like on runtimes
+        // without JFR.
+        final ClassLoader parent = Tests.class.getClassLoader();
+        ClassLoader       cl     = new ClassLoader(parent) {
+
+            @Override protected Class<?>
+            loadClass(String name, boolean resolve) throws ClassNotFoundException {
+
+                if (!name.startsWith("de.unkrig.jdisasm.")) return super.loadClass(name, resolve);
+                if (name.startsWith("de.unkrig.jdisasm.JfrFlightRecorder")) throw new ClassNotFoundException(name);
+
+                Class<?> c = this.findLoadedClass(name);
+                if (c != null) return c;
+
+                InputStream is = parent.getResourceAsStream(name.replace('.', '/') + ".class");
+                if (is == null) throw new ClassNotFoundException(name);
+                try {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    byte[]                buffer = new byte[4096];
+                    for (int n; (n = is.read(buffer)) != -1;) baos.write(buffer, 0, n);
+                    return this.defineClass(name, baos.toByteArray(), 0, baos.size());
+                } catch (IOException ioe) {
+                    throw new ClassNotFoundException(name, ioe);
+                } finally {
+                    try { is.close(); } catch (IOException ex) {}
+                }
+            }
+        };
+
+        Class<?> c = cl.loadClass("de.unkrig.jdisasm.FlightRecorder");
+        Assert.assertNotSame(FlightRecorder.class, c);
+        Object nop = c.getField("NOP").get(null);
+        Assert.assertNotNull(nop);
+        Assert.assertSame(nop, c.getField("INSTANCE").get(null));
+    }
+
+    @Test public void
+    testDaemonAuthentication() throws Exception {
+
+        File secretFile = File.createTempFile("jdisasm", ".secret");
+        try {
+            final String       secret       = DisassemblerDaemon.createSecret(secretFile);
+            final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+            Thread             server       = new Thread() {
+
+                @Override public void
+                run() {
+                    try {
+                        DisassemblerDaemon.serve(serverSocket, 1, secret, 500);
+                    } catch (IOException ioe) {
+                        throw new RuntimeException(ioe);
+                    }
+                }
+            };
+            server.start();
+            try {
+                int    port   = serverSocket.getLocalPort();
+                String class1 = "target/test-classes/subject/ControlFlow.class";
+
+                Assert.assertEquals(secret, DisassemblerDaemon.readSecret(secretFile));
+
+                AssertRegex.assertMatches(
+                    "--- STDERR\\s+\\*\\*\\* Error: Wrong secret.*\\s+--- exit status 1",
+                    Tests.daemonRequest(port, "nosecret", class1)
+                );
+                AssertRegex.assertMatches(
+                    "--- STDERR\\s+\"-o\" is not allowed in server mode.*\\s+--- exit status 1",
+                    Tests.daemonRequest(port, secret, "-o", "x.disasm", class1)
+                );
+                AssertRegex.assertMatches(
+                    "--- STDERR\\s+\"-xref\" is not allowed in server mode.*\\s+--- exit status 1",
+                    Tests.daemonRequest(port, secret, "-verbose", "-xref", "x.xref", class1)
+                );
+
+                // An option argument that happens to look like a file-writing option is fine.
+                AssertRegex.assertMatches(
+                    "(?s).*\\npublic class ControlFlow .*--- STDERR\\s+--- exit status 0",
+                    Tests.daemonRequest(port, secret, "-src", "-o", class1)
+                );
+                AssertRegex.assertMatches(
+                    "(?s).*\\npublic class ControlFlow .*--- STDERR\\s+--- exit status 0",
+                    Tests.daemonRequest(port, secret, class1)
+                );
+                AssertRegex.assertMatches(
+                    "--- STDERR\\s+Unrecognized command line option.*\\s+--- exit status 1",
+                    Tests.daemonRequest(port, secret, "-nosuchoption", class1)
+                );
+                AssertRegex.assertMatches(
+                    "--- STDERR\\s+\"-constants\" and \"-validate\" are mutually exclusive.*\\s+--- exit status 1",
+                    Tests.daemonRequest(port, secret, "-validate", "-constants", class1)
+                );
+                AssertRegex.assertMatches(
+                    "--- STDERR\\s+Input files missing.*\\s+--- exit status 1",
+                    Tests.daemonRequest(port, secret, "-code-stats")
+                );
+                AssertRegex.assertMatches(
+                    "(?s).*\\npublic class ControlFlow .*"
+                    + "--- STDERR\\s+1 classes and 0 methods failed.*--- exit status 1",
+                    Tests.daemonRequest(port, secret, "-keep-going", class1, "pom.xml")
+                );
+
+                // An idle, unauthenticated connection must not block the only worker thread forever.
+                Socket idle = new Socket(InetAddress.getByName(null), port);
+                try {
+                    AssertRegex.assertMatches(
+                        "(?s).*\\npublic class ControlFlow .*--- STDERR\\s+--- exit status 0",
+                        Tests.daemonRequest(port, secret, class1)
+                    );
+                } finally {
+                    idle.close();
+                }
+
+                // An overlong line must be rejected before it is read completely.
+                char[] longSecret = new char[257];
+                Arrays.fill(longSecret, 'x');
+                AssertRegex.assertMatches(
+                    "--- STDERR\\s+\\*\\*\\* Error: Invalid request: Request line exceeds 256 bytes\\s+"
+                    + "--- exit status 1",
+                    Tests.daemonResponse(port, (
+                        DisassemblerDaemon.PROTOCOL_VERSION
+                        + "\n"
+                        + new String(longSecret)
+                    ).getBytes("UTF-8"))
+                );
+            } finally {
+                serverSocket.close();
+                server.join();
+            }
+        } finally {
+            secretFile.delete();
+        }
+    }
+
+    private static String
+    daemonRequest(int port, String secret, String... args) throws IOException {
+        StringBuilder request = new StringBuilder()
+        .append(DisassemblerDaemon.PROTOCOL_VERSION).append('\n')
+        .append(secret).append('\n')
+        .append(new File("").getAbsolutePath()).append('\n');
+        for (String arg : args) request.append(arg).append('\n');
+        request.append('\n');
+
+        return Tests.daemonResponse(port, request.toString().getBytes("UTF-8"));
+    }
+
+    /**
+     * Sends the raw <var>request</var> to the daemon, and decodes its response records.
+     */
+    private static String
+    daemonResponse(int port, byte[] request) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName(null), port);
+        try {
+            socket.getOutputStream().write(request);
+            socket.shutdownOutput();
+
+            // Decode the response records.
+            DataInputStream dis    = new DataInputStream(socket.getInputStream());
+            StringBuilder   stdout = new StringBuilder(), stderr = new StringBuilder();
+            for (;;) {
+                int type = dis.readUnsignedByte();
+                if (type == 'X') return stdout + "--- STDERR\n" + stderr + "--- exit status " + dis.readUnsignedByte();
+
+                byte[] data = new byte[dis.readInt()];
+                dis.readFully(data);
+                (type == 'E' ? stderr : stdout).append(new String(data, "UTF-8"));
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static Method
+    method(ClassFile cf, String name) {
+        for (Method m : cf.methods) {
+            if (m.name.equals(name)) return m;
+        }
+        throw new AssertionError(name);
+    }
+
+    private static void
+    deleteRecursively(File file) {
+        File[] members = file.listFiles();
+        if (members != null) {
+            for (File member : members) Tests.deleteRecursively(member);
+        }
+        file.delete();
+    }
+
+    private static byte[]
+    readFully(File file) throws IOException {
+        DataInputStream dis = new DataInputStream(new FileInputStream(file));
+        try {
+            byte[] result = new byte[(int) file.length()];
+            dis.readFully(result);
+            return result;
+        } finally {
+            dis.close();
+        }
+    }
+
     private static String
     disassemble(String path) throws IOException {
 